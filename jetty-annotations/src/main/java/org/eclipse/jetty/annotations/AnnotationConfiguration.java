@@ -35,9 +35,12 @@ import java.util.ServiceLoader;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Pattern;
 import javax.servlet.ServletContainerInitializer;
 import javax.servlet.annotation.HandlesTypes;
@@ -60,6 +63,7 @@ import org.eclipse.jetty.webapp.FragmentDescriptor;
 import org.eclipse.jetty.webapp.JettyWebXmlConfiguration;
 import org.eclipse.jetty.webapp.MetaDataComplete;
 import org.eclipse.jetty.webapp.MetaInfConfiguration;
+import org.eclipse.jetty.webapp.ScanCache;
 import org.eclipse.jetty.webapp.WebAppContext;
 import org.eclipse.jetty.webapp.WebDescriptor;
 import org.eclipse.jetty.webapp.WebXmlConfiguration;
@@ -426,7 +430,8 @@ public class AnnotationConfiguration extends AbstractConfiguration
         Object target = context.getAttribute(JavaVersion.JAVA_TARGET_PLATFORM);
         if (target != null)
             javaPlatform = Integer.parseInt(target.toString());
-        AnnotationParser parser = createAnnotationParser(javaPlatform);
+        ScanCache scanCache = ScanCache.getScanCache(context);
+        AnnotationParser parser = scanCache == null ? createAnnotationParser(javaPlatform) : createAnnotationParser(javaPlatform, scanCache);
         _parserTasks = new ArrayList<ParserTask>();
 
         if (LOG.isDebugEnabled())
@@ -448,40 +453,53 @@ public class AnnotationConfiguration extends AbstractConfiguration
 
         long start = System.nanoTime();
 
-        //execute scan, either effectively synchronously (1 thread only), or asynchronously (limited by number of processors available) 
-        final Semaphore task_limit = (isUseMultiThreading(context) ? new Semaphore(ProcessorUtils.availableProcessors()) : new Semaphore(1));
-        final CountDownLatch latch = new CountDownLatch(_parserTasks.size());
+        //execute scan, either effectively synchronously (1 thread only), or in a work-stealing pool sized to
+        //the number of processors available, in which case the parser also splits each jar and directory
         final MultiException me = new MultiException();
-
-        for (final ParserTask p : _parserTasks)
+        boolean timeout = false;
+        ForkJoinPool pool = newScanPool(context);
+        try
         {
-            task_limit.acquire();
-            context.getServer().getThreadPool().execute(new Runnable()
+            List<ForkJoinTask<Void>> tasks = new ArrayList<>(_parserTasks.size());
+            for (ParserTask p : _parserTasks)
+            {
+                tasks.add(pool.submit(p));
+            }
+
+            long deadline = start + TimeUnit.SECONDS.toNanos(getMaxScanWait(context));
+            for (ForkJoinTask<Void> task : tasks)
             {
-                @Override
-                public void run()
+                try
                 {
-                    try
-                    {
-                        p.call();
-                    }
-                    catch (Exception e)
-                    {
-                        me.add(e);
-                    }
-                    finally
-                    {
-                        task_limit.release();
-                        latch.countDown();
-                    }
+                    task.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
                 }
-            });
+                catch (ExecutionException e)
+                {
+                    me.add(e.getCause());
+                }
+                catch (TimeoutException e)
+                {
+                    timeout = true;
+                    break;
+                }
+            }
+        }
+        finally
+        {
+            pool.shutdownNow();
         }
 
-        boolean timeout = !latch.await(getMaxScanWait(context), TimeUnit.SECONDS);
         long elapsedMs = TimeUnit.MILLISECONDS.convert(System.nanoTime() - start, TimeUnit.NANOSECONDS);
 
-        LOG.info("Annotation scanning elapsed time={}ms", elapsedMs);
+        if (parser instanceof CachingAnnotationParser)
+        {
+            CachingAnnotationParser cachingParser = (CachingAnnotationParser)parser;
+            LOG.info("Annotation scanning elapsed time={}ms, cached={}, scanned={}", elapsedMs, cachingParser.getHits(), cachingParser.getMisses());
+        }
+        else
+        {
+            LOG.info("Annotation scanning elapsed time={}ms", elapsedMs);
+        }
 
         if (LOG.isDebugEnabled())
         {
@@ -503,6 +521,26 @@ public class AnnotationConfiguration extends AbstractConfiguration
         me.ifExceptionThrow();
     }
 
+    /**
+     * @param context the context for the scan
+     * @return a new pool to run the {@link ParserTask}s, with a parallelism of 1 if
+     * multi threaded scanning is disabled
+     */
+    protected ForkJoinPool newScanPool(WebAppContext context)
+    {
+        int parallelism = isUseMultiThreading(context) ? ProcessorUtils.availableProcessors() : 1;
+        // Handlers may need the context classloader of the deployer, rather than the system one.
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        ForkJoinPool.ForkJoinWorkerThreadFactory factory = pool ->
+        {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("annotation-scan-" + thread.getPoolIndex());
+            thread.setContextClassLoader(loader);
+            return thread;
+        };
+        return new ForkJoinPool(parallelism, factory, null, false);
+    }
+
     /**
      * @param javaPlatform The java platform to scan for.
      * @return a new AnnotationParser. This method can be overridden to use a different implementation of
@@ -513,6 +551,18 @@ public class AnnotationConfiguration extends AbstractConfiguration
         return new AnnotationParser(javaPlatform);
     }
 
+    /**
+     * @param javaPlatform The java platform to scan for.
+     * @param scanCache The persistent cache of the scanned jars and directories.
+     * @return a new AnnotationParser that only parses the jars and directories that are
+     * not in the given cache. Note that this is considered internal API.
+     * @see ScanCache#SCAN_CACHE
+     */
+    protected AnnotationParser createAnnotationParser(int javaPlatform, ScanCache scanCache)
+    {
+        return new CachingAnnotationParser(javaPlatform, scanCache);
+    }
+
     /**
      * Check if we should use multiple threads to scan for annotations or not
      *
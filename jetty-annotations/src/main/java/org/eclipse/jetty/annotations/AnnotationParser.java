@@ -18,20 +18,30 @@
 
 package org.eclipse.jetty.annotations;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URL;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
+import org.eclipse.jetty.util.IO;
 import org.eclipse.jetty.util.JavaVersion;
 import org.eclipse.jetty.util.Loader;
 import org.eclipse.jetty.util.ManifestUtils;
@@ -78,6 +88,7 @@ public class AnnotationParser
      */
     protected Map<String, Resource> _parsedClassNames = new ConcurrentHashMap<>();
     private final int _javaPlatform;
+    private int _batchSize = 64;
     private int _asmVersion;
 
     /**
@@ -776,7 +787,10 @@ public class AnnotationParser
     }
 
     /**
-     * Parse all classes in a directory
+     * Parse all classes in a directory.
+     * <p>When called from a {@link ForkJoinPool} with a parallelism greater than 1,
+     * the class files are split in batches of {@link #getBatchSize()} files that are
+     * parsed by forked tasks.</p>
      *
      * @param handlers the set of handlers to look for classes in
      * @param root the resource directory to look for classes
@@ -796,49 +810,78 @@ public class AnnotationParser
         Collection<Resource> resources = root.getAllResources();
         if (resources != null)
         {
-            for (Resource r : resources)
+            if (isParallel())
             {
-                if (r.isDirectory())
-                    continue;
-
-                File file = r.getFile();
-                if (isValidClassFileName((file == null ? null : file.getName())))
+                Batches<Resource> batches = new Batches<>(r -> parseDirEntry(handlers, rootFile, r));
+                for (Resource r : resources)
+                {
+                    batches.add(r);
+                }
+                batches.join(me);
+            }
+            else
+            {
+                for (Resource r : resources)
                 {
-                    Path classpath = rootFile.toPath().relativize(file.toPath());
-                    String str = classpath.toString();
-                    str = str.substring(0, str.lastIndexOf(".class"));
-                    str = StringUtil.replace(str, File.separatorChar, '.');
-
                     try
                     {
-                        if (LOG.isDebugEnabled())
-                            LOG.debug("Scanning class {}", r);
-                        addParsedClass(str, r);
-                        try (InputStream is = r.getInputStream())
-                        {
-                            scanClass(handlers, Resource.newResource(file.getParentFile()), is);
-                        }
+                        parseDirEntry(handlers, rootFile, r);
                     }
                     catch (Exception ex)
                     {
-                        if (LOG.isDebugEnabled())
-                            LOG.debug("Error scanning file " + file, ex);
-                        me.add(new RuntimeException("Error scanning file " + file, ex));
+                        me.add(ex);
                     }
                 }
-                else
-                {
-                    if (LOG.isDebugEnabled())
-                        LOG.debug("Skipping scan on invalid file {}", file);
-                }
             }
         }
 
         me.ifExceptionThrow();
     }
 
+    private void parseDirEntry(Set<? extends Handler> handlers, File rootFile, Resource r) throws Exception
+    {
+        if (r.isDirectory())
+            return;
+
+        File file = r.getFile();
+        if (isValidClassFileName((file == null ? null : file.getName())))
+        {
+            Path classpath = rootFile.toPath().relativize(file.toPath());
+            String str = classpath.toString();
+            str = str.substring(0, str.lastIndexOf(".class"));
+            str = StringUtil.replace(str, File.separatorChar, '.');
+
+            try
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Scanning class {}", r);
+                addParsedClass(str, r);
+                try (InputStream is = r.getInputStream())
+                {
+                    scanClass(handlers, Resource.newResource(file.getParentFile()), is);
+                }
+            }
+            catch (Exception ex)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Error scanning file " + file, ex);
+                throw new RuntimeException("Error scanning file " + file, ex);
+            }
+        }
+        else
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Skipping scan on invalid file {}", file);
+        }
+    }
+
     /**
      * Parse a resource that is a jar file.
+     * <p>When called from a {@link ForkJoinPool} with a parallelism greater than 1,
+     * the entries are inflated by the calling thread and parsed in batches of
+     * {@link #getBatchSize()} classes by forked tasks, so that a single large jar is
+     * parsed by multiple threads. In this case {@link #parseJarEntry(Set, Resource, MultiReleaseJarFile.VersionedJarEntry)}
+     * is not called.</p>
      *
      * @param handlers the handlers to look for classes in
      * @param jarResource the jar resource to parse
@@ -857,17 +900,40 @@ public class AnnotationParser
             MultiException me = new MultiException();
             try (MultiReleaseJarFile jarFile = new MultiReleaseJarFile(jarResource.getFile(), _javaPlatform, false))
             {
-                jarFile.stream().forEach(e ->
+                if (isParallel())
                 {
-                    try
+                    Batches<JarEntryBytes> batches = new Batches<>(e -> parseJarEntryBytes(handlers, jarResource, e));
+                    Iterator<MultiReleaseJarFile.VersionedJarEntry> entries = jarFile.stream().iterator();
+                    while (entries.hasNext())
                     {
-                        parseJarEntry(handlers, jarResource, e);
+                        MultiReleaseJarFile.VersionedJarEntry e = entries.next();
+                        if (e.isDirectory() || !isValidClassFileName(e.getName()) || !isValidClassFilePath(e.getName()))
+                            continue;
+                        try (InputStream is = e.getInputStream())
+                        {
+                            batches.add(new JarEntryBytes(e.getName(), e.getNameInJar(), IO.readBytes(is)));
+                        }
+                        catch (Exception ex)
+                        {
+                            me.add(new RuntimeException("Error scanning entry " + e.getName() + " from jar " + jarResource, ex));
+                        }
                     }
-                    catch (Exception ex)
+                    batches.join(me);
+                }
+                else
+                {
+                    jarFile.stream().forEach(e ->
                     {
-                        me.add(new RuntimeException("Error scanning entry " + e.getName() + " from jar " + jarResource, ex));
-                    }
-                });
+                        try
+                        {
+                            parseJarEntry(handlers, jarResource, e);
+                        }
+                        catch (Exception ex)
+                        {
+                            me.add(new RuntimeException("Error scanning entry " + e.getName() + " from jar " + jarResource, ex));
+                        }
+                    });
+                }
             }
             me.ifExceptionThrow();
         }
@@ -907,6 +973,50 @@ public class AnnotationParser
         }
     }
 
+    private void parseJarEntryBytes(Set<? extends Handler> handlers, Resource jar, JarEntryBytes entry) throws Exception
+    {
+        try
+        {
+            String shortName = StringUtil.replace(entry._name, '/', '.').substring(0, entry._name.length() - 6);
+            addParsedClass(shortName, Resource.newResource("jar:" + jar.getURI() + "!/" + entry._nameInJar));
+            if (LOG.isDebugEnabled())
+                LOG.debug("Scanning class from jar {}!/{}", jar, entry._nameInJar);
+            scanClass(handlers, jar, new ByteArrayInputStream(entry._bytes));
+        }
+        catch (Exception ex)
+        {
+            throw new RuntimeException("Error scanning entry " + entry._name + " from jar " + jar, ex);
+        }
+    }
+
+    /**
+     * @return whether the current thread belongs to a {@link ForkJoinPool} that can
+     * parse the classes of a jar or directory in parallel
+     */
+    private static boolean isParallel()
+    {
+        ForkJoinPool pool = ForkJoinTask.getPool();
+        return pool != null && ForkJoinTask.inForkJoinPool() && pool.getParallelism() > 1;
+    }
+
+    /**
+     * @return the number of classes of a jar or directory parsed by each forked task
+     */
+    public int getBatchSize()
+    {
+        return _batchSize;
+    }
+
+    /**
+     * @param batchSize the number of classes of a jar or directory parsed by each forked task
+     */
+    public void setBatchSize(int batchSize)
+    {
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("Invalid batch size " + batchSize);
+        _batchSize = batchSize;
+    }
+
     /**
      * Use ASM on a class
      *
@@ -999,4 +1109,88 @@ public class AnnotationParser
 
         return true;
     }
+
+    private interface EntryParser<T>
+    {
+        void parse(T entry) throws Exception;
+    }
+
+    /**
+     * <p>Groups the entries of a jar or directory in batches that are parsed by
+     * forked tasks. The number of batches not yet joined is bounded, so that the
+     * bytes of a large jar are not all held in memory when the inflating thread
+     * is faster than the parsing threads.</p>
+     */
+    private class Batches<T>
+    {
+        private final Deque<ForkJoinTask<?>> _tasks = new ArrayDeque<>();
+        private final Queue<Throwable> _failures = new ConcurrentLinkedQueue<>();
+        private final EntryParser<T> _parser;
+        private final int _maxPending;
+        private List<T> _batch;
+
+        private Batches(EntryParser<T> parser)
+        {
+            _parser = parser;
+            _maxPending = 4 * ForkJoinTask.getPool().getParallelism();
+        }
+
+        private void add(T entry)
+        {
+            if (_batch == null)
+                _batch = new ArrayList<>(_batchSize);
+            _batch.add(entry);
+            if (_batch.size() >= _batchSize)
+                fork();
+        }
+
+        private void fork()
+        {
+            List<T> batch = _batch;
+            _batch = null;
+            if (_tasks.size() >= _maxPending)
+                _tasks.poll().join();
+            _tasks.add(ForkJoinTask.adapt(() ->
+            {
+                for (T entry : batch)
+                {
+                    try
+                    {
+                        _parser.parse(entry);
+                    }
+                    catch (Throwable x)
+                    {
+                        _failures.add(x);
+                    }
+                }
+            }).fork());
+        }
+
+        private void join(MultiException me)
+        {
+            if (_batch != null)
+                fork();
+            ForkJoinTask<?> task = _tasks.poll();
+            while (task != null)
+            {
+                task.join();
+                task = _tasks.poll();
+            }
+            _failures.forEach(me::add);
+        }
+    }
+
+    private static class JarEntryBytes
+    {
+        private final String _name;
+        private final String _nameInJar;
+        private final byte[] _bytes;
+
+        private JarEntryBytes(String name, String nameInJar, byte[] bytes)
+        {
+            _name = name;
+            _nameInJar = nameInJar;
+            _bytes = bytes;
+        }
+    }
 }
@@ -0,0 +1,523 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.annotations;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.JavaVersion;
+import org.eclipse.jetty.util.StringUtil;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.util.resource.Resource;
+import org.eclipse.jetty.webapp.ScanCache;
+
+/**
+ * <p>An {@link AnnotationParser} that stores the classes and annotations found in
+ * each jar or directory in a {@link ScanCache}, and replays them to the handlers
+ * instead of parsing again the jars and directories that did not change.</p>
+ * <p>What is stored does not depend on the handlers: every class is recorded, along
+ * with the annotations of the class and of its methods and fields, which is all that
+ * the {@link Handler}s are notified of. Replaying a cache entry is therefore equivalent
+ * to parsing, including for the class hierarchy needed to match the
+ * {@code @HandlesTypes} of {@code ServletContainerInitializer}s.</p>
+ */
+public class CachingAnnotationParser extends AnnotationParser
+{
+    private static final Logger LOG = Log.getLogger(CachingAnnotationParser.class);
+
+    private final ScanCache _scanCache;
+    private final String _type;
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+
+    /**
+     * @param javaPlatform The target java version or 0 for the current runtime.
+     * @param scanCache the cache of the parsed jars and directories
+     */
+    public CachingAnnotationParser(int javaPlatform, ScanCache scanCache)
+    {
+        super(javaPlatform);
+        _scanCache = scanCache;
+        // Multi-release jars have different classes for different platforms.
+        _type = "annotations-" + (javaPlatform == 0 ? JavaVersion.VERSION.getPlatform() : javaPlatform);
+    }
+
+    /**
+     * @return the number of jars and directories replayed from the cache
+     */
+    public long getHits()
+    {
+        return _hits.longValue();
+    }
+
+    /**
+     * @return the number of jars and directories that were parsed
+     */
+    public long getMisses()
+    {
+        return _misses.longValue();
+    }
+
+    @Override
+    public void parse(Set<? extends Handler> handlers, Resource r) throws Exception
+    {
+        if (r == null)
+            return;
+
+        boolean directory = r.exists() && r.isDirectory();
+        if (!directory && !r.toString().endsWith(".jar"))
+        {
+            super.parse(handlers, r);
+            return;
+        }
+
+        String key = _scanCache.getKey(r, _type);
+        if (key == null)
+        {
+            super.parse(handlers, r);
+            return;
+        }
+
+        List<ClassRecord> classes = _scanCache.load(key, CachingAnnotationParser::read);
+        if (classes != null)
+        {
+            _hits.increment();
+            if (LOG.isDebugEnabled())
+                LOG.debug("Replaying {} classes of {}", classes.size(), r);
+            for (ClassRecord record : classes)
+            {
+                record.replay(this, handlers, r, directory);
+            }
+            return;
+        }
+
+        _misses.increment();
+        Recorder recorder = new Recorder(r, directory);
+        Set<Handler> recording = new HashSet<>(handlers);
+        recording.add(recorder);
+        long start = System.nanoTime();
+        super.parse(recording, r);
+        _scanCache.onScanned(r, _type, System.nanoTime() - start);
+        _scanCache.store(key, output -> write(output, recorder._classes.values()));
+    }
+
+    private static List<ClassRecord> read(DataInputStream input) throws IOException
+    {
+        int count = input.readInt();
+        List<ClassRecord> classes = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i)
+        {
+            classes.add(ClassRecord.read(input));
+        }
+        return classes;
+    }
+
+    private static void write(DataOutputStream output, Collection<ClassRecord> classes) throws IOException
+    {
+        output.writeInt(classes.size());
+        for (ClassRecord record : classes)
+        {
+            record.write(output);
+        }
+    }
+
+    private static String readString(DataInputStream input) throws IOException
+    {
+        return input.readBoolean() ? input.readUTF() : null;
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException
+    {
+        output.writeBoolean(value != null);
+        if (value != null)
+            output.writeUTF(value);
+    }
+
+    private static String[] readStrings(DataInputStream input) throws IOException
+    {
+        int count = input.readInt();
+        if (count < 0)
+            return null;
+        String[] values = new String[count];
+        for (int i = 0; i < count; ++i)
+        {
+            values[i] = readString(input);
+        }
+        return values;
+    }
+
+    private static void writeStrings(DataOutputStream output, String[] values) throws IOException
+    {
+        if (values == null)
+        {
+            output.writeInt(-1);
+            return;
+        }
+        output.writeInt(values.length);
+        for (String value : values)
+        {
+            writeString(output, value);
+        }
+    }
+
+    private static List<String> readList(DataInputStream input) throws IOException
+    {
+        int count = input.readInt();
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i)
+        {
+            values.add(input.readUTF());
+        }
+        return values;
+    }
+
+    private static void writeList(DataOutputStream output, List<String> values) throws IOException
+    {
+        output.writeInt(values.size());
+        for (String value : values)
+        {
+            output.writeUTF(value);
+        }
+    }
+
+    /**
+     * Records the notifications of the parser for a jar or directory.
+     * The classes of a jar or directory may be parsed concurrently, but
+     * each class is parsed by a single thread, so the record of a class
+     * is only looked up by the thread that parses it.
+     */
+    private class Recorder extends AbstractHandler
+    {
+        private final Map<ClassInfo, ClassRecord> _classes = new ConcurrentHashMap<>();
+        private final File _root;
+
+        private Recorder(Resource root, boolean directory) throws IOException
+        {
+            _root = directory ? root.getFile() : null;
+        }
+
+        @Override
+        public void handle(ClassInfo classInfo)
+        {
+            _classes.put(classInfo, new ClassRecord(classInfo, container(classInfo.getContainingResource())));
+        }
+
+        @Override
+        public void handle(ClassInfo info, String annotationName)
+        {
+            _classes.get(info)._annotations.add(annotationName);
+        }
+
+        @Override
+        public void handle(MethodInfo info, String annotationName)
+        {
+            ClassRecord record = _classes.get(info.getClassInfo());
+            MemberRecord method = record._lastMethod;
+            if (method == null || method._info != info)
+            {
+                method = new MemberRecord(info);
+                record._methods.add(method);
+                record._lastMethod = method;
+            }
+            method._annotations.add(annotationName);
+        }
+
+        @Override
+        public void handle(FieldInfo info, String annotationName)
+        {
+            ClassRecord record = _classes.get(info.getClassInfo());
+            MemberRecord field = record._lastField;
+            if (field == null || field._info != info)
+            {
+                field = new MemberRecord(info);
+                record._fields.add(field);
+                record._lastField = field;
+            }
+            field._annotations.add(annotationName);
+        }
+
+        private String container(Resource resource)
+        {
+            if (_root == null || resource == null)
+                return null;
+            try
+            {
+                File file = resource.getFile();
+                if (file == null)
+                    return null;
+                return StringUtil.replace(_root.toPath().relativize(file.toPath()).toString(), File.separatorChar, '/');
+            }
+            catch (IOException x)
+            {
+                LOG.ignore(x);
+                return null;
+            }
+        }
+    }
+
+    private static class ClassRecord
+    {
+        private final List<String> _annotations = new ArrayList<>();
+        private final List<MemberRecord> _methods = new ArrayList<>();
+        private final List<MemberRecord> _fields = new ArrayList<>();
+        private String _container;
+        private String _className;
+        private int _version;
+        private int _access;
+        private String _signature;
+        private String _superName;
+        private String[] _interfaces;
+        private MemberRecord _lastMethod;
+        private MemberRecord _lastField;
+
+        private ClassRecord()
+        {
+        }
+
+        private ClassRecord(ClassInfo info, String container)
+        {
+            _container = container;
+            _className = info.getClassName();
+            _version = info.getVersion();
+            _access = info.getAccess();
+            _signature = info.getSignature();
+            _superName = info.getSuperName();
+            _interfaces = info.getInterfaces();
+        }
+
+        private void replay(AnnotationParser parser, Set<? extends Handler> handlers, Resource root, boolean directory) throws Exception
+        {
+            Resource containingResource = root;
+            Resource location;
+            if (directory)
+            {
+                File container = _container == null ? root.getFile() : new File(root.getFile(), _container);
+                containingResource = Resource.newResource(container);
+                location = Resource.newResource(new File(container, _className.substring(_className.lastIndexOf('.') + 1) + ".class"));
+            }
+            else
+            {
+                location = Resource.newResource("jar:" + root.getURI() + "!/" + _className.replace('.', '/') + ".class");
+            }
+            parser.addParsedClass(_className, location);
+
+            ClassInfo classInfo = parser.new ClassInfo(containingResource, _className, _version, _access, _signature, _superName, _interfaces);
+            for (Handler handler : handlers)
+            {
+                handler.handle(classInfo);
+            }
+            for (String annotation : _annotations)
+            {
+                for (Handler handler : handlers)
+                {
+                    handler.handle(classInfo, annotation);
+                }
+            }
+            for (MemberRecord record : _fields)
+            {
+                FieldInfo fieldInfo = parser.new FieldInfo(classInfo, record._name, record._access, record._desc, record._signature, record._value);
+                for (String annotation : record._annotations)
+                {
+                    for (Handler handler : handlers)
+                    {
+                        handler.handle(fieldInfo, annotation);
+                    }
+                }
+            }
+            for (MemberRecord record : _methods)
+            {
+                MethodInfo methodInfo = parser.new MethodInfo(classInfo, record._name, record._access, record._desc, record._signature, record._exceptions);
+                for (String annotation : record._annotations)
+                {
+                    for (Handler handler : handlers)
+                    {
+                        handler.handle(methodInfo, annotation);
+                    }
+                }
+            }
+        }
+
+        private static ClassRecord read(DataInputStream input) throws IOException
+        {
+            ClassRecord record = new ClassRecord();
+            record._container = readString(input);
+            record._className = input.readUTF();
+            record._version = input.readInt();
+            record._access = input.readInt();
+            record._signature = readString(input);
+            record._superName = readString(input);
+            record._interfaces = readStrings(input);
+            record._annotations.addAll(readList(input));
+            int fields = input.readInt();
+            for (int i = 0; i < fields; ++i)
+            {
+                record._fields.add(MemberRecord.read(input));
+            }
+            int methods = input.readInt();
+            for (int i = 0; i < methods; ++i)
+            {
+                record._methods.add(MemberRecord.read(input));
+            }
+            return record;
+        }
+
+        private void write(DataOutputStream output) throws IOException
+        {
+            writeString(output, _container);
+            output.writeUTF(_className);
+            output.writeInt(_version);
+            output.writeInt(_access);
+            writeString(output, _signature);
+            writeString(output, _superName);
+            writeStrings(output, _interfaces);
+            writeList(output, _annotations);
+            output.writeInt(_fields.size());
+            for (MemberRecord field : _fields)
+            {
+                field.write(output);
+            }
+            output.writeInt(_methods.size());
+            for (MemberRecord method : _methods)
+            {
+                method.write(output);
+            }
+        }
+    }
+
+    /**
+     * An annotated method or field.
+     */
+    private static class MemberRecord
+    {
+        private final List<String> _annotations = new ArrayList<>();
+        private Object _info;
+        private String _name;
+        private int _access;
+        private String _desc;
+        private String _signature;
+        private String[] _exceptions;
+        private Object _value;
+
+        private MemberRecord()
+        {
+        }
+
+        private MemberRecord(MethodInfo info)
+        {
+            _info = info;
+            _name = info.getMethodName();
+            _access = info.getAccess();
+            _desc = info.getDesc();
+            _signature = info.getSignature();
+            _exceptions = info.getExceptions();
+        }
+
+        private MemberRecord(FieldInfo info)
+        {
+            _info = info;
+            _name = info.getFieldName();
+            _access = info.getAccess();
+            _desc = info.getFieldType();
+            _signature = info.getSignature();
+            _value = info.getValue();
+        }
+
+        private static MemberRecord read(DataInputStream input) throws IOException
+        {
+            MemberRecord record = new MemberRecord();
+            record._name = input.readUTF();
+            record._access = input.readInt();
+            record._desc = readString(input);
+            record._signature = readString(input);
+            record._exceptions = readStrings(input);
+            switch (input.readByte())
+            {
+                case 'I':
+                    record._value = input.readInt();
+                    break;
+                case 'J':
+                    record._value = input.readLong();
+                    break;
+                case 'F':
+                    record._value = input.readFloat();
+                    break;
+                case 'D':
+                    record._value = input.readDouble();
+                    break;
+                case 'S':
+                    record._value = input.readUTF();
+                    break;
+                default:
+                    break;
+            }
+            record._annotations.addAll(readList(input));
+            return record;
+        }
+
+        private void write(DataOutputStream output) throws IOException
+        {
+            output.writeUTF(_name);
+            output.writeInt(_access);
+            writeString(output, _desc);
+            writeString(output, _signature);
+            writeStrings(output, _exceptions);
+            if (_value instanceof Integer)
+            {
+                output.writeByte('I');
+                output.writeInt((Integer)_value);
+            }
+            else if (_value instanceof Long)
+            {
+                output.writeByte('J');
+                output.writeLong((Long)_value);
+            }
+            else if (_value instanceof Float)
+            {
+                output.writeByte('F');
+                output.writeFloat((Float)_value);
+            }
+            else if (_value instanceof Double)
+            {
+                output.writeByte('D');
+                output.writeDouble((Double)_value);
+            }
+            else if (_value instanceof String)
+            {
+                output.writeByte('S');
+                output.writeUTF((String)_value);
+            }
+            else
+            {
+                output.writeByte(0);
+            }
+            writeList(output, _annotations);
+        }
+    }
+}
@@ -33,6 +33,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
 
 import org.eclipse.jetty.annotations.AnnotationParser.ClassInfo;
 import org.eclipse.jetty.annotations.AnnotationParser.FieldInfo;
@@ -51,6 +52,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.in;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
@@ -289,6 +291,63 @@ public class TestAnnotationParser
         assertTrue(!(locations.get(0).equals(locations.get(1))));
     }
 
+    @Test
+    public void testParallelScanJar() throws Exception
+    {
+        Resource jar = Resource.newResource(MavenTestingUtils.getTestResourceFile("jdk9/log4j-api-2.9.0.jar"));
+        assertParallelScanEqualsSequentialScan(jar);
+    }
+
+    @Test
+    public void testParallelScanDir() throws Exception
+    {
+        Resource classes = Resource.newResource(new File(MavenTestingUtils.getTargetDir(), "test-classes"));
+        assertParallelScanEqualsSequentialScan(classes);
+    }
+
+    private void assertParallelScanEqualsSequentialScan(Resource resource) throws Exception
+    {
+        Set<String> sequential = ConcurrentHashMap.newKeySet();
+        new AnnotationParser().parse(Collections.singleton(new ClassNameHandler(sequential)), resource);
+
+        Set<String> parallel = ConcurrentHashMap.newKeySet();
+        AnnotationParser parser = new AnnotationParser();
+        // Small batches to fork many tasks.
+        parser.setBatchSize(4);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            pool.submit(() ->
+            {
+                parser.parse(Collections.singleton(new ClassNameHandler(parallel)), resource);
+                return null;
+            }).get();
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+
+        assertThat(sequential.size(), greaterThan(parser.getBatchSize()));
+        assertEquals(sequential, parallel);
+    }
+
+    private static class ClassNameHandler extends AnnotationParser.AbstractHandler
+    {
+        private final Set<String> _classNames;
+
+        private ClassNameHandler(Set<String> classNames)
+        {
+            _classNames = classNames;
+        }
+
+        @Override
+        public void handle(ClassInfo info)
+        {
+            assertTrue(_classNames.add(info.getClassName()));
+        }
+    }
+
     private void copyClass(Class<?> clazz, File basedir) throws IOException
     {
         String classRef = TypeUtil.toClassReference(clazz);
@@ -0,0 +1,131 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.annotations;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jetty.annotations.AnnotationParser.ClassInfo;
+import org.eclipse.jetty.annotations.AnnotationParser.FieldInfo;
+import org.eclipse.jetty.annotations.AnnotationParser.MethodInfo;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.eclipse.jetty.toolchain.test.jupiter.WorkDir;
+import org.eclipse.jetty.toolchain.test.jupiter.WorkDirExtension;
+import org.eclipse.jetty.util.resource.Resource;
+import org.eclipse.jetty.webapp.ScanCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(WorkDirExtension.class)
+public class TestCachingAnnotationParser
+{
+    public static class EventsHandler extends AnnotationParser.AbstractHandler
+    {
+        public final Set<String> events = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public void handle(ClassInfo info)
+        {
+            Resource container = info.getContainingResource();
+            events.add("class " + info.getClassName() + " extends " + info.getSuperName() + " in " + (container == null ? null : container.getURI()));
+        }
+
+        @Override
+        public void handle(ClassInfo info, String annotationName)
+        {
+            events.add("@" + annotationName + " " + info.getClassName());
+        }
+
+        @Override
+        public void handle(MethodInfo info, String annotationName)
+        {
+            events.add("@" + annotationName + " " + info.getClassInfo().getClassName() + "." + info.getMethodName() + info.getDesc());
+        }
+
+        @Override
+        public void handle(FieldInfo info, String annotationName)
+        {
+            events.add("@" + annotationName + " " + info.getClassInfo().getClassName() + "." + info.getFieldName() + " " + info.getFieldType());
+        }
+    }
+
+    public WorkDir testdir;
+
+    @Test
+    public void testReplayJar() throws Exception
+    {
+        File jarDir = new File(MavenTestingUtils.getTestResourcesDir().getParentFile(), "jar");
+        Resource jar = Resource.newResource(new File(jarDir, "test-sci.jar"));
+        Set<String> parsed = parse(new AnnotationParser(), jar);
+
+        ScanCache scanCache = new ScanCache(testdir.getEmptyPathDir());
+        CachingAnnotationParser first = new CachingAnnotationParser(0, scanCache);
+        assertEquals(parsed, parse(first, jar));
+        assertEquals(0, first.getHits());
+        assertEquals(1, first.getMisses());
+
+        CachingAnnotationParser second = new CachingAnnotationParser(0, scanCache);
+        assertEquals(parsed, parse(second, jar));
+        assertEquals(1, second.getHits());
+        assertEquals(0, second.getMisses());
+    }
+
+    @Test
+    public void testReplayDirectory() throws Exception
+    {
+        Resource classes = Resource.newResource(MavenTestingUtils.getTargetPath("test-classes"));
+        Set<String> parsed = parse(new AnnotationParser(), classes);
+        assertThat(parsed, hasItem("@org.eclipse.jetty.annotations.Sample org.eclipse.jetty.annotations.ClassA"));
+        assertThat(parsed, hasItem("@org.eclipse.jetty.annotations.Sample org.eclipse.jetty.annotations.ClassA.m Ljava/lang/Integer;"));
+        assertThat(parsed, hasItem("@org.eclipse.jetty.annotations.Sample org.eclipse.jetty.annotations.ClassA.a([Ljava/lang/Integer;)V"));
+
+        ScanCache scanCache = new ScanCache(testdir.getEmptyPathDir());
+        assertEquals(parsed, parse(new CachingAnnotationParser(0, scanCache), classes));
+        CachingAnnotationParser replay = new CachingAnnotationParser(0, scanCache);
+        assertEquals(parsed, parse(replay, classes));
+        assertEquals(1, replay.getHits());
+    }
+
+    @Test
+    public void testDifferentPlatformsAreCachedSeparately() throws Exception
+    {
+        File jarDir = new File(MavenTestingUtils.getTestResourcesDir().getParentFile(), "jar");
+        Resource jar = Resource.newResource(new File(jarDir, "test-sci.jar"));
+        ScanCache scanCache = new ScanCache(testdir.getEmptyPathDir());
+
+        parse(new CachingAnnotationParser(8, scanCache), jar);
+        CachingAnnotationParser other = new CachingAnnotationParser(11, scanCache);
+        parse(other, jar);
+        assertEquals(0, other.getHits());
+        assertEquals(2, scanCache.getScanTimes().size());
+    }
+
+    private Set<String> parse(AnnotationParser parser, Resource resource) throws Exception
+    {
+        EventsHandler handler = new EventsHandler();
+        parser.parse(Collections.singleton(handler), resource);
+        return handler.events;
+    }
+}
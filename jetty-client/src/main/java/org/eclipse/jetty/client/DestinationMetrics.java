@@ -0,0 +1,342 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.client;
+
+import java.util.EventListener;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.util.statistic.CounterStatistic;
+import org.eclipse.jetty.util.statistic.HistogramStatistic;
+
+/**
+ * <p>Timing metrics of the exchanges and connections of a {@link HttpDestination}.</p>
+ * <p>Metrics are enabled with {@link HttpClient#setDestinationMetricsEnabled(boolean)}
+ * and are recorded, in microseconds, in histograms for:</p>
+ * <ul>
+ * <li>queue wait: from when the request is queued in the destination until it begins to be sent</li>
+ * <li>connect: from when a new connection is requested until it is ready, including DNS resolution, TCP connect and TLS handshake</li>
+ * <li>handshake: the TLS handshake of new connections</li>
+ * <li>request send: from when the request begins to be sent until it is completely sent</li>
+ * <li>first byte: from when the request begins to be sent until the response begins to arrive</li>
+ * <li>total: from when the request is queued until the exchange is terminated</li>
+ * </ul>
+ * <p>{@link Listener}s added as beans to {@link HttpClient} are notified of every recorded timing.</p>
+ */
+@ManagedObject("Destination metrics")
+public class DestinationMetrics extends ContainerLifeCycle
+{
+    private static final Logger LOG = Log.getLogger(DestinationMetrics.class);
+
+    private final HttpDestination destination;
+    private final HistogramStatistic queueWait = new HistogramStatistic("queueWait");
+    private final HistogramStatistic connect = new HistogramStatistic("connect");
+    private final HistogramStatistic handshake = new HistogramStatistic("handshake");
+    private final HistogramStatistic requestSend = new HistogramStatistic("requestSend");
+    private final HistogramStatistic firstByte = new HistogramStatistic("firstByte");
+    private final HistogramStatistic total = new HistogramStatistic("total");
+    private final CounterStatistic activeExchanges = new CounterStatistic();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder connectFailures = new LongAdder();
+    private List<Listener> listeners = List.of();
+
+    public DestinationMetrics(HttpDestination destination)
+    {
+        this.destination = destination;
+        addBean(queueWait);
+        addBean(connect);
+        addBean(handshake);
+        addBean(requestSend);
+        addBean(firstByte);
+        addBean(total);
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        listeners = List.copyOf(destination.getHttpClient().getBeans(Listener.class));
+        super.doStart();
+    }
+
+    public HttpDestination getHttpDestination()
+    {
+        return destination;
+    }
+
+    @ManagedAttribute(value = "Queue wait times in us", readonly = true)
+    public HistogramStatistic getQueueWait()
+    {
+        return queueWait;
+    }
+
+    @ManagedAttribute(value = "Connection establishment times in us", readonly = true)
+    public HistogramStatistic getConnect()
+    {
+        return connect;
+    }
+
+    @ManagedAttribute(value = "TLS handshake times in us", readonly = true)
+    public HistogramStatistic getHandshake()
+    {
+        return handshake;
+    }
+
+    @ManagedAttribute(value = "Request send times in us", readonly = true)
+    public HistogramStatistic getRequestSend()
+    {
+        return requestSend;
+    }
+
+    @ManagedAttribute(value = "Times to first response byte in us", readonly = true)
+    public HistogramStatistic getFirstByte()
+    {
+        return firstByte;
+    }
+
+    @ManagedAttribute(value = "Total exchange times in us", readonly = true)
+    public HistogramStatistic getTotal()
+    {
+        return total;
+    }
+
+    @ManagedAttribute(value = "The number of succeeded exchanges", readonly = true)
+    public long getSucceededCount()
+    {
+        return succeeded.sum();
+    }
+
+    @ManagedAttribute(value = "The number of failed exchanges", readonly = true)
+    public long getFailedCount()
+    {
+        return failed.sum();
+    }
+
+    @ManagedAttribute(value = "The number of failed connection attempts", readonly = true)
+    public long getConnectFailureCount()
+    {
+        return connectFailures.sum();
+    }
+
+    @ManagedAttribute(value = "The number of exchanges being sent or received", readonly = true)
+    public long getActiveExchangeCount()
+    {
+        return activeExchanges.getCurrent();
+    }
+
+    @ManagedAttribute(value = "The max number of exchanges being sent or received", readonly = true)
+    public long getMaxActiveExchangeCount()
+    {
+        return activeExchanges.getMax();
+    }
+
+    @ManagedAttribute(value = "The number of queued requests", readonly = true)
+    public int getQueuedRequestCount()
+    {
+        return destination.getQueuedRequestCount();
+    }
+
+    @ManagedAttribute(value = "The number of open connections", readonly = true)
+    public int getConnectionCount()
+    {
+        ConnectionPool pool = destination.getConnectionPool();
+        return pool instanceof AbstractConnectionPool ? ((AbstractConnectionPool)pool).getConnectionCount() : -1;
+    }
+
+    @ManagedAttribute(value = "The number of connections being opened", readonly = true)
+    public int getPendingConnectionCount()
+    {
+        ConnectionPool pool = destination.getConnectionPool();
+        return pool instanceof AbstractConnectionPool ? ((AbstractConnectionPool)pool).getPendingConnectionCount() : -1;
+    }
+
+    @ManagedAttribute(value = "The max number of connections", readonly = true)
+    public int getMaxConnectionCount()
+    {
+        ConnectionPool pool = destination.getConnectionPool();
+        return pool instanceof AbstractConnectionPool ? ((AbstractConnectionPool)pool).getMaxConnectionCount() : -1;
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void reset()
+    {
+        queueWait.reset();
+        connect.reset();
+        handshake.reset();
+        requestSend.reset();
+        firstByte.reset();
+        total.reset();
+        activeExchanges.reset();
+        succeeded.reset();
+        failed.reset();
+        connectFailures.reset();
+    }
+
+    void onBegin()
+    {
+        activeExchanges.increment();
+    }
+
+    void onConnect(long beginNanoTime, long endNanoTime, boolean success)
+    {
+        if (!success)
+        {
+            connectFailures.increment();
+            return;
+        }
+        long connectNanos = endNanoTime - beginNanoTime;
+        connect.record(TimeUnit.NANOSECONDS.toMicros(connectNanos));
+        for (Listener listener : listeners)
+        {
+            try
+            {
+                listener.onConnect(destination, connectNanos);
+            }
+            catch (Throwable x)
+            {
+                LOG.info("Failure while notifying listener " + listener, x);
+            }
+        }
+    }
+
+    void onHandshake(long beginNanoTime, long endNanoTime)
+    {
+        long handshakeNanos = endNanoTime - beginNanoTime;
+        handshake.record(TimeUnit.NANOSECONDS.toMicros(handshakeNanos));
+        for (Listener listener : listeners)
+        {
+            try
+            {
+                listener.onHandshake(destination, handshakeNanos);
+            }
+            catch (Throwable x)
+            {
+                LOG.info("Failure while notifying listener " + listener, x);
+            }
+        }
+    }
+
+    void onTerminated(HttpExchange exchange, Result result)
+    {
+        long now = System.nanoTime();
+        long queued = exchange.getQueuedNanoTime();
+        long begin = exchange.getBeginNanoTime();
+        long requestSuccess = exchange.getRequestSuccessNanoTime();
+        long responseBegin = exchange.getResponseBeginNanoTime();
+
+        if (begin != 0)
+            activeExchanges.decrement();
+        if (result.isSucceeded())
+            succeeded.increment();
+        else
+            failed.increment();
+
+        long queueNanos = begin == 0 ? -1 : begin - queued;
+        long sendNanos = begin == 0 || requestSuccess == 0 ? -1 : requestSuccess - begin;
+        long firstByteNanos = begin == 0 || responseBegin == 0 ? -1 : responseBegin - begin;
+        long totalNanos = now - queued;
+
+        if (queueNanos >= 0)
+            queueWait.record(TimeUnit.NANOSECONDS.toMicros(queueNanos));
+        if (sendNanos >= 0)
+            requestSend.record(TimeUnit.NANOSECONDS.toMicros(sendNanos));
+        if (firstByteNanos >= 0)
+            firstByte.record(TimeUnit.NANOSECONDS.toMicros(firstByteNanos));
+        total.record(TimeUnit.NANOSECONDS.toMicros(totalNanos));
+
+        for (Listener listener : listeners)
+        {
+            try
+            {
+                listener.onExchange(destination, exchange.getRequest(), result, queueNanos, sendNanos, firstByteNanos, totalNanos);
+            }
+            catch (Throwable x)
+            {
+                LOG.info("Failure while notifying listener " + listener, x);
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[%s,succeeded=%d,failed=%d,active=%d]",
+            getClass().getSimpleName(),
+            hashCode(),
+            destination.asString(),
+            getSucceededCount(),
+            getFailedCount(),
+            getActiveExchangeCount());
+    }
+
+    /**
+     * <p>Listener for the timings recorded by {@link DestinationMetrics}.</p>
+     * <p>Listeners must be added as beans to {@link HttpClient} before
+     * destinations are created, and are invoked by the thread that
+     * completes the operation being timed, so they must not block.</p>
+     * <p>All times are in nanoseconds.</p>
+     */
+    public interface Listener extends EventListener
+    {
+        /**
+         * <p>Callback method invoked when a new connection has been established.</p>
+         *
+         * @param destination the destination of the connection
+         * @param connectNanos the time to establish the connection, including the TLS handshake if any
+         */
+        default void onConnect(HttpDestination destination, long connectNanos)
+        {
+        }
+
+        /**
+         * <p>Callback method invoked when the TLS handshake of a new connection has completed.</p>
+         *
+         * @param destination the destination of the connection
+         * @param handshakeNanos the time of the TLS handshake
+         */
+        default void onHandshake(HttpDestination destination, long handshakeNanos)
+        {
+        }
+
+        /**
+         * <p>Callback method invoked when an exchange has terminated.</p>
+         * <p>Times are {@code -1} if the exchange failed before the corresponding event.</p>
+         *
+         * @param destination the destination of the exchange
+         * @param request the request
+         * @param result the result of the exchange
+         * @param queueNanos the time spent in the destination queue
+         * @param sendNanos the time to send the request
+         * @param firstByteNanos the time from when the request begins to be sent until the response begins to arrive
+         * @param totalNanos the time from when the request is queued until the exchange is terminated
+         */
+        default void onExchange(HttpDestination destination, Request request, Result result, long queueNanos, long sendNanos, long firstByteNanos, long totalNanos)
+        {
+        }
+    }
+}
@@ -147,6 +147,7 @@ public class HttpClient extends ContainerLifeCycle
     private boolean strictEventOrdering = false;
     private HttpField encodingField;
     private boolean removeIdleDestinations = false;
+    private boolean destinationMetricsEnabled = false;
     private String name = getClass().getSimpleName() + "@" + Integer.toHexString(hashCode());
     private HttpCompliance httpCompliance = HttpCompliance.RFC7230;
     private String defaultRequestContentType = "application/octet-stream";
@@ -1022,6 +1023,29 @@ public class HttpClient extends ContainerLifeCycle
         this.removeIdleDestinations = removeIdleDestinations;
     }
 
+    /**
+     * @return whether destinations record timing metrics
+     * @see #setDestinationMetricsEnabled(boolean)
+     */
+    @ManagedAttribute("Whether destinations record timing metrics")
+    public boolean isDestinationMetricsEnabled()
+    {
+        return destinationMetricsEnabled;
+    }
+
+    /**
+     * <p>Whether destinations record timing metrics, such as the time requests wait
+     * in the destination queue, the connection time and the time to first response byte.</p>
+     * <p>This setting applies to destinations created after it is changed.</p>
+     *
+     * @param destinationMetricsEnabled whether destinations record timing metrics
+     * @see DestinationMetrics
+     */
+    public void setDestinationMetricsEnabled(boolean destinationMetricsEnabled)
+    {
+        this.destinationMetricsEnabled = destinationMetricsEnabled;
+    }
+
     /**
      * @return whether {@code connect()} operations are performed in blocking mode
      */
@@ -37,6 +37,8 @@ import org.eclipse.jetty.http.HttpField;
 import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.io.ClientConnectionFactory;
 import org.eclipse.jetty.io.CyclicTimeout;
+import org.eclipse.jetty.io.ssl.SslConnection;
+import org.eclipse.jetty.io.ssl.SslHandshakeListener;
 import org.eclipse.jetty.util.BlockingArrayQueue;
 import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.HostPort;
@@ -66,6 +68,7 @@ public abstract class HttpDestination extends ContainerLifeCycle implements Dest
     private final ClientConnectionFactory connectionFactory;
     private final HttpField hostField;
     private final TimeoutTask timeout;
+    private final DestinationMetrics metrics;
     private ConnectionPool connectionPool;
 
     public HttpDestination(HttpClient client, Origin origin)
@@ -73,6 +76,9 @@ public abstract class HttpDestination extends ContainerLifeCycle implements Dest
         this.client = client;
         this.origin = origin;
 
+        this.metrics = client.isDestinationMetricsEnabled() ? new DestinationMetrics(this) : null;
+        addBean(metrics);
+
         this.exchanges = newExchangeQueue(client);
 
         this.requestNotifier = new RequestNotifier(client);
@@ -138,7 +144,27 @@ public abstract class HttpDestination extends ContainerLifeCycle implements Dest
 
     protected ClientConnectionFactory newSslClientConnectionFactory(SslContextFactory.Client sslContextFactory, ClientConnectionFactory connectionFactory)
     {
-        return client.newSslClientConnectionFactory(sslContextFactory, connectionFactory);
+        ClientConnectionFactory sslConnectionFactory = client.newSslClientConnectionFactory(sslContextFactory, connectionFactory);
+        if (metrics == null)
+            return sslConnectionFactory;
+        return (endPoint, context) ->
+        {
+            // The TLS connection is created just after the TCP connection is established.
+            long beginNanoTime = System.nanoTime();
+            org.eclipse.jetty.io.Connection connection = sslConnectionFactory.newConnection(endPoint, context);
+            if (connection instanceof SslConnection)
+            {
+                ((SslConnection)connection).addHandshakeListener(new SslHandshakeListener()
+                {
+                    @Override
+                    public void handshakeSucceeded(Event event)
+                    {
+                        metrics.onHandshake(beginNanoTime, System.nanoTime());
+                    }
+                });
+            }
+            return connection;
+        };
     }
 
     public boolean isSecure()
@@ -226,6 +252,16 @@ public abstract class HttpDestination extends ContainerLifeCycle implements Dest
         return connectionPool;
     }
 
+    /**
+     * @return the metrics of this destination, or null if metrics are not enabled
+     * @see HttpClient#setDestinationMetricsEnabled(boolean)
+     */
+    @ManagedAttribute(value = "The destination metrics", readonly = true)
+    public DestinationMetrics getDestinationMetrics()
+    {
+        return metrics;
+    }
+
     @Override
     public void succeeded()
     {
@@ -379,6 +415,26 @@ public abstract class HttpDestination extends ContainerLifeCycle implements Dest
 
     protected void createConnection(Promise<Connection> promise)
     {
+        if (metrics != null)
+        {
+            long beginNanoTime = System.nanoTime();
+            promise = new Promise.Wrapper<>(promise)
+            {
+                @Override
+                public void succeeded(Connection result)
+                {
+                    metrics.onConnect(beginNanoTime, System.nanoTime(), true);
+                    super.succeeded(result);
+                }
+
+                @Override
+                public void failed(Throwable x)
+                {
+                    metrics.onConnect(beginNanoTime, System.nanoTime(), false);
+                    super.failed(x);
+                }
+            };
+        }
         client.newConnection(this, promise);
     }
 
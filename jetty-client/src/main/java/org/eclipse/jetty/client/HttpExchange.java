@@ -33,6 +33,11 @@ public class HttpExchange
     private final HttpRequest request;
     private final List<Response.ResponseListener> listeners;
     private final HttpResponse response;
+    private final DestinationMetrics metrics;
+    private final long queuedNanoTime;
+    private volatile long beginNanoTime;
+    private volatile long requestSuccessNanoTime;
+    private volatile long responseBeginNanoTime;
     private State requestState = State.PENDING;
     private State responseState = State.PENDING;
     private HttpChannel _channel;
@@ -45,6 +50,8 @@ public class HttpExchange
         this.request = request;
         this.listeners = listeners;
         this.response = new HttpResponse(request, listeners);
+        this.metrics = destination.getDestinationMetrics();
+        this.queuedNanoTime = metrics == null ? 0 : System.nanoTime();
         HttpConversation conversation = request.getConversation();
         conversation.getExchanges().offer(this);
         conversation.updateResponseListeners(null);
@@ -86,6 +93,65 @@ public class HttpExchange
         }
     }
 
+    /**
+     * @return the {@link System#nanoTime()} at which this exchange was queued, or 0 if metrics are disabled
+     */
+    long getQueuedNanoTime()
+    {
+        return queuedNanoTime;
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} at which the request began to be sent, or 0 if it did not
+     */
+    long getBeginNanoTime()
+    {
+        return beginNanoTime;
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} at which the request was completely sent, or 0 if it was not
+     */
+    long getRequestSuccessNanoTime()
+    {
+        return requestSuccessNanoTime;
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} at which the response began to arrive, or 0 if it did not
+     */
+    long getResponseBeginNanoTime()
+    {
+        return responseBeginNanoTime;
+    }
+
+    void onRequestBegin()
+    {
+        if (metrics != null && beginNanoTime == 0)
+        {
+            beginNanoTime = System.nanoTime();
+            metrics.onBegin();
+        }
+    }
+
+    void onRequestSuccess()
+    {
+        if (metrics != null)
+            requestSuccessNanoTime = System.nanoTime();
+    }
+
+    void onResponseBegin()
+    {
+        if (metrics != null && responseBeginNanoTime == 0)
+            responseBeginNanoTime = System.nanoTime();
+    }
+
+    private void onTerminated(Result result)
+    {
+        if (metrics != null && result != null)
+            metrics.onTerminated(this, result);
+    }
+
     /**
      * <p>Associates the given {@code channel} to this exchange.</p>
      * <p>Works in strict collaboration with {@link HttpChannel#associate(HttpExchange)}.</p>
@@ -192,6 +258,7 @@ public class HttpExchange
         if (LOG.isDebugEnabled())
             LOG.debug("Terminated request for {}, result: {}", this, result);
 
+        onTerminated(result);
         return result;
     }
 
@@ -209,6 +276,7 @@ public class HttpExchange
         if (LOG.isDebugEnabled())
             LOG.debug("Terminated response for {}, result: {}", this, result);
 
+        onTerminated(result);
         return result;
     }
 
@@ -266,7 +334,9 @@ public class HttpExchange
         List<Response.ResponseListener> listeners = getConversation().getResponseListeners();
         ResponseNotifier responseNotifier = destination.getResponseNotifier();
         responseNotifier.notifyFailure(listeners, response, failure);
-        responseNotifier.notifyComplete(listeners, new Result(request, failure, response, failure));
+        Result result = new Result(request, failure, response, failure);
+        onTerminated(result);
+        responseNotifier.notifyComplete(listeners, result);
     }
 
     public void resetResponse()
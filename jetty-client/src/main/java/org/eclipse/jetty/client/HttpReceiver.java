@@ -176,6 +176,7 @@ public abstract class HttpReceiver
         if (!updateResponseState(ResponseState.IDLE, ResponseState.TRANSIENT))
             return false;
 
+        exchange.onResponseBegin();
         HttpConversation conversation = exchange.getConversation();
         HttpResponse response = exchange.getResponse();
         // Probe the protocol handlers
@@ -225,6 +225,7 @@ public abstract class HttpSender implements AsyncContentProvider.Listener
         Request request = exchange.getRequest();
         if (LOG.isDebugEnabled())
             LOG.debug("Request begin {}", request);
+        exchange.onRequestBegin();
         RequestNotifier notifier = getHttpChannel().getHttpDestination().getRequestNotifier();
         notifier.notifyBegin(request);
 
@@ -322,6 +323,7 @@ public abstract class HttpSender implements AsyncContentProvider.Listener
                 Request request = exchange.getRequest();
                 if (LOG.isDebugEnabled())
                     LOG.debug("Request success {}", request);
+                exchange.onRequestSuccess();
                 HttpDestination destination = getHttpChannel().getHttpDestination();
                 destination.getRequestNotifier().notifySuccess(exchange.getRequest());
 
@@ -26,16 +26,31 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 import org.eclipse.jetty.client.api.Connection;
 import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.component.Dumpable;
 import org.eclipse.jetty.util.component.DumpableCollection;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
 import org.eclipse.jetty.util.thread.Sweeper;
 
+/**
+ * <p>A {@link ConnectionPool} for multiplexed connections.</p>
+ * <p>By default, each connection is filled up to {@link #getMaxMultiplex() maxMultiplex}
+ * requests before another connection is used or opened.</p>
+ * <p>In {@link #isAdaptive() adaptive} mode, connections that implement
+ * {@link Loadable} are chosen by their load, so that new requests are
+ * spread over the least loaded connections, and a connection that is
+ * {@link #isSaturated(Connection) saturated} because its flow control
+ * window is stalled or because it has too many
+ * {@link #getMaxInFlightBytes() bytes in flight} is skipped, opening
+ * additional connections if possible.</p>
+ */
 public class MultiplexConnectionPool extends AbstractConnectionPool implements ConnectionPool.Multiplexable, Sweeper.Sweepable
 {
     private static final Logger LOG = Log.getLogger(MultiplexConnectionPool.class);
@@ -43,7 +58,10 @@ public class MultiplexConnectionPool extends AbstractConnectionPool implements C
     private final HttpDestination destination;
     private final Deque<Holder> idleConnections;
     private final Map<Connection, Holder> activeConnections;
+    private final LongAdder saturations = new LongAdder();
     private int maxMultiplex;
+    private boolean adaptive;
+    private long maxInFlightBytes = 1024 * 1024;
 
     public MultiplexConnectionPool(HttpDestination destination, int maxConnections, Callback requester, int maxMultiplex)
     {
@@ -85,6 +103,81 @@ public class MultiplexConnectionPool extends AbstractConnectionPool implements C
         }
     }
 
+    /**
+     * @return whether connections are chosen by their load
+     */
+    @ManagedAttribute("Whether connections are chosen by their load")
+    public boolean isAdaptive()
+    {
+        synchronized (this)
+        {
+            return adaptive;
+        }
+    }
+
+    /**
+     * @param adaptive whether connections are chosen by their load
+     */
+    public void setAdaptive(boolean adaptive)
+    {
+        synchronized (this)
+        {
+            this.adaptive = adaptive;
+        }
+    }
+
+    /**
+     * @return the number of bytes in flight above which a connection is saturated, in adaptive mode
+     */
+    @ManagedAttribute("The number of bytes in flight above which a connection is saturated")
+    public long getMaxInFlightBytes()
+    {
+        synchronized (this)
+        {
+            return maxInFlightBytes;
+        }
+    }
+
+    /**
+     * @param maxInFlightBytes the number of bytes in flight above which a connection is saturated, in adaptive mode
+     */
+    public void setMaxInFlightBytes(long maxInFlightBytes)
+    {
+        synchronized (this)
+        {
+            this.maxInFlightBytes = maxInFlightBytes;
+        }
+    }
+
+    /**
+     * @return the number of times all the active connections were saturated, in adaptive mode
+     */
+    @ManagedAttribute(value = "The number of times all the active connections were saturated", readonly = true)
+    public long getSaturatedCount()
+    {
+        return saturations.sum();
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void resetStatistics()
+    {
+        saturations.reset();
+    }
+
+    /**
+     * @param connection the connection to test
+     * @return whether the given connection is saturated
+     */
+    public boolean isSaturated(Connection connection)
+    {
+        if (connection instanceof Loadable)
+        {
+            Loadable loadable = (Loadable)connection;
+            return loadable.isStalled() || loadable.getInFlightBytes() >= getMaxInFlightBytes();
+        }
+        return false;
+    }
+
     @Override
     public boolean isActive(Connection connection)
     {
@@ -108,6 +201,9 @@ public class MultiplexConnectionPool extends AbstractConnectionPool implements C
     @Override
     protected Connection activate()
     {
+        if (isAdaptive())
+            return activateByLoad();
+
         Holder result = null;
         synchronized (this)
         {
@@ -134,6 +230,72 @@ public class MultiplexConnectionPool extends AbstractConnectionPool implements C
         return active(result.connection);
     }
 
+    private Connection activateByLoad()
+    {
+        Holder result = null;
+        synchronized (this)
+        {
+            // Connections whose RTT grows are likely queueing
+            // data in the network, so compare with the best RTT.
+            long minRoundTripTime = Long.MAX_VALUE;
+            for (Holder holder : activeConnections.values())
+            {
+                long roundTripTime = holder.roundTripTime();
+                if (roundTripTime > 0)
+                    minRoundTripTime = Math.min(minRoundTripTime, roundTripTime);
+            }
+
+            Holder saturated = null;
+            double saturatedLoad = Double.MAX_VALUE;
+            double minLoad = Double.MAX_VALUE;
+            for (Holder holder : activeConnections.values())
+            {
+                if (holder.count >= maxMultiplex)
+                    continue;
+                double load = holder.load(minRoundTripTime);
+                if (holder.saturated())
+                {
+                    if (load < saturatedLoad)
+                    {
+                        saturated = holder;
+                        saturatedLoad = load;
+                    }
+                }
+                else if (load < minLoad)
+                {
+                    result = holder;
+                    minLoad = load;
+                }
+            }
+
+            if (result == null)
+            {
+                Holder holder = idleConnections.poll();
+                if (holder != null)
+                {
+                    activeConnections.put(holder.connection, holder);
+                    result = holder;
+                }
+            }
+
+            if (result == null && saturated != null)
+            {
+                saturations.increment();
+                // Wait for a new connection if one can be opened,
+                // otherwise use the least loaded saturated connection.
+                if (getConnectionCount() < getMaxConnectionCount())
+                    return null;
+                result = saturated;
+            }
+
+            if (result == null)
+                return null;
+
+            ++result.count;
+        }
+        return active(result.connection);
+    }
+
     @Override
     public boolean release(Connection connection)
     {
@@ -265,18 +427,42 @@ public class MultiplexConnectionPool extends AbstractConnectionPool implements C
             activeSize = activeConnections.size();
             idleSize = idleConnections.size();
         }
-        return String.format("%s@%x[connections=%d/%d/%d,multiplex=%d,active=%d,idle=%d]",
+        return String.format("%s@%x[connections=%d/%d/%d,multiplex=%d,adaptive=%b,active=%d,idle=%d]",
             getClass().getSimpleName(),
             hashCode(),
             getPendingConnectionCount(),
             getConnectionCount(),
             getMaxConnectionCount(),
             getMaxMultiplex(),
+            isAdaptive(),
             activeSize,
             idleSize);
     }
 
-    private static class Holder
+    /**
+     * <p>Implemented by multiplexed connections that report their load,
+     * used by {@link MultiplexConnectionPool} in adaptive mode.</p>
+     */
+    public interface Loadable
+    {
+        /**
+         * @return the number of request content bytes not yet written to the network
+         * plus the number of response content bytes not yet consumed by the application
+         */
+        long getInFlightBytes();
+
+        /**
+         * @return whether the connection cannot send data because its flow control window is exhausted
+         */
+        boolean isStalled();
+
+        /**
+         * @return the smoothed round-trip time of the connection in nanoseconds, or a non-positive value if unknown
+         */
+        long getRoundTripTime();
+    }
+
+    private class Holder
     {
         private final Connection connection;
         private int count;
@@ -286,6 +472,34 @@ public class MultiplexConnectionPool extends AbstractConnectionPool implements C
             this.connection = connection;
         }
 
+        private boolean saturated()
+        {
+            return isSaturated(connection);
+        }
+
+        private long roundTripTime()
+        {
+            return connection instanceof Loadable ? ((Loadable)connection).getRoundTripTime() : 0;
+        }
+
+        /**
+         * <p>Returns a load score, as the sum of the fraction of used streams and
+         * of the fraction of the max bytes in flight, weighted by how much
+         * the round-trip time of this connection exceeds the minimum one.</p>
+         */
+        private double load(long minRoundTripTime)
+        {
+            double load = (double)(count + 1) / maxMultiplex;
+            if (connection instanceof Loadable)
+            {
+                load += (double)((Loadable)connection).getInFlightBytes() / Math.max(1, maxInFlightBytes);
+                long roundTripTime = roundTripTime();
+                if (roundTripTime > 0 && minRoundTripTime != Long.MAX_VALUE)
+                    load *= (double)roundTripTime / minRoundTripTime;
+            }
+            return load;
+        }
+
         @Override
         public String toString()
         {
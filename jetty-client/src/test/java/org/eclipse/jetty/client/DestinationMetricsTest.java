@@ -0,0 +1,165 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Result;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ArgumentsSource;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DestinationMetricsTest extends AbstractHttpClientServerTest
+{
+    @ParameterizedTest
+    @ArgumentsSource(ScenarioProvider.class)
+    public void testMetricsDisabledByDefault(Scenario scenario) throws Exception
+    {
+        start(scenario, new EmptyServerHandler());
+
+        ContentResponse response = client.newRequest("localhost", connector.getLocalPort())
+            .scheme(scenario.getScheme())
+            .timeout(5, TimeUnit.SECONDS)
+            .send();
+
+        assertEquals(200, response.getStatus());
+        HttpDestination destination = (HttpDestination)client.getDestinations().get(0);
+        assertNull(destination.getDestinationMetrics());
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(ScenarioProvider.class)
+    public void testMetricsRecorded(Scenario scenario) throws Exception
+    {
+        long delay = 100;
+        startServer(scenario, new EmptyServerHandler()
+        {
+            @Override
+            protected void service(String target, org.eclipse.jetty.server.Request jettyRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException
+            {
+                try
+                {
+                    Thread.sleep(delay);
+                }
+                catch (InterruptedException x)
+                {
+                    throw new InterruptedIOException();
+                }
+            }
+        });
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicLong firstByte = new AtomicLong();
+        AtomicLong handshakes = new AtomicLong();
+        startClient(scenario, httpClient ->
+        {
+            httpClient.setDestinationMetricsEnabled(true);
+            httpClient.addBean(new DestinationMetrics.Listener()
+            {
+                @Override
+                public void onHandshake(HttpDestination destination, long handshakeNanos)
+                {
+                    handshakes.incrementAndGet();
+                }
+
+                @Override
+                public void onExchange(HttpDestination destination, Request request, Result result, long queueNanos, long sendNanos, long firstByteNanos, long totalNanos)
+                {
+                    firstByte.set(firstByteNanos);
+                    latch.countDown();
+                }
+            });
+        });
+
+        ContentResponse response = client.newRequest("localhost", connector.getLocalPort())
+            .scheme(scenario.getScheme())
+            .timeout(5, TimeUnit.SECONDS)
+            .send();
+        assertEquals(200, response.getStatus());
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+        HttpDestination destination = (HttpDestination)client.getDestinations().get(0);
+        DestinationMetrics metrics = destination.getDestinationMetrics();
+        assertNotNull(metrics);
+        assertEquals(1, metrics.getSucceededCount());
+        assertEquals(0, metrics.getFailedCount());
+        assertEquals(0, metrics.getActiveExchangeCount());
+        assertEquals(1, metrics.getQueueWait().getCount());
+        assertEquals(1, metrics.getConnect().getCount());
+        assertEquals(1, metrics.getRequestSend().getCount());
+        assertEquals(1, metrics.getFirstByte().getCount());
+        assertEquals(1, metrics.getTotal().getCount());
+        assertEquals(1, metrics.getConnectionCount());
+        assertThat(metrics.getFirstByte().getMax(), greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toMicros(delay)));
+        assertThat(metrics.getTotal().getMax(), greaterThanOrEqualTo(metrics.getFirstByte().getMax()));
+        assertThat(firstByte.get(), greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(delay)));
+
+        long expectedHandshakes = scenario.getScheme().equals("https") ? 1 : 0;
+        assertEquals(expectedHandshakes, metrics.getHandshake().getCount());
+        assertEquals(expectedHandshakes, handshakes.get());
+        if (expectedHandshakes > 0)
+            assertThat(metrics.getConnect().getMax(), greaterThan(0L));
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(NonSslScenarioProvider.class)
+    public void testFailedExchangeRecorded(Scenario scenario) throws Exception
+    {
+        start(scenario, new EmptyServerHandler()
+        {
+            @Override
+            protected void service(String target, org.eclipse.jetty.server.Request jettyRequest, HttpServletRequest request, HttpServletResponse response) throws IOException
+            {
+                jettyRequest.getHttpChannel().getEndPoint().close();
+            }
+        });
+        client.stop();
+        client.setDestinationMetricsEnabled(true);
+        client.start();
+
+        CountDownLatch latch = new CountDownLatch(1);
+        client.newRequest("localhost", connector.getLocalPort())
+            .scheme(scenario.getScheme())
+            .timeout(5, TimeUnit.SECONDS)
+            .send(result -> latch.countDown());
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+        HttpDestination destination = (HttpDestination)client.getDestinations().get(0);
+        DestinationMetrics metrics = destination.getDestinationMetrics();
+        assertEquals(0, metrics.getSucceededCount());
+        assertEquals(1, metrics.getFailedCount());
+        assertEquals(1, metrics.getTotal().getCount());
+        assertEquals(0, metrics.getFirstByte().getCount());
+    }
+}
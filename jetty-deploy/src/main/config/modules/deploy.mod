@@ -28,5 +28,11 @@ etc/jetty-deploy.xml
 # Monitored directory scan period (seconds)
 # jetty.deploy.scanInterval=1
 
+# Whether to scan the monitored directory on file system events rather than every scan period
+# jetty.deploy.watching=false
+
 # Whether to extract *.war files
 # jetty.deploy.extractWars=true
+
+# Maximum number of webapps deployed concurrently when starting
+# jetty.deploy.maxParallelDeployments=1
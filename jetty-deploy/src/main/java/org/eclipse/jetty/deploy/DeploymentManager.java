@@ -23,12 +23,21 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.jetty.deploy.bindings.StandardDeployer;
 import org.eclipse.jetty.deploy.bindings.StandardStarter;
@@ -38,9 +47,11 @@ import org.eclipse.jetty.deploy.graph.Edge;
 import org.eclipse.jetty.deploy.graph.Node;
 import org.eclipse.jetty.deploy.graph.Path;
 import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.ContextHandler;
 import org.eclipse.jetty.server.handler.ContextHandlerCollection;
 import org.eclipse.jetty.util.AttributesMap;
 import org.eclipse.jetty.util.MultiException;
+import org.eclipse.jetty.util.StringUtil;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.annotation.ManagedOperation;
@@ -49,6 +60,7 @@ import org.eclipse.jetty.util.component.ContainerLifeCycle;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
 import org.eclipse.jetty.util.resource.Resource;
+import org.eclipse.jetty.util.statistic.SampleStatistic;
 import org.eclipse.jetty.xml.XmlConfiguration;
 
 /**
@@ -69,6 +81,15 @@ import org.eclipse.jetty.xml.XmlConfiguration;
 public class DeploymentManager extends ContainerLifeCycle
 {
     private static final Logger LOG = Log.getLogger(DeploymentManager.class);
+
+    /**
+     * The name of the context attribute with the comma separated context paths of the
+     * apps that must be started before the context, when apps are deployed in parallel.
+     *
+     * @see #setMaxParallelDeployments(int)
+     */
+    public static final String DEPENDS_ON = "org.eclipse.jetty.deploy.dependsOn";
+
     private MultiException onStartupErrors;
 
     /**
@@ -132,6 +153,9 @@ public class DeploymentManager extends ContainerLifeCycle
     private ContextHandlerCollection _contexts;
     private boolean _useStandardBindings = true;
     private String _defaultLifeCycleGoal = AppLifeCycle.STARTED;
+    private final Map<String, SampleStatistic> _nodeStatistics = new ConcurrentHashMap<>();
+    private int _maxParallelDeployments = 1;
+    private List<AppEntry> _startupApps;
 
     /**
      * Receive an app for processing.
@@ -150,6 +174,15 @@ public class DeploymentManager extends ContainerLifeCycle
 
         if (isRunning() && _defaultLifeCycleGoal != null)
         {
+            synchronized (this)
+            {
+                // Apps provided while starting are deployed together once all providers are started
+                if (_startupApps != null)
+                {
+                    _startupApps.add(entry);
+                    return;
+                }
+            }
             // Immediately attempt to go to default lifecycle state
             this.requestAppGoal(entry, _defaultLifeCycleGoal);
         }
@@ -243,11 +276,33 @@ public class DeploymentManager extends ContainerLifeCycle
             addLifeCycleBinding(new StandardUndeployer());
         }
 
-        // Start all of the AppProviders
-        for (AppProvider provider : _providers)
+        List<AppEntry> startupApps = null;
+        if (_maxParallelDeployments > 1)
+        {
+            synchronized (this)
+            {
+                _startupApps = new ArrayList<>();
+            }
+        }
+        try
         {
-            startAppProvider(provider);
+            // Start all of the AppProviders
+            for (AppProvider provider : _providers)
+            {
+                startAppProvider(provider);
+            }
         }
+        finally
+        {
+            synchronized (this)
+            {
+                startupApps = _startupApps;
+                _startupApps = null;
+            }
+        }
+
+        if (startupApps != null && !startupApps.isEmpty())
+            deployInParallel(startupApps);
 
         if (onStartupErrors != null)
         {
@@ -515,7 +570,10 @@ public class DeploymentManager extends ContainerLifeCycle
                 {
                     Node node = it.next();
                     LOG.debug("Executing Node {}", node);
+                    long start = System.nanoTime();
                     _lifecycle.runBindings(node, appentry.app, this);
+                    _nodeStatistics.computeIfAbsent(node.getName(), n -> new SampleStatistic())
+                        .record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
                     appentry.setLifeCycleNode(node);
                 }
             }
@@ -562,6 +620,125 @@ public class DeploymentManager extends ContainerLifeCycle
         requestAppGoal(appentry, nodeName);
     }
 
+    /**
+     * <p>Moves the given apps to the default lifecycle goal concurrently, on at most
+     * {@link #getMaxParallelDeployments()} threads.</p>
+     * <p>The context handlers are created sequentially, in the order the apps were provided.
+     * An app is then moved to its goal once the apps with the context paths listed by its
+     * {@link #DEPENDS_ON} context attribute have reached theirs.</p>
+     *
+     * @param entries the apps to deploy
+     */
+    private void deployInParallel(List<AppEntry> entries)
+    {
+        String goal = _defaultLifeCycleGoal;
+        if (goal == null)
+            return;
+
+        // Create the contexts, so that their context paths and attributes are known
+        Map<String, AppEntry> byContextPath = new HashMap<>();
+        Map<AppEntry, ContextHandler> contexts = new HashMap<>();
+        Map<AppEntry, List<AppEntry>> dependencies = new LinkedHashMap<>();
+        for (AppEntry entry : entries)
+        {
+            dependencies.put(entry, new ArrayList<>());
+            try
+            {
+                ContextHandler context = entry.app.getContextHandler();
+                if (context != null)
+                {
+                    contexts.put(entry, context);
+                    byContextPath.putIfAbsent(context.getContextPath(), entry);
+                }
+            }
+            catch (Throwable x)
+            {
+                // The failure is reported when moving the app to its goal
+                LOG.ignore(x);
+            }
+        }
+        for (Map.Entry<AppEntry, List<AppEntry>> dependency : dependencies.entrySet())
+        {
+            ContextHandler context = contexts.get(dependency.getKey());
+            Object dependsOn = context == null ? null : context.getAttribute(DEPENDS_ON);
+            if (dependsOn == null)
+                continue;
+            for (String contextPath : StringUtil.csvSplit(dependsOn.toString()))
+            {
+                AppEntry required = byContextPath.get(contextPath);
+                if (required == null)
+                    LOG.warn("Unknown dependency {} of {}", contextPath, dependency.getKey().app);
+                else if (required != dependency.getKey())
+                    dependency.getValue().add(required);
+            }
+        }
+
+        AtomicInteger threads = new AtomicInteger();
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(_maxParallelDeployments, entries.size()), task ->
+        {
+            Thread thread = new Thread(task, "deploy-" + threads.incrementAndGet());
+            thread.setContextClassLoader(loader);
+            return thread;
+        });
+        try
+        {
+            Map<AppEntry, CompletableFuture<Void>> deployments = new HashMap<>();
+            for (AppEntry entry : sortByDependencies(dependencies))
+            {
+                CompletableFuture<?>[] required = dependencies.get(entry).stream()
+                    .map(deployments::get)
+                    .toArray(CompletableFuture[]::new);
+                deployments.put(entry, CompletableFuture.allOf(required)
+                    .thenRunAsync(() -> requestAppGoal(entry, goal), executor));
+            }
+            CompletableFuture.allOf(deployments.values().toArray(new CompletableFuture[0])).join();
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * @param dependencies the apps and the apps they depend on
+     * @return the apps, each after the apps it depends on
+     */
+    private static List<AppEntry> sortByDependencies(Map<AppEntry, List<AppEntry>> dependencies)
+    {
+        List<AppEntry> sorted = new ArrayList<>(dependencies.size());
+        Set<AppEntry> visited = new HashSet<>();
+        Set<AppEntry> visiting = new HashSet<>();
+        for (AppEntry entry : dependencies.keySet())
+        {
+            visit(entry, dependencies, visited, visiting, sorted);
+        }
+        return sorted;
+    }
+
+    private static void visit(AppEntry entry, Map<AppEntry, List<AppEntry>> dependencies, Set<AppEntry> visited, Set<AppEntry> visiting, List<AppEntry> sorted)
+    {
+        if (visited.contains(entry))
+            return;
+        visiting.add(entry);
+        for (Iterator<AppEntry> i = dependencies.get(entry).iterator(); i.hasNext(); )
+        {
+            AppEntry required = i.next();
+            if (visiting.contains(required))
+            {
+                LOG.warn("Ignoring circular dependency of {} on {}", entry.app, required.app);
+                i.remove();
+            }
+            else
+            {
+                visit(required, dependencies, visited, visiting, sorted);
+            }
+        }
+        visiting.remove(entry);
+        visited.add(entry);
+        sorted.add(entry);
+    }
+
     private synchronized void addOnStartupError(Throwable cause)
     {
         if (onStartupErrors == null)
@@ -619,6 +796,40 @@ public class DeploymentManager extends ContainerLifeCycle
         }
     }
 
+    /**
+     * @return the maximum number of apps deployed concurrently when starting
+     */
+    @ManagedAttribute("maximum number of apps deployed concurrently when starting")
+    public int getMaxParallelDeployments()
+    {
+        return _maxParallelDeployments;
+    }
+
+    /**
+     * <p>Sets the maximum number of apps deployed concurrently when starting.</p>
+     * <p>If greater than 1, the apps provided while the providers start are moved to the
+     * default lifecycle goal concurrently once all the providers are started, honouring the
+     * {@link #DEPENDS_ON} context attribute. The bindings must then be thread safe.
+     * The start of the deployment manager completes once all these apps reached their goal,
+     * so that the server does not accept requests before.</p>
+     *
+     * @param maxParallelDeployments the maximum number of apps deployed concurrently when starting
+     */
+    public void setMaxParallelDeployments(int maxParallelDeployments)
+    {
+        if (isRunning())
+            throw new IllegalStateException();
+        _maxParallelDeployments = maxParallelDeployments;
+    }
+
+    /**
+     * @return the statistics, in milliseconds, of the time spent running the bindings of each lifecycle node
+     */
+    public Map<String, SampleStatistic> getLifeCycleNodeStatistics()
+    {
+        return Collections.unmodifiableMap(_nodeStatistics);
+    }
+
     public boolean isUseStandardBindings()
     {
         return _useStandardBindings;
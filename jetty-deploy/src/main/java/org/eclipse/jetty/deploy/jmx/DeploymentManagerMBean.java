@@ -82,6 +82,16 @@ public class DeploymentManagerMBean extends ObjectMBean
         return _manager.getNodes().stream().map(Node::getName).collect(Collectors.toList());
     }
 
+    @ManagedAttribute(value = "time in ms spent running the bindings of each lifecycle node")
+    public Collection<String> getLifeCycleNodeTimings()
+    {
+        return _manager.getLifeCycleNodeStatistics().entrySet().stream()
+            .map(e -> String.format("%s: count=%d, total=%d, mean=%.1f, max=%d",
+                e.getKey(), e.getValue().getCount(), e.getValue().getTotal(), e.getValue().getMean(), e.getValue().getMax()))
+            .sorted()
+            .collect(Collectors.toList());
+    }
+
     private String toRef(App app)
     {
         return String.format("originId=%s,contextPath=%s,appProvider=%s", app.getContextPath(), app.getOriginId(), app.getAppProvider().getClass().getName());
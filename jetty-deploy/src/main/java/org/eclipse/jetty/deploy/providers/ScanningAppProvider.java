@@ -27,6 +27,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.eclipse.jetty.deploy.App;
@@ -56,6 +57,7 @@ public abstract class ScanningAppProvider extends ContainerLifeCycle implements
     private final List<Resource> _monitored = new CopyOnWriteArrayList<>();
     private boolean _recursive = false;
     private int _scanInterval = 10;
+    private boolean _watching;
     private Scanner _scanner;
 
     private final Scanner.DiscreteListener _scannerListener = new Scanner.DiscreteListener()
@@ -127,7 +129,7 @@ public abstract class ScanningAppProvider extends ContainerLifeCycle implements
         if (_monitored.size() == 0)
             throw new IllegalStateException("No configuration dir specified");
 
-        LOG.info("Deployment monitor " + _monitored + " at interval " + _scanInterval);
+        LOG.info("Deployment monitor " + _monitored + (_watching ? " watching" : "") + " at interval " + _scanInterval);
         List<File> files = new ArrayList<>();
         for (Resource resource : _monitored)
         {
@@ -144,6 +146,7 @@ public abstract class ScanningAppProvider extends ContainerLifeCycle implements
         _scanner.setFilenameFilter(_filenameFilter);
         _scanner.setReportDirs(true);
         _scanner.setScanDepth(1); //consider direct dir children of monitored dir
+        _scanner.setWatching(_watching);
         _scanner.addListener(_scannerListener);
 
         addBean(_scanner);
@@ -237,6 +240,57 @@ public abstract class ScanningAppProvider extends ContainerLifeCycle implements
         return _scanInterval;
     }
 
+    @ManagedAttribute("scanning on file system events rather than at the scan interval")
+    public boolean isWatching()
+    {
+        return _watching;
+    }
+
+    /**
+     * @param watching true to scan the monitored directories when file system events
+     * are received, rather than at the scan interval
+     * @see Scanner#setWatching(boolean)
+     */
+    public void setWatching(boolean watching)
+    {
+        _watching = watching;
+    }
+
+    @ManagedAttribute("number of scans of the monitored directories")
+    public int getScanCount()
+    {
+        Scanner scanner = _scanner;
+        return scanner == null ? 0 : scanner.getScanCount();
+    }
+
+    @ManagedAttribute("total time in ms spent scanning the monitored directories")
+    public long getScanTime()
+    {
+        Scanner scanner = _scanner;
+        return scanner == null ? 0 : TimeUnit.NANOSECONDS.toMillis(scanner.getScanNanos());
+    }
+
+    @ManagedAttribute("time in ms spent by the last scan of the monitored directories")
+    public long getLastScanTime()
+    {
+        Scanner scanner = _scanner;
+        return scanner == null ? 0 : TimeUnit.NANOSECONDS.toMillis(scanner.getLastScanNanos());
+    }
+
+    @ManagedAttribute("number of paths found by the last scan of the monitored directories")
+    public int getLastScanSize()
+    {
+        Scanner scanner = _scanner;
+        return scanner == null ? 0 : scanner.getLastScanSize();
+    }
+
+    @ManagedAttribute("number of file system events received while watching")
+    public long getWatchEventCount()
+    {
+        Scanner scanner = _scanner;
+        return scanner == null ? 0 : scanner.getWatchEventCount();
+    }
+
     @ManagedAttribute("recursive scanning supported")
     public boolean isRecursive()
     {
@@ -19,15 +19,25 @@
 package org.eclipse.jetty.deploy;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.jetty.deploy.test.XmlConfiguredJetty;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.ContextHandler;
 import org.eclipse.jetty.server.handler.ContextHandlerCollection;
 import org.eclipse.jetty.toolchain.test.jupiter.WorkDir;
 import org.eclipse.jetty.toolchain.test.jupiter.WorkDirExtension;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.statistic.SampleStatistic;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
@@ -113,4 +123,96 @@ public class DeploymentManagerTest
             }
         }
     }
+
+    @Test
+    public void testParallelDeployment() throws Exception
+    {
+        AtomicInteger starting = new AtomicInteger();
+        AtomicInteger maxStarting = new AtomicInteger();
+        List<String> started = new CopyOnWriteArrayList<>();
+
+        DeploymentManager depman = new DeploymentManager();
+        Server server = new Server();
+        ContextHandlerCollection contexts = new ContextHandlerCollection();
+        server.setHandler(contexts);
+        depman.setContexts(contexts);
+        depman.setMaxParallelDeployments(4);
+        depman.addAppProvider(new ParallelAppProvider(4, starting, maxStarting, started));
+
+        server.start();
+        try
+        {
+            depman.start();
+
+            // All apps are started when the deployment manager is started
+            assertEquals(4, depman.getApps(AppLifeCycle.STARTED).size());
+            assertThat(maxStarting.get(), greaterThan(1));
+
+            // The dependency of /app0 on /app3 is honoured
+            assertThat(started.indexOf("/app3"), lessThan(started.indexOf("/app0")));
+
+            SampleStatistic starts = depman.getLifeCycleNodeStatistics().get(AppLifeCycle.STARTING);
+            assertNotNull(starts);
+            assertEquals(4, starts.getCount());
+        }
+        finally
+        {
+            depman.stop();
+            server.stop();
+        }
+    }
+
+    private static class ParallelAppProvider extends AbstractLifeCycle implements AppProvider
+    {
+        private final int apps;
+        private final AtomicInteger starting;
+        private final AtomicInteger maxStarting;
+        private final List<String> started;
+        private DeploymentManager deploymentManager;
+
+        private ParallelAppProvider(int apps, AtomicInteger starting, AtomicInteger maxStarting, List<String> started)
+        {
+            this.apps = apps;
+            this.starting = starting;
+            this.maxStarting = maxStarting;
+            this.started = started;
+        }
+
+        @Override
+        public void setDeploymentManager(DeploymentManager deploymentManager)
+        {
+            this.deploymentManager = deploymentManager;
+        }
+
+        @Override
+        protected void doStart()
+        {
+            for (int i = 0; i < apps; ++i)
+            {
+                deploymentManager.addApp(new App(deploymentManager, this, "app" + i));
+            }
+        }
+
+        @Override
+        public ContextHandler createContextHandler(App app)
+        {
+            ContextHandler context = new ContextHandler()
+            {
+                @Override
+                protected void doStart() throws Exception
+                {
+                    int count = starting.incrementAndGet();
+                    maxStarting.accumulateAndGet(count, Math::max);
+                    Thread.sleep(200);
+                    starting.decrementAndGet();
+                    started.add(getContextPath());
+                    super.doStart();
+                }
+            };
+            context.setContextPath("/" + app.getOriginId());
+            if ("app0".equals(app.getOriginId()))
+                context.setAttribute(DeploymentManager.DEPENDS_ON, "/app3");
+            return context;
+        }
+    }
 }
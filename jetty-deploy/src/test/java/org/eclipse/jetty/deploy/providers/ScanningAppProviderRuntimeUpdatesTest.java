@@ -19,6 +19,7 @@
 package org.eclipse.jetty.deploy.providers;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.jetty.deploy.AppProvider;
@@ -36,6 +37,10 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.DisabledOnOs;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.condition.OS.WINDOWS;
 
 /**
@@ -188,4 +193,56 @@ public class ScanningAppProviderRuntimeUpdatesTest
         // Test that webapp response contains "-2"
         jetty.assertResponseContains("/foo/info", "FooServlet-2");
     }
+
+    /**
+     * Webapp deployment and removal after startup, with scans driven by file system events.
+     *
+     * @throws Exception on test failure
+     */
+    @Test
+    public void testWatchingAfterStartupThenRemoveContext() throws Exception
+    {
+        DeploymentManager dm = jetty.getServer().getBean(DeploymentManager.class);
+        ScanningAppProvider provider = null;
+        for (AppProvider p : dm.getAppProviders())
+        {
+            if (p instanceof ScanningAppProvider)
+                provider = (ScanningAppProvider)p;
+        }
+        assertNotNull(provider);
+        provider.stop();
+        provider.setWatching(true);
+        provider.start();
+        assertTrue(provider.isWatching());
+        long events = provider.getWatchEventCount();
+
+        jetty.copyWebapp("foo-webapp-1.war", "foo.war");
+        jetty.copyWebapp("foo.xml", "foo.xml");
+        awaitContexts("/foo");
+        assertThat(provider.getWatchEventCount(), greaterThan(events));
+        assertThat(provider.getScanCount(), greaterThan(0));
+
+        jetty.removeWebapp("foo.war");
+        jetty.removeWebapp("foo.xml");
+        awaitContexts();
+    }
+
+    private void awaitContexts(String... contextPaths) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true)
+        {
+            try
+            {
+                jetty.assertWebAppContextsExists(contextPaths);
+                return;
+            }
+            catch (AssertionError x)
+            {
+                if (System.nanoTime() > deadline)
+                    throw x;
+                Thread.sleep(100);
+            }
+        }
+    }
 }
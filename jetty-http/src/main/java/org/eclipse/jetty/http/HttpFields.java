@@ -44,13 +44,28 @@ import org.eclipse.jetty.util.log.Logger;
  * single thread.
  *
  * <p>The cookie handling provided by this class is guided by the Servlet specification and RFC6265.
+ *
+ * <p>Fields are kept in insertion order, and fields with a known {@link HttpHeader} are also
+ * indexed by their header, so that the lookup and replacement of known headers do not need
+ * to scan all the fields. Fields are matched to known headers by {@link HttpField#getHeader()}.
+ *
+ * <p>An immutable copy, that may be shared and used concurrently, is obtained with {@link #asImmutable()}.
  */
 public class HttpFields implements Iterable<HttpField>
 {
     private static final Logger LOG = Log.getLogger(HttpFields.class);
+    private static final int HEADERS = HttpHeader.values().length;
 
     private HttpField[] _fields;
     private int _size;
+    // Bitmap of the ordinals of the headers present.
+    private long[] _present;
+    // Bitmap of the ordinals of the headers present more than once.
+    private long[] _repeated;
+    // Index of the first field for each of the headers present.
+    private int[] _first;
+    // Whether a field without a HttpHeader may have the name of a known header.
+    private boolean _unindexed;
 
     /**
      * Initialize an empty HttpFields.
@@ -77,8 +92,28 @@ public class HttpFields implements Iterable<HttpField>
      */
     public HttpFields(HttpFields fields)
     {
-        _fields = Arrays.copyOf(fields._fields, fields._fields.length);
+        this(fields, fields._fields.length);
+    }
+
+    private HttpFields(HttpFields fields, int capacity)
+    {
+        _fields = Arrays.copyOf(fields._fields, capacity);
         _size = fields._size;
+        _unindexed = fields._unindexed;
+        if (fields._present != null)
+        {
+            _present = fields._present.clone();
+            _repeated = fields._repeated.clone();
+            _first = fields._first.clone();
+        }
+    }
+
+    /**
+     * @return an immutable copy of these fields, or these fields if they are already immutable
+     */
+    public HttpFields asImmutable()
+    {
+        return new Immutable(this);
     }
 
     public int size()
@@ -146,7 +181,7 @@ public class HttpFields implements Iterable<HttpField>
 
     public HttpField getField(HttpHeader header)
     {
-        for (int i = 0; i < _size; i++)
+        for (int i = first(header); i < _size; i++)
         {
             HttpField f = _fields[i];
             if (f.getHeader() == header)
@@ -169,7 +204,8 @@ public class HttpFields implements Iterable<HttpField>
     public List<HttpField> getFields(HttpHeader header)
     {
         List<HttpField> fields = null;
-        for (int i = 0; i < _size; i++)
+        int first = first(header);
+        for (int i = first, end = end(header, first); i < end; i++)
         {
             HttpField f = _fields[i];
             if (f.getHeader() == header)
@@ -195,7 +231,8 @@ public class HttpFields implements Iterable<HttpField>
 
     public boolean contains(HttpHeader header, String value)
     {
-        for (int i = _size; i-- > 0; )
+        int first = first(header);
+        for (int i = end(header, first); i-- > first; )
         {
             HttpField f = _fields[i];
             if (f.getHeader() == header && f.contains(value))
@@ -217,6 +254,8 @@ public class HttpFields implements Iterable<HttpField>
 
     public boolean contains(HttpHeader header)
     {
+        if (header != null)
+            return first(header) < _size;
         for (int i = _size; i-- > 0; )
         {
             HttpField f = _fields[i];
@@ -239,7 +278,7 @@ public class HttpFields implements Iterable<HttpField>
 
     public String get(HttpHeader header)
     {
-        for (int i = 0; i < _size; i++)
+        for (int i = first(header); i < _size; i++)
         {
             HttpField f = _fields[i];
             if (f.getHeader() == header)
@@ -268,7 +307,8 @@ public class HttpFields implements Iterable<HttpField>
     public List<String> getValuesList(HttpHeader header)
     {
         final List<String> list = new ArrayList<>();
-        for (int i = 0; i < _size; i++)
+        int first = first(header);
+        for (int i = first, end = end(header, first); i < end; i++)
         {
             HttpField f = _fields[i];
             if (f.getHeader() == header)
@@ -306,7 +346,8 @@ public class HttpFields implements Iterable<HttpField>
     public boolean addCSV(HttpHeader header, String... values)
     {
         QuotedCSV existing = null;
-        for (int i = 0; i < _size; i++)
+        int first = first(header);
+        for (int i = first, end = end(header, first); i < end; i++)
         {
             HttpField f = _fields[i];
             if (f.getHeader() == header)
@@ -403,8 +444,10 @@ public class HttpFields implements Iterable<HttpField>
     public List<String> getCSV(HttpHeader header, boolean keepQuotes)
     {
         QuotedCSV values = null;
-        for (HttpField f : this)
+        int first = first(header);
+        for (int i = first, end = end(header, first); i < end; i++)
         {
+            HttpField f = _fields[i];
             if (f.getHeader() == header)
             {
                 if (values == null)
@@ -461,8 +504,10 @@ public class HttpFields implements Iterable<HttpField>
     public List<String> getQualityCSV(HttpHeader header, ToIntFunction<String> secondaryOrdering)
     {
         QuotedQualityCSV values = null;
-        for (HttpField f : this)
+        int first = first(header);
+        for (int i = first, end = end(header, first); i < end; i++)
         {
+            HttpField f = _fields[i];
             if (f.getHeader() == header)
             {
                 if (values == null)
@@ -554,6 +599,22 @@ public class HttpFields implements Iterable<HttpField>
 
     public void put(HttpField field)
     {
+        HttpHeader header = field.getHeader();
+        if (header != null && !_unindexed)
+        {
+            int first = first(header);
+            if (first == _size)
+            {
+                add(field);
+                return;
+            }
+            if (end(header, first) == first + 1)
+            {
+                _fields[first] = field;
+                return;
+            }
+        }
+
         boolean put = false;
         for (int i = _size; i-- > 0; )
         {
@@ -563,6 +624,7 @@ public class HttpFields implements Iterable<HttpField>
                 if (put)
                 {
                     System.arraycopy(_fields, i + 1, _fields, i, --_size - i);
+                    _fields[_size] = null;
                 }
                 else
                 {
@@ -571,7 +633,9 @@ public class HttpFields implements Iterable<HttpField>
                 }
             }
         }
-        if (!put)
+        if (put)
+            reindex();
+        else
             add(field);
     }
 
@@ -666,7 +730,8 @@ public class HttpFields implements Iterable<HttpField>
         if (field != null)
         {
             if (_size == _fields.length)
-                _fields = Arrays.copyOf(_fields, _size * 2);
+                _fields = Arrays.copyOf(_fields, Math.max(_size * 2, 4));
+            index(field, _size);
             _fields[_size++] = field;
         }
     }
@@ -694,6 +759,42 @@ public class HttpFields implements Iterable<HttpField>
         }
     }
 
+    /**
+     * Add the fields of a template, contiguously and in order, so that they can be
+     * generated with a single copy of their pre-encoding.
+     *
+     * @param template the fields to add
+     */
+    public void add(PreEncodedHttpFields template)
+    {
+        int size = template.size();
+        if (_size + size > _fields.length)
+            _fields = Arrays.copyOf(_fields, Math.max(_size + size, _fields.length * 2));
+        for (int i = 0; i < size; i++)
+        {
+            add(template.getField(i));
+        }
+    }
+
+    /**
+     * Set the fields of a template: the fields with the same names are removed,
+     * then the fields of the template are added as by {@link #add(PreEncodedHttpFields)}.
+     *
+     * @param template the fields to set
+     */
+    public void put(PreEncodedHttpFields template)
+    {
+        for (HttpField field : template)
+        {
+            HttpHeader header = field.getHeader();
+            if (header == null)
+                remove(field.getName());
+            else
+                remove(header);
+        }
+        add(template);
+    }
+
     /**
      * Remove a field.
      *
@@ -703,15 +804,19 @@ public class HttpFields implements Iterable<HttpField>
     public HttpField remove(HttpHeader name)
     {
         HttpField removed = null;
-        for (int i = _size; i-- > 0; )
+        int first = first(name);
+        for (int i = end(name, first); i-- > first; )
         {
             HttpField f = _fields[i];
             if (f.getHeader() == name)
             {
                 removed = f;
                 System.arraycopy(_fields, i + 1, _fields, i, --_size - i);
+                _fields[_size] = null;
             }
         }
+        if (removed != null)
+            reindex();
         return removed;
     }
 
@@ -731,8 +836,11 @@ public class HttpFields implements Iterable<HttpField>
             {
                 removed = f;
                 System.arraycopy(_fields, i + 1, _fields, i, --_size - i);
+                _fields[_size] = null;
             }
         }
+        if (removed != null)
+            reindex();
         return removed;
     }
 
@@ -837,9 +945,9 @@ public class HttpFields implements Iterable<HttpField>
     public int hashCode()
     {
         int hash = 0;
-        for (HttpField field : _fields)
+        for (int i = 0; i < _size; i++)
         {
-            hash += field.hashCode();
+            hash += _fields[i].hashCode();
         }
         return hash;
     }
@@ -903,14 +1011,101 @@ public class HttpFields implements Iterable<HttpField>
 
     public void clear()
     {
+        Arrays.fill(_fields, 0, _size, null);
         _size = 0;
+        _unindexed = false;
+        if (_present != null)
+        {
+            Arrays.fill(_present, 0L);
+            Arrays.fill(_repeated, 0L);
+        }
     }
 
     public void addAll(HttpFields fields)
     {
-        for (int i = 0; i < fields._size; i++)
+        int size = fields._size;
+        if (_size + size > _fields.length)
+            _fields = Arrays.copyOf(_fields, Math.max(_size + size, _fields.length * 2));
+        for (int i = 0; i < size; i++)
+        {
+            HttpField field = fields._fields[i];
+            index(field, _size);
+            _fields[_size++] = field;
+        }
+    }
+
+    /**
+     * @param header the header to look up
+     * @return the index of the first field that may have the given header,
+     * or the number of fields if there is no such field
+     */
+    private int first(HttpHeader header)
+    {
+        if (header == null)
+            return 0;
+        int ordinal = header.ordinal();
+        if (_present == null || (_present[ordinal >> 6] & (1L << ordinal)) == 0)
+            return _size;
+        return _first[ordinal];
+    }
+
+    /**
+     * @param header the header to look up
+     * @param first the index returned by {@link #first(HttpHeader)}
+     * @return the index after the last field that may have the given header
+     */
+    private int end(HttpHeader header, int first)
+    {
+        if (header == null || first >= _size)
+            return _size;
+        int ordinal = header.ordinal();
+        if ((_repeated[ordinal >> 6] & (1L << ordinal)) == 0)
+            return first + 1;
+        return _size;
+    }
+
+    private void index(HttpField field, int index)
+    {
+        HttpHeader header = field.getHeader();
+        if (header == null)
+        {
+            if (!_unindexed && HttpHeader.CACHE.get(field.getName()) != null)
+                _unindexed = true;
+            return;
+        }
+        if (_present == null)
         {
-            add(fields._fields[i]);
+            _present = new long[(HEADERS + 63) >> 6];
+            _repeated = new long[_present.length];
+            _first = new int[HEADERS];
+        }
+        int ordinal = header.ordinal();
+        int word = ordinal >> 6;
+        long bit = 1L << ordinal;
+        if ((_present[word] & bit) == 0)
+        {
+            _present[word] |= bit;
+            _first[ordinal] = index;
+        }
+        else
+        {
+            _repeated[word] |= bit;
+            if (index < _first[ordinal])
+                _first[ordinal] = index;
+        }
+    }
+
+    private void reindex()
+    {
+        _unindexed = false;
+        if (_present != null)
+        {
+            Arrays.fill(_present, 0L);
+            Arrays.fill(_repeated, 0L);
+        }
+        for (int i = 0; i < _size; i++)
+        {
+            index(_fields[i], i);
         }
     }
 
@@ -1004,6 +1199,7 @@ public class HttpFields implements Iterable<HttpField>
         @Override
         public void remove()
         {
+            checkMutable();
             if (_current < 0)
                 throw new IllegalStateException();
             _size--;
@@ -1011,6 +1207,7 @@ public class HttpFields implements Iterable<HttpField>
             _fields[_size] = null;
             _cursor = _current;
             _current = -1;
+            reindex();
         }
 
         @Override
@@ -1043,18 +1240,95 @@ public class HttpFields implements Iterable<HttpField>
         @Override
         public void set(HttpField field)
         {
+            checkMutable();
             if (_current < 0)
                 throw new IllegalStateException();
             _fields[_current] = field;
+            reindex();
         }
 
         @Override
         public void add(HttpField field)
         {
+            checkMutable();
             _fields = Arrays.copyOf(_fields, _fields.length + 1);
             System.arraycopy(_fields, _cursor, _fields, _cursor + 1, _size++);
             _fields[_cursor++] = field;
             _current = -1;
+            reindex();
+        }
+
+        private void checkMutable()
+        {
+            if (HttpFields.this instanceof Immutable)
+                throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * <p>Immutable HttpFields, that can be shared and used concurrently,
+     * for example for sets of response headers that are built once.</p>
+     * <p>All the methods that would modify the fields throw {@link UnsupportedOperationException}.</p>
+     */
+    public static class Immutable extends HttpFields
+    {
+        public Immutable(HttpFields fields)
+        {
+            super(fields, fields.size());
+        }
+
+        @Override
+        public HttpFields asImmutable()
+        {
+            return this;
+        }
+
+        @Override
+        public void put(HttpField field)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void put(String name, List<String> list)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void add(HttpField field)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void add(PreEncodedHttpFields template)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void addAll(HttpFields fields)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public HttpField remove(HttpHeader name)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public HttpField remove(String name)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void clear()
+        {
+            throw new UnsupportedOperationException();
         }
     }
 }
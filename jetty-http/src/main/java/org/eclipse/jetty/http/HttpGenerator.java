@@ -399,6 +399,16 @@ public class HttpGenerator
 
                         if (status != HttpStatus.SWITCHING_PROTOCOLS_101)
                         {
+                            // Interim responses such as 103 Early Hints may have fields.
+                            HttpFields fields = info.getFields();
+                            if (fields != null)
+                            {
+                                for (HttpField field : fields)
+                                {
+                                    if (field != null)
+                                        putTo(field, header);
+                                }
+                            }
                             header.put(HttpTokens.CRLF);
                             _state = State.COMPLETING_1XX;
                             return Result.FLUSH;
@@ -600,6 +610,20 @@ public class HttpGenerator
             for (int f = 0; f < n; f++)
             {
                 HttpField field = fields.getField(f);
+                if (field instanceof PreEncodedHttpFields.Field)
+                {
+                    PreEncodedHttpFields template = PreEncodedHttpFields.templateAt(fields, f);
+                    if (template != null)
+                    {
+                        template.putTo(header);
+                        if (template.getContentType() != null)
+                            contentType = true;
+                        if (template.hasServer())
+                            send = send & ~SEND_SERVER;
+                        f += template.size() - 1;
+                        continue;
+                    }
+                }
                 HttpHeader h = field.getHeader();
                 if (h == null)
                     putTo(field, header);
@@ -73,7 +73,19 @@ import static org.eclipse.jetty.http.HttpCompliance.Violation.WHITESPACE_AFTER_F
  * (eg. "Connection: close"), or just header names (eg. "Connection:" ).
  * For headers who's value is not known statically (eg. Host, COOKIE) then a
  * per parser dynamic Trie of {@link HttpFields} from previous parsed messages
- * is used to help the parsing of subsequent messages.
+ * is used to help the parsing of subsequent messages.  That Trie starts small and
+ * doubles its capacity, up to {@link #getHeaderCacheSize()}, as it fills; once at
+ * its maximum capacity, it is discarded and relearnt if it misses more than it hits.
+ * Optionally, a {@link SharedHttpFieldCache} learnt from many connections is looked up
+ * after the per parser Trie and before the static one.
+ * </p>
+ * <p>
+ * Field names and values that are not found in the caches are scanned in bulk:
+ * the run of token characters of a name, and the run of visible characters and
+ * spaces of a value, 8 bytes at a time, are appended in one go, and only the
+ * delimiters and any unusual character go through the byte at a time state machine.
+ * This is controlled by {@link #setWordScanning(boolean)}, and the parsed result
+ * and the compliance checks are the same either way.
  * </p>
  * <p>
  * The parser can work in varying compliance modes:
@@ -91,6 +103,9 @@ public class HttpParser
 {
     public static final Logger LOG = Log.getLogger(HttpParser.class);
     public static final int INITIAL_URI_LENGTH = 256;
+    private static final int INITIAL_FIELD_CACHE_SIZE = 256;
+    private static final int FIELD_CACHE_THRASH_MISSES = 32;
+    private static final boolean WORD_SCANNING = Boolean.parseBoolean(System.getProperty("org.eclipse.jetty.http.HttpParser.WORD_SCANNING", "true"));
     private static final int MAX_CHUNK_LENGTH = Integer.MAX_VALUE / 16 - 16;
 
     /**
@@ -179,11 +194,20 @@ public class HttpParser
     private boolean _headResponse;
     private boolean _cr;
     private ByteBuffer _contentChunk;
-    private Trie<HttpField> _fieldCache;
+    private ArrayTernaryTrie<HttpField> _fieldCache;
+    private int _fieldCacheCapacity;
+    private long _fieldCacheHits;
+    private long _fieldCachePrefixHits;
+    private long _fieldCacheMisses;
+    private long _fieldCacheResizeHits;
+    private long _fieldCacheResizeMisses;
+    private SharedHttpFieldCache _sharedFieldCache;
+    private long _sharedFieldCacheHits;
     private int _length;
     private final StringBuilder _string = new StringBuilder();
     private int _headerCacheSize = 1024;
     private boolean _headerCacheCaseSensitive;
+    private boolean _wordScanning = WORD_SCANNING;
 
     static
     {
@@ -313,6 +337,35 @@ public class HttpParser
         _headerCacheCaseSensitive = headerCacheCaseSensitive;
     }
 
+    public SharedHttpFieldCache getSharedFieldCache()
+    {
+        return _sharedFieldCache;
+    }
+
+    /**
+     * @param sharedFieldCache the cache, shared with the parsers of other connections, to look up
+     * fields that are not in the per connection cache, or null for none
+     */
+    public void setSharedFieldCache(SharedHttpFieldCache sharedFieldCache)
+    {
+        _sharedFieldCache = sharedFieldCache;
+    }
+
+    public boolean isWordScanning()
+    {
+        return _wordScanning;
+    }
+
+    /**
+     * @param wordScanning whether field names and values are scanned in bulk rather than
+     * one byte at a time; defaults to the {@code org.eclipse.jetty.http.HttpParser.WORD_SCANNING}
+     * system property, or true
+     */
+    public void setWordScanning(boolean wordScanning)
+    {
+        _wordScanning = wordScanning;
+    }
+
     protected void checkViolation(Violation violation) throws BadMessageException
     {
         if (violation.isAllowedBy(_complianceMode))
@@ -864,7 +917,10 @@ public class HttpParser
                             // Should we try to cache header fields?
                             int headerCache = getHeaderCacheSize();
                             if (_fieldCache == null && _version.getVersion() >= HttpVersion.HTTP_1_1.getVersion() && headerCache > 0)
-                                _fieldCache = new ArrayTernaryTrie<>(headerCache);
+                            {
+                                _fieldCacheCapacity = Math.min(headerCache, INITIAL_FIELD_CACHE_SIZE);
+                                _fieldCache = new ArrayTernaryTrie<>(_fieldCacheCapacity);
+                            }
 
                             setState(State.HEADER);
 
@@ -938,7 +994,7 @@ public class HttpParser
             // Handle known headers
             if (_header != null)
             {
-                boolean addToConnectionTrie = false;
+                boolean cacheable = false;
                 switch (_header)
                 {
                     case CONTENT_LENGTH:
@@ -1010,7 +1066,7 @@ public class HttpParser
                             _field = new HostPortHttpField(_header,
                                 CASE_SENSITIVE_FIELD_NAME.isAllowedBy(_complianceMode) ? _headerString : _header.asString(),
                                 _valueString);
-                            addToConnectionTrie = _fieldCache != null;
+                            cacheable = true;
                         }
                         break;
 
@@ -1028,18 +1084,21 @@ public class HttpParser
                     case COOKIE:
                     case CACHE_CONTROL:
                     case USER_AGENT:
-                        addToConnectionTrie = _fieldCache != null && _field == null;
+                        cacheable = _field == null;
                         break;
 
                     default:
                         break;
                 }
 
-                if (addToConnectionTrie && !_fieldCache.isFull() && _header != null && _valueString != null)
+                if (cacheable && _valueString != null && (_fieldCache != null || _sharedFieldCache != null))
                 {
                     if (_field == null)
                         _field = new HttpField(_header, caseInsensitiveHeader(_headerString, _header.asString()), _valueString);
-                    _fieldCache.put(_field);
+                    if (_fieldCache != null)
+                        cacheField(_field);
+                    if (_sharedFieldCache != null)
+                        _sharedFieldCache.learn(_field);
                 }
             }
             _handler.parsedHeader(_field != null ? _field : new HttpField(_header, _headerString, _valueString));
@@ -1050,6 +1109,41 @@ public class HttpParser
         _field = null;
     }
 
+    private void cacheField(HttpField field)
+    {
+        _fieldCacheMisses++;
+        if (_fieldCache.put(field))
+            return;
+
+        // The cache is full, so adapt it to how it has been doing since it was last resized
+        long hits = _fieldCacheHits + _fieldCachePrefixHits - _fieldCacheResizeHits;
+        long misses = _fieldCacheMisses - _fieldCacheResizeMisses;
+        double factor = Math.min(2.0, (double)_headerCacheSize / _fieldCacheCapacity);
+        int capacity = (int)(_fieldCacheCapacity * factor);
+        if (capacity > _fieldCacheCapacity)
+        {
+            // Grow it while there is room to learn more
+            _fieldCache = new ArrayTernaryTrie<>(_fieldCache, factor);
+        }
+        else if (misses > hits && misses >= FIELD_CACHE_THRASH_MISSES)
+        {
+            // It is thrashing, so relearn from a small cache
+            capacity = Math.min(_headerCacheSize, INITIAL_FIELD_CACHE_SIZE);
+            _fieldCache = new ArrayTernaryTrie<>(capacity);
+        }
+        else
+        {
+            return;
+        }
+
+        if (debugEnabled)
+            LOG.debug("{} field cache {} -> {} after {} hits {} misses", this, _fieldCacheCapacity, capacity, hits, misses);
+        _fieldCacheCapacity = capacity;
+        _fieldCacheResizeHits = _fieldCacheHits + _fieldCachePrefixHits;
+        _fieldCacheResizeMisses = _fieldCacheMisses;
+        _fieldCache.put(field);
+    }
+
     private void parsedTrailer()
     {
         // handler last header if any.  Delayed to here just in case there was a continuation line (above)
@@ -1219,6 +1313,13 @@ public class HttpParser
                             {
                                 // Try a look ahead for the known header name and value.
                                 HttpField cachedField = _fieldCache == null ? null : _fieldCache.getBest(buffer, -1, buffer.remaining());
+                                boolean connectionCached = cachedField != null;
+                                if (cachedField == null && _sharedFieldCache != null)
+                                {
+                                    cachedField = _sharedFieldCache.getBest(buffer, -1, buffer.remaining());
+                                    if (cachedField != null)
+                                        _sharedFieldCacheHits++;
+                                }
                                 if (cachedField == null)
                                     cachedField = CACHE.getBest(buffer, -1, buffer.remaining());
 
@@ -1267,6 +1368,8 @@ public class HttpParser
                                     byte peek = buffer.get(pos);
                                     if (peek == HttpTokens.CARRIAGE_RETURN || peek == HttpTokens.LINE_FEED)
                                     {
+                                        if (connectionCached)
+                                            _fieldCacheHits++;
                                         _field = cachedField;
                                         _valueString = v;
                                         setState(FieldState.IN_VALUE);
@@ -1280,6 +1383,9 @@ public class HttpParser
                                             buffer.position(pos);
                                         break;
                                     }
+                                    // Only a prefix of the value is known, so carry on with the rest
+                                    if (connectionCached)
+                                        _fieldCachePrefixHits++;
                                     setState(FieldState.IN_VALUE);
                                     setString(v);
                                     buffer.position(pos);
@@ -1343,6 +1449,8 @@ public class HttpParser
                         case DIGIT:
                         case TCHAR:
                             _string.append(t.getChar());
+                            if (_wordScanning)
+                                scanName(buffer);
                             _length = _string.length();
                             break;
 
@@ -1401,6 +1509,8 @@ public class HttpParser
                             _string.append(t.getChar());
                             _length = _string.length();
                             setState(FieldState.IN_VALUE);
+                            if (_wordScanning)
+                                scanValue(buffer);
                             break;
 
                         default:
@@ -1433,6 +1543,8 @@ public class HttpParser
                         case OTEXT: // TODO review? should this be a utf8 string?
                             _string.append(t.getChar());
                             _length = _string.length();
+                            if (_wordScanning)
+                                scanValue(buffer);
                             break;
 
                         default:
@@ -1448,6 +1560,75 @@ public class HttpParser
         return false;
     }
 
+    /**
+     * @param buffer the buffer being parsed
+     * @return the limit of a bulk scan, so that it does not go past the maximum header bytes,
+     * leaving the byte that exceeds them to be rejected by the byte at a time state machine
+     */
+    private int scanLimit(ByteBuffer buffer)
+    {
+        int position = buffer.position();
+        int limit = buffer.limit();
+        if (_maxHeaderBytes > 0 && _maxHeaderBytes - _headerBytes < limit - position)
+            limit = position + _maxHeaderBytes - _headerBytes;
+        return limit;
+    }
+
+    /**
+     * Appends the run of token characters that follows in the buffer to the field name.
+     */
+    private void scanName(ByteBuffer buffer)
+    {
+        int start = buffer.position();
+        int limit = scanLimit(buffer);
+        int i = start;
+        while (i < limit)
+        {
+            byte b = buffer.get(i);
+            if (!HttpTokens.isTokenChar(b))
+                break;
+            _string.append((char)b);
+            i++;
+        }
+        _headerBytes += i - start;
+        buffer.position(i);
+    }
+
+    /**
+     * Appends the run of visible characters and spaces that follows in the buffer to the
+     * field value, testing 8 bytes at a time; trailing spaces are not counted in the length
+     * of the value, as they are not by the byte at a time state machine.
+     */
+    private void scanValue(ByteBuffer buffer)
+    {
+        int start = buffer.position();
+        int limit = scanLimit(buffer);
+        int i = start;
+        while (limit - i >= 8 && HttpTokens.isVisibleOrSpace(buffer.getLong(i)))
+        {
+            i += 8;
+        }
+        while (i < limit && HttpTokens.isVisibleOrSpace(buffer.get(i)))
+        {
+            i++;
+        }
+        if (i == start)
+            return;
+
+        int last = start - 1;
+        for (int j = start; j < i; j++)
+        {
+            byte b = buffer.get(j);
+            _string.append((char)b);
+            if (b != HttpTokens.SPACE)
+                last = j;
+        }
+        if (last >= start)
+            _length = _string.length() - (i - 1 - last);
+        _headerBytes += i - start;
+        buffer.position(i);
+    }
+
     /**
      * Parse until next Event.
      *
@@ -1881,6 +2062,46 @@ public class HttpParser
         return _fieldCache;
     }
 
+    /**
+     * @return the number of fields, name and value, found in the per connection cache
+     */
+    public long getFieldCacheHits()
+    {
+        return _fieldCacheHits;
+    }
+
+    /**
+     * @return the number of fields whose value started with a value found in the per connection cache
+     */
+    public long getFieldCachePrefixHits()
+    {
+        return _fieldCachePrefixHits;
+    }
+
+    /**
+     * @return the number of cacheable fields that were not found in the per connection cache
+     */
+    public long getFieldCacheMisses()
+    {
+        return _fieldCacheMisses;
+    }
+
+    /**
+     * @return the number of fields found in the {@link #getSharedFieldCache() shared cache}
+     */
+    public long getSharedFieldCacheHits()
+    {
+        return _sharedFieldCacheHits;
+    }
+
+    /**
+     * @return the capacity, in Trie nodes, of the per connection cache, or 0 if none was created
+     */
+    public int getFieldCacheCapacity()
+    {
+        return _fieldCacheCapacity;
+    }
+
     @Override
     public String toString()
     {
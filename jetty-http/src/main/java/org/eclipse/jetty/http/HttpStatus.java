@@ -30,6 +30,7 @@ public class HttpStatus
     public static final int CONTINUE_100 = 100;
     public static final int SWITCHING_PROTOCOLS_101 = 101;
     public static final int PROCESSING_102 = 102;
+    public static final int EARLY_HINT_103 = 103;
 
     public static final int OK_200 = 200;
     public static final int CREATED_201 = 201;
@@ -108,6 +109,7 @@ public class HttpStatus
         CONTINUE(CONTINUE_100, "Continue"),
         SWITCHING_PROTOCOLS(SWITCHING_PROTOCOLS_101, "Switching Protocols"),
         PROCESSING(PROCESSING_102, "Processing"),
+        EARLY_HINT(EARLY_HINT_103, "Early Hints"),
 
         OK(OK_200, "OK"),
         CREATED(CREATED_201, "Created"),
@@ -119,6 +119,7 @@ public class HttpTokens
     }
 
     public static final Token[] TOKENS = new Token[256];
+    private static final boolean[] TCHARS = new boolean[256];
 
     static
     {
@@ -186,7 +187,51 @@ public class HttpTokens
                     else
                         TOKENS[b] = new Token((byte)b, Type.CNTL);
             }
+
+            switch (TOKENS[b].getType())
+            {
+                case ALPHA:
+                case DIGIT:
+                case TCHAR:
+                    TCHARS[b] = true;
+                    break;
+                default:
+                    break;
+            }
         }
     }
+
+    /**
+     * @param b the byte to test
+     * @return whether the byte is a token character, that is an ALPHA, a DIGIT or a TCHAR
+     */
+    static boolean isTokenChar(byte b)
+    {
+        return TCHARS[0xff & b];
+    }
+
+    /**
+     * <p>Tests the 8 bytes of a word at once, in any byte order.</p>
+     *
+     * @param word the 8 bytes to test
+     * @return whether all the bytes are either a SPACE or a visible character
+     */
+    static boolean isVisibleOrSpace(long word)
+    {
+        // A byte less than 0x20 borrows from its high bit, a byte greater than 0x7E
+        // carries into it or already has it set; neither can hide the other.
+        long below = (word - 0x2020202020202020L) & ~word;
+        long above = (word + 0x0101010101010101L) | word;
+        return ((below | above) & 0x8080808080808080L) == 0;
+    }
+
+    /**
+     * @param b the byte to test
+     * @return whether the byte is either a SPACE or a visible character
+     */
+    static boolean isVisibleOrSpace(byte b)
+    {
+        return b >= SPACE && b < 0x7F;
+    }
 }
 
@@ -0,0 +1,173 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * <p>An immutable template of response header fields that is pre-encoded once
+ * and then written many times, for example the CORS, security or cache headers
+ * that an application adds unchanged to every response.</p>
+ * <p>Each field of the template is a {@link PreEncodedHttpField}, so that the fields
+ * can be added with {@link HttpFields#add(PreEncodedHttpFields)} or
+ * {@link HttpFields#put(PreEncodedHttpFields)} and still be looked up and removed
+ * individually. If, when the response is generated, the fields are still all present,
+ * contiguous and in order, {@link HttpGenerator} writes them with a single copy of
+ * the HTTP/1 encoding of the whole template; otherwise each remaining field is written
+ * with its own pre-encoding.</p>
+ * <p>HPACK always encodes the fields one by one from their pre-encoding: the first
+ * response on a connection adds them to the dynamic table, and the following ones
+ * send each field as an index into that table, which is smaller than any block that
+ * could be pre-encoded independently of the connection.</p>
+ * <p>The fields that determine the framing of the message ({@code Content-Length},
+ * {@code Transfer-Encoding} and {@code Connection}) cannot be part of a template.</p>
+ */
+public class PreEncodedHttpFields implements Iterable<HttpField>
+{
+    private final Field[] _fields;
+    private final byte[] _http1;
+    private final String _contentType;
+    private final boolean _server;
+
+    public PreEncodedHttpFields(HttpFields fields)
+    {
+        this(fields.stream().toArray(HttpField[]::new));
+    }
+
+    public PreEncodedHttpFields(HttpField... fields)
+    {
+        _fields = new Field[fields.length];
+        String contentType = null;
+        boolean server = false;
+        int length = 0;
+        for (int i = 0; i < fields.length; i++)
+        {
+            HttpField field = fields[i];
+            if (field.getValue() == null)
+                throw new IllegalArgumentException("null value for " + field.getName());
+            HttpHeader header = field.getHeader();
+            if (header != null)
+            {
+                switch (header)
+                {
+                    case CONTENT_LENGTH:
+                    case TRANSFER_ENCODING:
+                    case CONNECTION:
+                        throw new IllegalArgumentException("Cannot pre-encode " + header);
+                    case CONTENT_TYPE:
+                        contentType = field.getValue();
+                        break;
+                    case SERVER:
+                        server = true;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            Field preEncoded = new Field(this, i, field);
+            _fields[i] = preEncoded;
+            length += preEncoded.getEncodedLength(HttpVersion.HTTP_1_1);
+        }
+        _contentType = contentType;
+        _server = server;
+
+        ByteBuffer http1 = ByteBuffer.allocate(length);
+        for (Field field : _fields)
+        {
+            field.putTo(http1, HttpVersion.HTTP_1_1);
+        }
+        _http1 = http1.array();
+    }
+
+    public int size()
+    {
+        return _fields.length;
+    }
+
+    public HttpField getField(int index)
+    {
+        return _fields[index];
+    }
+
+    /**
+     * @return the value of the {@code Content-Type} field of this template, or null if there is none
+     */
+    public String getContentType()
+    {
+        return _contentType;
+    }
+
+    @Override
+    public Iterator<HttpField> iterator()
+    {
+        return Arrays.<HttpField>asList(_fields).iterator();
+    }
+
+    boolean hasServer()
+    {
+        return _server;
+    }
+
+    void putTo(ByteBuffer bufferInFillMode)
+    {
+        bufferInFillMode.put(_http1);
+    }
+
+    /**
+     * @param fields the fields to look into
+     * @param index the index of a field that is a member of a template
+     * @return the template whose fields are all at {@code index} and after it, in order, or null
+     */
+    static PreEncodedHttpFields templateAt(HttpFields fields, int index)
+    {
+        Field field = (Field)fields.getField(index);
+        if (field._index != 0)
+            return null;
+        Field[] members = field._template._fields;
+        if (index + members.length > fields.size())
+            return null;
+        for (int i = 1; i < members.length; i++)
+        {
+            if (fields.getField(index + i) != members[i])
+                return null;
+        }
+        return field._template;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x%s", getClass().getSimpleName(), hashCode(), Arrays.toString(_fields));
+    }
+
+    static class Field extends PreEncodedHttpField
+    {
+        private final PreEncodedHttpFields _template;
+        private final int _index;
+
+        private Field(PreEncodedHttpFields template, int index, HttpField field)
+        {
+            super(field.getHeader(), field.getName(), field.getValue());
+            _template = template;
+            _index = index;
+        }
+    }
+}
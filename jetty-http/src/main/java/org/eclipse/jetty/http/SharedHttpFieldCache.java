@@ -0,0 +1,295 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.ArrayTernaryTrie;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+
+/**
+ * <p>A cache of {@link HttpField}s, learnt from and shared by the {@link HttpParser}s of many connections.</p>
+ * <p>Parsers report the cacheable fields that their per connection cache missed to {@link #learn(HttpField)}.
+ * Every {@link #getRebuildInterval()} reports, the fields reported at least {@link #getLearnThreshold()}
+ * times are published, most frequent first, in a new immutable Trie that parsers look up with
+ * {@link #getBest(ByteBuffer, int, int)}. The counts are halved on every rebuild, so that fields
+ * that are no longer sent age out of the cache. The rebuilds are run by the {@link #getExecutor() executor},
+ * so that parsing is not delayed by them.</p>
+ * <p>The cache is case sensitive, so that a field is only found for a client that sent exactly
+ * the same name and value, and never with the casing of another client.</p>
+ * <p>Only fields whose values are not private to a client are learnt: {@link HttpHeader#COOKIE} and
+ * {@link HttpHeader#AUTHORIZATION} values are never shared between connections.</p>
+ */
+@ManagedObject("A cache of HTTP fields shared by connections")
+public class SharedHttpFieldCache
+{
+    private static final Logger LOG = Log.getLogger(SharedHttpFieldCache.class);
+    private static final Set<HttpHeader> LEARNABLE = EnumSet.of(
+        HttpHeader.HOST,
+        HttpHeader.ACCEPT,
+        HttpHeader.ACCEPT_CHARSET,
+        HttpHeader.ACCEPT_ENCODING,
+        HttpHeader.ACCEPT_LANGUAGE,
+        HttpHeader.CACHE_CONTROL,
+        HttpHeader.USER_AGENT);
+
+    private final Map<HttpField, LongAdder> _candidates = new ConcurrentHashMap<>();
+    private final AtomicInteger _reports = new AtomicInteger();
+    private final AtomicBoolean _rebuilding = new AtomicBoolean();
+    private final int _capacity;
+    private final int _maxCandidates;
+    private final int _rebuildInterval;
+    private final int _learnThreshold;
+    private volatile Executor _executor;
+    private volatile ArrayTernaryTrie<HttpField> _trie;
+    private volatile int _size;
+    private volatile long _rebuilds;
+
+    /**
+     * @param capacity the capacity, in Trie nodes, of the cache
+     */
+    public SharedHttpFieldCache(int capacity)
+    {
+        this(capacity, 1024, 256, 2);
+    }
+
+    /**
+     * @param capacity the capacity, in Trie nodes, of the cache
+     * @param maxCandidates the maximum number of distinct fields to count
+     * @param rebuildInterval the number of reported fields between rebuilds of the cache
+     * @param learnThreshold the minimum count of a field for it to be cached
+     */
+    public SharedHttpFieldCache(int capacity, int maxCandidates, int rebuildInterval, int learnThreshold)
+    {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Invalid capacity " + capacity);
+        _capacity = capacity;
+        _maxCandidates = maxCandidates;
+        _rebuildInterval = rebuildInterval;
+        _learnThreshold = learnThreshold;
+    }
+
+    @ManagedAttribute("The capacity, in Trie nodes, of the cache")
+    public int getCapacity()
+    {
+        return _capacity;
+    }
+
+    @ManagedAttribute("The maximum number of distinct fields counted")
+    public int getMaxCandidates()
+    {
+        return _maxCandidates;
+    }
+
+    @ManagedAttribute("The number of reported fields between rebuilds of the cache")
+    public int getRebuildInterval()
+    {
+        return _rebuildInterval;
+    }
+
+    @ManagedAttribute("The minimum count of a field for it to be cached")
+    public int getLearnThreshold()
+    {
+        return _learnThreshold;
+    }
+
+    /**
+     * @return the executor that rebuilds the cache, or null if the cache is rebuilt by the thread that reports a field
+     */
+    public Executor getExecutor()
+    {
+        return _executor;
+    }
+
+    /**
+     * @param executor the executor that rebuilds the cache, or null to rebuild it in the thread that reports a field
+     */
+    public void setExecutor(Executor executor)
+    {
+        _executor = executor;
+    }
+
+    @ManagedAttribute("The number of fields in the cache")
+    public int getSize()
+    {
+        return _size;
+    }
+
+    @ManagedAttribute("The number of distinct fields counted")
+    public int getCandidates()
+    {
+        return _candidates.size();
+    }
+
+    @ManagedAttribute("The number of times the cache has been rebuilt")
+    public long getRebuilds()
+    {
+        return _rebuilds;
+    }
+
+    /**
+     * @param field the field to test
+     * @return whether the field may be shared between connections
+     */
+    public boolean isLearnable(HttpField field)
+    {
+        return field.getHeader() != null && LEARNABLE.contains(field.getHeader()) && field.getValue() != null;
+    }
+
+    /**
+     * <p>Looks up the cached field that best matches the given buffer.</p>
+     *
+     * @param buffer the buffer holding the name and value of a field
+     * @param offset the offset of the field from the buffer position
+     * @param length the maximum length to look at
+     * @return the cached field with the longest matching name and value, or null
+     * @see ArrayTernaryTrie#getBest(ByteBuffer, int, int)
+     */
+    public HttpField getBest(ByteBuffer buffer, int offset, int length)
+    {
+        ArrayTernaryTrie<HttpField> trie = _trie;
+        return trie == null ? null : trie.getBest(buffer, offset, length);
+    }
+
+    /**
+     * <p>Reports a field that was parsed, but was not found in a cache.</p>
+     *
+     * @param field the parsed field
+     */
+    public void learn(HttpField field)
+    {
+        if (!isLearnable(field))
+            return;
+
+        LongAdder count = _candidates.get(field);
+        if (count == null && _candidates.size() < _maxCandidates)
+            count = _candidates.computeIfAbsent(field, f -> new LongAdder());
+        if (count != null)
+            count.increment();
+
+        if (_reports.incrementAndGet() >= _rebuildInterval && _rebuilding.compareAndSet(false, true))
+        {
+            Executor executor = _executor;
+            if (executor == null)
+            {
+                doRebuild();
+                return;
+            }
+            try
+            {
+                executor.execute(this::doRebuild);
+            }
+            catch (RejectedExecutionException x)
+            {
+                // Try again on the next report.
+                LOG.ignore(x);
+                _rebuilding.set(false);
+            }
+        }
+    }
+
+    /**
+     * <p>Rebuilds the cache from the fields counted so far.</p>
+     * <p>Normally run by the {@link #getExecutor() executor} every {@link #getRebuildInterval()} reported fields.</p>
+     */
+    @ManagedOperation(value = "Rebuilds the cache", impact = "ACTION")
+    public void rebuild()
+    {
+        if (_rebuilding.compareAndSet(false, true))
+            doRebuild();
+    }
+
+    private void doRebuild()
+    {
+        try
+        {
+            _reports.set(0);
+
+            List<Map.Entry<HttpField, Long>> learnt = new ArrayList<>();
+            Iterator<Map.Entry<HttpField, LongAdder>> i = _candidates.entrySet().iterator();
+            while (i.hasNext())
+            {
+                Map.Entry<HttpField, LongAdder> entry = i.next();
+                long count = entry.getValue().sumThenReset();
+                if (count >= _learnThreshold)
+                    learnt.add(new AbstractMap.SimpleEntry<>(entry.getKey(), count));
+                if (count / 2 == 0)
+                    i.remove();
+                else
+                    entry.getValue().add(count / 2);
+            }
+            learnt.sort(Map.Entry.<HttpField, Long>comparingByValue().reversed());
+
+            ArrayTernaryTrie<HttpField> trie = new ArrayTernaryTrie<>(false, _capacity);
+            int size = 0;
+            for (Map.Entry<HttpField, Long> entry : learnt)
+            {
+                if (trie.isFull())
+                    break;
+                if (trie.put(entry.getKey()))
+                    size++;
+            }
+
+            _trie = size == 0 ? null : trie;
+            _size = size;
+            _rebuilds++;
+            if (LOG.isDebugEnabled())
+                LOG.debug("Rebuilt {} from {} learnt fields", this, learnt.size());
+        }
+        finally
+        {
+            _rebuilding.set(false);
+        }
+    }
+
+    /**
+     * <p>Discards the cached and the counted fields.</p>
+     */
+    @ManagedOperation(value = "Clears the cache", impact = "ACTION")
+    public void clear()
+    {
+        _candidates.clear();
+        _reports.set(0);
+        _trie = null;
+        _size = 0;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{size=%d,capacity=%d,candidates=%d}", getClass().getSimpleName(), hashCode(), _size, _capacity, _candidates.size());
+    }
+}
@@ -34,11 +34,14 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -221,6 +224,29 @@ public class HttpFieldsTest
         assertEquals(false, e.hasMoreElements());
     }
 
+    @Test
+    public void testPutReplacesFieldWithoutHeader() throws Exception
+    {
+        HttpFields header = new HttpFields();
+
+        header.add(new HttpField(null, "Content-Type", "text/plain"));
+        header.add("name0", "value0");
+        header.put(new HttpField(HttpHeader.CONTENT_TYPE, "text/html"));
+
+        assertEquals(2, header.size());
+        assertEquals("text/html", header.get("Content-Type"));
+        assertEquals("text/html", header.get(HttpHeader.CONTENT_TYPE));
+
+        header.put(new HttpField(HttpHeader.CONTENT_TYPE, "text/xml"));
+        header.add(new HttpField(null, "content-type", "text/plain"));
+        header.put(new HttpField(HttpHeader.CONTENT_TYPE, "application/json"));
+
+        assertEquals(2, header.size());
+        Enumeration<String> e = header.getValues("Content-Type");
+        assertEquals("application/json", e.nextElement());
+        assertFalse(e.hasMoreElements());
+    }
+
     @Test
     public void testRemovePut() throws Exception
     {
@@ -764,4 +790,132 @@ public class HttpFieldsTest
         assertThat(i.next().getName(), is("name4"));
         assertThat(i.hasNext(), is(false));
     }
+
+    @Test
+    public void testIndexedKnownHeaders()
+    {
+        HttpFields fields = new HttpFields(2);
+        fields.add("X-Custom", "a");
+        fields.add(HttpHeader.ACCEPT, "text/html");
+        fields.add(HttpHeader.HOST, "localhost");
+        fields.add("accept", "application/json");
+        fields.add(HttpHeader.CONNECTION, "keep-alive");
+
+        assertEquals("text/html", fields.get(HttpHeader.ACCEPT));
+        assertEquals("localhost", fields.get(HttpHeader.HOST));
+        assertNull(fields.get(HttpHeader.COOKIE));
+        assertFalse(fields.contains(HttpHeader.COOKIE));
+        assertTrue(fields.contains(HttpHeader.ACCEPT, "application/json"));
+        assertThat(fields.getValuesList(HttpHeader.ACCEPT), Matchers.contains("text/html", "application/json"));
+        assertThat(fields.getCSV(HttpHeader.CONNECTION, false), Matchers.contains("keep-alive"));
+
+        // Replacing a single header keeps its position.
+        fields.put(HttpHeader.HOST, "example.com");
+        assertEquals("example.com", fields.getField(2).getValue());
+
+        // Replacing a repeated header removes the others.
+        fields.put(HttpHeader.ACCEPT, "*/*");
+        assertEquals(4, fields.size());
+        assertThat(fields.getValuesList(HttpHeader.ACCEPT), Matchers.contains("*/*"));
+        assertEquals("example.com", fields.get(HttpHeader.HOST));
+        assertEquals("keep-alive", fields.get(HttpHeader.CONNECTION));
+
+        // Removals shift the following fields.
+        assertNotNull(fields.remove("X-Custom"));
+        assertEquals("*/*", fields.get(HttpHeader.ACCEPT));
+        assertNotNull(fields.remove(HttpHeader.HOST));
+        assertNull(fields.get(HttpHeader.HOST));
+        assertEquals("keep-alive", fields.get(HttpHeader.CONNECTION));
+        assertNull(fields.remove(HttpHeader.HOST));
+
+        ListIterator<HttpField> iterator = fields.listIterator();
+        iterator.next();
+        iterator.remove();
+        assertNull(fields.get(HttpHeader.ACCEPT));
+        assertEquals("keep-alive", fields.get(HttpHeader.CONNECTION));
+        iterator.add(new HttpField(HttpHeader.ACCEPT, "text/plain"));
+        assertEquals("text/plain", fields.get(HttpHeader.ACCEPT));
+        assertEquals("keep-alive", fields.get(HttpHeader.CONNECTION));
+
+        fields.clear();
+        assertEquals(0, fields.size());
+        assertNull(fields.get(HttpHeader.ACCEPT));
+        assertFalse(fields.contains(HttpHeader.CONNECTION));
+    }
+
+    @Test
+    public void testImmutable()
+    {
+        HttpFields fields = new HttpFields();
+        fields.put(HttpHeader.SERVER, "Jetty");
+        fields.put(HttpHeader.CACHE_CONTROL, "no-cache");
+        fields.add("X-Custom", "value");
+
+        HttpFields immutable = fields.asImmutable();
+        assertSame(immutable, immutable.asImmutable());
+        assertEquals(fields, immutable);
+        assertEquals(fields.hashCode(), immutable.hashCode());
+        assertEquals("Jetty", immutable.get(HttpHeader.SERVER));
+
+        assertThrows(UnsupportedOperationException.class, () -> immutable.put(HttpHeader.SERVER, "other"));
+        assertThrows(UnsupportedOperationException.class, () -> immutable.add(HttpHeader.VARY, "Accept"));
+        assertThrows(UnsupportedOperationException.class, () -> immutable.remove(HttpHeader.SERVER));
+        assertThrows(UnsupportedOperationException.class, () -> immutable.remove("X-Custom"));
+        assertThrows(UnsupportedOperationException.class, immutable::clear);
+        assertThrows(UnsupportedOperationException.class, () ->
+        {
+            Iterator<HttpField> iterator = immutable.iterator();
+            iterator.next();
+            iterator.remove();
+        });
+
+        // Changes to the original do not affect the immutable copy.
+        fields.put(HttpHeader.SERVER, "other");
+        assertEquals("Jetty", immutable.get(HttpHeader.SERVER));
+
+        // Immutable fields can be copied into mutable ones.
+        HttpFields response = new HttpFields();
+        response.add(HttpHeader.CONTENT_TYPE, "text/plain");
+        response.addAll(immutable);
+        response.put(HttpHeader.CACHE_CONTROL, "max-age=60");
+        assertEquals(4, response.size());
+        assertEquals("max-age=60", response.get(HttpHeader.CACHE_CONTROL));
+        assertEquals("no-cache", immutable.get(HttpHeader.CACHE_CONTROL));
+        HttpFields copy = new HttpFields(immutable);
+        copy.add(HttpHeader.VARY, "Accept");
+        assertEquals("Accept", copy.get(HttpHeader.VARY));
+    }
+
+    @Test
+    public void testPreEncodedTemplate()
+    {
+        PreEncodedHttpFields template = new PreEncodedHttpFields(
+            new HttpField(HttpHeader.CACHE_CONTROL, "no-cache"),
+            new HttpField("X-Frame-Options", "DENY"),
+            new HttpField(HttpHeader.VARY, "Accept-Encoding"));
+        assertEquals(3, template.size());
+        assertThrows(IllegalArgumentException.class, () -> new PreEncodedHttpFields(new HttpField(HttpHeader.CONTENT_LENGTH, "10")));
+
+        HttpFields fields = new HttpFields();
+        fields.add(HttpHeader.CACHE_CONTROL, "max-age=60");
+        fields.add(HttpHeader.VARY, "Accept");
+        fields.add(template);
+        assertEquals(5, fields.size());
+        assertThat(fields.getValuesList(HttpHeader.VARY), contains("Accept", "Accept-Encoding"));
+        assertEquals("DENY", fields.get("x-frame-options"));
+
+        fields.clear();
+        fields.add(HttpHeader.CACHE_CONTROL, "max-age=60");
+        fields.add(HttpHeader.SERVER, "Jetty");
+        fields.put(template);
+        assertEquals(4, fields.size());
+        assertEquals("no-cache", fields.get(HttpHeader.CACHE_CONTROL));
+        assertEquals("Jetty", fields.getField(0).getValue());
+        for (int i = 0; i < template.size(); i++)
+        {
+            assertSame(template.getField(i), fields.getField(1 + i));
+        }
+
+        assertThrows(UnsupportedOperationException.class, () -> fields.asImmutable().add(template));
+    }
 }
@@ -750,6 +750,27 @@ public class HttpGeneratorServerTest
         assertThat(out, containsString("\r\n\r\nHello World! The quick brown fox jumped over the lazy dog. "));
     }
 
+    @Test
+    public void test103EarlyHintsWithFields() throws Exception
+    {
+        ByteBuffer header = BufferUtil.allocate(4096);
+        HttpGenerator gen = new HttpGenerator();
+
+        HttpFields fields = new HttpFields();
+        fields.add("Link", "</style.css>; rel=preload; as=style");
+        MetaData.Response info = new MetaData.Response(HttpVersion.HTTP_1_1, HttpStatus.EARLY_HINT_103, fields);
+        HttpGenerator.Result result = gen.generateResponse(info, false, header, null, null, true);
+        assertEquals(HttpGenerator.Result.FLUSH, result);
+        assertEquals(HttpGenerator.State.COMPLETING_1XX, gen.getState());
+        String out = BufferUtil.toString(header);
+
+        result = gen.generateResponse(null, false, null, null, null, false);
+        assertEquals(HttpGenerator.Result.DONE, result);
+        assertEquals(HttpGenerator.State.START, gen.getState());
+
+        assertEquals("HTTP/1.1 103 Early Hints\r\nLink: </style.css>; rel=preload; as=style\r\n\r\n", out);
+    }
+
     @Test
     public void test100ThenResponseWithContent() throws Exception
     {
@@ -830,4 +851,37 @@ public class HttpGeneratorServerTest
         assertThat(headers, containsString(HttpHeaderValue.KEEP_ALIVE.asString()));
         assertThat(headers, containsString(customValue));
     }
+
+    @Test
+    public void testPreEncodedTemplate() throws Exception
+    {
+        PreEncodedHttpFields template = new PreEncodedHttpFields(
+            new HttpField(HttpHeader.CONTENT_TYPE, "text/plain"),
+            new HttpField(HttpHeader.SERVER, "Test"),
+            new HttpField("X-Frame-Options", "DENY"));
+
+        HttpFields fields = new HttpFields();
+        fields.add(template);
+        String headers = generate(fields);
+        assertThat(headers, containsString("\r\nContent-Type: text/plain\r\nServer: Test\r\nX-Frame-Options: DENY\r\n"));
+        assertThat(headers, not(containsString("Server: Jetty")));
+        assertThat(headers, containsString("Transfer-Encoding: chunked"));
+
+        // A modified template is generated field by field.
+        fields.remove(HttpHeader.SERVER);
+        fields.add(HttpHeader.CACHE_CONTROL, "no-cache");
+        headers = generate(fields);
+        assertThat(headers, containsString("\r\nContent-Type: text/plain\r\nX-Frame-Options: DENY\r\nCache-Control: no-cache\r\n"));
+        assertThat(headers, not(containsString("Server: Test")));
+    }
+
+    private String generate(HttpFields fields) throws Exception
+    {
+        HttpGenerator generator = new HttpGenerator(true, true);
+        MetaData.Response info = new MetaData.Response(HttpVersion.HTTP_1_1, 200, null, fields, -1);
+        ByteBuffer header = BufferUtil.allocate(4096);
+        HttpGenerator.Result result = generator.generateResponse(info, false, header, null, BufferUtil.toBuffer("content"), false);
+        assertSame(HttpGenerator.Result.FLUSH, result);
+        return BufferUtil.toString(header);
+    }
 }
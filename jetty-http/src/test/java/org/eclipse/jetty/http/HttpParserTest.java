@@ -20,8 +20,12 @@ package org.eclipse.jetty.http;
 
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Queue;
+import java.util.stream.Stream;
 
 import org.eclipse.jetty.http.HttpParser.State;
 import org.eclipse.jetty.toolchain.test.Net;
@@ -31,6 +35,9 @@ import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
 
 import static org.eclipse.jetty.http.HttpCompliance.Violation.CASE_INSENSITIVE_METHOD;
 import static org.eclipse.jetty.http.HttpCompliance.Violation.CASE_SENSITIVE_FIELD_NAME;
@@ -2108,6 +2115,150 @@ public class HttpParserTest
         assertSame(field, _fields.get(0));
     }
 
+    @Test
+    public void testFieldCacheGrows()
+    {
+        String agent = "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/80.0.3987.149 Safari/537.36 Edg/80.0.361.69";
+        String accept = "text/html,application/xhtml+xml,application/xml;q=0.9,image/avif,image/webp,image/apng,*/*;q=0.8";
+        ByteBuffer buffer = BufferUtil.toBuffer(
+            "GET / HTTP/1.1\r\n" +
+                "Host: www.example.com\r\n" +
+                "User-Agent: " + agent + "\r\n" +
+                "Accept: " + accept + "\r\n" +
+                "\r\n");
+
+        HttpParser.RequestHandler handler = new Handler();
+        HttpParser parser = new HttpParser(handler);
+        parser.setHeaderCacheSize(1024);
+        parseAll(parser, buffer);
+        assertThat(parser.getFieldCacheCapacity(), is(512));
+        assertEquals(3, parser.getFieldCacheMisses());
+        assertEquals(0, parser.getFieldCacheHits());
+        assertEquals(agent, parser.getFieldCache().get("User-Agent: " + agent).getValue());
+        assertEquals(accept, parser.getFieldCache().get("Accept: " + accept).getValue());
+
+        buffer.position(0);
+        parseAll(parser, buffer);
+        assertEquals(3, parser.getFieldCacheMisses());
+        assertEquals(3, parser.getFieldCacheHits());
+        assertEquals(agent, _fields.get(1).getValue());
+        assertEquals(accept, _fields.get(2).getValue());
+    }
+
+    @Test
+    public void testFieldCachePrefixHits()
+    {
+        HttpParser.RequestHandler handler = new Handler();
+        HttpParser parser = new HttpParser(handler);
+        parseAll(parser, BufferUtil.toBuffer(
+            "GET / HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Cookie: session=1234\r\n" +
+                "\r\n"));
+        parseAll(parser, BufferUtil.toBuffer(
+            "GET / HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Cookie: session=1234; theme=dark\r\n" +
+                "\r\n"));
+
+        assertEquals("session=1234; theme=dark", _fields.get(1).getValue());
+        assertEquals(1, parser.getFieldCacheHits());
+        assertEquals(1, parser.getFieldCachePrefixHits());
+        assertEquals(3, parser.getFieldCacheMisses());
+    }
+
+    @Test
+    public void testFieldCacheRelearnsWhenThrashing()
+    {
+        HttpParser.RequestHandler handler = new Handler();
+        HttpParser parser = new HttpParser(handler);
+        parser.setHeaderCacheSize(256);
+        for (int i = 0; i < 100; i++)
+        {
+            parseAll(parser, BufferUtil.toBuffer(
+                "GET / HTTP/1.1\r\n" +
+                    "Host: localhost\r\n" +
+                    "User-Agent: Agent-" + i + "/1.0 (a client behind a load balancer)\r\n" +
+                    "Accept-Language: lang-" + i + "\r\n" +
+                    "\r\n"));
+            assertEquals("Agent-" + i + "/1.0 (a client behind a load balancer)", _fields.get(1).getValue());
+        }
+
+        assertEquals(256, parser.getFieldCacheCapacity());
+        assertEquals(300, parser.getFieldCacheHits() + parser.getFieldCacheMisses());
+        assertTrue(parser.getFieldCacheMisses() > 201, "relearnt Host");
+        assertNull(parser.getFieldCache().get("User-Agent: Agent-0/1.0 (a client behind a load balancer)"));
+    }
+
+    @Test
+    public void testSharedFieldCache()
+    {
+        SharedHttpFieldCache shared = new SharedHttpFieldCache(1024, 16, 4, 2);
+        String request =
+            "GET / HTTP/1.1\r\n" +
+                "Host: shared.example.com\r\n" +
+                "User-Agent: SharedAgent/1.0\r\n" +
+                "Cookie: secret=1234\r\n" +
+                "\r\n";
+
+        for (int i = 0; i < 2; i++)
+        {
+            HttpParser.RequestHandler handler = new Handler();
+            HttpParser parser = new HttpParser(handler);
+            parser.setSharedFieldCache(shared);
+            parseAll(parser, BufferUtil.toBuffer(request));
+            assertEquals(0, parser.getSharedFieldCacheHits());
+        }
+        assertEquals(1, shared.getRebuilds());
+        assertEquals(2, shared.getSize());
+
+        HttpParser.RequestHandler handler = new Handler();
+        HttpParser parser = new HttpParser(handler);
+        parser.setSharedFieldCache(shared);
+        parseAll(parser, BufferUtil.toBuffer(request));
+        assertEquals(2, parser.getSharedFieldCacheHits());
+        assertEquals(1, parser.getFieldCacheMisses());
+        assertEquals("shared.example.com", _host);
+        assertEquals("SharedAgent/1.0", _fields.get(1).getValue());
+        assertEquals("secret=1234", _fields.get(2).getValue());
+        assertNull(shared.getBest(BufferUtil.toBuffer("Cookie: secret=1234\r\n"), 0, 21));
+
+        // Values are only shared with the same case.
+        handler = new Handler();
+        parser = new HttpParser(handler);
+        parser.setSharedFieldCache(shared);
+        parseAll(parser, BufferUtil.toBuffer(request.replace("shared.example.com", "SHARED.Example.com")));
+        assertEquals(1, parser.getSharedFieldCacheHits());
+        assertEquals("SHARED.Example.com", _host);
+    }
+
+    @Test
+    public void testSharedFieldCacheRebuiltByExecutor()
+    {
+        SharedHttpFieldCache shared = new SharedHttpFieldCache(1024, 16, 4, 2);
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        shared.setExecutor(tasks::add);
+        String request =
+            "GET / HTTP/1.1\r\n" +
+                "Host: shared.example.com\r\n" +
+                "User-Agent: SharedAgent/1.0\r\n" +
+                "\r\n";
+
+        for (int i = 0; i < 4; i++)
+        {
+            HttpParser.RequestHandler handler = new Handler();
+            HttpParser parser = new HttpParser(handler);
+            parser.setSharedFieldCache(shared);
+            parseAll(parser, BufferUtil.toBuffer(request));
+        }
+        // The rebuild is run by the executor, once.
+        assertEquals(1, tasks.size());
+        assertEquals(0, shared.getRebuilds());
+        tasks.poll().run();
+        assertEquals(1, shared.getRebuilds());
+        assertEquals(2, shared.getSize());
+    }
+
     @Test
     public void testParseRequest()
     {
@@ -2815,6 +2966,185 @@ public class HttpParserTest
         assertNotNull(_bad);
     }
 
+    public static Stream<Arguments> wordScanningCases()
+    {
+        List<String> messages = Arrays.asList(
+            "GET /path HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "User-Agent: Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/80.0\r\n" +
+                "X-Custom-Header-Name: some value with   spaces   \r\n" +
+                "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8\r\n" +
+                "Cookie: a=b; c=d; JSESSIONID=node0123456789abcdef.node0\r\n" +
+                "content-TYPE: text/plain\r\n" +
+                "X-Empty:\r\n" +
+                "X-Spaces:        \r\n" +
+                "\r\n",
+            "GET / HTTP/1.1\r\nHost: localhost\r\nX-Tab:\tvalue\twith\ttabs\t\r\n\r\n",
+            "GET / HTTP/1.1\r\nHost: localhost\r\nX-Latin: caf\u00e9 cr\u00e8me br\u00fbl\u00e9e\r\n\r\n",
+            "GET / HTTP/1.1\nHost: localhost\nX-Line-Feed: only line feeds here\n\n",
+            "GET / HTTP/1.1\r\nHost: localhost\r\nX-Control: abcdefghij\u0001klmnopq\r\n\r\n",
+            "GET / HTTP/1.1\r\nHost: localhost\r\nX-Delete: abcdefghij\u007fklmnopq\r\n\r\n",
+            "GET / HTTP/1.1\r\nHost: localhost\r\nX-Control-In-Name\u0001: value\r\n\r\n",
+            "GET / HTTP/1.1\r\nHost: localhost\r\nX-Bad-EOL: abcdefghij\rklmnopq\r\n\r\n",
+            "GET / HTTP/1.1\r\nHost: localhost\r\nX-Folded: the first line\r\n  and the second line\r\n\r\n",
+            "GET / HTTP/1.1\r\nHost: localhost\r\nX-Space-After-Name : value\r\n\r\n",
+            "GET / HTTP/1.1\r\nHost: localhost\r\nX-No-Colon-After-Name\r\n\r\n",
+            "POST / HTTP/1.1\r\nHost: localhost\r\nTransfer-Encoding: chunked\r\n\r\n" +
+                "5\r\nhello\r\n0\r\nX-Trailer-Name: the trailer value \r\n\r\n",
+            "HTTP/1.1 200 OK\r\nServer: Jetty\r\nContent-Length: 5\r\n" +
+                "X-Response-Header: 0123456789 0123456789 0123456789 0123456789\r\n\r\nhello");
+        return messages.stream().flatMap(message ->
+            Stream.of(HttpCompliance.RFC7230, HttpCompliance.RFC2616, HttpCompliance.LEGACY)
+                .map(compliance -> Arguments.of(message, compliance)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("wordScanningCases")
+    public void testWordScanningIsEquivalent(String message, HttpCompliance compliance)
+    {
+        byte[] bytes = message.getBytes(StandardCharsets.ISO_8859_1);
+        for (int split = 0; split <= bytes.length; split++)
+        {
+            List<String> expected = parseEvents(bytes, split, compliance, 0, false);
+            List<String> actual = parseEvents(bytes, split, compliance, 0, true);
+            assertEquals(expected, actual, "split=" + split);
+        }
+
+        // The header size limit must be hit on the same byte, whether it is in a scanned run or not.
+        for (int split : new int[]{0, 40, 79, 80, 81, bytes.length})
+        {
+            int at = Math.min(split, bytes.length);
+            List<String> expected = parseEvents(bytes, at, compliance, 80, false);
+            List<String> actual = parseEvents(bytes, at, compliance, 80, true);
+            assertEquals(expected, actual, "split=" + at + " max=80");
+        }
+    }
+
+    @Test
+    public void testWordScannedValues()
+    {
+        byte[] bytes = ("GET / HTTP/1.1\r\n" +
+            "Host: localhost\r\n" +
+            "X-Custom-Header-Name:   some value with   spaces   \r\n" +
+            "X-Spaces:        \r\n" +
+            "\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        List<String> events = parseEvents(bytes, bytes.length, HttpCompliance.RFC7230, 0, true);
+        assertThat(events, contains(
+            "request GET / HTTP/1.1",
+            "header Host=localhost",
+            "header X-Custom-Header-Name=some value with   spaces",
+            "header X-Spaces=",
+            "headerComplete",
+            "contentComplete",
+            "messageComplete"));
+    }
+
+    private static List<String> parseEvents(byte[] bytes, int split, HttpCompliance compliance, int maxHeaderBytes, boolean wordScanning)
+    {
+        RecordingHandler handler = new RecordingHandler();
+        HttpParser parser = bytes[0] == 'H'
+            ? new HttpParser((HttpParser.ResponseHandler)handler, maxHeaderBytes, compliance)
+            : new HttpParser((HttpParser.RequestHandler)handler, maxHeaderBytes, compliance);
+        parser.setWordScanning(wordScanning);
+
+        // Parse the message in two parts, carrying over what the parser did not consume.
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, split);
+        parseAvailable(parser, buffer);
+        ByteBuffer rest = ByteBuffer.allocate(buffer.remaining() + bytes.length - split);
+        rest.put(buffer).put(bytes, split, bytes.length - split).flip();
+        parseAvailable(parser, rest);
+        if (!parser.isState(State.END))
+            parser.atEOF();
+        parser.parseNext(BufferUtil.EMPTY_BUFFER);
+        return handler.events;
+    }
+
+    private static void parseAvailable(HttpParser parser, ByteBuffer buffer)
+    {
+        while (buffer.hasRemaining() && !parser.isState(State.END) && !parser.isState(State.CLOSE))
+        {
+            int remaining = buffer.remaining();
+            parser.parseNext(buffer);
+            if (buffer.remaining() == remaining)
+                break;
+        }
+    }
+
+    private static class RecordingHandler implements HttpParser.RequestHandler, HttpParser.ResponseHandler, ComplianceViolation.Listener
+    {
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public void startRequest(String method, String uri, HttpVersion version)
+        {
+            events.add("request " + method + " " + uri + " " + version);
+        }
+
+        @Override
+        public void startResponse(HttpVersion version, int status, String reason)
+        {
+            events.add("response " + version + " " + status + " " + reason);
+        }
+
+        @Override
+        public void parsedHeader(HttpField field)
+        {
+            events.add("header " + field.getName() + "=" + field.getValue());
+        }
+
+        @Override
+        public void parsedTrailer(HttpField field)
+        {
+            events.add("trailer " + field.getName() + "=" + field.getValue());
+        }
+
+        @Override
+        public boolean headerComplete()
+        {
+            events.add("headerComplete");
+            return false;
+        }
+
+        @Override
+        public boolean content(ByteBuffer item)
+        {
+            events.add("content " + BufferUtil.toString(item));
+            return false;
+        }
+
+        @Override
+        public boolean contentComplete()
+        {
+            events.add("contentComplete");
+            return false;
+        }
+
+        @Override
+        public boolean messageComplete()
+        {
+            events.add("messageComplete");
+            return false;
+        }
+
+        @Override
+        public void earlyEOF()
+        {
+            events.add("earlyEOF");
+        }
+
+        @Override
+        public void badMessage(BadMessageException failure)
+        {
+            events.add("badMessage " + failure.getCode() + " " + failure.getReason());
+        }
+
+        @Override
+        public void onComplianceViolation(ComplianceViolation.Mode mode, ComplianceViolation violation, String details)
+        {
+            events.add("violation " + violation + " " + details);
+        }
+    }
+
     @BeforeEach
     public void init()
     {
@@ -22,7 +22,9 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import javax.servlet.DispatcherType;
@@ -46,6 +48,7 @@ import org.eclipse.jetty.http2.frames.HeadersFrame;
 import org.eclipse.jetty.http2.frames.PushPromiseFrame;
 import org.eclipse.jetty.http2.frames.ResetFrame;
 import org.eclipse.jetty.http2.frames.SettingsFrame;
+import org.eclipse.jetty.servlet.FilterHolder;
 import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.eclipse.jetty.servlets.PushCacheFilter;
 import org.eclipse.jetty.util.Callback;
@@ -59,12 +62,14 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 public class PushCacheFilterTest extends AbstractTest
 {
     private String contextPath = "/push";
+    private boolean earlyHints;
 
     @Override
     protected void customizeContext(ServletContextHandler context)
     {
         context.setContextPath(contextPath);
-        context.addFilter(PushCacheFilter.class, "/*", EnumSet.of(DispatcherType.REQUEST));
+        FilterHolder filter = context.addFilter(PushCacheFilter.class, "/*", EnumSet.of(DispatcherType.REQUEST));
+        filter.setInitParameter("earlyHints", String.valueOf(earlyHints));
     }
 
     @Override
@@ -1009,4 +1014,96 @@ public class PushCacheFilterTest extends AbstractTest
         assertFalse(pushLatch.await(1, TimeUnit.SECONDS));
         assertTrue(primaryResponseLatch.await(5, TimeUnit.SECONDS));
     }
+
+    @Test
+    public void testEarlyHintsInsteadOfPush() throws Exception
+    {
+        earlyHints = true;
+        final String primaryResource = "/primary.html";
+        final String secondaryResource = "/secondary.png";
+        final byte[] secondaryData = "SECONDARY".getBytes(StandardCharsets.UTF_8);
+        start(new HttpServlet()
+        {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException
+            {
+                String requestURI = req.getRequestURI();
+                ServletOutputStream output = resp.getOutputStream();
+                if (requestURI.endsWith(primaryResource))
+                    output.print("<html><head></head><body>PRIMARY</body></html>");
+                else if (requestURI.endsWith(secondaryResource))
+                    output.write(secondaryData);
+            }
+        });
+
+        final Session session = newClient(new Session.Listener.Adapter());
+
+        // Request for the primary and secondary resource to build the cache.
+        final String referrerURI = newURI(primaryResource);
+        HttpFields primaryFields = new HttpFields();
+        MetaData.Request primaryRequest = newRequest("GET", primaryResource, primaryFields);
+        final CountDownLatch warmupLatch = new CountDownLatch(1);
+        session.newStream(new HeadersFrame(primaryRequest, null, true), new Promise.Adapter<>(), new Stream.Listener.Adapter()
+        {
+            @Override
+            public void onData(Stream stream, DataFrame frame, Callback callback)
+            {
+                callback.succeeded();
+                if (frame.isEndStream())
+                {
+                    // Request for the secondary resource.
+                    HttpFields secondaryFields = new HttpFields();
+                    secondaryFields.put(HttpHeader.REFERER, referrerURI);
+                    MetaData.Request secondaryRequest = newRequest("GET", secondaryResource, secondaryFields);
+                    session.newStream(new HeadersFrame(secondaryRequest, null, true), new Promise.Adapter<>(), new Stream.Listener.Adapter()
+                    {
+                        @Override
+                        public void onData(Stream stream, DataFrame frame, Callback callback)
+                        {
+                            callback.succeeded();
+                            warmupLatch.countDown();
+                        }
+                    });
+                }
+            }
+        });
+        assertTrue(warmupLatch.await(5, TimeUnit.SECONDS));
+
+        // Request again the primary resource, we should get a 103 with the secondary resource.
+        primaryRequest = newRequest("GET", primaryResource, primaryFields);
+        final List<MetaData.Response> responses = new CopyOnWriteArrayList<>();
+        final CountDownLatch primaryResponseLatch = new CountDownLatch(1);
+        final CountDownLatch pushLatch = new CountDownLatch(1);
+        session.newStream(new HeadersFrame(primaryRequest, null, true), new Promise.Adapter<>(), new Stream.Listener.Adapter()
+        {
+            @Override
+            public void onHeaders(Stream stream, HeadersFrame frame)
+            {
+                responses.add((MetaData.Response)frame.getMetaData());
+            }
+
+            @Override
+            public Stream.Listener onPush(Stream stream, PushPromiseFrame frame)
+            {
+                pushLatch.countDown();
+                return null;
+            }
+
+            @Override
+            public void onData(Stream stream, DataFrame frame, Callback callback)
+            {
+                callback.succeeded();
+                if (frame.isEndStream())
+                    primaryResponseLatch.countDown();
+            }
+        });
+        assertTrue(primaryResponseLatch.await(5, TimeUnit.SECONDS));
+        assertFalse(pushLatch.await(1, TimeUnit.SECONDS));
+
+        assertEquals(2, responses.size());
+        MetaData.Response hints = responses.get(0);
+        assertEquals(HttpStatus.EARLY_HINT_103, hints.getStatus());
+        assertEquals("<" + contextPath + servletPath + secondaryResource + ">; rel=preload; as=image", hints.getFields().get("Link"));
+        assertEquals(HttpStatus.OK_200, responses.get(1).getStatus());
+    }
 }
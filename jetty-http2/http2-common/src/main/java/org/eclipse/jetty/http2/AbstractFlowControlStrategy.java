@@ -213,6 +213,18 @@ public abstract class AbstractFlowControlStrategy implements FlowControlStrategy
             LOG.debug("Stream unstalled {}", stream);
     }
 
+    @ManagedAttribute(value = "Whether the session flow control is currently stalled", readonly = true)
+    public boolean isSessionStalled()
+    {
+        return sessionStall.get() != 0;
+    }
+
+    @ManagedAttribute(value = "The number of streams whose flow control is currently stalled", readonly = true)
+    public int getStalledStreamCount()
+    {
+        return streamsStalls.size();
+    }
+
     @ManagedAttribute(value = "The time, in milliseconds, that the session flow control has stalled", readonly = true)
     public long getSessionStallTime()
     {
@@ -29,6 +29,7 @@ import org.eclipse.jetty.client.api.Connection;
 import org.eclipse.jetty.http2.HTTP2Session;
 import org.eclipse.jetty.http2.api.Session;
 import org.eclipse.jetty.http2.frames.GoAwayFrame;
+import org.eclipse.jetty.http2.frames.PingFrame;
 import org.eclipse.jetty.http2.frames.SettingsFrame;
 import org.eclipse.jetty.util.Promise;
 
@@ -93,6 +94,14 @@ class HTTPSessionListenerPromise extends Session.Listener.Adapter implements Pro
         return new HttpConnectionOverHTTP2(destination, session);
     }
 
+    @Override
+    public void onPing(Session session, PingFrame frame)
+    {
+        HttpConnectionOverHTTP2 connection = this.connection.getReference();
+        if (connection != null && frame.isReply())
+            connection.onPing(frame);
+    }
+
     @Override
     public void onClose(Session session, GoAwayFrame frame)
     {
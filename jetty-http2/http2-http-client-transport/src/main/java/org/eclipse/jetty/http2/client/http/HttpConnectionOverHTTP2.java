@@ -23,28 +23,36 @@ import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.eclipse.jetty.client.ConnectionPool;
 import org.eclipse.jetty.client.HttpChannel;
 import org.eclipse.jetty.client.HttpConnection;
 import org.eclipse.jetty.client.HttpDestination;
 import org.eclipse.jetty.client.HttpExchange;
 import org.eclipse.jetty.client.HttpRequest;
 import org.eclipse.jetty.client.HttpUpgrader;
+import org.eclipse.jetty.client.MultiplexConnectionPool;
 import org.eclipse.jetty.client.SendFailure;
 import org.eclipse.jetty.client.api.Request;
 import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http2.AbstractFlowControlStrategy;
 import org.eclipse.jetty.http2.ErrorCode;
+import org.eclipse.jetty.http2.FlowControlStrategy;
+import org.eclipse.jetty.http2.HTTP2Session;
 import org.eclipse.jetty.http2.IStream;
 import org.eclipse.jetty.http2.api.Session;
+import org.eclipse.jetty.http2.frames.PingFrame;
 import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
 import org.eclipse.jetty.util.thread.Sweeper;
 
-public class HttpConnectionOverHTTP2 extends HttpConnection implements Sweeper.Sweepable
+public class HttpConnectionOverHTTP2 extends HttpConnection implements Sweeper.Sweepable, MultiplexConnectionPool.Loadable
 {
     private static final Logger LOG = Log.getLogger(HttpConnection.class);
 
@@ -52,8 +60,13 @@ public class HttpConnectionOverHTTP2 extends HttpConnection implements Sweeper.S
     private final Queue<HttpChannelOverHTTP2> idleChannels = new ConcurrentLinkedQueue<>();
     private final AtomicBoolean closed = new AtomicBoolean();
     private final AtomicInteger sweeps = new AtomicInteger();
+    private final AtomicLong inFlightBytes = new AtomicLong();
+    private final AtomicBoolean pinging = new AtomicBoolean();
     private final Session session;
     private boolean recycleHttpChannels;
+    private long pingInterval = 1000;
+    private volatile long lastPingNanoTime;
+    private volatile long roundTripTime;
 
     public HttpConnectionOverHTTP2(HttpDestination destination, Session session)
     {
@@ -76,9 +89,107 @@ public class HttpConnectionOverHTTP2 extends HttpConnection implements Sweeper.S
         this.recycleHttpChannels = recycleHttpChannels;
     }
 
+    /**
+     * @return the min interval, in milliseconds, between PING frames
+     * sent to measure the round-trip time, in adaptive mode
+     * @see MultiplexConnectionPool#isAdaptive()
+     */
+    public long getPingInterval()
+    {
+        return pingInterval;
+    }
+
+    /**
+     * @param pingInterval the min interval, in milliseconds, between PING frames
+     * sent to measure the round-trip time, in adaptive mode
+     */
+    public void setPingInterval(long pingInterval)
+    {
+        this.pingInterval = pingInterval;
+    }
+
+    @Override
+    public long getInFlightBytes()
+    {
+        return inFlightBytes.get();
+    }
+
+    @Override
+    public boolean isStalled()
+    {
+        if (session instanceof HTTP2Session)
+        {
+            FlowControlStrategy flowControl = ((HTTP2Session)session).getFlowControlStrategy();
+            if (flowControl instanceof AbstractFlowControlStrategy)
+                return ((AbstractFlowControlStrategy)flowControl).isSessionStalled();
+        }
+        return false;
+    }
+
+    @Override
+    public long getRoundTripTime()
+    {
+        return roundTripTime;
+    }
+
+    /**
+     * <p>Accounts the given bytes as in flight until the given callback is completed.</p>
+     *
+     * @param bytes the number of content bytes
+     * @param callback the callback completed when the bytes are written or consumed
+     * @return a callback that must be used in place of the given callback
+     */
+    Callback inFlight(int bytes, Callback callback)
+    {
+        if (bytes <= 0)
+            return callback;
+        inFlightBytes.addAndGet(bytes);
+        return new Callback.Nested(callback)
+        {
+            @Override
+            public void completed()
+            {
+                inFlightBytes.addAndGet(-bytes);
+            }
+        };
+    }
+
+    private boolean isAdaptive()
+    {
+        ConnectionPool pool = getHttpDestination().getConnectionPool();
+        return pool instanceof MultiplexConnectionPool && ((MultiplexConnectionPool)pool).isAdaptive();
+    }
+
+    private void ping()
+    {
+        long now = System.nanoTime();
+        long lastPing = lastPingNanoTime;
+        if (lastPing != 0 && now - lastPing < TimeUnit.MILLISECONDS.toNanos(getPingInterval()))
+            return;
+        if (!pinging.compareAndSet(false, true))
+            return;
+        lastPingNanoTime = now;
+        session.ping(new PingFrame(now, false), Callback.from(() -> {}, x -> pinging.set(false)));
+    }
+
+    void onPing(PingFrame frame)
+    {
+        if (!pinging.compareAndSet(true, false))
+            return;
+        long sample = System.nanoTime() - frame.getPayloadAsLong();
+        long rtt = roundTripTime;
+        // Smooth the samples like TCP does, see RFC 6298.
+        roundTripTime = rtt <= 0 ? sample : rtt + (sample - rtt) / 8;
+        if (LOG.isDebugEnabled())
+            LOG.debug("RTT sample {} ns, smoothed {} ns for {}", sample, roundTripTime, this);
+    }
+
     @Override
     public SendFailure send(HttpExchange exchange)
     {
+        if (isAdaptive())
+            ping();
+
         HttpRequest request = exchange.getRequest();
         request.version(HttpVersion.HTTP_2);
         normalizeRequest(request);
@@ -213,10 +324,12 @@ public class HttpConnectionOverHTTP2 extends HttpConnection implements Sweeper.S
     @Override
     public String toString()
     {
-        return String.format("%s@%x(closed=%b)[%s]",
+        return String.format("%s@%x(closed=%b,inFlight=%d,rtt=%dus)[%s]",
             getClass().getSimpleName(),
             hashCode(),
             isClosed(),
+            getInFlightBytes(),
+            TimeUnit.NANOSECONDS.toMicros(getRoundTripTime()),
             session);
     }
 }
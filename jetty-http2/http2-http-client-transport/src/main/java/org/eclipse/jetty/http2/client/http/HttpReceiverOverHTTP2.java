@@ -191,7 +191,8 @@ public class HttpReceiverOverHTTP2 extends HttpReceiver implements HTTP2Channel.
         }
         else
         {
-            notifyContent(exchange, frame, callback);
+            HttpConnectionOverHTTP2 connection = getHttpChannel().getHttpConnection();
+            notifyContent(exchange, frame, connection.inFlight(frame.remaining(), callback));
         }
     }
 
@@ -176,7 +176,8 @@ public class HttpSenderOverHTTP2 extends HttpSender
         }
         DataFrame dataFrame = new DataFrame(stream.getId(), content.getByteBuffer(), endStream);
         HttpFields fTrailers = trailers;
-        stream.data(dataFrame, endStream || !lastContent ? callback : Callback.from(() -> sendTrailers(stream, fTrailers, callback), callback::failed));
+        Callback dataCallback = endStream || !lastContent ? callback : Callback.from(() -> sendTrailers(stream, fTrailers, callback), callback::failed);
+        stream.data(dataFrame, getHttpChannel().getHttpConnection().inFlight(dataFrame.remaining(), dataCallback));
     }
 
     private void sendTrailers(Stream stream, HttpFields trailers, Callback callback)
@@ -0,0 +1,314 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2.client.http;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.HttpDestination;
+import org.eclipse.jetty.client.MultiplexConnectionPool;
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.client.util.BytesContentProvider;
+import org.eclipse.jetty.http2.api.Session;
+import org.eclipse.jetty.http2.client.HTTP2Client;
+import org.eclipse.jetty.http2.server.HTTP2ServerConnectionFactory;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveMultiplexTest extends AbstractTest
+{
+    private static final int SLOW_CONTENT_LENGTH = 4 * 1024 * 1024;
+    private static final int MAX_IN_FLIGHT_BYTES = 64 * 1024;
+
+    private final List<HttpConnectionOverHTTP2> connections = new CopyOnWriteArrayList<>();
+    private final CountDownLatch uploadLatch = new CountDownLatch(1);
+
+    private void start(boolean adaptive, int maxConnections) throws Exception
+    {
+        HTTP2ServerConnectionFactory h2 = new HTTP2ServerConnectionFactory(new HttpConfiguration());
+        // Make the session and stream windows equal, so that an upload stalls the session.
+        h2.setInitialStreamRecvWindow(h2.getInitialSessionRecvWindow());
+        prepareServer(h2);
+        server.setHandler(new SlowHandler());
+        server.start();
+
+        HttpClientTransportOverHTTP2 transport = new HttpClientTransportOverHTTP2(new HTTP2Client())
+        {
+            @Override
+            protected HttpConnectionOverHTTP2 newHttpConnection(HttpDestination destination, Session session)
+            {
+                HttpConnectionOverHTTP2 connection = super.newHttpConnection(destination, session);
+                connection.setPingInterval(0);
+                connections.add(connection);
+                return connection;
+            }
+        };
+        transport.setConnectionPoolFactory(destination ->
+        {
+            MultiplexConnectionPool pool = new MultiplexConnectionPool(destination, maxConnections, destination, 16);
+            pool.setAdaptive(adaptive);
+            pool.setMaxInFlightBytes(MAX_IN_FLIGHT_BYTES);
+            return pool;
+        });
+        client = new HttpClient(transport);
+        QueuedThreadPool clientExecutor = new QueuedThreadPool();
+        clientExecutor.setName("client");
+        client.setExecutor(clientExecutor);
+        client.start();
+    }
+
+    @Test
+    public void testSlowStreamSharesConnectionWhenNotAdaptive() throws Exception
+    {
+        start(false, 4);
+
+        SlowDownload download = new SlowDownload();
+        String slowPort = download.begin();
+
+        ContentResponse response = newRequest("/fast").send();
+        assertEquals(200, response.getStatus());
+        assertEquals(slowPort, response.getHeaders().get("X-Port"));
+        assertEquals(1, connections.size());
+
+        download.end();
+    }
+
+    @Test
+    public void testSlowStreamOpensNewConnectionWhenAdaptive() throws Exception
+    {
+        start(true, 4);
+
+        SlowDownload download = new SlowDownload();
+        String slowPort = download.begin();
+        MultiplexConnectionPool pool = getConnectionPool();
+        assertTrue(pool.isSaturated(connections.get(0)));
+
+        ContentResponse response = newRequest("/fast").send();
+        assertEquals(200, response.getStatus());
+        assertNotEquals(slowPort, response.getHeaders().get("X-Port"));
+        assertEquals(2, connections.size());
+        assertThat(pool.getSaturatedCount(), greaterThan(0L));
+
+        // Further requests go to the non saturated connection.
+        String fastPort = response.getHeaders().get("X-Port");
+        for (int i = 0; i < 5; ++i)
+        {
+            response = newRequest("/fast").send();
+            assertEquals(fastPort, response.getHeaders().get("X-Port"));
+        }
+        assertEquals(2, connections.size());
+
+        download.end();
+        assertEquals(0, connections.get(0).getInFlightBytes());
+        assertFalse(pool.isSaturated(connections.get(0)));
+    }
+
+    @Test
+    public void testSaturatedConnectionUsedWhenMaxConnectionsReached() throws Exception
+    {
+        start(true, 1);
+
+        SlowDownload download = new SlowDownload();
+        String slowPort = download.begin();
+
+        ContentResponse response = newRequest("/fast").send();
+        assertEquals(200, response.getStatus());
+        assertEquals(slowPort, response.getHeaders().get("X-Port"));
+        assertEquals(1, connections.size());
+
+        download.end();
+    }
+
+    @Test
+    public void testStalledUploadSaturatesConnection() throws Exception
+    {
+        start(true, 4);
+
+        CountDownLatch uploadComplete = new CountDownLatch(1);
+        newRequest("/upload")
+            .content(new BytesContentProvider(new byte[2 * 1024 * 1024]))
+            .send(result ->
+            {
+                if (result.isSucceeded())
+                    uploadComplete.countDown();
+            });
+
+        await(() -> connections.size() == 1 && connections.get(0).isStalled());
+        HttpConnectionOverHTTP2 uploadConnection = connections.get(0);
+        assertTrue(getConnectionPool().isSaturated(uploadConnection));
+
+        ContentResponse response = newRequest("/fast").send();
+        assertEquals(200, response.getStatus());
+        assertEquals(2, connections.size());
+
+        uploadLatch.countDown();
+        assertTrue(uploadComplete.await(5, TimeUnit.SECONDS));
+        await(() -> !uploadConnection.isStalled());
+    }
+
+    @Test
+    public void testRoundTripTimeMeasured() throws Exception
+    {
+        start(true, 4);
+
+        for (int i = 0; i < 3; ++i)
+        {
+            assertEquals(200, newRequest("/fast").send().getStatus());
+        }
+
+        await(() -> connections.get(0).getRoundTripTime() > 0);
+    }
+
+    private org.eclipse.jetty.client.api.Request newRequest(String path)
+    {
+        return client.newRequest("localhost", connector.getLocalPort())
+            .path(path)
+            .timeout(5, TimeUnit.SECONDS);
+    }
+
+    private MultiplexConnectionPool getConnectionPool()
+    {
+        HttpDestination destination = (HttpDestination)client.getDestinations().get(0);
+        return (MultiplexConnectionPool)destination.getConnectionPool();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean())
+        {
+            assertTrue(System.nanoTime() < deadline, "Condition not met");
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * <p>A download whose content is not consumed by the application,
+     * so that its bytes stay in flight on the connection.</p>
+     */
+    private class SlowDownload
+    {
+        private final Queue<Callback> callbacks = new ConcurrentLinkedQueue<>();
+        private final CountDownLatch headers = new CountDownLatch(1);
+        private final CountDownLatch complete = new CountDownLatch(1);
+        private volatile String port;
+        private volatile boolean consume;
+
+        private String begin() throws Exception
+        {
+            newRequest("/slow")
+                .timeout(10, TimeUnit.SECONDS)
+                .onResponseHeaders(response ->
+                {
+                    port = response.getHeaders().get("X-Port");
+                    headers.countDown();
+                })
+                .onResponseContentAsync((response, content, callback) ->
+                {
+                    if (consume)
+                        callback.succeeded();
+                    else
+                        callbacks.offer(callback);
+                })
+                .send(result ->
+                {
+                    if (result.isSucceeded())
+                        complete.countDown();
+                });
+            assertTrue(headers.await(5, TimeUnit.SECONDS));
+            await(() -> connections.get(0).getInFlightBytes() >= MAX_IN_FLIGHT_BYTES);
+            return port;
+        }
+
+        private void end() throws Exception
+        {
+            consume = true;
+            Callback callback = callbacks.poll();
+            while (callback != null)
+            {
+                callback.succeeded();
+                callback = callbacks.poll();
+            }
+            assertTrue(complete.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    private class SlowHandler extends EmptyServerHandler
+    {
+        @Override
+        protected void service(String target, Request jettyRequest, HttpServletRequest request, HttpServletResponse response) throws IOException
+        {
+            response.setHeader("X-Port", String.valueOf(request.getRemotePort()));
+            switch (target)
+            {
+                case "/slow":
+                {
+                    response.flushBuffer();
+                    ServletOutputStream output = response.getOutputStream();
+                    byte[] chunk = new byte[16 * 1024];
+                    for (int i = 0; i < SLOW_CONTENT_LENGTH / chunk.length; ++i)
+                    {
+                        output.write(chunk);
+                    }
+                    break;
+                }
+                case "/upload":
+                {
+                    try
+                    {
+                        // Do not read the content, so that the client stalls.
+                        uploadLatch.await(5, TimeUnit.SECONDS);
+                    }
+                    catch (InterruptedException x)
+                    {
+                        throw new InterruptedIOException();
+                    }
+                    IO.copy(request.getInputStream(), IO.getNullStream());
+                    break;
+                }
+                default:
+                {
+                    break;
+                }
+            }
+        }
+    }
+}
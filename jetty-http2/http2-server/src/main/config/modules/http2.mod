@@ -33,5 +33,11 @@ etc/jetty-http2.xml
 ## The max number of keys in all SETTINGS frames
 # jetty.http2.maxSettingsKeys=64
 
+## Whether the objects used to process a request are reused by the next streams of a connection
+# jetty.http2.recycleHttpChannels=false
+
+## Max number of idle objects kept for reuse per connection
+# jetty.http2.maxRecycledHttpChannels=16
+
 ## Max number of bad frames and pings per second
 # jetty.http2.rateControl.maxEventsPerSecond=20
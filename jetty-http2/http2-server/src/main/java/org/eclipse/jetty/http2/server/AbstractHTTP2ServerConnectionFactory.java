@@ -66,6 +66,8 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
     private long streamIdleTimeout;
     private boolean _useInputDirectByteBuffers;
     private boolean _useOutputDirectByteBuffers;
+    private boolean recycleHttpChannels;
+    private int maxRecycledHttpChannels = 16;
 
     public AbstractHTTP2ServerConnectionFactory(@Name("config") HttpConfiguration httpConfiguration)
     {
@@ -235,6 +237,28 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
         _useOutputDirectByteBuffers = useOutputDirectByteBuffers;
     }
 
+    @ManagedAttribute("Whether HttpChannels are reused by subsequent streams of a connection")
+    public boolean isRecycleHttpChannels()
+    {
+        return recycleHttpChannels;
+    }
+
+    public void setRecycleHttpChannels(boolean recycleHttpChannels)
+    {
+        this.recycleHttpChannels = recycleHttpChannels;
+    }
+
+    @ManagedAttribute("The max number of idle HttpChannels kept for reuse per connection")
+    public int getMaxRecycledHttpChannels()
+    {
+        return maxRecycledHttpChannels;
+    }
+
+    public void setMaxRecycledHttpChannels(int maxRecycledHttpChannels)
+    {
+        this.maxRecycledHttpChannels = maxRecycledHttpChannels;
+    }
+
     public HttpConfiguration getHttpConfiguration()
     {
         return httpConfiguration;
@@ -278,10 +302,12 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
         parser.setMaxFrameLength(getMaxFrameLength());
         parser.setMaxSettingsKeys(getMaxSettingsKeys());
 
-        HTTP2Connection connection = new HTTP2ServerConnection(connector.getByteBufferPool(), connector.getExecutor(),
+        HTTP2ServerConnection connection = new HTTP2ServerConnection(connector.getByteBufferPool(), connector.getExecutor(),
             endPoint, httpConfiguration, parser, session, getInputBufferSize(), listener);
         connection.setUseInputDirectByteBuffers(isUseInputDirectByteBuffers());
         connection.setUseOutputDirectByteBuffers(isUseOutputDirectByteBuffers());
+        connection.setRecycleHttpChannels(isRecycleHttpChannels());
+        connection.setMaxRecycledHttpChannels(getMaxRecycledHttpChannels());
         connection.addEventListener(sessionContainer);
         return configure(connection, connector, endPoint);
     }
@@ -28,6 +28,8 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -57,6 +59,7 @@ import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.Connection;
 import org.eclipse.jetty.io.EndPoint;
 import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.HttpChannelState;
 import org.eclipse.jetty.server.HttpConfiguration;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Callback;
@@ -95,7 +98,10 @@ public class HTTP2ServerConnection extends HTTP2Connection implements Connection
     private final AtomicLong totalResponses = new AtomicLong();
     private final ServerSessionListener listener;
     private final HttpConfiguration httpConfig;
+    // The channels handed to streams when recycling, to detect channels that are not recycled or recycled twice.
+    private final Set<HttpChannelOverHTTP2> leasedChannels = ConcurrentHashMap.newKeySet();
     private boolean recycleHttpChannels;
+    private int maxRecycledHttpChannels = 16;
 
     public HTTP2ServerConnection(ByteBufferPool byteBufferPool, Executor executor, EndPoint endPoint, HttpConfiguration httpConfig, ServerParser parser, ISession session, int inputBufferSize, ServerSessionListener listener)
     {
@@ -132,6 +138,23 @@ public class HTTP2ServerConnection extends HTTP2Connection implements Connection
         this.recycleHttpChannels = recycleHttpChannels;
     }
 
+    /**
+     * @return the max number of idle HttpChannels kept for reuse by subsequent streams
+     */
+    public int getMaxRecycledHttpChannels()
+    {
+        return maxRecycledHttpChannels;
+    }
+
+    /**
+     * @param maxRecycledHttpChannels the max number of idle HttpChannels kept for reuse by subsequent streams
+     * @see #setRecycleHttpChannels(boolean)
+     */
+    public void setMaxRecycledHttpChannels(int maxRecycledHttpChannels)
+    {
+        this.maxRecycledHttpChannels = maxRecycledHttpChannels;
+    }
+
     @Override
     public void onUpgradeTo(ByteBuffer buffer)
     {
@@ -152,6 +175,27 @@ public class HTTP2ServerConnection extends HTTP2Connection implements Connection
         produce();
     }
 
+    @Override
+    public void onClose(Throwable cause)
+    {
+        super.onClose(cause);
+        // Channels of exchanges that completed must have been recycled,
+        // while those of exchanges still in flight are just discarded.
+        for (HttpChannelOverHTTP2 channel : leasedChannels)
+        {
+            HttpChannelState state = channel.getState();
+            if (state.isIdle() && state.isResponseCompleted())
+                LOG.warn("Leaked {} on {}", channel, this);
+            else if (LOG.isDebugEnabled())
+                LOG.debug("Discarding in flight {} on {}", channel, this);
+        }
+        leasedChannels.clear();
+        synchronized (this)
+        {
+            channels.clear();
+        }
+    }
+
     private void notifyAccept(ISession session)
     {
         try
@@ -293,6 +337,8 @@ public class HTTP2ServerConnection extends HTTP2Connection implements Connection
             if (LOG.isDebugEnabled())
                 LOG.debug("Creating channel {} for {}", channel, this);
         }
+        if (isRecycleHttpChannels())
+            leasedChannels.add(channel);
         stream.setAttachment(channel);
         return channel;
     }
@@ -302,15 +348,33 @@ public class HTTP2ServerConnection extends HTTP2Connection implements Connection
         return new ServerHttpChannelOverHTTP2(connector, httpConfig, getEndPoint(), transport);
     }
 
-    private void offerHttpChannel(HttpChannelOverHTTP2 channel)
+    private void offerHttpChannel(HttpChannelOverHTTP2 channel, boolean reusable)
     {
-        if (isRecycleHttpChannels())
+        if (!isRecycleHttpChannels())
+            return;
+
+        if (!leasedChannels.remove(channel))
+        {
+            // Recycled twice, or it would be handed to two streams.
+            LOG.warn("Not recycling {}: not leased by {}", channel, this);
+            if (LOG.isDebugEnabled())
+                LOG.debug("Recycled from", new Throwable());
+            return;
+        }
+
+        if (reusable)
         {
             synchronized (this)
             {
-                channels.offer(channel);
+                if (channels.size() < getMaxRecycledHttpChannels())
+                {
+                    channels.offer(channel);
+                    return;
+                }
             }
         }
+        if (LOG.isDebugEnabled())
+            LOG.debug("Not recycling {} for {}", channel, this);
     }
 
     private HttpChannelOverHTTP2 pollHttpChannel()
@@ -389,6 +453,8 @@ public class HTTP2ServerConnection extends HTTP2Connection implements Connection
             totalResponses.incrementAndGet();
             if (!getStream().isReset() && !isTunnel())
                 recycle();
+            else
+                leasedChannels.remove(this);
         }
 
         private boolean isTunnel()
@@ -399,9 +465,12 @@ public class HTTP2ServerConnection extends HTTP2Connection implements Connection
         @Override
         public void recycle()
         {
+            // Only the channel of a completed exchange can be reused by another stream;
+            // recycling resets the state, so this must be checked beforehand.
+            boolean reusable = getState().isIdle() && isResponseCompleted() && getRequest().isHandled();
             getStream().setAttachment(null);
             super.recycle();
-            offerHttpChannel(this);
+            offerHttpChannel(this, reusable);
         }
 
         @Override
@@ -89,7 +89,7 @@ public class HttpTransportOverHTTP2 implements HttpTransport
         {
             metaData = response;
             int status = response.getStatus();
-            boolean interimResponse = status == HttpStatus.CONTINUE_100 || status == HttpStatus.PROCESSING_102;
+            boolean interimResponse = status == HttpStatus.CONTINUE_100 || status == HttpStatus.PROCESSING_102 || status == HttpStatus.EARLY_HINT_103;
             if (interimResponse)
             {
                 // Must not commit interim responses.
@@ -19,6 +19,7 @@
 package org.eclipse.jetty.http2.server;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.net.Socket;
@@ -28,8 +29,12 @@ import java.nio.channels.SocketChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
@@ -62,11 +67,15 @@ import org.eclipse.jetty.io.ManagedSelector;
 import org.eclipse.jetty.io.SocketChannelEndPoint;
 import org.eclipse.jetty.server.HttpChannel;
 import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.log.StacklessLogging;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -600,4 +609,103 @@ public class HTTP2ServerTest extends AbstractServerTest
             assertFalse(closed);
         }
     }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    public void testHttpChannelRecycling(boolean recycle) throws Exception
+    {
+        Set<HttpChannel> channels = ConcurrentHashMap.newKeySet();
+        startServer(new HttpServlet()
+        {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp)
+            {
+                channels.add(Request.getBaseRequest(req).getHttpChannel());
+            }
+        });
+        connector.getConnectionFactory(HTTP2ServerConnectionFactory.class).setRecycleHttpChannels(recycle);
+
+        int requests = 8;
+        sendSequentialRequests(requests);
+
+        if (recycle)
+            assertEquals(1, channels.size());
+        else
+            assertEquals(requests, channels.size());
+    }
+
+    @Test
+    public void testUnhandledRequestHttpChannelIsNotRecycled() throws Exception
+    {
+        Set<HttpChannel> channels = ConcurrentHashMap.newKeySet();
+        startServer(new HttpServlet()
+        {
+        });
+        server.stop();
+        // A handler that writes the response without marking the request as handled.
+        server.setHandler(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException
+            {
+                channels.add(baseRequest.getHttpChannel());
+                response.flushBuffer();
+            }
+        });
+        connector.getConnectionFactory(HTTP2ServerConnectionFactory.class).setRecycleHttpChannels(true);
+        server.start();
+
+        int requests = 4;
+        sendSequentialRequests(requests);
+
+        assertEquals(requests, channels.size());
+    }
+
+    private void sendSequentialRequests(int requests) throws Exception
+    {
+        try (Socket client = new Socket("localhost", connector.getLocalPort()))
+        {
+            OutputStream output = client.getOutputStream();
+            InputStream input = client.getInputStream();
+            client.setSoTimeout(5000);
+            BlockingQueue<HeadersFrame> responses = new LinkedBlockingQueue<>();
+            Parser parser = new Parser(byteBufferPool, new Parser.Listener.Adapter()
+            {
+                @Override
+                public void onHeaders(HeadersFrame frame)
+                {
+                    responses.offer(frame);
+                }
+            }, 4096, 8192);
+            parser.init(UnaryOperator.identity());
+
+            byte[] bytes = new byte[2048];
+            for (int i = 0; i < requests; ++i)
+            {
+                ByteBufferPool.Lease lease = new ByteBufferPool.Lease(byteBufferPool);
+                if (i == 0)
+                {
+                    generator.control(lease, new PrefaceFrame());
+                    generator.control(lease, new SettingsFrame(new HashMap<>(), false));
+                }
+                generator.control(lease, new HeadersFrame(2 * i + 1, newRequest("GET", new HttpFields()), null, true));
+                for (ByteBuffer buffer : lease.getByteBuffers())
+                {
+                    output.write(BufferUtil.toArray(buffer));
+                }
+
+                // Read the response before sending the next request.
+                while (responses.isEmpty())
+                {
+                    int read = input.read(bytes);
+                    assertTrue(read > 0);
+                    parser.parse(ByteBuffer.wrap(bytes, 0, read));
+                }
+                MetaData.Response response = (MetaData.Response)responses.poll().getMetaData();
+                assertEquals(200, response.getStatus());
+                // Give the server the time to complete and recycle the channel.
+                Thread.sleep(50);
+            }
+        }
+    }
 }
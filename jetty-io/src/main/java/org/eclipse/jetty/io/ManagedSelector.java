@@ -42,13 +42,18 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
 import org.eclipse.jetty.util.component.Dumpable;
 import org.eclipse.jetty.util.component.DumpableCollection;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.util.statistic.SampleStatistic;
 import org.eclipse.jetty.util.thread.ExecutionStrategy;
 import org.eclipse.jetty.util.thread.Scheduler;
 import org.eclipse.jetty.util.thread.strategy.EatWhatYouKill;
@@ -58,7 +63,12 @@ import org.eclipse.jetty.util.thread.strategy.EatWhatYouKill;
  * <p>{@link ManagedSelector} runs the select loop, which waits on {@link Selector#select()} until events
  * happen for registered channels. When events happen, it notifies the {@link EndPoint} associated
  * with the channel.</p>
+ * <p>Updates submitted while the selector is not blocked in {@link Selector#select()} do not
+ * wake it up, as they are applied once per select cycle; optionally (see
+ * {@link SelectorManager#setSelectSpins(int)}) a hot selector spins with {@link Selector#selectNow()}
+ * before blocking, so that updates submitted meanwhile need no wakeup at all.</p>
  */
+@ManagedObject("A NIO Selector")
 public class ManagedSelector extends ContainerLifeCycle implements Dumpable
 {
     private static final Logger LOG = Log.getLogger(ManagedSelector.class);
@@ -86,6 +96,11 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
     private Selector _selector;
     private Deque<SelectorUpdate> _updates = new ArrayDeque<>();
     private Deque<SelectorUpdate> _updateable = new ArrayDeque<>();
+    private final LongAdder _wakeups = new LongAdder();
+    private final LongAdder _wakeupsAvoided = new LongAdder();
+    private final LongAdder _selectNowSpins = new LongAdder();
+    private final SampleStatistic _selectedKeys = new SampleStatistic();
+    private final SampleStatistic _updateBatches = new SampleStatistic();
 
     public ManagedSelector(SelectorManager selectorManager, int id)
     {
@@ -187,8 +202,13 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
         {
             if (LOG.isDebugEnabled())
                 LOG.debug("Wakeup on submit {}", this);
+            _wakeups.increment();
             selector.wakeup();
         }
+        else
+        {
+            _wakeupsAvoided.increment();
+        }
     }
 
     private void wakeup()
@@ -207,7 +227,14 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
         }
 
         if (selector != null)
+        {
+            _wakeups.increment();
             selector.wakeup();
+        }
+        else
+        {
+            _wakeupsAvoided.increment();
+        }
     }
 
     private void execute(Runnable task)
@@ -295,6 +322,70 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
         }
     }
 
+    @ManagedAttribute("The number of select cycles")
+    public long getSelectCycles()
+    {
+        return _selectedKeys.getCount();
+    }
+
+    @ManagedAttribute("The mean number of keys selected per select cycle")
+    public double getSelectedKeysMean()
+    {
+        return _selectedKeys.getMean();
+    }
+
+    @ManagedAttribute("The max number of keys selected in a select cycle")
+    public long getSelectedKeysMax()
+    {
+        return _selectedKeys.getMax();
+    }
+
+    @ManagedAttribute("The number of non empty batches of updates")
+    public long getUpdateBatches()
+    {
+        return _updateBatches.getCount();
+    }
+
+    @ManagedAttribute("The mean number of updates per batch")
+    public double getUpdateBatchMean()
+    {
+        return _updateBatches.getMean();
+    }
+
+    @ManagedAttribute("The max number of updates in a batch")
+    public long getUpdateBatchMax()
+    {
+        return _updateBatches.getMax();
+    }
+
+    @ManagedAttribute("The number of selector wakeups")
+    public long getWakeups()
+    {
+        return _wakeups.sum();
+    }
+
+    @ManagedAttribute("The number of wakeups avoided as the selector was not blocked")
+    public long getWakeupsAvoided()
+    {
+        return _wakeupsAvoided.sum();
+    }
+
+    @ManagedAttribute("The number of selectNow() spins")
+    public long getSelectNowSpins()
+    {
+        return _selectNowSpins.sum();
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void resetStatistics()
+    {
+        _wakeups.reset();
+        _wakeupsAvoided.reset();
+        _selectNowSpins.reset();
+        _selectedKeys.reset();
+        _updateBatches.reset();
+    }
+
     static int safeReadyOps(SelectionKey selectionKey)
     {
         try
@@ -392,6 +483,8 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
     {
         private Set<SelectionKey> _keys = Collections.emptySet();
         private Iterator<SelectionKey> _cursor = Collections.emptyIterator();
+        private boolean _hot;
+        private boolean _spinning;
 
         @Override
         public Runnable produce()
@@ -420,8 +513,14 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
                 _updateable = updates;
             }
 
+            int batch = _updateable.size();
             if (LOG.isDebugEnabled())
-                LOG.debug("updateable {}", _updateable.size());
+                LOG.debug("updateable {}", batch);
+            if (batch > 0)
+            {
+                _updateBatches.record(batch);
+                _hot = true;
+            }
 
             for (SelectorUpdate update : _updateable)
             {
@@ -440,6 +539,12 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
             }
             _updateable.clear();
 
+            // A hot selector spins with selectNow() before it blocks,
+            // and only then is it marked as selecting, see spin().
+            _spinning = _hot && _selectorManager.getSelectSpins() > 0;
+            if (_spinning)
+                return;
+
             Selector selector;
             int updates;
             synchronized (ManagedSelector.this)
@@ -456,10 +561,36 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
             {
                 if (LOG.isDebugEnabled())
                     LOG.debug("wakeup on updates {}", this);
+                _wakeups.increment();
                 selector.wakeup();
             }
         }
 
+        private int spin(Selector selector) throws IOException
+        {
+            int spins = _selectorManager.getSelectSpins();
+            for (int i = 0; i < spins; i++)
+            {
+                _selectNowSpins.increment();
+                int selected = selector.selectNow();
+                if (selected > 0)
+                    return selected;
+                synchronized (ManagedSelector.this)
+                {
+                    if (!_updates.isEmpty())
+                        return 0;
+                }
+            }
+
+            boolean block;
+            synchronized (ManagedSelector.this)
+            {
+                block = _updates.isEmpty();
+                _selecting = block;
+            }
+            return block ? selector.select() : 0;
+        }
+
         private boolean select()
         {
             try
@@ -469,7 +600,7 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
                 {
                     if (LOG.isDebugEnabled())
                         LOG.debug("Selector {} waiting with {} keys", selector, selector.keys().size());
-                    int selected = selector.select();
+                    int selected = _spinning ? spin(selector) : selector.select();
                     if (selected == 0)
                     {
                         if (LOG.isDebugEnabled())
@@ -494,6 +625,8 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
 
                     _keys = selector.selectedKeys();
                     _cursor = _keys.isEmpty() ? Collections.emptyIterator() : _keys.iterator();
+                    _selectedKeys.record(_keys.size());
+                    _hot = !_keys.isEmpty();
                     if (LOG.isDebugEnabled())
                         LOG.debug("Selector {} processing {} keys, {} updates", selector, _keys.size(), updates);
 
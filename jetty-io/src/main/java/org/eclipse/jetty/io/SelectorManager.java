@@ -67,6 +67,7 @@ public abstract class SelectorManager extends ContainerLifeCycle implements Dump
     private final IntUnaryOperator _selectorIndexUpdate;
     private final List<AcceptListener> _acceptListeners = new ArrayList<>();
     private long _connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+    private int _selectSpins;
     private ThreadPoolBudget.Lease _lease;
 
     private static int defaultSelectors(Executor executor)
@@ -134,6 +135,31 @@ public abstract class SelectorManager extends ContainerLifeCycle implements Dump
         _connectTimeout = milliseconds;
     }
 
+    /**
+     * @return the number of non-blocking {@link java.nio.channels.Selector#selectNow()} calls
+     * that a hot selector makes before blocking in {@link java.nio.channels.Selector#select()}
+     */
+    @ManagedAttribute("The number of selectNow() spins of a hot selector before it blocks")
+    public int getSelectSpins()
+    {
+        return _selectSpins;
+    }
+
+    /**
+     * <p>Sets the number of non-blocking {@link java.nio.channels.Selector#selectNow()} calls
+     * that a selector makes before blocking in {@link java.nio.channels.Selector#select()},
+     * when the previous select cycle selected keys or applied updates.</p>
+     * <p>While spinning, submitted updates do not wake up the selector, as they will be
+     * picked up by the next spin, which avoids wakeups under high connection churn at
+     * the cost of some CPU. The default of 0 blocks immediately.</p>
+     *
+     * @param selectSpins the number of selectNow() spins, or 0 to never spin
+     */
+    public void setSelectSpins(int selectSpins)
+    {
+        _selectSpins = selectSpins;
+    }
+
     /**
      * Executes the given task in a different thread.
      *
@@ -19,8 +19,12 @@
 package org.eclipse.jetty.io;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.InetSocketAddress;
+import java.net.Socket;
 import java.net.SocketAddress;
+import java.nio.ByteBuffer;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.ServerSocketChannel;
@@ -29,6 +33,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.eclipse.jetty.util.thread.TimerScheduler;
@@ -37,6 +42,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -163,4 +171,92 @@ public class SelectorManagerTest
             selectorManager.stop();
         }
     }
+
+    @Test
+    public void testSelectSpins() throws Exception
+    {
+        SelectorManager selectorManager = new SelectorManager(executor, scheduler, 1)
+        {
+            @Override
+            protected EndPoint newEndPoint(SelectableChannel channel, ManagedSelector selector, SelectionKey key)
+            {
+                return new SocketChannelEndPoint(channel, selector, key, getScheduler());
+            }
+
+            @Override
+            public Connection newConnection(SelectableChannel channel, EndPoint endpoint, Object attachment)
+            {
+                return new AbstractConnection(endpoint, executor)
+                {
+                    @Override
+                    public void onOpen()
+                    {
+                        super.onOpen();
+                        fillInterested();
+                    }
+
+                    @Override
+                    public void onFillable()
+                    {
+                        try
+                        {
+                            ByteBuffer buffer = BufferUtil.allocate(1024);
+                            int filled = getEndPoint().fill(buffer);
+                            if (filled < 0)
+                            {
+                                getEndPoint().close();
+                                return;
+                            }
+                            getEndPoint().flush(buffer);
+                            fillInterested();
+                        }
+                        catch (IOException x)
+                        {
+                            getEndPoint().close(x);
+                        }
+                    }
+                };
+            }
+        };
+        selectorManager.setSelectSpins(16);
+        selectorManager.start();
+
+        try (ServerSocketChannel server = ServerSocketChannel.open())
+        {
+            server.bind(new InetSocketAddress("localhost", 0));
+            for (int i = 0; i < 10; i++)
+            {
+                try (Socket client = new Socket("localhost", server.socket().getLocalPort()))
+                {
+                    client.setSoTimeout(5000);
+                    SocketChannel channel = server.accept();
+                    channel.configureBlocking(false);
+                    selectorManager.accept(channel);
+                    OutputStream output = client.getOutputStream();
+                    InputStream input = client.getInputStream();
+                    for (int j = 0; j < 10; j++)
+                    {
+                        output.write('A' + j);
+                        output.flush();
+                        assertEquals('A' + j, input.read());
+                    }
+                }
+            }
+
+            ManagedSelector selector = selectorManager.getBean(ManagedSelector.class);
+            assertThat(selector.getSelectCycles(), greaterThan(0L));
+            assertThat(selector.getSelectedKeysMax(), greaterThan(0L));
+            assertThat(selector.getUpdateBatches(), greaterThan(0L));
+            assertThat(selector.getSelectNowSpins(), greaterThan(0L));
+            assertThat(selector.getWakeups() + selector.getWakeupsAvoided(), greaterThan(0L));
+
+            selector.resetStatistics();
+            assertEquals(0, selector.getSelectCycles());
+            assertEquals(0, selector.getSelectNowSpins());
+        }
+        finally
+        {
+            selectorManager.stop();
+        }
+    }
 }
@@ -0,0 +1,276 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.quickstart;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.util.resource.Resource;
+import org.eclipse.jetty.webapp.WebDescriptor;
+import org.eclipse.jetty.xml.XmlParser;
+
+/**
+ * <p>A compact binary form of a parsed quickstart-web.xml, so that the webapp
+ * can be quickstarted without parsing XML.</p>
+ * <p>The binary form is the tree of {@link XmlParser.Node}s of the quickstart-web.xml,
+ * which already contains the fully resolved servlets, filters, listeners, security
+ * constraints and the results of annotation scanning and fragment ordering.
+ * Reading it gives a {@link WebDescriptor} that is applied by the usual descriptor
+ * processors.</p>
+ * <p>The size and last modified time of the quickstart-web.xml are recorded, so that
+ * a binary form is not used if the quickstart-web.xml is modified.</p>
+ */
+public class QuickStartBinaryDescriptor
+{
+    private static final Logger LOG = Log.getLogger(QuickStartBinaryDescriptor.class);
+    private static final int FORMAT_VERSION = 1;
+    private static final byte NODE = 1;
+    private static final byte TEXT = 2;
+
+    private QuickStartBinaryDescriptor()
+    {
+    }
+
+    /**
+     * @param quickStartWebXml the quickstart-web.xml file
+     * @return the file of the binary form of the given quickstart-web.xml, or null if
+     * the quickstart-web.xml is not a file
+     * @throws IOException if the file of the quickstart-web.xml cannot be determined
+     */
+    public static Path getBinaryFile(Resource quickStartWebXml) throws IOException
+    {
+        File file = quickStartWebXml == null ? null : quickStartWebXml.getFile();
+        if (file == null)
+            return null;
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        return file.toPath().resolveSibling((dot > 0 ? name.substring(0, dot) : name) + ".bin");
+    }
+
+    /**
+     * Parses the given quickstart-web.xml and writes its binary form.
+     *
+     * @param quickStartWebXml the quickstart-web.xml
+     * @param file the file to write the binary form to
+     * @throws Exception if the quickstart-web.xml cannot be parsed or the file cannot be written
+     */
+    public static void write(Resource quickStartWebXml, Path file) throws Exception
+    {
+        WebDescriptor descriptor = new WebDescriptor(quickStartWebXml);
+        descriptor.setValidating(false);
+        descriptor.parse();
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp))))
+        {
+            output.writeInt(FORMAT_VERSION);
+            output.writeLong(quickStartWebXml.length());
+            output.writeLong(quickStartWebXml.lastModified());
+            Writer writer = new Writer(output);
+            writer.writeString(descriptor.getDTD());
+            writer.writeNode(descriptor.getRoot());
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * @param file the file of the binary form
+     * @param quickStartWebXml the quickstart-web.xml the binary form was written for
+     * @return a descriptor of the quickstart-web.xml that does not need to be parsed, or null
+     * if the file does not exist or the quickstart-web.xml was modified since the file was written
+     */
+    public static WebDescriptor read(Path file, Resource quickStartWebXml)
+    {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file))))
+        {
+            if (input.readInt() != FORMAT_VERSION ||
+                input.readLong() != quickStartWebXml.length() ||
+                input.readLong() != quickStartWebXml.lastModified())
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Stale {} for {}", file, quickStartWebXml);
+                return null;
+            }
+            Reader reader = new Reader(input);
+            String dtd = reader.readString();
+            XmlParser.Node root = reader.readNode(null);
+            return new ParsedWebDescriptor(quickStartWebXml, root, dtd);
+        }
+        catch (NoSuchFileException x)
+        {
+            return null;
+        }
+        catch (IOException x)
+        {
+            LOG.warn("Cannot read {}: {}", file, x.toString());
+            return null;
+        }
+    }
+
+    /**
+     * A {@link WebDescriptor} whose tree of nodes is already known.
+     */
+    private static class ParsedWebDescriptor extends WebDescriptor
+    {
+        private ParsedWebDescriptor(Resource xml, XmlParser.Node root, String dtd)
+        {
+            super(xml);
+            _root = root;
+            _dtd = dtd;
+        }
+    }
+
+    /**
+     * Writes strings once, then refers to them by index, as
+     * tag names and attribute names and values are mostly repeated.
+     */
+    private static class Writer
+    {
+        private final Map<String, Integer> _strings = new HashMap<>();
+        private final DataOutputStream _output;
+
+        private Writer(DataOutputStream output)
+        {
+            _output = output;
+        }
+
+        private void writeNode(XmlParser.Node node) throws IOException
+        {
+            writeString(node.getTag());
+            XmlParser.Attribute[] attributes = node.getAttributes();
+            _output.writeInt(attributes == null ? -1 : attributes.length);
+            if (attributes != null)
+            {
+                for (XmlParser.Attribute attribute : attributes)
+                {
+                    writeString(attribute.getName());
+                    writeString(attribute.getValue());
+                }
+            }
+            _output.writeInt(node.size());
+            for (int i = 0; i < node.size(); ++i)
+            {
+                Object child = node.get(i);
+                if (child instanceof XmlParser.Node)
+                {
+                    _output.writeByte(NODE);
+                    writeNode((XmlParser.Node)child);
+                }
+                else
+                {
+                    _output.writeByte(TEXT);
+                    writeString(String.valueOf(child));
+                }
+            }
+        }
+
+        private void writeString(String value) throws IOException
+        {
+            if (value == null)
+            {
+                _output.writeInt(-1);
+                return;
+            }
+            Integer index = _strings.get(value);
+            if (index != null)
+            {
+                _output.writeInt(index);
+                return;
+            }
+            _strings.put(value, _strings.size());
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            _output.writeInt(-2);
+            _output.writeInt(bytes.length);
+            _output.write(bytes);
+        }
+    }
+
+    private static class Reader
+    {
+        private final List<String> _strings = new ArrayList<>();
+        private final DataInputStream _input;
+
+        private Reader(DataInputStream input)
+        {
+            _input = input;
+        }
+
+        private XmlParser.Node readNode(XmlParser.Node parent) throws IOException
+        {
+            String tag = readString();
+            int count = _input.readInt();
+            XmlParser.Attribute[] attributes = null;
+            if (count >= 0)
+            {
+                attributes = new XmlParser.Attribute[count];
+                for (int i = 0; i < count; ++i)
+                {
+                    attributes[i] = new XmlParser.Attribute(readString(), readString());
+                }
+            }
+            XmlParser.Node node = new XmlParser.Node(parent, tag, attributes);
+            int children = _input.readInt();
+            for (int i = 0; i < children; ++i)
+            {
+                byte type = _input.readByte();
+                switch (type)
+                {
+                    case NODE:
+                        node.add(readNode(node));
+                        break;
+                    case TEXT:
+                        node.add(readString());
+                        break;
+                    default:
+                        throw new IOException("Invalid node type " + type);
+                }
+            }
+            return node;
+        }
+
+        private String readString() throws IOException
+        {
+            int index = _input.readInt();
+            if (index == -1)
+                return null;
+            if (index >= 0)
+                return _strings.get(index);
+            byte[] bytes = new byte[_input.readInt()];
+            _input.readFully(bytes);
+            String value = new String(bytes, StandardCharsets.UTF_8);
+            _strings.add(value);
+            return value;
+        }
+    }
+}
@@ -20,6 +20,8 @@ package org.eclipse.jetty.quickstart;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -35,7 +37,9 @@ import org.eclipse.jetty.util.resource.Resource;
 import org.eclipse.jetty.webapp.AbstractConfiguration;
 import org.eclipse.jetty.webapp.Configuration;
 import org.eclipse.jetty.webapp.StandardDescriptorProcessor;
+import org.eclipse.jetty.webapp.WebAppClassLoader;
 import org.eclipse.jetty.webapp.WebAppContext;
+import org.eclipse.jetty.webapp.WebDescriptor;
 import org.eclipse.jetty.webapp.WebInfConfiguration;
 import org.eclipse.jetty.webapp.WebXmlConfiguration;
 
@@ -52,6 +56,8 @@ public class QuickStartConfiguration extends AbstractConfiguration
     public static final String ORIGIN_ATTRIBUTE = "org.eclipse.jetty.quickstart.origin";
     public static final String QUICKSTART_WEB_XML = "org.eclipse.jetty.quickstart.xml";
     public static final String MODE = "org.eclipse.jetty.quickstart.mode";
+    public static final String CLASSPATH_INDEX = "quickstart-classpath.idx";
+    public static final String BINARY = "org.eclipse.jetty.quickstart.binary";
 
     static
     {
@@ -158,6 +164,10 @@ public class QuickStartConfiguration extends AbstractConfiguration
         if (attr != null)
             generator.setOriginAttribute(attr.toString());
 
+        attr = context.getAttribute(BINARY);
+        if (attr != null)
+            generator.setBinary(Boolean.parseBoolean(attr.toString()));
+
         generator.setQuickStartWebXml((Resource)context.getAttribute(QUICKSTART_WEB_XML));
     }
 
@@ -211,9 +221,43 @@ public class QuickStartConfiguration extends AbstractConfiguration
         context.setConfigurations(context.getConfigurations().stream()
             .filter(c -> !__replacedConfigurations.contains(c.replaces()) && !__replacedConfigurations.contains(c.getClass()))
             .collect(Collectors.toList()).toArray(new Configuration[]{}));
-        context.getMetaData().setWebXml((Resource)context.getAttribute(QUICKSTART_WEB_XML));
+        Resource quickStartWebXml = (Resource)context.getAttribute(QUICKSTART_WEB_XML);
+        //use the binary form of the quickstart-web.xml if it is up to date, so that no xml is parsed
+        Path binary = QuickStartBinaryDescriptor.getBinaryFile(quickStartWebXml);
+        WebDescriptor descriptor = binary == null ? null : QuickStartBinaryDescriptor.read(binary, quickStartWebXml);
+        if (descriptor != null)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Quickstarting {} from {}", context, binary);
+            context.getMetaData().setWebXml(descriptor);
+        }
+        else
+        {
+            context.getMetaData().setWebXml(quickStartWebXml);
+        }
         context.getServletContext().setEffectiveMajorVersion(context.getMetaData().getWebXml().getMajorVersion());
         context.getServletContext().setEffectiveMinorVersion(context.getMetaData().getWebXml().getMinorVersion());
+
+        //use the classpath index generated along with quickstart-web.xml, if any
+        Path classPathIndex = getClassPathIndexFile(quickStartWebXml);
+        if (classPathIndex != null && Files.exists(classPathIndex) && context.getClassLoader() instanceof WebAppClassLoader)
+        {
+            WebAppClassLoader loader = (WebAppClassLoader)context.getClassLoader();
+            loader.setClassPathIndexFile(classPathIndex);
+            loader.setIndexed(true);
+        }
+    }
+
+    /**
+     * @param quickStartWebXml the quickstart-web.xml file
+     * @return the file of the {@link org.eclipse.jetty.webapp.ClassPathIndex} of the webapp,
+     * next to the quickstart-web.xml file, or null if the quickstart-web.xml is not a file
+     * @throws IOException if the file of the quickstart-web.xml cannot be determined
+     */
+    static Path getClassPathIndexFile(Resource quickStartWebXml) throws IOException
+    {
+        File file = quickStartWebXml == null ? null : quickStartWebXml.getFile();
+        return file == null ? null : file.toPath().resolveSibling(CLASSPATH_INDEX);
     }
 
     /**
@@ -22,6 +22,7 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -61,6 +62,7 @@ import org.eclipse.jetty.webapp.AbstractConfiguration;
 import org.eclipse.jetty.webapp.MetaData;
 import org.eclipse.jetty.webapp.MetaData.OriginInfo;
 import org.eclipse.jetty.webapp.MetaInfConfiguration;
+import org.eclipse.jetty.webapp.WebAppClassLoader;
 import org.eclipse.jetty.webapp.WebAppContext;
 import org.eclipse.jetty.webapp.WebInfConfiguration;
 import org.eclipse.jetty.xml.XmlAppendable;
@@ -83,6 +85,7 @@ public class QuickStartGeneratorConfiguration extends AbstractConfiguration
 
     protected final boolean _abort;
     protected String _originAttribute;
+    protected boolean _binary;
     protected int _count;
     protected Resource _quickStartWebXml;
    
@@ -117,6 +120,25 @@ public class QuickStartGeneratorConfiguration extends AbstractConfiguration
         return _originAttribute;
     }
 
+    /**
+     * @return whether a binary form of the quickstart-web.xml is also generated
+     * @see QuickStartBinaryDescriptor
+     */
+    public boolean isBinary()
+    {
+        return _binary;
+    }
+
+    /**
+     * @param binary whether a binary form of the quickstart-web.xml is also generated,
+     * so that the webapp is quickstarted without parsing xml
+     * @see QuickStartBinaryDescriptor
+     */
+    public void setBinary(boolean binary)
+    {
+        _binary = binary;
+    }
+
     public Resource getQuickStartWebXml()
     {
         return _quickStartWebXml;
@@ -790,6 +812,22 @@ public class QuickStartGeneratorConfiguration extends AbstractConfiguration
             if (context.getAttribute(WebInfConfiguration.TEMPORARY_RESOURCE_BASE) != null && !context.isPersistTempDirectory())
                 LOG.warn("Generated to non persistent location: " + _quickStartWebXml);
         }
+
+        //save the binary form of the quickstart-web.xml, so that it is not parsed when quickstarting
+        Path binary = _binary ? QuickStartBinaryDescriptor.getBinaryFile(_quickStartWebXml) : null;
+        if (binary != null)
+        {
+            QuickStartBinaryDescriptor.write(_quickStartWebXml, binary);
+            LOG.info("Generated {}", binary);
+        }
+
+        //save the classpath index, so that it is not built again when quickstarting
+        if (context.getClassLoader() instanceof WebAppClassLoader && ((WebAppClassLoader)context.getClassLoader()).isIndexed())
+        {
+            Path classPathIndex = QuickStartConfiguration.getClassPathIndexFile(_quickStartWebXml);
+            if (classPathIndex != null && ((WebAppClassLoader)context.getClassLoader()).writeClassPathIndex(classPathIndex))
+                LOG.info("Generated {}", classPathIndex);
+        }
     }
 
     @Override
@@ -27,14 +27,18 @@ import org.eclipse.jetty.servlet.ListenerHolder;
 import org.eclipse.jetty.servlet.ServletHolder;
 import org.eclipse.jetty.toolchain.test.FS;
 import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.eclipse.jetty.util.resource.Resource;
 import org.eclipse.jetty.webapp.WebAppContext;
+import org.eclipse.jetty.webapp.WebDescriptor;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -105,6 +109,61 @@ public class TestQuickStart
         assertEquals("foo", sh.getName());
     }
 
+    @Test
+    public void testBinaryQuickStart() throws Exception
+    {
+        File quickstartXml = new File(webInf, "quickstart-web.xml");
+        File quickstartBin = new File(webInf, "quickstart-web.bin");
+
+        //generate a quickstart-web.xml and its binary form
+        WebAppContext quickstart = new WebAppContext();
+        quickstart.addConfiguration(new QuickStartConfiguration());
+        quickstart.setAttribute(QuickStartConfiguration.MODE, QuickStartConfiguration.Mode.GENERATE);
+        quickstart.setAttribute(QuickStartConfiguration.BINARY, "true");
+        quickstart.setResourceBase(testDir.getAbsolutePath());
+        ServletHolder fooHolder = new ServletHolder();
+        fooHolder.setServlet(new FooServlet());
+        fooHolder.setName("foo");
+        quickstart.getServletHandler().addServlet(fooHolder);
+        ListenerHolder lholder = new ListenerHolder();
+        lholder.setListener(new FooContextListener());
+        quickstart.getServletHandler().addListener(lholder);
+        server.setHandler(quickstart);
+        server.setDryRun(true);
+        server.start();
+
+        assertTrue(quickstartXml.exists());
+        assertTrue(quickstartBin.exists());
+
+        //the binary form has the same tree as the xml
+        Resource xml = Resource.newResource(quickstartXml);
+        WebDescriptor parsed = new WebDescriptor(xml);
+        parsed.setValidating(false);
+        parsed.parse();
+        WebDescriptor binary = QuickStartBinaryDescriptor.read(quickstartBin.toPath(), xml);
+        assertNotNull(binary);
+        assertEquals(parsed.getRoot().toString(), binary.getRoot().toString());
+
+        //now run the webapp from the binary form
+        WebAppContext webapp = new WebAppContext();
+        webapp.setResourceBase(testDir.getAbsolutePath());
+        webapp.addConfiguration(new QuickStartConfiguration());
+        webapp.setAttribute(QuickStartConfiguration.MODE, QuickStartConfiguration.Mode.QUICKSTART);
+        webapp.setClassLoader(new URLClassLoader(new URL[0], Thread.currentThread().getContextClassLoader()));
+        server.setHandler(webapp);
+        server.setDryRun(false);
+        server.start();
+
+        assertNotEquals(WebDescriptor.class, webapp.getMetaData().getWebXml().getClass());
+        ServletHolder sh = webapp.getServletHandler().getMappedServlet("/").getResource();
+        assertNotNull(sh);
+        assertEquals("foo", sh.getName());
+
+        //a modified quickstart-web.xml makes the binary form stale
+        assertTrue(quickstartXml.setLastModified(quickstartXml.lastModified() - 60000));
+        assertNull(QuickStartBinaryDescriptor.read(quickstartBin.toPath(), Resource.newResource(quickstartXml)));
+    }
+
     @Test
     public void testDefaultContextPath() throws Exception
     {
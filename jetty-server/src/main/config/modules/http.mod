@@ -36,8 +36,14 @@ etc/jetty-http.xml
 ## ServerSocketChannel backlog (0 picks platform default)
 # jetty.http.acceptorQueueSize=0
 
+## Whether to listen with a SO_REUSEPORT socket per acceptor, or per selector if there are no acceptors
+# jetty.http.reusePort=false
+
 ## Thread priority delta to give to acceptor threads
 # jetty.http.acceptorPriorityDelta=0
 
 ## Connect Timeout in milliseconds
 # jetty.http.connectTimeout=15000
+
+## Number of selectNow() spins of a busy selector before it blocks (0 never spins)
+# jetty.http.selectSpins=0
@@ -53,6 +53,9 @@ etc/jetty.xml
 ## Max per-connection header cache size (in nodes)
 # jetty.httpConfig.headerCacheSize=1024
 
+## Header cache size shared by all connections (in nodes), 0 to disable
+# jetty.httpConfig.sharedHeaderCacheSize=0
+
 ## Whether, for requests with content, delay dispatch until some content has arrived
 # jetty.httpConfig.delayDispatchUntilContent=true
 
@@ -37,6 +37,9 @@ etc/jetty-ssl-context.xml
 ## ServerSocketChannel backlog (0 picks platform default)
 # jetty.ssl.acceptorQueueSize=0
 
+## Whether to listen with a SO_REUSEPORT socket per acceptor, or per selector if there are no acceptors
+# jetty.ssl.reusePort=false
+
 ## Thread priority delta to give to acceptor threads
 # jetty.ssl.acceptorPriorityDelta=0
 
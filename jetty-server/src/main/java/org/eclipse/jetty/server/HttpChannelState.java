@@ -21,6 +21,7 @@ package org.eclipse.jetty.server;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.servlet.AsyncListener;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletResponse;
@@ -144,15 +145,35 @@ public class HttpChannelState
         WAIT,             // Wait for further events
     }
 
+    /*
+     * The State, RequestState, OutputState and InputState together with the
+     * initial, sendError and asyncWritePossible flags are packed into a single
+     * int so that every transition is one compare-and-set of the whole status.
+     * Transitions that also touch the async listeners, the AsyncContextEvent or
+     * the timeout are serialized by the monitor of this object, but still CAS the
+     * status, as the IO callbacks (onContentAdded, onWritePossible, ...) and the
+     * response commit transitions race with them without taking the lock.
+     */
+    private static final State[] STATES = State.values();
+    private static final RequestState[] REQUEST_STATES = RequestState.values();
+    private static final OutputState[] OUTPUT_STATES = OutputState.values();
+    private static final InputState[] INPUT_STATES = InputState.values();
+    private static final int STATE_SHIFT = 0;
+    private static final int STATE_MASK = 0x7 << STATE_SHIFT;
+    private static final int REQUEST_SHIFT = 3;
+    private static final int REQUEST_MASK = 0x7 << REQUEST_SHIFT;
+    private static final int OUTPUT_SHIFT = 6;
+    private static final int OUTPUT_MASK = 0x3 << OUTPUT_SHIFT;
+    private static final int INPUT_SHIFT = 8;
+    private static final int INPUT_MASK = 0x7 << INPUT_SHIFT;
+    private static final int INITIAL = 1 << 11;
+    private static final int SEND_ERROR = 1 << 12;
+    private static final int ASYNC_WRITE_POSSIBLE = 1 << 13;
+    private static final int IDLE_STATUS = bits(State.IDLE) | bits(RequestState.BLOCKING) | bits(OutputState.OPEN) | bits(InputState.IDLE) | INITIAL;
+
     private final HttpChannel _channel;
+    private final AtomicInteger _status = new AtomicInteger(IDLE_STATUS);
     private List<AsyncListener> _asyncListeners;
-    private State _state = State.IDLE;
-    private RequestState _requestState = RequestState.BLOCKING;
-    private OutputState _outputState = OutputState.OPEN;
-    private InputState _inputState = InputState.IDLE;
-    private boolean _initial = true;
-    private boolean _sendError;
-    private boolean _asyncWritePossible;
     private long _timeoutMs = DEFAULT_TIMEOUT;
     private AsyncContextEvent _event;
 
@@ -161,14 +182,96 @@ public class HttpChannelState
         _channel = channel;
     }
 
-    public State getState()
+    private static int bits(State state)
     {
-        synchronized (this)
+        return state.ordinal() << STATE_SHIFT;
+    }
+
+    private static int bits(RequestState state)
+    {
+        return state.ordinal() << REQUEST_SHIFT;
+    }
+
+    private static int bits(OutputState state)
+    {
+        return state.ordinal() << OUTPUT_SHIFT;
+    }
+
+    private static int bits(InputState state)
+    {
+        return state.ordinal() << INPUT_SHIFT;
+    }
+
+    private static State state(int status)
+    {
+        return STATES[(status & STATE_MASK) >>> STATE_SHIFT];
+    }
+
+    private static RequestState requestState(int status)
+    {
+        return REQUEST_STATES[(status & REQUEST_MASK) >>> REQUEST_SHIFT];
+    }
+
+    private static OutputState outputState(int status)
+    {
+        return OUTPUT_STATES[(status & OUTPUT_MASK) >>> OUTPUT_SHIFT];
+    }
+
+    private static InputState inputState(int status)
+    {
+        return INPUT_STATES[(status & INPUT_MASK) >>> INPUT_SHIFT];
+    }
+
+    private static boolean isSet(int status, int flag)
+    {
+        return (status & flag) != 0;
+    }
+
+    /**
+     * Atomically clears the {@code clear} bits and then sets the {@code set} bits of the status.
+     *
+     * @param clear the mask of the bits to clear
+     * @param set the bits to set
+     * @return the new status
+     */
+    private int update(int clear, int set)
+    {
+        while (true)
         {
-            return _state;
+            int status = _status.get();
+            int next = (status & ~clear) | set;
+            if (_status.compareAndSet(status, next))
+                return next;
         }
     }
 
+    /**
+     * Atomically moves the state from WAITING to WOKEN while applying another update
+     * to the status, as many transitions need to wake a waiting channel.
+     *
+     * @param clear the mask of the bits to clear
+     * @param set the bits to set
+     * @return true if the state was WAITING and is now WOKEN
+     */
+    private boolean updateAndWake(int clear, int set)
+    {
+        while (true)
+        {
+            int status = _status.get();
+            int next = (status & ~clear) | set;
+            boolean wake = state(status) == State.WAITING;
+            if (wake)
+                next = (next & ~STATE_MASK) | bits(State.WOKEN);
+            if (_status.compareAndSet(status, next))
+                return wake;
+        }
+    }
+
+    public State getState()
+    {
+        return state(_status.get());
+    }
+
     public void addListener(AsyncListener listener)
     {
         synchronized (this)
@@ -200,10 +303,7 @@ public class HttpChannelState
 
     public boolean isSendError()
     {
-        synchronized (this)
-        {
-            return _sendError;
-        }
+        return isSet(_status.get(), SEND_ERROR);
     }
 
     public void setTimeout(long ms)
@@ -249,14 +349,15 @@ public class HttpChannelState
 
     private String getStatusStringLocked()
     {
+        int status = _status.get();
         return String.format("s=%s rs=%s os=%s is=%s awp=%b se=%b i=%b al=%d",
-            _state,
-            _requestState,
-            _outputState,
-            _inputState,
-            _asyncWritePossible,
-            _sendError,
-            _initial,
+            state(status),
+            requestState(status),
+            outputState(status),
+            inputState(status),
+            isSet(status, ASYNC_WRITE_POSSIBLE),
+            isSet(status, SEND_ERROR),
+            isSet(status, INITIAL),
             _asyncListeners == null ? 0 : _asyncListeners.size());
     }
 
@@ -270,46 +371,40 @@ public class HttpChannelState
 
     public boolean commitResponse()
     {
-        synchronized (this)
+        while (true)
         {
-            switch (_outputState)
-            {
-                case OPEN:
-                    _outputState = OutputState.COMMITTED;
-                    return true;
-
-                default:
-                    return false;
-            }
+            int status = _status.get();
+            if (outputState(status) != OutputState.OPEN)
+                return false;
+            if (_status.compareAndSet(status, (status & ~OUTPUT_MASK) | bits(OutputState.COMMITTED)))
+                return true;
         }
     }
 
     public boolean partialResponse()
     {
-        synchronized (this)
+        while (true)
         {
-            switch (_outputState)
-            {
-                case COMMITTED:
-                    _outputState = OutputState.OPEN;
-                    return true;
-
-                default:
-                    return false;
-            }
+            int status = _status.get();
+            if (outputState(status) != OutputState.COMMITTED)
+                return false;
+            if (_status.compareAndSet(status, (status & ~OUTPUT_MASK) | bits(OutputState.OPEN)))
+                return true;
         }
     }
 
     public boolean completeResponse()
     {
-        synchronized (this)
+        while (true)
         {
-            switch (_outputState)
+            int status = _status.get();
+            switch (outputState(status))
             {
                 case OPEN:
                 case COMMITTED:
-                    _outputState = OutputState.COMPLETED;
-                    return true;
+                    if (_status.compareAndSet(status, (status & ~OUTPUT_MASK) | bits(OutputState.COMPLETED)))
+                        return true;
+                    break;
 
                 default:
                     return false;
@@ -319,43 +414,27 @@ public class HttpChannelState
 
     public boolean isResponseCommitted()
     {
-        synchronized (this)
-        {
-            switch (_outputState)
-            {
-                case OPEN:
-                    return false;
-                default:
-                    return true;
-            }
-        }
+        return outputState(_status.get()) != OutputState.OPEN;
     }
 
     public boolean isResponseCompleted()
     {
-        synchronized (this)
-        {
-            return _outputState == OutputState.COMPLETED;
-        }
+        return outputState(_status.get()) == OutputState.COMPLETED;
     }
 
     public boolean abortResponse()
     {
-        synchronized (this)
+        while (true)
         {
-            switch (_outputState)
+            int status = _status.get();
+            OutputState outputState = outputState(status);
+            if (outputState == OutputState.ABORTED)
+                return false;
+            if (_status.compareAndSet(status, (status & ~OUTPUT_MASK) | bits(OutputState.ABORTED)))
             {
-                case ABORTED:
-                    return false;
-
-                case OPEN:
+                if (outputState == OutputState.OPEN)
                     _channel.getResponse().setStatus(500);
-                    _outputState = OutputState.ABORTED;
-                    return true;
-
-                default:
-                    _outputState = OutputState.ABORTED;
-                    return true;
+                return true;
             }
         }
     }
@@ -370,29 +449,34 @@ public class HttpChannelState
             if (LOG.isDebugEnabled())
                 LOG.debug("handling {}", toStringLocked());
 
-            switch (_state)
+            while (true)
             {
-                case IDLE:
-                    if (_requestState != RequestState.BLOCKING)
-                        throw new IllegalStateException(getStatusStringLocked());
-                    _initial = true;
-                    _state = State.HANDLING;
-                    return Action.DISPATCH;
+                int status = _status.get();
+                switch (state(status))
+                {
+                    case IDLE:
+                        if (requestState(status) != RequestState.BLOCKING)
+                            throw new IllegalStateException(getStatusStringLocked());
+                        if (_status.compareAndSet(status, (status & ~STATE_MASK) | bits(State.HANDLING) | INITIAL))
+                            return Action.DISPATCH;
+                        break;
 
-                case WOKEN:
-                    if (_event != null && _event.getThrowable() != null && !_sendError)
-                    {
-                        _state = State.HANDLING;
-                        return Action.ASYNC_ERROR;
-                    }
+                    case WOKEN:
+                        if (_event != null && _event.getThrowable() != null && !isSet(status, SEND_ERROR))
+                        {
+                            if (_status.compareAndSet(status, (status & ~STATE_MASK) | bits(State.HANDLING)))
+                                return Action.ASYNC_ERROR;
+                            break;
+                        }
 
-                    Action action = nextAction(true);
-                    if (LOG.isDebugEnabled())
-                        LOG.debug("nextAction(true) {} {}", action, toStringLocked());
-                    return action;
+                        Action action = nextAction(true);
+                        if (LOG.isDebugEnabled())
+                            LOG.debug("nextAction(true) {} {}", action, toStringLocked());
+                        return action;
 
-                default:
-                    throw new IllegalStateException(getStatusStringLocked());
+                    default:
+                        throw new IllegalStateException(getStatusStringLocked());
+                }
             }
         }
     }
@@ -412,10 +496,10 @@ public class HttpChannelState
             if (LOG.isDebugEnabled())
                 LOG.debug("unhandle {}", toStringLocked());
 
-            if (_state != State.HANDLING)
+            if (state(_status.get()) != State.HANDLING)
                 throw new IllegalStateException(this.getStatusStringLocked());
 
-            _initial = false;
+            update(INITIAL, 0);
 
             Action action = nextAction(false);
             if (LOG.isDebugEnabled())
@@ -426,20 +510,22 @@ public class HttpChannelState
 
     private Action nextAction(boolean handling)
     {
-        // Assume we can keep going, but exceptions are below
-        _state = State.HANDLING;
+        // Assume we can keep going, but exceptions are below.
+        // Once HANDLING, only the input, output and asyncWritePossible bits may
+        // change without the lock, so the request state is stable from here.
+        int status = update(STATE_MASK, bits(State.HANDLING));
+        RequestState requestState = requestState(status);
 
-        if (_sendError)
+        if (isSet(status, SEND_ERROR))
         {
-            switch (_requestState)
+            switch (requestState)
             {
                 case BLOCKING:
                 case ASYNC:
                 case COMPLETE:
                 case DISPATCH:
                 case COMPLETING:
-                    _requestState = RequestState.BLOCKING;
-                    _sendError = false;
+                    update(REQUEST_MASK | SEND_ERROR, bits(RequestState.BLOCKING));
                     return Action.SEND_ERROR;
 
                 default:
@@ -447,53 +533,23 @@ public class HttpChannelState
             }
         }
 
-        switch (_requestState)
+        switch (requestState)
         {
             case BLOCKING:
                 if (handling)
                     throw new IllegalStateException(getStatusStringLocked());
-                _requestState = RequestState.COMPLETING;
+                update(REQUEST_MASK, bits(RequestState.COMPLETING));
                 return Action.COMPLETE;
 
             case ASYNC:
-                switch (_inputState)
-                {
-                    case POSSIBLE:
-                        _inputState = InputState.PRODUCING;
-                        return Action.READ_PRODUCE;
-                    case READY:
-                        _inputState = InputState.IDLE;
-                        return Action.READ_CALLBACK;
-                    case REGISTER:
-                    case PRODUCING:
-                        _inputState = InputState.REGISTERED;
-                        return Action.READ_REGISTER;
-                    case IDLE:
-                    case REGISTERED:
-                        break;
-                        
-                    default:
-                        throw new IllegalStateException(getStatusStringLocked());
-                }
-
-                if (_asyncWritePossible)
-                {
-                    _asyncWritePossible = false;
-                    return Action.WRITE_CALLBACK;
-                }
-
-                Scheduler scheduler = _channel.getScheduler();
-                if (scheduler != null && _timeoutMs > 0 && !_event.hasTimeoutTask())
-                    _event.setTimeoutTask(scheduler.schedule(_event, _timeoutMs, TimeUnit.MILLISECONDS));
-                _state = State.WAITING;
-                return Action.WAIT;
+                return nextAsyncAction();
 
             case DISPATCH:
-                _requestState = RequestState.BLOCKING;
+                update(REQUEST_MASK, bits(RequestState.BLOCKING));
                 return Action.ASYNC_DISPATCH;
 
             case EXPIRE:
-                _requestState = RequestState.EXPIRING;
+                update(REQUEST_MASK, bits(RequestState.EXPIRING));
                 return Action.ASYNC_TIMEOUT;
 
             case EXPIRING:
@@ -501,20 +557,19 @@ public class HttpChannelState
                     throw new IllegalStateException(getStatusStringLocked());
                 sendError(HttpStatus.INTERNAL_SERVER_ERROR_500, "AsyncContext timeout");
                 // handle sendError immediately
-                _requestState = RequestState.BLOCKING;
-                _sendError = false;
+                update(REQUEST_MASK | SEND_ERROR, bits(RequestState.BLOCKING));
                 return Action.SEND_ERROR;
 
             case COMPLETE:
-                _requestState = RequestState.COMPLETING;
+                update(REQUEST_MASK, bits(RequestState.COMPLETING));
                 return Action.COMPLETE;
 
             case COMPLETING:
-                _state = State.WAITING;
+                update(STATE_MASK, bits(State.WAITING));
                 return Action.WAIT;
 
             case COMPLETED:
-                _state = State.IDLE;
+                update(STATE_MASK, bits(State.IDLE));
                 return Action.TERMINATED;
 
             default:
@@ -522,6 +577,67 @@ public class HttpChannelState
         }
     }
 
+    private Action nextAsyncAction()
+    {
+        while (true)
+        {
+            int status = _status.get();
+            int next;
+            Action action;
+            switch (inputState(status))
+            {
+                case POSSIBLE:
+                    next = (status & ~INPUT_MASK) | bits(InputState.PRODUCING);
+                    action = Action.READ_PRODUCE;
+                    break;
+
+                case READY:
+                    next = (status & ~INPUT_MASK) | bits(InputState.IDLE);
+                    action = Action.READ_CALLBACK;
+                    break;
+
+                case REGISTER:
+                case PRODUCING:
+                    next = (status & ~INPUT_MASK) | bits(InputState.REGISTERED);
+                    action = Action.READ_REGISTER;
+                    break;
+
+                case IDLE:
+                case REGISTERED:
+                    if (isSet(status, ASYNC_WRITE_POSSIBLE))
+                    {
+                        next = status & ~ASYNC_WRITE_POSSIBLE;
+                        action = Action.WRITE_CALLBACK;
+                    }
+                    else
+                    {
+                        // Moving to WAITING in the same CAS as checking the input and write
+                        // bits guarantees that a concurrent IO callback either is seen here
+                        // or sees WAITING and wakes the channel.
+                        next = (status & ~STATE_MASK) | bits(State.WAITING);
+                        action = Action.WAIT;
+                    }
+                    break;
+
+                default:
+                    throw new IllegalStateException(getStatusStringLocked());
+            }
+
+            if (_status.compareAndSet(status, next))
+            {
+                // Any woken thread must take the lock in handling() before
+                // it can proceed, so the timeout is scheduled before it runs.
+                if (action == Action.WAIT)
+                {
+                    Scheduler scheduler = _channel.getScheduler();
+                    if (scheduler != null && _timeoutMs > 0 && !_event.hasTimeoutTask())
+                        _event.setTimeoutTask(scheduler.schedule(_event, _timeoutMs, TimeUnit.MILLISECONDS));
+                }
+                return action;
+            }
+        }
+    }
+
     public void startAsync(AsyncContextEvent event)
     {
         final List<AsyncListener> lastAsyncListeners;
@@ -530,10 +646,11 @@ public class HttpChannelState
         {
             if (LOG.isDebugEnabled())
                 LOG.debug("startAsync {}", toStringLocked());
-            if (_state != State.HANDLING || _requestState != RequestState.BLOCKING)
+            int status = _status.get();
+            if (state(status) != State.HANDLING || requestState(status) != RequestState.BLOCKING)
                 throw new IllegalStateException(this.getStatusStringLocked());
 
-            _requestState = RequestState.ASYNC;
+            update(REQUEST_MASK, bits(RequestState.ASYNC));
             _event = event;
             lastAsyncListeners = _asyncListeners;
             _asyncListeners = null;
@@ -580,7 +697,8 @@ public class HttpChannelState
             if (LOG.isDebugEnabled())
                 LOG.debug("dispatch {} -> {}", toStringLocked(), path);
 
-            switch (_requestState)
+            RequestState requestState = requestState(_status.get());
+            switch (requestState)
             {
                 case ASYNC:
                 case EXPIRING:
@@ -594,12 +712,10 @@ public class HttpChannelState
             if (path != null)
                 _event.setDispatchPath(path);
 
-            if (_requestState == RequestState.ASYNC && _state == State.WAITING)
-            {
-                _state = State.WOKEN;
-                dispatch = true;
-            }
-            _requestState = RequestState.DISPATCH;
+            if (requestState == RequestState.ASYNC)
+                dispatch = updateAndWake(REQUEST_MASK, bits(RequestState.DISPATCH));
+            else
+                update(REQUEST_MASK, bits(RequestState.DISPATCH));
             event = _event;
         }
 
@@ -616,15 +732,9 @@ public class HttpChannelState
             if (LOG.isDebugEnabled())
                 LOG.debug("Timeout {}", toStringLocked());
 
-            if (_requestState != RequestState.ASYNC)
+            if (requestState(_status.get()) != RequestState.ASYNC)
                 return;
-            _requestState = RequestState.EXPIRE;
-
-            if (_state == State.WAITING)
-            {
-                _state = State.WOKEN;
-                dispatch = true;
-            }
+            dispatch = updateAndWake(REQUEST_MASK, bits(RequestState.EXPIRE));
         }
 
         if (dispatch)
@@ -643,7 +753,8 @@ public class HttpChannelState
         {
             if (LOG.isDebugEnabled())
                 LOG.debug("onTimeout {}", toStringLocked());
-            if (_requestState != RequestState.EXPIRING || _state != State.HANDLING)
+            int status = _status.get();
+            if (requestState(status) != RequestState.EXPIRING || state(status) != State.HANDLING)
                 throw new IllegalStateException(toStringLocked());
             event = _event;
             listeners = _asyncListeners;
@@ -691,11 +802,13 @@ public class HttpChannelState
                 LOG.debug("complete {}", toStringLocked());
 
             event = _event;
-            switch (_requestState)
+            int status = _status.get();
+            switch (requestState(status))
             {
                 case EXPIRING:
                 case ASYNC:
-                    _requestState = _sendError ? RequestState.BLOCKING : RequestState.COMPLETE;
+                    // The sendError flag is only changed with the lock held
+                    handle = updateAndWake(REQUEST_MASK, bits(isSet(status, SEND_ERROR) ? RequestState.BLOCKING : RequestState.COMPLETE));
                     break;
 
                 case COMPLETE:
@@ -703,11 +816,6 @@ public class HttpChannelState
                 default:
                     throw new IllegalStateException(this.getStatusStringLocked());
             }
-            if (_state == State.WAITING)
-            {
-                handle = true;
-                _state = State.WOKEN;
-            }
         }
 
         cancelTimeout(event);
@@ -728,9 +836,8 @@ public class HttpChannelState
             if (LOG.isDebugEnabled())
                 LOG.debug("asyncError " + toStringLocked(), failure);
 
-            if (_state == State.WAITING && _requestState == RequestState.ASYNC)
+            if (requestState(_status.get()) == RequestState.ASYNC && updateAndWake(0, 0))
             {
-                _state = State.WOKEN;
                 _event.addThrowable(failure);
                 event = _event;
             }
@@ -760,18 +867,20 @@ public class HttpChannelState
                 LOG.debug("thrownException " + getStatusStringLocked(), th);
 
             // This can only be called from within the handle loop
-            if (_state != State.HANDLING)
+            int status = _status.get();
+            if (state(status) != State.HANDLING)
                 throw new IllegalStateException(getStatusStringLocked());
 
             // If sendError has already been called, we can only handle one failure at a time!
-            if (_sendError)
+            if (isSet(status, SEND_ERROR))
             {
                 LOG.warn("unhandled due to prior sendError", th);
                 return;
             }
 
             // Check async state to determine type of handling
-            switch (_requestState)
+            RequestState requestState = requestState(status);
+            switch (requestState)
             {
                 case BLOCKING:
                     // handle the exception with a sendError
@@ -792,7 +901,7 @@ public class HttpChannelState
                     break;
 
                 default:
-                    LOG.warn("unhandled in state " + _requestState, new IllegalStateException(th));
+                    LOG.warn("unhandled in state " + requestState, new IllegalStateException(th));
                     return;
             }
         }
@@ -819,12 +928,13 @@ public class HttpChannelState
         synchronized (this)
         {
             // If we are still async and nobody has called sendError
-            if (_requestState == RequestState.ASYNC && !_sendError)
+            int status = _status.get();
+            if (requestState(status) == RequestState.ASYNC && !isSet(status, SEND_ERROR))
                 // Then the listeners did not invoke API methods
                 // and the container must provide a default error dispatch.
                 sendError(th);
             else
-                LOG.warn("unhandled in state " + _requestState, new IllegalStateException(th));
+                LOG.warn("unhandled in state " + requestState(status), new IllegalStateException(th));
         }
     }
 
@@ -868,7 +978,7 @@ public class HttpChannelState
         request.setAttribute(ERROR_EXCEPTION, th);
         request.setAttribute(ERROR_EXCEPTION_TYPE, th.getClass());
         // Ensure any async lifecycle is ended!
-        _requestState = RequestState.BLOCKING;
+        update(REQUEST_MASK, bits(RequestState.BLOCKING));
     }
 
     public void sendError(int code, String message)
@@ -890,10 +1000,12 @@ public class HttpChannelState
             if (LOG.isDebugEnabled())
                 LOG.debug("sendError {}", toStringLocked());
 
-            if (_outputState != OutputState.OPEN)
-                throw new IllegalStateException(_outputState.toString());
+            int status = _status.get();
+            OutputState outputState = outputState(status);
+            if (outputState != OutputState.OPEN)
+                throw new IllegalStateException(outputState.toString());
 
-            switch (_state)
+            switch (state(status))
             {
                 case HANDLING:
                 case WOKEN:
@@ -902,8 +1014,6 @@ public class HttpChannelState
                 default:
                     throw new IllegalStateException(getStatusStringLocked());
             }
-            if (_outputState != OutputState.OPEN)
-                throw new IllegalStateException("Response is " + _outputState);
 
             response.setStatus(code);
             response.softClose();
@@ -914,7 +1024,7 @@ public class HttpChannelState
             request.setAttribute(ERROR_STATUS_CODE, code);
             request.setAttribute(ERROR_MESSAGE, message);
 
-            _sendError = true;
+            update(0, SEND_ERROR);
             if (_event != null)
             {
                 Throwable cause = (Throwable)request.getAttribute(ERROR_EXCEPTION);
@@ -931,12 +1041,12 @@ public class HttpChannelState
             if (LOG.isDebugEnabled())
                 LOG.debug("completing {}", toStringLocked());
 
-            switch (_requestState)
+            switch (requestState(_status.get()))
             {
                 case COMPLETED:
                     throw new IllegalStateException(getStatusStringLocked());
                 default:
-                    _requestState = RequestState.COMPLETING;
+                    update(REQUEST_MASK, bits(RequestState.COMPLETING));
             }
         }
     }
@@ -952,19 +1062,14 @@ public class HttpChannelState
             if (LOG.isDebugEnabled())
                 LOG.debug("completed {}", toStringLocked());
 
-            if (_requestState != RequestState.COMPLETING)
+            if (requestState(_status.get()) != RequestState.COMPLETING)
                 throw new IllegalStateException(this.getStatusStringLocked());
 
             if (_event == null)
             {
-                _requestState = RequestState.COMPLETED;
                 aListeners = null;
                 event = null;
-                if (_state == State.WAITING)
-                {
-                    _state = State.WOKEN;
-                    handle = true;
-                }
+                handle = updateAndWake(REQUEST_MASK, bits(RequestState.COMPLETED));
             }
             else
             {
@@ -1001,12 +1106,7 @@ public class HttpChannelState
 
             synchronized (this)
             {
-                _requestState = RequestState.COMPLETED;
-                if (_state == State.WAITING)
-                {
-                    _state = State.WOKEN;
-                    handle = true;
-                }
+                handle = updateAndWake(REQUEST_MASK, bits(RequestState.COMPLETED));
             }
         }
 
@@ -1022,7 +1122,7 @@ public class HttpChannelState
             if (LOG.isDebugEnabled())
                 LOG.debug("recycle {}", toStringLocked());
 
-            switch (_state)
+            switch (state(_status.get()))
             {
                 case HANDLING:
                     throw new IllegalStateException(getStatusStringLocked());
@@ -1032,12 +1132,8 @@ public class HttpChannelState
                     break;
             }
             _asyncListeners = null;
-            _state = State.IDLE;
-            _requestState = RequestState.BLOCKING;
-            _outputState = OutputState.OPEN;
-            _initial = true;
-            _inputState = InputState.IDLE;
-            _asyncWritePossible = false;
+            // The sendError flag is deliberately not reset
+            update(~SEND_ERROR, IDLE_STATUS);
             _timeoutMs = DEFAULT_TIMEOUT;
             _event = null;
         }
@@ -1051,7 +1147,7 @@ public class HttpChannelState
             if (LOG.isDebugEnabled())
                 LOG.debug("upgrade {}", toStringLocked());
 
-            switch (_state)
+            switch (state(_status.get()))
             {
                 case IDLE:
                     break;
@@ -1059,11 +1155,8 @@ public class HttpChannelState
                     throw new IllegalStateException(getStatusStringLocked());
             }
             _asyncListeners = null;
-            _state = State.UPGRADED;
-            _requestState = RequestState.BLOCKING;
-            _initial = true;
-            _inputState = InputState.IDLE;
-            _asyncWritePossible = false;
+            // The output state and the sendError flag are deliberately not reset
+            update(STATE_MASK | REQUEST_MASK | INPUT_MASK | ASYNC_WRITE_POSSIBLE, bits(State.UPGRADED) | bits(RequestState.BLOCKING) | bits(InputState.IDLE) | INITIAL);
             _timeoutMs = DEFAULT_TIMEOUT;
             _event = null;
         }
@@ -1092,61 +1185,46 @@ public class HttpChannelState
 
     public boolean isIdle()
     {
-        synchronized (this)
-        {
-            return _state == State.IDLE;
-        }
+        return state(_status.get()) == State.IDLE;
     }
 
     public boolean isExpired()
     {
-        synchronized (this)
-        {
-            // TODO review
-            return _requestState == RequestState.EXPIRE || _requestState == RequestState.EXPIRING;
-        }
+        // TODO review
+        RequestState requestState = requestState(_status.get());
+        return requestState == RequestState.EXPIRE || requestState == RequestState.EXPIRING;
     }
 
     public boolean isInitial()
     {
-        synchronized (this)
-        {
-            return _initial;
-        }
+        return isSet(_status.get(), INITIAL);
     }
 
     public boolean isSuspended()
     {
-        synchronized (this)
-        {
-            return _state == State.WAITING || _state == State.HANDLING && _requestState == RequestState.ASYNC;
-        }
+        int status = _status.get();
+        State state = state(status);
+        return state == State.WAITING || state == State.HANDLING && requestState(status) == RequestState.ASYNC;
     }
 
     boolean isCompleted()
     {
-        synchronized (this)
-        {
-            return _requestState == RequestState.COMPLETED;
-        }
+        return requestState(_status.get()) == RequestState.COMPLETED;
     }
 
     public boolean isAsyncStarted()
     {
-        synchronized (this)
-        {
-            if (_state == State.HANDLING)
-                return _requestState != RequestState.BLOCKING;
-            return _requestState == RequestState.ASYNC || _requestState == RequestState.EXPIRING;
-        }
+        int status = _status.get();
+        RequestState requestState = requestState(status);
+        if (state(status) == State.HANDLING)
+            return requestState != RequestState.BLOCKING;
+        return requestState == RequestState.ASYNC || requestState == RequestState.EXPIRING;
     }
 
     public boolean isAsync()
     {
-        synchronized (this)
-        {
-            return !_initial || _requestState != RequestState.BLOCKING;
-        }
+        int status = _status.get();
+        return !isSet(status, INITIAL) || requestState(status) != RequestState.BLOCKING;
     }
 
     public Request getBaseRequest()
@@ -1230,36 +1308,33 @@ public class HttpChannelState
      */
     public void onReadUnready()
     {
-        boolean interested = false;
-        synchronized (this)
-        {
-            if (LOG.isDebugEnabled())
-                LOG.debug("onReadUnready {}", toStringLocked());
+        if (LOG.isDebugEnabled())
+            LOG.debug("onReadUnready {}", this);
 
-            switch (_inputState)
+        boolean interested;
+        while (true)
+        {
+            int status = _status.get();
+            int next;
+            switch (inputState(status))
             {
                 case IDLE:
                 case READY:
-                    if (_state == State.WAITING)
-                    {
-                        interested = true;
-                        _inputState = InputState.REGISTERED;
-                    }
-                    else
-                    {
-                        _inputState = InputState.REGISTER;
-                    }
+                    interested = state(status) == State.WAITING;
+                    next = (status & ~INPUT_MASK) | bits(interested ? InputState.REGISTERED : InputState.REGISTER);
                     break;
 
                 case REGISTER:
                 case REGISTERED:
                 case POSSIBLE:
                 case PRODUCING:
-                    break;
+                    return;
 
                 default:
-                    throw new IllegalStateException(toStringLocked());
+                    throw new IllegalStateException(toString());
             }
+            if (_status.compareAndSet(status, next))
+                break;
         }
 
         if (interested)
@@ -1276,37 +1351,40 @@ public class HttpChannelState
      */
     public boolean onContentAdded()
     {
-        boolean woken = false;
-        synchronized (this)
-        {
-            if (LOG.isDebugEnabled())
-                LOG.debug("onContentAdded {}", toStringLocked());
+        if (LOG.isDebugEnabled())
+            LOG.debug("onContentAdded {}", this);
 
-            switch (_inputState)
+        while (true)
+        {
+            int status = _status.get();
+            int next;
+            boolean woken = false;
+            switch (inputState(status))
             {
                 case IDLE:
                 case READY:
-                    break;
+                    return false;
 
                 case PRODUCING:
-                    _inputState = InputState.READY;
+                    next = (status & ~INPUT_MASK) | bits(InputState.READY);
                     break;
 
                 case REGISTER:
                 case REGISTERED:
-                    _inputState = InputState.READY;
-                    if (_state == State.WAITING)
+                    next = (status & ~INPUT_MASK) | bits(InputState.READY);
+                    if (state(status) == State.WAITING)
                     {
                         woken = true;
-                        _state = State.WOKEN;
+                        next = (next & ~STATE_MASK) | bits(State.WOKEN);
                     }
                     break;
 
                 default:
-                    throw new IllegalStateException(toStringLocked());
+                    throw new IllegalStateException(toString());
             }
+            if (_status.compareAndSet(status, next))
+                return woken;
         }
-        return woken;
     }
 
     /**
@@ -1319,28 +1397,10 @@ public class HttpChannelState
      */
     public boolean onReadReady()
     {
-        boolean woken = false;
-        synchronized (this)
-        {
-            if (LOG.isDebugEnabled())
-                LOG.debug("onReadReady {}", toStringLocked());
+        if (LOG.isDebugEnabled())
+            LOG.debug("onReadReady {}", this);
 
-            switch (_inputState)
-            {
-                case IDLE:
-                    _inputState = InputState.READY;
-                    if (_state == State.WAITING)
-                    {
-                        woken = true;
-                        _state = State.WOKEN;
-                    }
-                    break;
-
-                default:
-                    throw new IllegalStateException(toStringLocked());
-            }
-        }
-        return woken;
+        return updateInputAndWake(InputState.IDLE, InputState.READY);
     }
 
     /**
@@ -1352,28 +1412,10 @@ public class HttpChannelState
      */
     public boolean onReadPossible()
     {
-        boolean woken = false;
-        synchronized (this)
-        {
-            if (LOG.isDebugEnabled())
-                LOG.debug("onReadPossible {}", toStringLocked());
+        if (LOG.isDebugEnabled())
+            LOG.debug("onReadPossible {}", this);
 
-            switch (_inputState)
-            {
-                case REGISTERED:
-                    _inputState = InputState.POSSIBLE;
-                    if (_state == State.WAITING)
-                    {
-                        woken = true;
-                        _state = State.WOKEN;
-                    }
-                    break;
-
-                default:
-                    throw new IllegalStateException(toStringLocked());
-            }
-        }
-        return woken;
+        return updateInputAndWake(InputState.REGISTERED, InputState.POSSIBLE);
     }
 
     /**
@@ -1384,40 +1426,34 @@ public class HttpChannelState
      */
     public boolean onReadEof()
     {
-        boolean woken = false;
-        synchronized (this)
-        {
-            if (LOG.isDebugEnabled())
-                LOG.debug("onEof {}", toStringLocked());
+        if (LOG.isDebugEnabled())
+            LOG.debug("onEof {}", this);
 
-            // Force read ready so onAllDataRead can be called
-            _inputState = InputState.READY;
-            if (_state == State.WAITING)
-            {
-                woken = true;
-                _state = State.WOKEN;
-            }
-        }
-        return woken;
+        // Force read ready so onAllDataRead can be called
+        return updateAndWake(INPUT_MASK, bits(InputState.READY));
     }
 
-    public boolean onWritePossible()
+    private boolean updateInputAndWake(InputState expected, InputState inputState)
     {
-        boolean wake = false;
-
-        synchronized (this)
+        while (true)
         {
-            if (LOG.isDebugEnabled())
-                LOG.debug("onWritePossible {}", toStringLocked());
-
-            _asyncWritePossible = true;
-            if (_state == State.WAITING)
-            {
-                _state = State.WOKEN;
-                wake = true;
-            }
+            int status = _status.get();
+            if (inputState(status) != expected)
+                throw new IllegalStateException(toString());
+            int next = (status & ~INPUT_MASK) | bits(inputState);
+            boolean wake = state(status) == State.WAITING;
+            if (wake)
+                next = (next & ~STATE_MASK) | bits(State.WOKEN);
+            if (_status.compareAndSet(status, next))
+                return wake;
         }
+    }
+
+    public boolean onWritePossible()
+    {
+        if (LOG.isDebugEnabled())
+            LOG.debug("onWritePossible {}", this);
 
-        return wake;
+        return updateAndWake(0, ASYNC_WRITE_POSSIBLE);
     }
 }
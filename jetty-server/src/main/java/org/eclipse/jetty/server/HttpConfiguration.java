@@ -58,6 +58,7 @@ public class HttpConfiguration implements Dumpable
     private int _responseHeaderSize = 8 * 1024;
     private int _headerCacheSize = 1024;
     private boolean _headerCacheCaseSensitive = false;
+    private int _sharedHeaderCacheSize = 0;
     private int _securePort;
     private long _idleTimeout = -1;
     private String _secureScheme = HttpScheme.HTTPS.asString();
@@ -126,6 +127,7 @@ public class HttpConfiguration implements Dumpable
         _responseHeaderSize = config._responseHeaderSize;
         _headerCacheSize = config._headerCacheSize;
         _headerCacheCaseSensitive = config._headerCacheCaseSensitive;
+        _sharedHeaderCacheSize = config._sharedHeaderCacheSize;
         _secureScheme = config._secureScheme;
         _securePort = config._securePort;
         _idleTimeout = config._idleTimeout;
@@ -209,6 +211,12 @@ public class HttpConfiguration implements Dumpable
         return _headerCacheCaseSensitive;
     }
 
+    @ManagedAttribute("The size in nodes of the HTTP header field cache shared by connections")
+    public int getSharedHeaderCacheSize()
+    {
+        return _sharedHeaderCacheSize;
+    }
+
     @ManagedAttribute("The port to which Integral or Confidential security constraints are redirected")
     public int getSecurePort()
     {
@@ -433,6 +441,15 @@ public class HttpConfiguration implements Dumpable
         this._headerCacheCaseSensitive = headerCacheCaseSensitive;
     }
 
+    /**
+     * @param sharedHeaderCacheSize The size in nodes of the header field cache learnt from and
+     * shared by all the connections of a connector, or 0 (the default) for no shared cache.
+     */
+    public void setSharedHeaderCacheSize(int sharedHeaderCacheSize)
+    {
+        _sharedHeaderCacheSize = sharedHeaderCacheSize;
+    }
+
     /**
      * <p>Sets the TCP/IP port used for CONFIDENTIAL and INTEGRAL redirections.</p>
      *
@@ -638,6 +655,7 @@ public class HttpConfiguration implements Dumpable
             "requestHeaderSize=" + _requestHeaderSize,
             "responseHeaderSize=" + _responseHeaderSize,
             "headerCacheSize=" + _headerCacheSize,
+            "sharedHeaderCacheSize=" + _sharedHeaderCacheSize,
             "secureScheme=" + _secureScheme,
             "securePort=" + _securePort,
             "idleTimeout=" + _idleTimeout,
@@ -21,6 +21,7 @@ package org.eclipse.jetty.server;
 import java.util.Objects;
 
 import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.SharedHttpFieldCache;
 import org.eclipse.jetty.io.Connection;
 import org.eclipse.jetty.io.EndPoint;
 import org.eclipse.jetty.util.annotation.Name;
@@ -37,6 +38,7 @@ public class HttpConnectionFactory extends AbstractConnectionFactory implements
     private boolean _recordHttpComplianceViolations;
     private boolean _useInputDirectByteBuffers;
     private boolean _useOutputDirectByteBuffers;
+    private SharedHttpFieldCache _sharedFieldCache;
 
     public HttpConnectionFactory()
     {
@@ -88,12 +90,52 @@ public class HttpConnectionFactory extends AbstractConnectionFactory implements
         _useOutputDirectByteBuffers = useOutputDirectByteBuffers;
     }
 
+    /**
+     * @return the header field cache shared by the connections of this factory, or null
+     * if {@link HttpConfiguration#getSharedHeaderCacheSize()} is 0 or the factory is not started
+     */
+    public SharedHttpFieldCache getSharedFieldCache()
+    {
+        return _sharedFieldCache;
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        int size = _config.getSharedHeaderCacheSize();
+        if (size > 0)
+        {
+            _sharedFieldCache = new SharedHttpFieldCache(size);
+            addBean(_sharedFieldCache);
+        }
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        super.doStop();
+        if (_sharedFieldCache != null)
+        {
+            removeBean(_sharedFieldCache);
+            _sharedFieldCache = null;
+        }
+    }
+
     @Override
     public Connection newConnection(Connector connector, EndPoint endPoint)
     {
         HttpConnection connection = new HttpConnection(_config, connector, endPoint, isRecordHttpComplianceViolations());
         connection.setUseInputDirectByteBuffers(isUseInputDirectByteBuffers());
         connection.setUseOutputDirectByteBuffers(isUseOutputDirectByteBuffers());
+        SharedHttpFieldCache sharedFieldCache = _sharedFieldCache;
+        if (sharedFieldCache != null)
+        {
+            // Rebuild the cache outside of the parsing threads.
+            if (sharedFieldCache.getExecutor() == null)
+                sharedFieldCache.setExecutor(connector.getExecutor());
+            connection.getParser().setSharedFieldCache(sharedFieldCache);
+        }
         return configure(connection, connector, endPoint);
     }
 }
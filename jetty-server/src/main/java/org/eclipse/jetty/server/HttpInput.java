@@ -22,6 +22,7 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
+import java.util.Collection;
 import java.util.Deque;
 import java.util.Objects;
 import java.util.concurrent.Executor;
@@ -262,24 +263,7 @@ public class HttpInput extends ServletInputStream implements Runnable
         int l;
         synchronized (_inputQ)
         {
-            // Calculate minimum request rate for DOS protection
-            long minRequestDataRate = _channelState.getHttpChannel().getHttpConfiguration().getMinRequestDataRate();
-            if (minRequestDataRate > 0 && _firstByteTimeStamp != -1)
-            {
-                long period = System.nanoTime() - _firstByteTimeStamp;
-                if (period > 0)
-                {
-                    long minimumData = minRequestDataRate * TimeUnit.NANOSECONDS.toMillis(period) / TimeUnit.SECONDS.toMillis(1);
-                    if (_contentArrived < minimumData)
-                    {
-                        BadMessageException bad = new BadMessageException(HttpStatus.REQUEST_TIMEOUT_408,
-                            String.format("Request content data rate < %d B/s", minRequestDataRate));
-                        if (_channelState.isResponseCommitted())
-                            _channelState.getHttpChannel().abort(bad);
-                        throw bad;
-                    }
-                }
-            }
+            checkMinRequestDataRate();
 
             // Consume content looking for bytes to read
             while (true)
@@ -316,6 +300,98 @@ public class HttpInput extends ServletInputStream implements Runnable
         return l;
     }
 
+    /**
+     * <p>Reads, without copying, all the content chunks that are available without blocking,
+     * so that an application woken by {@link ReadListener#onDataAvailable()} can process them
+     * together, for example as a gathered {@code ByteBuffer[]}, rather than with a read per chunk.</p>
+     * <p>The chunks are owned by the caller, which must {@link Content#succeeded() succeed} each of
+     * them once it has consumed its {@link Content#getByteBuffer() buffer}; until then the connection
+     * may not reuse the buffer nor produce more content.</p>
+     * <p>Like {@link #read(byte[], int, int)}, this method blocks for some content if no
+     * {@link ReadListener} is set, and otherwise must only be called once {@link #isReady()}.</p>
+     *
+     * @param chunks the collection to add the content chunks to
+     * @return the number of bytes of the added chunks, 0 if no content is available, or -1 at EOF
+     * @throws IOException if the content cannot be read
+     */
+    public long readContent(Collection<? super Content> chunks) throws IOException
+    {
+        boolean wake = false;
+        long read = 0;
+        synchronized (_inputQ)
+        {
+            checkMinRequestDataRate();
+
+            while (true)
+            {
+                Content item = nextContent();
+                if (item != null)
+                {
+                    while (true)
+                    {
+                        read += item.remaining();
+                        chunks.add(take(item));
+
+                        // An interceptor produces its next chunk from the same content,
+                        // which it may only do once the previous chunk is consumed.
+                        if (_interceptor != null)
+                            break;
+                        item = nextInterceptedContent();
+                        if (item == null || item instanceof SentinelContent)
+                            break;
+                    }
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("{} read {} in {} chunks", this, read, chunks.size());
+                    break;
+                }
+
+                if (!_state.blockForContent(this))
+                {
+                    read = _state.noContent();
+                    if (read < 0)
+                        wake = _channelState.onReadEof();
+                    break;
+                }
+            }
+        }
+
+        if (wake)
+            wake();
+        return read;
+    }
+
+    private Content take(Content content)
+    {
+        if (_content == content)
+            _content = null;
+        else if (_intercepted == content)
+            _intercepted = null;
+        _contentConsumed += content.remaining();
+        return content;
+    }
+
+    private void checkMinRequestDataRate()
+    {
+        // Calculate minimum request rate for DOS protection
+        long minRequestDataRate = _channelState.getHttpChannel().getHttpConfiguration().getMinRequestDataRate();
+        if (minRequestDataRate > 0 && _firstByteTimeStamp != -1)
+        {
+            long period = System.nanoTime() - _firstByteTimeStamp;
+            if (period > 0)
+            {
+                long minimumData = minRequestDataRate * TimeUnit.NANOSECONDS.toMillis(period) / TimeUnit.SECONDS.toMillis(1);
+                if (_contentArrived < minimumData)
+                {
+                    BadMessageException bad = new BadMessageException(HttpStatus.REQUEST_TIMEOUT_408,
+                        String.format("Request content data rate < %d B/s", minRequestDataRate));
+                    if (_channelState.isResponseCommitted())
+                        _channelState.getHttpChannel().abort(bad);
+                    throw bad;
+                }
+            }
+        }
+    }
+
     /**
      * Called when derived implementations should attempt to produce more Content and add it via {@link #addContent(Content)}. For protocols that are constantly
      * producing (eg HTTP2) this can be left as a noop;
@@ -0,0 +1,251 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.servlet.ReadListener;
+
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+
+/**
+ * <p>A {@link Flow.Publisher} of the request content read from a {@link HttpInput}.</p>
+ * <p>The content is read asynchronously, so the request must be in async mode before
+ * a subscriber is subscribed, and only as much content as the subscriber demands is read,
+ * using {@link HttpInput#readContent(java.util.Collection)} so that all the chunks that
+ * arrived together are delivered from a single {@link ReadListener#onDataAvailable()}.</p>
+ * <p>The buffers passed to {@link Flow.Subscriber#onNext(Object)} are not copies of the
+ * request content: a buffer is only valid until the subscriber requests more items or
+ * cancels its subscription. Subscribers that request more than one item at a time must
+ * consume, or copy, each buffer before {@code onNext()} returns.</p>
+ * <p>This publisher supports a single subscriber.</p>
+ */
+public class HttpInputPublisher implements Flow.Publisher<ByteBuffer>
+{
+    private static final Logger LOG = Log.getLogger(HttpInputPublisher.class);
+
+    private final HttpInput _input;
+    private final AtomicBoolean _subscribed = new AtomicBoolean();
+
+    public HttpInputPublisher(HttpInput input)
+    {
+        _input = input;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber)
+    {
+        if (!_subscribed.compareAndSet(false, true))
+        {
+            subscriber.onSubscribe(new Flow.Subscription()
+            {
+                @Override
+                public void request(long n)
+                {
+                }
+
+                @Override
+                public void cancel()
+                {
+                }
+            });
+            subscriber.onError(new IllegalStateException("Already subscribed"));
+            return;
+        }
+
+        ContentSubscription subscription = new ContentSubscription(subscriber);
+        // The listener is set first, so that a request() from onSubscribe() does not block.
+        _input.setReadListener(subscription);
+        subscriber.onSubscribe(subscription);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[%s]", getClass().getSimpleName(), hashCode(), _input);
+    }
+
+    private class ContentSubscription implements Flow.Subscription, ReadListener
+    {
+        private final AtomicInteger _wip = new AtomicInteger();
+        private final AtomicLong _demand = new AtomicLong();
+        private final Deque<HttpInput.Content> _pending = new ArrayDeque<>();
+        private final Deque<HttpInput.Content> _delivered = new ArrayDeque<>();
+        private final Flow.Subscriber<? super ByteBuffer> _subscriber;
+        private volatile boolean _cancelled;
+        private volatile boolean _allDataRead;
+        private volatile Throwable _failure;
+        private boolean _terminated;
+
+        private ContentSubscription(Flow.Subscriber<? super ByteBuffer> subscriber)
+        {
+            _subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n)
+        {
+            if (n <= 0)
+            {
+                _failure = new IllegalArgumentException("Invalid demand " + n);
+            }
+            else
+            {
+                while (true)
+                {
+                    long demand = _demand.get();
+                    long newDemand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                    if (_demand.compareAndSet(demand, newDemand))
+                        break;
+                }
+            }
+            process();
+        }
+
+        @Override
+        public void cancel()
+        {
+            _cancelled = true;
+            process();
+        }
+
+        @Override
+        public void onDataAvailable()
+        {
+            process();
+        }
+
+        @Override
+        public void onAllDataRead()
+        {
+            _allDataRead = true;
+            process();
+        }
+
+        @Override
+        public void onError(Throwable failure)
+        {
+            _failure = failure;
+            process();
+        }
+
+        /**
+         * Serializes, in whatever thread calls it, the reads and the notifications
+         * of the subscriber, so that onNext() is never called concurrently.
+         */
+        private void process()
+        {
+            if (_wip.getAndIncrement() != 0)
+                return;
+            int missed = 1;
+            while (true)
+            {
+                try
+                {
+                    deliver();
+                }
+                catch (Throwable x)
+                {
+                    terminate();
+                    _subscriber.onError(x);
+                }
+                missed = _wip.addAndGet(-missed);
+                if (missed == 0)
+                    return;
+            }
+        }
+
+        private void deliver() throws Exception
+        {
+            while (!_terminated)
+            {
+                if (_cancelled)
+                {
+                    terminate();
+                    return;
+                }
+
+                Throwable failure = _failure;
+                if (failure != null)
+                {
+                    terminate();
+                    _subscriber.onError(failure);
+                    return;
+                }
+
+                if (_demand.get() == 0)
+                    return;
+
+                if (_pending.isEmpty())
+                {
+                    if (_allDataRead)
+                    {
+                        terminate();
+                        _subscriber.onComplete();
+                        return;
+                    }
+
+                    release();
+                    // If not ready, onDataAvailable() or onAllDataRead() will be called.
+                    if (!_input.isReady() || _input.readContent(_pending) < 0)
+                        return;
+                    continue;
+                }
+
+                release();
+                HttpInput.Content content = _pending.poll();
+                _delivered.offer(content);
+                _demand.decrementAndGet();
+                if (LOG.isDebugEnabled())
+                    LOG.debug("{} onNext {}", this, content);
+                _subscriber.onNext(content.getByteBuffer());
+            }
+        }
+
+        private void release()
+        {
+            while (!_delivered.isEmpty())
+            {
+                _delivered.poll().succeeded();
+            }
+        }
+
+        private void terminate()
+        {
+            _terminated = true;
+            release();
+            while (!_pending.isEmpty())
+            {
+                _pending.poll().succeeded();
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x[d=%d,p=%d]", getClass().getSimpleName(), hashCode(), _demand.get(), _pending.size());
+        }
+    }
+}
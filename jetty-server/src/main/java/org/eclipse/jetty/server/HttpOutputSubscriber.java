@@ -0,0 +1,142 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Flow;
+import javax.servlet.WriteListener;
+
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+
+/**
+ * <p>A {@link Flow.Subscriber} that writes the buffers it receives to a {@link HttpOutput}.</p>
+ * <p>The buffers are written asynchronously and without copying, so the response must be in
+ * async mode before this subscriber is subscribed. One buffer is requested at a time, and the
+ * next one only once the previous one has been written, so buffers from a
+ * {@link HttpInputPublisher} can be written directly.</p>
+ * <p>When the publisher completes, the output is closed and the callback succeeded; if the
+ * publisher or a write fails, the callback is failed. The callback typically completes the
+ * {@link javax.servlet.AsyncContext}.</p>
+ */
+public class HttpOutputSubscriber implements Flow.Subscriber<ByteBuffer>, WriteListener
+{
+    private static final Logger LOG = Log.getLogger(HttpOutputSubscriber.class);
+
+    private final HttpOutput _output;
+    private final Callback _callback;
+    private Flow.Subscription _subscription;
+    private volatile boolean _terminated;
+
+    public HttpOutputSubscriber(HttpOutput output, Callback callback)
+    {
+        _output = output;
+        _callback = callback;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription)
+    {
+        if (_subscription != null)
+        {
+            subscription.cancel();
+            return;
+        }
+        _subscription = subscription;
+
+        try
+        {
+            // The first item is requested from onWritePossible().
+            _output.setWriteListener(this);
+        }
+        catch (Throwable x)
+        {
+            subscription.cancel();
+            fail(x);
+        }
+    }
+
+    @Override
+    public void onNext(ByteBuffer buffer)
+    {
+        if (_terminated)
+            return;
+        try
+        {
+            _output.write(buffer);
+            // If the write is pending, the next item is requested from onWritePossible().
+            if (_output.isReady())
+                _subscription.request(1);
+        }
+        catch (Throwable x)
+        {
+            _subscription.cancel();
+            fail(x);
+        }
+    }
+
+    /**
+     * <p>Called both when the publisher fails, and when the output fails as a {@link WriteListener}.</p>
+     *
+     * @param failure the failure
+     */
+    @Override
+    public void onError(Throwable failure)
+    {
+        if (_subscription != null)
+            _subscription.cancel();
+        fail(failure);
+    }
+
+    @Override
+    public void onComplete()
+    {
+        if (_terminated)
+            return;
+        _terminated = true;
+        if (LOG.isDebugEnabled())
+            LOG.debug("{} complete", this);
+        _output.complete(_callback);
+    }
+
+    @Override
+    public void onWritePossible() throws IOException
+    {
+        if (!_terminated)
+            _subscription.request(1);
+    }
+
+    private void fail(Throwable failure)
+    {
+        if (_terminated)
+            return;
+        _terminated = true;
+        if (LOG.isDebugEnabled())
+            LOG.debug(this + " failed", failure);
+        _callback.failed(failure);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[%s]", getClass().getSimpleName(), hashCode(), _output);
+    }
+}
@@ -19,23 +19,22 @@
 package org.eclipse.jetty.server;
 
 import java.io.IOException;
-import java.net.Inet4Address;
-import java.net.Inet6Address;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.ReadPendingException;
 import java.nio.channels.WritePendingException;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Iterator;
 
 import org.eclipse.jetty.io.AbstractConnection;
+import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.Connection;
 import org.eclipse.jetty.io.EndPoint;
 import org.eclipse.jetty.util.AttributesMap;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Callback;
-import org.eclipse.jetty.util.TypeUtil;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
 
@@ -43,6 +42,12 @@ import org.eclipse.jetty.util.log.Logger;
  * <p>ConnectionFactory for the PROXY Protocol.</p>
  * <p>This factory can be placed in front of any other connection factory
  * to process the proxy v1 or v2 line before the normal protocol handling</p>
+ * <p>The PROXY header is read into a pooled buffer, normally with a single
+ * fill, and parsed in place. The bytes read past the header are passed to
+ * the next connection, which must implement {@link Connection.UpgradeTo}.
+ * The information carried by v2 TLVs is available as attributes of the
+ * {@link ProxyEndPoint}, and can be exposed as request attributes by
+ * the {@link ProxyCustomizer}.</p>
  *
  * @see <a href="http://www.haproxy.org/download/1.5/doc/proxy-protocol.txt">http://www.haproxy.org/download/1.5/doc/proxy-protocol.txt</a>
  */
@@ -50,6 +55,20 @@ public class ProxyConnectionFactory extends AbstractConnectionFactory
 {
     private static final Logger LOG = Log.getLogger(ProxyConnectionFactory.class);
     public static final String TLS_VERSION = "TLS_VERSION";
+    public static final String TLS_CIPHER = "TLS_CIPHER";
+    public static final String TLS_CN = "TLS_CN";
+    public static final String TLS_SIG_ALG = "TLS_SIG_ALG";
+    public static final String TLS_KEY_ALG = "TLS_KEY_ALG";
+    public static final String ALPN = "ALPN";
+    public static final String AUTHORITY = "AUTHORITY";
+    public static final String UNIQUE_ID = "UNIQUE_ID";
+
+    // PROXY <protocol> <src> <dst> <sport> <dport>\r\n is at most 107 bytes.
+    private static final int V1_MAX_LENGTH = 107;
+    private static final int V2_HEADER_LENGTH = 16;
+    private static final byte[] V1_PROXY = {'P', 'R', 'O', 'X', 'Y'};
+    private static final byte[] V1_UNKNOWN = {'U', 'N', 'K', 'N', 'O', 'W', 'N'};
+    private static final byte[] MAGIC = new byte[]{0x0D, 0x0A, 0x0D, 0x0A, 0x00, 0x0D, 0x0A, 0x51, 0x55, 0x49, 0x54, 0x0A};
 
     private final String _next;
     private int _maxProxyHeader = 1024;
@@ -100,12 +119,17 @@ public class ProxyConnectionFactory extends AbstractConnectionFactory
         return new ProxyProtocolV1orV2Connection(endp, connector, next);
     }
 
-    public class ProxyProtocolV1orV2Connection extends AbstractConnection
+    /**
+     * <p>Parses either a v1 or a v2 PROXY header, then upgrades to the next protocol.</p>
+     * <p>The header is read into a pooled buffer, normally with a single fill, and
+     * it is parsed in place without intermediate strings or arrays. The bytes read
+     * past the header are passed to the next connection by {@link #onUpgradeFrom()}.</p>
+     */
+    public class ProxyProtocolV1orV2Connection extends AbstractConnection implements Connection.UpgradeFrom
     {
-        // Only do a tiny read to figure out what PROXY version it is.
-        private final ByteBuffer _buffer = BufferUtil.allocate(16);
         private final Connector _connector;
         private final String _next;
+        private ByteBuffer _buffer;
 
         protected ProxyProtocolV1orV2Connection(EndPoint endp, Connector connector, String next)
         {
@@ -126,480 +150,476 @@ public class ProxyConnectionFactory extends AbstractConnectionFactory
         {
             try
             {
-                while (BufferUtil.space(_buffer) > 0)
+                if (_buffer == null)
+                    _buffer = _connector.getByteBufferPool().acquire(Math.max(V1_MAX_LENGTH, V2_HEADER_LENGTH + getMaxProxyHeader()), false);
+
+                while (true)
                 {
-                    // Read data
+                    int length = headerLength(_buffer);
+                    if (length > 0)
+                    {
+                        next(parse(_buffer, length));
+                        return;
+                    }
+
+                    // Read as much as available, the bytes past the header are passed to the next connection.
                     int fill = getEndPoint().fill(_buffer);
                     if (fill < 0)
                     {
+                        releaseBuffer();
                         getEndPoint().shutdownOutput();
                         return;
                     }
+
                     if (fill == 0)
                     {
                         fillInterested();
                         return;
                     }
                 }
-
-                // Is it a V1?
-                switch (_buffer.get(0))
-                {
-                    case 'P':
-                    {
-                        ProxyProtocolV1Connection v1 = new ProxyProtocolV1Connection(getEndPoint(), _connector, _next, _buffer);
-                        getEndPoint().upgrade(v1);
-                        return;
-                    }
-                    case 0x0D:
-                    {
-                        ProxyProtocolV2Connection v2 = new ProxyProtocolV2Connection(getEndPoint(), _connector, _next, _buffer);
-                        getEndPoint().upgrade(v2);
-                        return;
-                    }
-                    default:
-                    {
-                        LOG.warn("Not PROXY protocol for {}", getEndPoint());
-                        close();
-                        break;
-                    }
-                }
+            }
+            catch (IOException x)
+            {
+                LOG.warn("{} for {}", x.getMessage(), getEndPoint());
+                if (LOG.isDebugEnabled())
+                    LOG.debug(x);
+                releaseBuffer();
+                close();
             }
             catch (Throwable x)
             {
                 LOG.warn("PROXY error for " + getEndPoint(), x);
+                releaseBuffer();
                 close();
             }
         }
-    }
-
-    public static class ProxyProtocolV1Connection extends AbstractConnection
-    {
-        // 0     1 2       3       4 5 6
-        // 98765432109876543210987654321
-        // PROXY P R.R.R.R L.L.L.L R Lrn
 
-        private static final int[] SIZE = {29, 23, 21, 13, 5, 3, 1};
-        private final Connector _connector;
-        private final String _next;
-        private final StringBuilder _builder = new StringBuilder();
-        private final String[] _fields = new String[6];
-        private int _index;
-        private int _length;
+        @Override
+        public ByteBuffer onUpgradeFrom()
+        {
+            // The bytes read past the header are copied so that the pooled buffer is released.
+            ByteBuffer leftover = BufferUtil.hasContent(_buffer) ? BufferUtil.toBuffer(BufferUtil.toArray(_buffer)) : null;
+            releaseBuffer();
+            return leftover;
+        }
 
-        protected ProxyProtocolV1Connection(EndPoint endp, Connector connector, String next, ByteBuffer buffer)
+        private void releaseBuffer()
         {
-            super(endp, connector.getExecutor());
-            _connector = connector;
-            _next = next;
-            _length = buffer.remaining();
-            parse(buffer);
+            ByteBuffer buffer = _buffer;
+            _buffer = null;
+            if (buffer != null)
+            {
+                ByteBufferPool pool = _connector.getByteBufferPool();
+                pool.release(buffer);
+            }
         }
 
-        @Override
-        public void onOpen()
+        /**
+         * @param buffer the bytes read so far
+         * @return the length of the header, or -1 if it is not complete yet
+         * @throws IOException if the bytes are not a valid PROXY header
+         */
+        private int headerLength(ByteBuffer buffer) throws IOException
         {
-            super.onOpen();
-            fillInterested();
+            if (!buffer.hasRemaining())
+                return -1;
+            switch (buffer.get(buffer.position()))
+            {
+                case 'P':
+                    return headerLengthV1(buffer);
+                case 0x0D:
+                    return headerLengthV2(buffer);
+                default:
+                    throw new IOException("Not PROXY protocol");
+            }
         }
 
-        private boolean parse(ByteBuffer buffer)
+        private int headerLengthV1(ByteBuffer buffer) throws IOException
         {
-            // Parse fields
-            while (buffer.hasRemaining())
+            // PROXY <protocol> <src> <dst> <sport> <dport>\r\n
+            int start = buffer.position();
+            int limit = Math.min(buffer.limit(), start + V1_MAX_LENGTH);
+            for (int i = start; i < limit; ++i)
             {
-                byte b = buffer.get();
-                if (_index < 6)
+                byte b = buffer.get(i);
+                if (b == '\r')
                 {
-                    if (b == ' ' || b == '\r')
-                    {
-                        _fields[_index++] = _builder.toString();
-                        _builder.setLength(0);
-                        if (b == '\r')
-                            _index = 6;
-                    }
-                    else if (b < ' ')
-                    {
-                        LOG.warn("Bad character {} for {}", b & 0xFF, getEndPoint());
-                        close();
-                        return false;
-                    }
-                    else
-                    {
-                        _builder.append((char)b);
-                    }
+                    if (i + 1 == buffer.limit())
+                        return -1;
+                    if (buffer.get(i + 1) != '\n')
+                        throw new IOException("Bad PROXY protocol v1 CRLF");
+                    return i + 2 - start;
                 }
-                else
+                if (b < ' ')
+                    throw new IOException("Bad PROXY protocol v1 character " + (b & 0xFF));
+            }
+            if (limit - start == V1_MAX_LENGTH)
+                throw new IOException("PROXY protocol v1 line too long");
+            return -1;
+        }
+
+        private int headerLengthV2(ByteBuffer buffer) throws IOException
+        {
+            int start = buffer.position();
+            int remaining = buffer.remaining();
+            for (int i = 0; i < Math.min(remaining, MAGIC.length); ++i)
+            {
+                if (buffer.get(start + i) != MAGIC[i])
+                    throw new IOException("Bad PROXY protocol v2 signature");
+            }
+            if (remaining < V2_HEADER_LENGTH)
+                return -1;
+
+            int length = buffer.getChar(start + 14);
+            if (length > getMaxProxyHeader())
+                throw new IOException(String.format("PROXY protocol v2 header too long: %d > %d", length, getMaxProxyHeader()));
+            return remaining < V2_HEADER_LENGTH + length ? -1 : V2_HEADER_LENGTH + length;
+        }
+
+        /**
+         * @param buffer the bytes read, starting with the complete header
+         * @param length the length of the header
+         * @return the endpoint for the next protocol
+         * @throws IOException if the bytes are not a valid PROXY header
+         */
+        private EndPoint parse(ByteBuffer buffer, int length) throws IOException
+        {
+            if (buffer.get(buffer.position()) == 'P')
+                return parseV1(buffer, buffer.position() + length);
+            return parseV2(buffer);
+        }
+
+        private EndPoint parseV1(ByteBuffer buffer, int end) throws IOException
+        {
+            // PROXY <protocol> <src> <dst> <sport> <dport>\r\n
+            int start = buffer.position();
+            int cr = end - 2;
+            buffer.position(end);
+
+            int proxyEnd = fieldEnd(buffer, start, cr);
+            if (!matches(buffer, start, proxyEnd, V1_PROXY))
+                throw new IOException("Not PROXY protocol");
+
+            int protocol = proxyEnd + 1;
+            int protocolEnd = fieldEnd(buffer, protocol, cr);
+            // If UNKNOWN, we must ignore the information sent, so use the EndPoint's.
+            if (matchesIgnoreCase(buffer, protocol, protocolEnd, V1_UNKNOWN))
+                return getEndPoint();
+
+            int src = protocolEnd + 1;
+            int srcEnd = fieldEnd(buffer, src, cr);
+            int dst = srcEnd + 1;
+            int dstEnd = fieldEnd(buffer, dst, cr);
+            int srcPort = dstEnd + 1;
+            int srcPortEnd = fieldEnd(buffer, srcPort, cr);
+            int dstPort = srcPortEnd + 1;
+            int dstPortEnd = fieldEnd(buffer, dstPort, cr);
+            if (dstPortEnd != cr)
+                throw new IOException("Bad PROXY protocol v1 fields");
+
+            InetSocketAddress remote = toInetSocketAddress(buffer, src, srcEnd, parsePort(buffer, srcPort, srcPortEnd));
+            InetSocketAddress local = toInetSocketAddress(buffer, dst, dstEnd, parsePort(buffer, dstPort, dstPortEnd));
+            return new ProxyEndPoint(getEndPoint(), remote, local);
+        }
+
+        private int fieldEnd(ByteBuffer buffer, int from, int end) throws IOException
+        {
+            if (from >= end)
+                throw new IOException("Missing PROXY protocol v1 field");
+            for (int i = from; i < end; ++i)
+            {
+                if (buffer.get(i) == ' ')
                 {
-                    if (b == '\n')
-                    {
-                        _index = 7;
-                        return true;
-                    }
+                    if (i == from)
+                        throw new IOException("Missing PROXY protocol v1 field");
+                    return i;
+                }
+            }
+            return end;
+        }
 
-                    LOG.warn("Bad CRLF for {}", getEndPoint());
-                    close();
+        private boolean matches(ByteBuffer buffer, int from, int end, byte[] token)
+        {
+            if (end - from != token.length)
+                return false;
+            for (int i = 0; i < token.length; ++i)
+            {
+                if (buffer.get(from + i) != token[i])
                     return false;
-                }
             }
             return true;
         }
 
-        @Override
-        public void onFillable()
+        private boolean matchesIgnoreCase(ByteBuffer buffer, int from, int end, byte[] token)
         {
-            try
+            if (end - from != token.length)
+                return false;
+            for (int i = 0; i < token.length; ++i)
             {
-                ByteBuffer buffer = null;
-                while (_index < 7)
-                {
-                    // Create a buffer that will not read too much data
-                    // since once read it is impossible to push back for the 
-                    // real connection to read it.
-                    int size = Math.max(1, SIZE[_index] - _builder.length());
-                    if (buffer == null || buffer.capacity() != size)
-                        buffer = BufferUtil.allocate(size);
-                    else
-                        BufferUtil.clear(buffer);
-
-                    // Read data
-                    int fill = getEndPoint().fill(buffer);
-                    if (fill < 0)
-                    {
-                        getEndPoint().shutdownOutput();
-                        return;
-                    }
-                    if (fill == 0)
-                    {
-                        fillInterested();
-                        return;
-                    }
-
-                    _length += fill;
-                    if (_length >= 108)
-                    {
-                        LOG.warn("PROXY line too long {} for {}", _length, getEndPoint());
-                        close();
-                        return;
-                    }
+                // The token is made of letters only, which differ in case by 0x20.
+                if ((buffer.get(from + i) | 0x20) != (token[i] | 0x20))
+                    return false;
+            }
+            return true;
+        }
 
-                    if (!parse(buffer))
-                        return;
-                }
+        private InetSocketAddress toInetSocketAddress(ByteBuffer buffer, int from, int end, int port) throws IOException
+        {
+            // IPv4 and IPv6 literals are parsed whatever the protocol field says,
+            // and anything else is taken as a host name, as the JDK would.
+            boolean ipv4 = true;
+            boolean ipv6 = false;
+            for (int i = from; i < end; ++i)
+            {
+                byte b = buffer.get(i);
+                if (b == ':')
+                    ipv6 = true;
+                else if (!(b >= '0' && b <= '9' || b == '.'))
+                    ipv4 = false;
+            }
+            if (ipv4)
+                return new InetSocketAddress(parseIPv4(buffer, from, end), port);
+            String address = BufferUtil.toString(buffer, from, end - from, StandardCharsets.US_ASCII);
+            if (ipv6)
+                return new InetSocketAddress(InetAddress.getByName(address), port);
+            return new InetSocketAddress(address, port);
+        }
 
-                // Check proxy
-                if (!"PROXY".equals(_fields[0]))
+        private InetAddress parseIPv4(ByteBuffer buffer, int from, int end) throws IOException
+        {
+            byte[] address = new byte[4];
+            int octet = 0;
+            int value = -1;
+            for (int i = from; i < end; ++i)
+            {
+                byte b = buffer.get(i);
+                if (b >= '0' && b <= '9')
                 {
-                    LOG.warn("Not PROXY protocol for {}", getEndPoint());
-                    close();
-                    return;
+                    value = (value < 0 ? 0 : value * 10) + (b - '0');
+                    if (value > 255)
+                        throw new IOException("Bad PROXY protocol v1 address");
                 }
-
-                String srcIP = _fields[2];
-                String srcPort = _fields[4];
-                String dstIP = _fields[3];
-                String dstPort = _fields[5];
-                // If UNKNOWN, we must ignore the information sent, so use the EndPoint's.
-                boolean unknown = "UNKNOWN".equalsIgnoreCase(_fields[1]);
-                if (unknown)
+                else if (b == '.' && value >= 0 && octet < 3)
                 {
-                    srcIP = getEndPoint().getRemoteAddress().getAddress().getHostAddress();
-                    srcPort = String.valueOf(getEndPoint().getRemoteAddress().getPort());
-                    dstIP = getEndPoint().getLocalAddress().getAddress().getHostAddress();
-                    dstPort = String.valueOf(getEndPoint().getLocalAddress().getPort());
+                    address[octet++] = (byte)value;
+                    value = -1;
                 }
-                InetSocketAddress remote = new InetSocketAddress(srcIP, Integer.parseInt(srcPort));
-                InetSocketAddress local = new InetSocketAddress(dstIP, Integer.parseInt(dstPort));
-
-                // Create the next protocol
-                ConnectionFactory connectionFactory = _connector.getConnectionFactory(_next);
-                if (connectionFactory == null)
+                else
                 {
-                    LOG.warn("No next protocol '{}' for {}", _next, getEndPoint());
-                    close();
-                    return;
+                    throw new IOException("Bad PROXY protocol v1 address");
                 }
-
-                if (LOG.isDebugEnabled())
-                    LOG.warn("Next protocol '{}' for {} r={} l={}", _next, getEndPoint(), remote, local);
-
-                EndPoint endPoint = new ProxyEndPoint(getEndPoint(), remote, local);
-                Connection newConnection = connectionFactory.newConnection(_connector, endPoint);
-                endPoint.upgrade(newConnection);
             }
-            catch (Throwable x)
+            if (octet != 3 || value < 0)
+                throw new IOException("Bad PROXY protocol v1 address");
+            address[3] = (byte)value;
+            return InetAddress.getByAddress(address);
+        }
+
+        private int parsePort(ByteBuffer buffer, int from, int end) throws IOException
+        {
+            int port = 0;
+            for (int i = from; i < end; ++i)
             {
-                LOG.warn("PROXY error for " + getEndPoint(), x);
-                close();
+                byte b = buffer.get(i);
+                if (b < '0' || b > '9')
+                    throw new IOException("Bad PROXY protocol v1 port");
+                port = port * 10 + (b - '0');
+                if (port > 65535)
+                    throw new IOException("Bad PROXY protocol v1 port");
             }
+            return port;
         }
-    }
 
-    private enum Family
-    {
-        UNSPEC, INET, INET6, UNIX
-    }
-
-    private enum Transport
-    {
-        UNSPEC, STREAM, DGRAM
-    }
-
-    private static final byte[] MAGIC = new byte[]{0x0D, 0x0A, 0x0D, 0x0A, 0x00, 0x0D, 0x0A, 0x51, 0x55, 0x49, 0x54, 0x0A};
-
-    public class ProxyProtocolV2Connection extends AbstractConnection
-    {
-        private final Connector _connector;
-        private final String _next;
-        private final boolean _local;
-        private final Family _family;
-        private final Transport _transport;
-        private final int _length;
-        private final ByteBuffer _buffer;
-
-        protected ProxyProtocolV2Connection(EndPoint endp, Connector connector, String next, ByteBuffer buffer) throws IOException
+        private EndPoint parseV2(ByteBuffer buffer) throws IOException
         {
-            super(endp, connector.getExecutor());
-            _connector = connector;
-            _next = next;
-
-            if (buffer.remaining() != 16)
-                throw new IllegalStateException();
-
-            if (LOG.isDebugEnabled())
-                LOG.debug("PROXYv2 header {} for {}", BufferUtil.toHexSummary(buffer), this);
-
             // struct proxy_hdr_v2 {
             //     uint8_t sig[12];  /* hex 0D 0A 0D 0A 00 0D 0A 51 55 49 54 0A */
             //     uint8_t ver_cmd;  /* protocol version and command */
             //     uint8_t fam;      /* protocol family and address */
             //     uint16_t len;     /* number of following bytes part of the header */
             // };
-            for (byte magic : MAGIC)
-            {
-                if (buffer.get() != magic)
-                    throw new IOException("Bad PROXY protocol v2 signature");
-            }
+            int start = buffer.position();
+
+            if (LOG.isDebugEnabled())
+                LOG.debug("PROXYv2 header {} for {}", BufferUtil.toHexSummary(buffer), this);
 
-            int versionAndCommand = 0xff & buffer.get();
-            if ((versionAndCommand & 0xf0) != 0x20)
+            int versionAndCommand = 0xFF & buffer.get(start + 12);
+            if ((versionAndCommand & 0xF0) != 0x20)
                 throw new IOException("Bad PROXY protocol v2 version");
-            _local = (versionAndCommand & 0xf) == 0x00;
+            boolean local = (versionAndCommand & 0xF) == 0x00;
 
-            int transportAndFamily = 0xff & buffer.get();
-            switch (transportAndFamily >> 4)
-            {
-                case 0:
-                    _family = Family.UNSPEC;
-                    break;
-                case 1:
-                    _family = Family.INET;
-                    break;
-                case 2:
-                    _family = Family.INET6;
-                    break;
-                case 3:
-                    _family = Family.UNIX;
-                    break;
-                default:
-                    throw new IOException("Bad PROXY protocol v2 family");
-            }
+            int familyAndTransport = 0xFF & buffer.get(start + 13);
+            int length = buffer.getChar(start + 14);
+            int index = start + V2_HEADER_LENGTH;
+            int end = index + length;
+            buffer.position(end);
 
-            switch (0xf & transportAndFamily)
+            // A LOCAL command carries no information about the client.
+            if (local)
+                return getEndPoint();
+
+            int addressLength;
+            switch (familyAndTransport)
             {
-                case 0:
-                    _transport = Transport.UNSPEC;
-                    break;
-                case 1:
-                    _transport = Transport.STREAM;
+                case 0x11: // AF_INET, STREAM
+                    addressLength = 4;
                     break;
-                case 2:
-                    _transport = Transport.DGRAM;
+                case 0x21: // AF_INET6, STREAM
+                    addressLength = 16;
                     break;
                 default:
-                    throw new IOException("Bad PROXY protocol v2 family");
+                    throw new IOException(String.format("Unsupported PROXY protocol v2 mode 0x%x,0x%x", versionAndCommand, familyAndTransport));
             }
+            if (length < 2 * addressLength + 4)
+                throw new IOException("Bad PROXY protocol v2 address length " + length);
 
-            _length = buffer.getChar();
+            InetAddress src = toInetAddress(buffer, index, addressLength);
+            index += addressLength;
+            InetAddress dst = toInetAddress(buffer, index, addressLength);
+            index += addressLength;
+            int srcPort = buffer.getChar(index);
+            index += 2;
+            int dstPort = buffer.getChar(index);
+            index += 2;
 
-            if (!_local && (_family == Family.UNSPEC || _family == Family.UNIX || _transport != Transport.STREAM))
-                throw new IOException(String.format("Unsupported PROXY protocol v2 mode 0x%x,0x%x", versionAndCommand, transportAndFamily));
+            ProxyEndPoint proxyEndPoint = new ProxyEndPoint(getEndPoint(), new InetSocketAddress(src, srcPort), new InetSocketAddress(dst, dstPort));
+            parseTLVs(buffer, index, end, proxyEndPoint);
 
-            if (_length > getMaxProxyHeader())
-                throw new IOException(String.format("Unsupported PROXY protocol v2 mode 0x%x,0x%x,0x%x", versionAndCommand, transportAndFamily, _length));
-
-            _buffer = _length > 0 ? BufferUtil.allocate(_length) : BufferUtil.EMPTY_BUFFER;
+            if (LOG.isDebugEnabled())
+                LOG.debug("{} {}", getEndPoint(), proxyEndPoint);
+            return proxyEndPoint;
         }
 
-        @Override
-        public void onOpen()
+        private InetAddress toInetAddress(ByteBuffer buffer, int index, int length) throws IOException
         {
-            super.onOpen();
-            if (_buffer.remaining() == _length)
-                next();
-            else
-                fillInterested();
+            byte[] address = new byte[length];
+            for (int i = 0; i < address.length; ++i)
+            {
+                address[i] = buffer.get(index + i);
+            }
+            return InetAddress.getByAddress(address);
         }
 
-        @Override
-        public void onFillable()
+        private void parseTLVs(ByteBuffer buffer, int index, int end, ProxyEndPoint proxyEndPoint) throws IOException
         {
-            try
+            // struct pp2_tlv {
+            //     uint8_t type;
+            //     uint8_t length_hi;
+            //     uint8_t length_lo;
+            //     uint8_t value[0];
+            // };
+            while (index < end)
             {
-                while (_buffer.remaining() < _length)
+                if (end - index < 3)
+                    throw new IOException("Bad PROXY protocol v2 TLV");
+                int type = 0xFF & buffer.get(index);
+                int length = buffer.getChar(index + 1);
+                int value = index + 3;
+                index = value + length;
+                if (index > end)
+                    throw new IOException("Bad PROXY protocol v2 TLV length " + length);
+
+                if (LOG.isDebugEnabled())
+                    LOG.debug(String.format("T=%x L=%d for %s", type, length, this));
+
+                switch (type)
                 {
-                    // Read data
-                    int fill = getEndPoint().fill(_buffer);
-                    if (fill < 0)
-                    {
-                        getEndPoint().shutdownOutput();
-                        return;
-                    }
-                    if (fill == 0)
+                    case 0x01: // PP2_TYPE_ALPN
+                        proxyEndPoint.setAttribute(ALPN, BufferUtil.toString(buffer, value, length, StandardCharsets.US_ASCII));
+                        break;
+                    case 0x02: // PP2_TYPE_AUTHORITY
+                        proxyEndPoint.setAttribute(AUTHORITY, BufferUtil.toString(buffer, value, length, StandardCharsets.UTF_8));
+                        break;
+                    case 0x05: // PP2_TYPE_UNIQUE_ID
                     {
-                        fillInterested();
-                        return;
+                        byte[] uniqueId = new byte[length];
+                        for (int i = 0; i < length; ++i)
+                        {
+                            uniqueId[i] = buffer.get(value + i);
+                        }
+                        proxyEndPoint.setAttribute(UNIQUE_ID, uniqueId);
+                        break;
                     }
+                    case 0x20: // PP2_TYPE_SSL
+                        parseSSL(buffer, value, index, proxyEndPoint);
+                        break;
+                    case 0x03: // PP2_TYPE_CRC32C
+                    case 0x04: // PP2_TYPE_NOOP
+                    case 0x30: // PP2_TYPE_NETNS
+                    default:
+                        break;
                 }
-                next();
             }
-            catch (Throwable x)
+        }
+
+        private void parseSSL(ByteBuffer buffer, int index, int end, ProxyEndPoint proxyEndPoint) throws IOException
+        {
+            // struct pp2_tlv_ssl {
+            //     uint8_t  client;
+            //     uint32_t verify;
+            //     struct pp2_tlv sub_tlv[0];
+            // };
+            if (end - index < 5)
+                throw new IOException("Bad PROXY protocol v2 SSL TLV");
+            int client = 0xFF & buffer.get(index);
+            // Only PP2_CLIENT_SSL carries the TLS information.
+            if ((client & 0x01) == 0)
+                return;
+
+            index += 5;
+            while (index < end)
             {
-                LOG.warn("PROXY error for " + getEndPoint(), x);
-                close();
+                if (end - index < 3)
+                    throw new IOException("Bad PROXY protocol v2 SSL TLV");
+                int subType = 0xFF & buffer.get(index);
+                int subLength = buffer.getChar(index + 1);
+                int value = index + 3;
+                index = value + subLength;
+                if (index > end)
+                    throw new IOException("Bad PROXY protocol v2 SSL TLV length " + subLength);
+
+                switch (subType)
+                {
+                    case 0x21: // PP2_SUBTYPE_SSL_VERSION
+                        setAttribute(proxyEndPoint, TLS_VERSION, buffer, value, subLength, StandardCharsets.US_ASCII);
+                        break;
+                    case 0x22: // PP2_SUBTYPE_SSL_CN
+                        setAttribute(proxyEndPoint, TLS_CN, buffer, value, subLength, StandardCharsets.UTF_8);
+                        break;
+                    case 0x23: // PP2_SUBTYPE_SSL_CIPHER
+                        setAttribute(proxyEndPoint, TLS_CIPHER, buffer, value, subLength, StandardCharsets.US_ASCII);
+                        break;
+                    case 0x24: // PP2_SUBTYPE_SSL_SIG_ALG
+                        setAttribute(proxyEndPoint, TLS_SIG_ALG, buffer, value, subLength, StandardCharsets.US_ASCII);
+                        break;
+                    case 0x25: // PP2_SUBTYPE_SSL_KEY_ALG
+                        setAttribute(proxyEndPoint, TLS_KEY_ALG, buffer, value, subLength, StandardCharsets.US_ASCII);
+                        break;
+                    default:
+                        break;
+                }
             }
         }
 
-        private void next()
+        private void setAttribute(ProxyEndPoint proxyEndPoint, String name, ByteBuffer buffer, int index, int length, Charset charset)
         {
-            if (LOG.isDebugEnabled())
-                LOG.debug("PROXYv2 next {} from {} for {}", _next, BufferUtil.toHexSummary(_buffer), this);
+            proxyEndPoint.setAttribute(name, BufferUtil.toString(buffer, index, length, charset));
+        }
 
+        private void next(EndPoint endPoint)
+        {
             // Create the next protocol
             ConnectionFactory connectionFactory = _connector.getConnectionFactory(_next);
             if (connectionFactory == null)
             {
-                LOG.info("Next protocol '{}' for {}", _next, getEndPoint());
+                LOG.warn("No next protocol '{}' for {}", _next, getEndPoint());
+                releaseBuffer();
                 close();
                 return;
             }
 
-            // Do we need to wrap the endpoint?
-            EndPoint endPoint = getEndPoint();
-            if (!_local)
-            {
-                try
-                {
-                    InetAddress src;
-                    InetAddress dst;
-                    int sp;
-                    int dp;
-
-                    switch (_family)
-                    {
-                        case INET:
-                        {
-                            byte[] addr = new byte[4];
-                            _buffer.get(addr);
-                            src = Inet4Address.getByAddress(addr);
-                            _buffer.get(addr);
-                            dst = Inet4Address.getByAddress(addr);
-                            sp = _buffer.getChar();
-                            dp = _buffer.getChar();
-                            break;
-                        }
-
-                        case INET6:
-                        {
-                            byte[] addr = new byte[16];
-                            _buffer.get(addr);
-                            src = Inet6Address.getByAddress(addr);
-                            _buffer.get(addr);
-                            dst = Inet6Address.getByAddress(addr);
-                            sp = _buffer.getChar();
-                            dp = _buffer.getChar();
-                            break;
-                        }
-
-                        default:
-                            throw new IllegalStateException();
-                    }
-
-                    // Extract Addresses
-                    InetSocketAddress remote = new InetSocketAddress(src, sp);
-                    InetSocketAddress local = new InetSocketAddress(dst, dp);
-                    ProxyEndPoint proxyEndPoint = new ProxyEndPoint(endPoint, remote, local);
-                    endPoint = proxyEndPoint;
-
-                    // Any additional info?
-                    while (_buffer.hasRemaining())
-                    {
-                        int type = 0xff & _buffer.get();
-                        int length = _buffer.getShort();
-                        byte[] value = new byte[length];
-                        _buffer.get(value);
-
-                        if (LOG.isDebugEnabled())
-                            LOG.debug(String.format("T=%x L=%d V=%s for %s", type, length, TypeUtil.toHexString(value), this));
-
-                        switch (type)
-                        {
-                            case 0x20: // PP2_TYPE_SSL
-                            {
-                                int client = value[0] & 0xFF;
-                                switch (client)
-                                {
-                                    case 0x01: // PP2_CLIENT_SSL
-                                    {
-                                        int i = 5; // Index of the first sub_tlv, after verify.
-                                        while (i < length)
-                                        {
-                                            int subType = value[i++] & 0xFF;
-                                            int subLength = (value[i++] & 0xFF) * 256 + (value[i++] & 0xFF);
-                                            byte[] subValue = new byte[subLength];
-                                            System.arraycopy(value, i, subValue, 0, subLength);
-                                            i += subLength;
-                                            switch (subType)
-                                            {
-                                                case 0x21: // PP2_SUBTYPE_SSL_VERSION
-                                                    String tlsVersion = new String(subValue, StandardCharsets.US_ASCII);
-                                                    proxyEndPoint.setAttribute(TLS_VERSION, tlsVersion);
-                                                    break;
-                                                case 0x22: // PP2_SUBTYPE_SSL_CN
-                                                case 0x23: // PP2_SUBTYPE_SSL_CIPHER
-                                                case 0x24: // PP2_SUBTYPE_SSL_SIG_ALG
-                                                case 0x25: // PP2_SUBTYPE_SSL_KEY_ALG
-                                                default:
-                                                    break;
-                                            }
-                                        }
-                                        break;
-                                    }
-                                    case 0x02: // PP2_CLIENT_CERT_CONN
-                                    case 0x04: // PP2_CLIENT_CERT_SESS
-                                    default:
-                                        break;
-                                }
-                                break;
-                            }
-                            case 0x01: // PP2_TYPE_ALPN
-                            case 0x02: // PP2_TYPE_AUTHORITY
-                            case 0x03: // PP2_TYPE_CRC32C
-                            case 0x04: // PP2_TYPE_NOOP
-                            case 0x30: // PP2_TYPE_NETNS
-                            default:
-                                break;
-                        }
-                    }
-
-                    if (LOG.isDebugEnabled())
-                        LOG.debug("{} {}", getEndPoint(), proxyEndPoint.toString());
-                }
-                catch (Exception e)
-                {
-                    LOG.warn(e);
-                }
-            }
+            if (LOG.isDebugEnabled())
+                LOG.debug("Next protocol '{}' for {} r={} l={}", _next, getEndPoint(), endPoint.getRemoteAddress(), endPoint.getLocalAddress());
 
             Connection newConnection = connectionFactory.newConnection(_connector, endPoint);
             endPoint.upgrade(newConnection);
@@ -619,6 +639,14 @@ public class ProxyConnectionFactory extends AbstractConnectionFactory
             _local = local;
         }
 
+        /**
+         * @return the endpoint connected to the proxy
+         */
+        public EndPoint unwrap()
+        {
+            return _endp;
+        }
+
         @Override
         public InetSocketAddress getLocalAddress()
         {
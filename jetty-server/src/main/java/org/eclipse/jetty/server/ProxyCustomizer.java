@@ -0,0 +1,114 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server;
+
+import java.net.InetSocketAddress;
+
+import org.eclipse.jetty.http.HttpScheme;
+import org.eclipse.jetty.io.EndPoint;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+
+/**
+ * <p>Customizes requests received via the {@link ProxyConnectionFactory PROXY protocol}.</p>
+ * <p>The addresses of the proxy itself, and the information carried by the
+ * PROXY protocol v2 TLVs, are exposed as request attributes, so that applications
+ * and other customizers do not need to look up the {@link ProxyConnectionFactory.ProxyEndPoint}.</p>
+ * <p>If the proxy reports that the client connected over TLS, the request is marked as
+ * secure and the {@code javax.servlet.request.cipher_suite} and
+ * {@code javax.servlet.request.key_size} attributes are set from the proxy information.</p>
+ */
+public class ProxyCustomizer implements HttpConfiguration.Customizer
+{
+    /**
+     * The address of the proxy, as seen by the server.
+     */
+    public static final String REMOTE_ADDRESS_ATTRIBUTE_NAME = "org.eclipse.jetty.proxy.remote.address";
+    /**
+     * The port of the proxy, as seen by the server.
+     */
+    public static final String REMOTE_PORT_ATTRIBUTE_NAME = "org.eclipse.jetty.proxy.remote.port";
+    /**
+     * The address the proxy connected to.
+     */
+    public static final String LOCAL_ADDRESS_ATTRIBUTE_NAME = "org.eclipse.jetty.proxy.local.address";
+    /**
+     * The port the proxy connected to.
+     */
+    public static final String LOCAL_PORT_ATTRIBUTE_NAME = "org.eclipse.jetty.proxy.local.port";
+    public static final String ALPN_ATTRIBUTE_NAME = "org.eclipse.jetty.proxy.alpn";
+    public static final String AUTHORITY_ATTRIBUTE_NAME = "org.eclipse.jetty.proxy.authority";
+    public static final String UNIQUE_ID_ATTRIBUTE_NAME = "org.eclipse.jetty.proxy.unique_id";
+    public static final String TLS_VERSION_ATTRIBUTE_NAME = "org.eclipse.jetty.proxy.tls.version";
+    public static final String TLS_CIPHER_ATTRIBUTE_NAME = "org.eclipse.jetty.proxy.tls.cipher";
+    public static final String TLS_CN_ATTRIBUTE_NAME = "org.eclipse.jetty.proxy.tls.cn";
+    public static final String TLS_SIG_ALG_ATTRIBUTE_NAME = "org.eclipse.jetty.proxy.tls.sig_alg";
+    public static final String TLS_KEY_ALG_ATTRIBUTE_NAME = "org.eclipse.jetty.proxy.tls.key_alg";
+
+    @Override
+    public void customize(Connector connector, HttpConfiguration channelConfig, Request request)
+    {
+        EndPoint endPoint = request.getHttpChannel().getEndPoint();
+        if (!(endPoint instanceof ProxyConnectionFactory.ProxyEndPoint))
+            return;
+
+        ProxyConnectionFactory.ProxyEndPoint proxyEndPoint = (ProxyConnectionFactory.ProxyEndPoint)endPoint;
+        EndPoint underlying = proxyEndPoint.unwrap();
+        InetSocketAddress remote = underlying.getRemoteAddress();
+        if (remote != null)
+        {
+            request.setAttribute(REMOTE_ADDRESS_ATTRIBUTE_NAME, remote.getAddress().getHostAddress());
+            request.setAttribute(REMOTE_PORT_ATTRIBUTE_NAME, remote.getPort());
+        }
+        InetSocketAddress local = underlying.getLocalAddress();
+        if (local != null)
+        {
+            request.setAttribute(LOCAL_ADDRESS_ATTRIBUTE_NAME, local.getAddress().getHostAddress());
+            request.setAttribute(LOCAL_PORT_ATTRIBUTE_NAME, local.getPort());
+        }
+
+        copy(proxyEndPoint, ProxyConnectionFactory.ALPN, request, ALPN_ATTRIBUTE_NAME);
+        copy(proxyEndPoint, ProxyConnectionFactory.AUTHORITY, request, AUTHORITY_ATTRIBUTE_NAME);
+        copy(proxyEndPoint, ProxyConnectionFactory.UNIQUE_ID, request, UNIQUE_ID_ATTRIBUTE_NAME);
+        copy(proxyEndPoint, ProxyConnectionFactory.TLS_CN, request, TLS_CN_ATTRIBUTE_NAME);
+        copy(proxyEndPoint, ProxyConnectionFactory.TLS_SIG_ALG, request, TLS_SIG_ALG_ATTRIBUTE_NAME);
+        copy(proxyEndPoint, ProxyConnectionFactory.TLS_KEY_ALG, request, TLS_KEY_ALG_ATTRIBUTE_NAME);
+
+        Object cipher = copy(proxyEndPoint, ProxyConnectionFactory.TLS_CIPHER, request, TLS_CIPHER_ATTRIBUTE_NAME);
+        if (cipher != null)
+        {
+            String cipherSuite = cipher.toString();
+            request.setAttribute("javax.servlet.request.cipher_suite", cipherSuite);
+            request.setAttribute("javax.servlet.request.key_size", SslContextFactory.deduceKeyLength(cipherSuite));
+        }
+
+        if (copy(proxyEndPoint, ProxyConnectionFactory.TLS_VERSION, request, TLS_VERSION_ATTRIBUTE_NAME) != null)
+        {
+            request.setScheme(HttpScheme.HTTPS.asString());
+            request.setSecure(true);
+        }
+    }
+
+    private Object copy(ProxyConnectionFactory.ProxyEndPoint proxyEndPoint, String name, Request request, String attributeName)
+    {
+        Object value = proxyEndPoint.getAttribute(name);
+        if (value != null)
+            request.setAttribute(attributeName, value);
+        return value;
+    }
+}
@@ -55,6 +55,7 @@ import org.eclipse.jetty.http.HttpVersion;
 import org.eclipse.jetty.http.MetaData;
 import org.eclipse.jetty.http.MimeTypes;
 import org.eclipse.jetty.http.PreEncodedHttpField;
+import org.eclipse.jetty.http.PreEncodedHttpFields;
 import org.eclipse.jetty.io.RuntimeIOException;
 import org.eclipse.jetty.server.handler.ContextHandler.Context;
 import org.eclipse.jetty.server.session.SessionHandler;
@@ -408,6 +409,7 @@ public class Response implements HttpServletResponse
      * <p>In addition to the servlet standard handling, this method supports some additional codes:</p>
      * <dl>
      * <dt>102</dt><dd>Send a partial PROCESSING response and allow additional responses</dd>
+     * <dt>103</dt><dd>Send a partial EARLY HINTS response with the {@code Link} headers of this response, see {@link #sendEarlyHints()}</dd>
      * <dt>-1</dt><dd>Abort the HttpChannel and close the connection/stream</dd>
      * </dl>
      * @param code The error code
@@ -428,6 +430,9 @@ public class Response implements HttpServletResponse
             case HttpStatus.PROCESSING_102:
                 sendProcessing();
                 break;
+            case HttpStatus.EARLY_HINT_103:
+                sendEarlyHints();
+                break;
             default:
                 _channel.getState().sendError(code, message);
                 break;
@@ -452,6 +457,44 @@ public class Response implements HttpServletResponse
         }
     }
 
+    /**
+     * Sends a 103-Early Hints response with the {@code Link} headers
+     * already added to this response.
+     * This method is called by sendError if it is passed 103.
+     *
+     * @throws IOException if unable to send the 103 response
+     * @see #sendEarlyHints(HttpFields)
+     */
+    public void sendEarlyHints() throws IOException
+    {
+        HttpFields fields = new HttpFields();
+        for (String link : _fields.getValuesList("Link"))
+        {
+            fields.add("Link", link);
+        }
+        sendEarlyHints(fields);
+    }
+
+    /**
+     * Sends a 103-Early Hints response with the given fields, typically
+     * {@code Link} headers with {@code rel=preload} for resources that the
+     * client may fetch while the final response is being prepared.
+     * Early hints are sent only for HTTP/1.1 or later requests, only
+     * if the response is not committed and only if there are fields to send.
+     *
+     * @param fields the fields of the 103 response
+     * @throws IOException if unable to send the 103 response
+     */
+    public void sendEarlyHints(HttpFields fields) throws IOException
+    {
+        if (fields.size() == 0 || isCommitted())
+            return;
+        HttpVersion version = _channel.getRequest().getHttpVersion();
+        if (version == null || version.getVersion() < HttpVersion.HTTP_1_1.getVersion())
+            return;
+        _channel.sendResponse(new MetaData.Response(HttpVersion.HTTP_1_1, HttpStatus.EARLY_HINT_103, fields), null, true);
+    }
+
     /**
      * Sends a response with one of the 300 series redirection codes.
      *
@@ -571,6 +614,67 @@ public class Response implements HttpServletResponse
         }
     }
 
+    /**
+     * <p>Sets the fields of a pre-encoded template, replacing any field with the same name.</p>
+     *
+     * @param template the fields to set
+     * @see #addHeaders(PreEncodedHttpFields)
+     */
+    public void setHeaders(PreEncodedHttpFields template)
+    {
+        if (isMutable())
+            headers(template, true);
+    }
+
+    /**
+     * <p>Adds the fields of a pre-encoded template, so that they can be generated
+     * with a single copy of their encoding.</p>
+     * <p>A {@code Content-Type} field of the template sets the content type of this
+     * response, as {@link #addHeader(String, String)} does.</p>
+     *
+     * @param template the fields to add
+     */
+    public void addHeaders(PreEncodedHttpFields template)
+    {
+        if (isMutable())
+            headers(template, false);
+    }
+
+    private void headers(PreEncodedHttpFields template, boolean put)
+    {
+        String contentType = template.getContentType();
+        if (contentType != null)
+        {
+            setContentType(contentType);
+            if (!contentType.equals(_contentType))
+            {
+                // The content type was adjusted, for example with the character
+                // encoding, so the other fields of the template are set one by one.
+                if (put)
+                {
+                    for (HttpField field : template)
+                    {
+                        if (field.getHeader() != HttpHeader.CONTENT_TYPE)
+                            _fields.remove(field.getName());
+                    }
+                }
+                for (HttpField field : template)
+                {
+                    if (field.getHeader() != HttpHeader.CONTENT_TYPE)
+                        _fields.add(field);
+                }
+                return;
+            }
+            // The template carries the Content-Type field.
+            _fields.remove(HttpHeader.CONTENT_TYPE);
+        }
+
+        if (put)
+            _fields.put(template);
+        else
+            _fields.add(template);
+    }
+
     @Override
     public Collection<String> getHeaderNames()
     {
@@ -18,11 +18,33 @@
 
 package org.eclipse.jetty.server;
 
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.http.HttpParser;
+import org.eclipse.jetty.io.Connection;
 import org.eclipse.jetty.io.ConnectionStatistics;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.component.Container;
+import org.eclipse.jetty.util.component.Dumpable;
+import org.eclipse.jetty.util.statistic.SampleStatistic;
 
+/**
+ * <p>A {@link ConnectionStatistics} that also tracks, for the {@link HttpConnection}s
+ * of a server Connector, how well their header field caches performed.</p>
+ * <p>To track them, add an instance as a bean of the connector:
+ * {@link #addToAllConnectors(Server)} adds plain {@link ConnectionStatistics}.</p>
+ */
+@ManagedObject("Tracks statistics on server connections")
 public class ServerConnectionStatistics extends ConnectionStatistics
 {
+    private final LongAdder _fieldCacheHits = new LongAdder();
+    private final LongAdder _fieldCachePrefixHits = new LongAdder();
+    private final LongAdder _fieldCacheMisses = new LongAdder();
+    private final LongAdder _sharedFieldCacheHits = new LongAdder();
+    private final SampleStatistic _fieldCacheCapacity = new SampleStatistic();
+
     public static void addToAllConnectors(Server server)
     {
         for (Connector connector : server.getConnectors())
@@ -31,4 +53,82 @@ public class ServerConnectionStatistics extends ConnectionStatistics
                 ((Container)connector).addBean(new ConnectionStatistics());
         }
     }
+
+    @Override
+    public void reset()
+    {
+        super.reset();
+        _fieldCacheHits.reset();
+        _fieldCachePrefixHits.reset();
+        _fieldCacheMisses.reset();
+        _sharedFieldCacheHits.reset();
+        _fieldCacheCapacity.reset();
+    }
+
+    @Override
+    public void onClosed(Connection connection)
+    {
+        super.onClosed(connection);
+        if (!isStarted())
+            return;
+
+        if (connection instanceof HttpConnection)
+        {
+            HttpParser parser = ((HttpConnection)connection).getParser();
+            _fieldCacheHits.add(parser.getFieldCacheHits());
+            _fieldCachePrefixHits.add(parser.getFieldCachePrefixHits());
+            _fieldCacheMisses.add(parser.getFieldCacheMisses());
+            _sharedFieldCacheHits.add(parser.getSharedFieldCacheHits());
+            int capacity = parser.getFieldCacheCapacity();
+            if (capacity > 0)
+                _fieldCacheCapacity.record(capacity);
+        }
+    }
+
+    @ManagedAttribute("The number of header fields found in the per connection caches")
+    public long getFieldCacheHits()
+    {
+        return _fieldCacheHits.sum();
+    }
+
+    @ManagedAttribute("The number of header fields whose value started with a value in the per connection caches")
+    public long getFieldCachePrefixHits()
+    {
+        return _fieldCachePrefixHits.sum();
+    }
+
+    @ManagedAttribute("The number of cacheable header fields not found in the per connection caches")
+    public long getFieldCacheMisses()
+    {
+        return _fieldCacheMisses.sum();
+    }
+
+    @ManagedAttribute("The number of header fields found in the cache shared by connections")
+    public long getSharedFieldCacheHits()
+    {
+        return _sharedFieldCacheHits.sum();
+    }
+
+    @ManagedAttribute("The max capacity, in nodes, of a per connection header field cache")
+    public long getFieldCacheCapacityMax()
+    {
+        return _fieldCacheCapacity.getMax();
+    }
+
+    @ManagedAttribute("The mean capacity, in nodes, of a per connection header field cache")
+    public double getFieldCacheCapacityMean()
+    {
+        return _fieldCacheCapacity.getMean();
+    }
+
+    @Override
+    public void dump(Appendable out, String indent) throws IOException
+    {
+        Dumpable.dumpObjects(out, indent, this,
+            String.format("connections=%d", getConnectionsTotal()),
+            String.format("bytes in/out=%s/%s", getReceivedBytes(), getSentBytes()),
+            String.format("messages in/out=%s/%s", getReceivedMessages(), getSentMessages()),
+            String.format("field cache hits/prefix/misses/shared=%d/%d/%d/%d", getFieldCacheHits(), getFieldCachePrefixHits(), getFieldCacheMisses(), getSharedFieldCacheHits()),
+            String.format("field cache capacity=%s", _fieldCacheCapacity));
+    }
 }
@@ -25,12 +25,15 @@ import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
+import java.net.StandardSocketOptions;
 import java.nio.channels.Channel;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
 import java.util.EventListener;
+import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -41,6 +44,7 @@ import org.eclipse.jetty.io.EndPoint;
 import org.eclipse.jetty.io.ManagedSelector;
 import org.eclipse.jetty.io.SelectorManager;
 import org.eclipse.jetty.io.SocketChannelEndPoint;
+import org.eclipse.jetty.util.IO;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.annotation.Name;
@@ -83,6 +87,8 @@ public class ServerConnector extends AbstractNetworkConnector
     private volatile int _localPort = -1;
     private volatile int _acceptQueueSize = 0;
     private volatile boolean _reuseAddress = true;
+    private volatile boolean _reusePort = false;
+    private volatile ServerSocketChannel[] _reusePortChannels = new ServerSocketChannel[0];
 
     /**
      * <p>Construct a ServerConnector with a private instance of {@link HttpConnectionFactory} as the only factory.</p>
@@ -231,10 +237,28 @@ public class ServerConnector extends AbstractNetworkConnector
         if (getAcceptors() == 0)
         {
             _acceptChannel.configureBlocking(false);
-            _acceptor.set(_manager.acceptor(_acceptChannel));
+            _acceptor.set(newAcceptor());
         }
     }
 
+    private Closeable newAcceptor() throws IOException
+    {
+        ServerSocketChannel[] channels = _reusePortChannels;
+        if (channels.length == 0)
+            return _manager.acceptor(_acceptChannel);
+
+        // The SelectorManager registers acceptors round robin,
+        // so each selector accepts from its own listen socket.
+        List<Closeable> acceptors = new ArrayList<>(channels.length + 1);
+        acceptors.add(_manager.acceptor(_acceptChannel));
+        for (ServerSocketChannel channel : channels)
+        {
+            channel.configureBlocking(false);
+            acceptors.add(_manager.acceptor(channel));
+        }
+        return () -> acceptors.forEach(IO::close);
+    }
+
     @Override
     protected void doStop() throws Exception
     {
@@ -308,7 +332,45 @@ public class ServerConnector extends AbstractNetworkConnector
             if (_localPort <= 0)
                 throw new IOException("Server channel not bound");
             addBean(_acceptChannel);
+            openReusePortChannels();
+        }
+    }
+
+    /**
+     * <p>Opens the additional listen sockets bound with {@code SO_REUSEPORT} to the same
+     * address as the accept channel, one for each acceptor after the first or, if there are
+     * no acceptors, one for each selector after the first, so that the kernel load balances
+     * incoming connections across them.</p>
+     */
+    private void openReusePortChannels() throws IOException
+    {
+        if (!isReusePort() || !_acceptChannel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT))
+            return;
+        if (!_acceptChannel.getOption(StandardSocketOptions.SO_REUSEPORT))
+            return;
+
+        int count = (getAcceptors() > 0 ? getAcceptors() : _manager.getSelectorCount()) - 1;
+        InetSocketAddress bindAddress = getHost() == null ? new InetSocketAddress(_localPort) : new InetSocketAddress(getHost(), _localPort);
+        List<ServerSocketChannel> channels = new ArrayList<>(count);
+        try
+        {
+            for (int i = 0; i < count; i++)
+            {
+                ServerSocketChannel channel = ServerSocketChannel.open();
+                channels.add(channel);
+                channel.socket().setReuseAddress(getReuseAddress());
+                channel.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+                channel.socket().bind(bindAddress, getAcceptQueueSize());
+                channel.configureBlocking(true);
+            }
+        }
+        catch (IOException e)
+        {
+            LOG.warn("Failed to bind SO_REUSEPORT channel to " + bindAddress + ", using a single listen socket", e);
+            channels.forEach(IO::close);
+            return;
         }
+        _reusePortChannels = channels.toArray(new ServerSocketChannel[0]);
     }
 
     /**
@@ -335,6 +397,13 @@ public class ServerConnector extends AbstractNetworkConnector
 
             InetSocketAddress bindAddress = getHost() == null ? new InetSocketAddress(getPort()) : new InetSocketAddress(getHost(), getPort());
             serverChannel.socket().setReuseAddress(getReuseAddress());
+            if (isReusePort())
+            {
+                if (serverChannel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT))
+                    serverChannel.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+                else
+                    LOG.info("SO_REUSEPORT is not supported, using a single listen socket for {}", this);
+            }
             try
             {
                 serverChannel.socket().bind(bindAddress, getAcceptQueueSize());
@@ -353,6 +422,13 @@ public class ServerConnector extends AbstractNetworkConnector
     {
         super.close();
 
+        ServerSocketChannel[] channels = _reusePortChannels;
+        _reusePortChannels = new ServerSocketChannel[0];
+        for (ServerSocketChannel channel : channels)
+        {
+            IO.close(channel);
+        }
+
         ServerSocketChannel serverChannel = _acceptChannel;
         _acceptChannel = null;
         if (serverChannel != null)
@@ -377,7 +453,8 @@ public class ServerConnector extends AbstractNetworkConnector
     @Override
     public void accept(int acceptorID) throws IOException
     {
-        ServerSocketChannel serverChannel = _acceptChannel;
+        ServerSocketChannel[] channels = _reusePortChannels;
+        ServerSocketChannel serverChannel = acceptorID == 0 || channels.length == 0 ? _acceptChannel : channels[(acceptorID - 1) % channels.length];
         if (serverChannel != null && serverChannel.isOpen())
         {
             SocketChannel channel = serverChannel.accept();
@@ -466,6 +543,39 @@ public class ServerConnector extends AbstractNetworkConnector
         _reuseAddress = reuseAddress;
     }
 
+    /**
+     * @return whether the connector listens with a socket per acceptor (or per selector) bound with {@code SO_REUSEPORT}
+     */
+    @ManagedAttribute("Whether the connector listens with SO_REUSEPORT sockets")
+    public boolean isReusePort()
+    {
+        return _reusePort;
+    }
+
+    /**
+     * <p>Sets whether the connector binds a listen socket with {@code SO_REUSEPORT} for each
+     * acceptor thread or, if there are no acceptor threads, for each selector, so that the
+     * kernel load balances incoming connections across them rather than all acceptors
+     * contending on a single socket.</p>
+     * <p>Where {@code SO_REUSEPORT} is not supported, or the channel is inherited, the
+     * connector falls back to a single listen socket.</p>
+     *
+     * @param reusePort whether to listen with SO_REUSEPORT sockets
+     */
+    public void setReusePort(boolean reusePort)
+    {
+        _reusePort = reusePort;
+    }
+
+    /**
+     * @return the number of listen sockets of this connector
+     */
+    @ManagedAttribute("The number of listen sockets")
+    public int getListenSockets()
+    {
+        return _acceptChannel == null ? 0 : 1 + _reusePortChannels.length;
+    }
+
     @Override
     public void setAccepting(boolean accepting)
     {
@@ -479,7 +589,7 @@ public class ServerConnector extends AbstractNetworkConnector
             {
                 if (_acceptor.get() == null)
                 {
-                    Closeable acceptor = _manager.acceptor(_acceptChannel);
+                    Closeable acceptor = newAcceptor();
                     if (!_acceptor.compareAndSet(null, acceptor))
                         acceptor.close();
                 }
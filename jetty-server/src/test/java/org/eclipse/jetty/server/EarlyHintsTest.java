@@ -0,0 +1,130 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server;
+
+import java.io.IOException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+
+public class EarlyHintsTest
+{
+    private Server _server;
+    private LocalConnector _connector;
+
+    @BeforeEach
+    public void prepare() throws Exception
+    {
+        _server = new Server();
+        _connector = new LocalConnector(_server);
+        _server.addConnector(_connector);
+        _server.setHandler(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException
+            {
+                baseRequest.setHandled(true);
+                if (target.equals("/error"))
+                {
+                    response.addHeader("Link", "</style.css>; rel=preload; as=style");
+                    response.sendError(HttpStatus.EARLY_HINT_103);
+                }
+                else
+                {
+                    HttpFields fields = new HttpFields();
+                    fields.add("Link", "</style.css>; rel=preload; as=style");
+                    fields.add("Link", "</script.js>; rel=preload; as=script");
+                    baseRequest.getResponse().sendEarlyHints(fields);
+                }
+                response.setContentType("text/plain");
+                response.getWriter().print("OK");
+            }
+        });
+        _server.start();
+    }
+
+    @AfterEach
+    public void dispose() throws Exception
+    {
+        _server.stop();
+    }
+
+    private String getResponses(String request)
+    {
+        LocalConnector.LocalEndPoint endPoint = _connector.executeRequest(request);
+        endPoint.waitUntilClosed();
+        return endPoint.takeOutputString();
+    }
+
+    @Test
+    public void testEarlyHintsHTTP11() throws Exception
+    {
+        String response = getResponses(
+            "GET / HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Connection: close\r\n" +
+                "\r\n");
+
+        assertThat(response, startsWith("HTTP/1.1 103 Early Hints\r\n" +
+            "Link: </style.css>; rel=preload; as=style\r\n" +
+            "Link: </script.js>; rel=preload; as=script\r\n" +
+            "\r\n" +
+            "HTTP/1.1 200 OK\r\n"));
+        assertThat(response, containsString("\r\n\r\nOK"));
+    }
+
+    @Test
+    public void testEarlyHintsFromSendError() throws Exception
+    {
+        String response = getResponses(
+            "GET /error HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Connection: close\r\n" +
+                "\r\n");
+
+        assertThat(response, startsWith("HTTP/1.1 103 Early Hints\r\n" +
+            "Link: </style.css>; rel=preload; as=style\r\n" +
+            "\r\n" +
+            "HTTP/1.1 200 OK\r\n"));
+        // The Link header is also in the final response.
+        assertThat(response.substring(response.indexOf("200 OK")), containsString("Link: </style.css>"));
+    }
+
+    @Test
+    public void testNoEarlyHintsHTTP10() throws Exception
+    {
+        String response = getResponses(
+            "GET / HTTP/1.0\r\n" +
+                "\r\n");
+
+        assertThat(response, startsWith("HTTP/1.1 200 OK\r\n"));
+        assertThat(response, not(containsString("103")));
+    }
+}
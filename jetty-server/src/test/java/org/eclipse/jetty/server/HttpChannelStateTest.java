@@ -0,0 +1,233 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.server.HttpChannelState.Action;
+import org.eclipse.jetty.util.thread.Scheduler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpChannelStateTest
+{
+    private final AtomicInteger _handles = new AtomicInteger();
+    private HttpChannel _channel;
+    private ExecutorService _executor;
+
+    @BeforeEach
+    public void before()
+    {
+        _handles.set(0);
+        _channel = new HttpChannel(new MockConnector(), new HttpConfiguration(), null, null)
+        {
+            @Override
+            public void onAsyncWaitForContent()
+            {
+            }
+
+            @Override
+            public Scheduler getScheduler()
+            {
+                return null;
+            }
+
+            @Override
+            public boolean handle()
+            {
+                _handles.incrementAndGet();
+                return true;
+            }
+        };
+        _executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    public void after() throws Exception
+    {
+        _executor.shutdownNow();
+        _executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private HttpChannelState startAsync()
+    {
+        HttpChannelState state = new HttpChannelState(_channel);
+        assertEquals(Action.DISPATCH, state.handling());
+        Request request = _channel.getRequest();
+        state.startAsync(new AsyncContextEvent(null, new AsyncContextState(state), state, request, request, _channel.getResponse()));
+        return state;
+    }
+
+    @Test
+    public void testOutputTransitions()
+    {
+        HttpChannelState state = new HttpChannelState(_channel);
+        assertFalse(state.isResponseCommitted());
+        assertFalse(state.partialResponse());
+        assertTrue(state.commitResponse());
+        assertFalse(state.commitResponse());
+        assertTrue(state.isResponseCommitted());
+        assertTrue(state.partialResponse());
+        assertFalse(state.isResponseCommitted());
+        assertTrue(state.completeResponse());
+        assertTrue(state.isResponseCompleted());
+        assertFalse(state.completeResponse());
+        assertTrue(state.abortResponse());
+        assertFalse(state.abortResponse());
+        assertThat(state.getStatusString(), containsString("os=ABORTED"));
+
+        // The output state packed in the status must not disturb the other states
+        assertEquals(HttpChannelState.State.IDLE, state.getState());
+        assertTrue(state.isInitial());
+        assertFalse(state.isAsync());
+    }
+
+    @Test
+    public void testAsyncTransitions()
+    {
+        HttpChannelState state = startAsync();
+        assertTrue(state.isAsyncStarted());
+        assertTrue(state.isSuspended());
+
+        assertEquals(Action.WAIT, state.unhandle());
+        assertEquals(HttpChannelState.State.WAITING, state.getState());
+        assertFalse(state.isInitial());
+
+        assertTrue(state.onWritePossible());
+        assertEquals(HttpChannelState.State.WOKEN, state.getState());
+        assertFalse(state.onWritePossible());
+        assertEquals(Action.WRITE_CALLBACK, state.handling());
+
+        state.onReadUnready();
+        assertEquals(Action.READ_REGISTER, state.unhandle());
+        assertEquals(Action.WAIT, state.unhandle());
+        assertThrows(IllegalStateException.class, state::onReadReady);
+        assertTrue(state.onReadPossible());
+        assertEquals(Action.READ_PRODUCE, state.handling());
+        assertFalse(state.onContentAdded());
+        assertEquals(Action.READ_CALLBACK, state.unhandle());
+
+        state.complete();
+        assertEquals(0, _handles.get());
+        assertEquals(Action.COMPLETE, state.unhandle());
+        assertThat(state.getStatusString(), containsString("rs=COMPLETING"));
+    }
+
+    @Test
+    public void testConcurrentWakeups() throws Exception
+    {
+        for (int i = 0; i < 5000; i++)
+        {
+            HttpChannelState state = startAsync();
+            state.onReadUnready();
+
+            AtomicInteger wakes = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(2);
+            _executor.execute(() ->
+            {
+                await(start);
+                if (state.onWritePossible())
+                    wakes.incrementAndGet();
+                done.countDown();
+            });
+            _executor.execute(() ->
+            {
+                await(start);
+                if (state.onContentAdded())
+                    wakes.incrementAndGet();
+                done.countDown();
+            });
+            start.countDown();
+
+            // Every event must produce exactly one callback, whether it is seen
+            // by the handling thread or it wakes the waiting channel.
+            int reads = 0;
+            int writes = 0;
+            int handled = 0;
+            Action action = state.unhandle();
+            while (true)
+            {
+                switch (action)
+                {
+                    case READ_REGISTER:
+                        break;
+                    case READ_CALLBACK:
+                        reads++;
+                        break;
+                    case WRITE_CALLBACK:
+                        writes++;
+                        break;
+                    case WAIT:
+                        while (wakes.get() == handled && done.getCount() > 0)
+                        {
+                            Thread.yield();
+                        }
+                        break;
+                    default:
+                        throw new IllegalStateException(action.toString());
+                }
+
+                if (action != Action.WAIT)
+                {
+                    action = state.unhandle();
+                }
+                else if (wakes.get() > handled)
+                {
+                    handled++;
+                    action = state.handling();
+                }
+                else
+                {
+                    break;
+                }
+            }
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(handled, wakes.get(), state.toString());
+            assertEquals(1, reads, state.toString());
+            assertEquals(1, writes, state.toString());
+            assertEquals(HttpChannelState.State.WAITING, state.getState());
+        }
+    }
+
+    private static void await(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException x)
+        {
+            throw new RuntimeException(x);
+        }
+    }
+}
@@ -102,6 +102,29 @@ public class HttpConnectionTest
         server.join();
     }
 
+    @Test
+    public void testHeaderFieldCacheStatistics() throws Exception
+    {
+        ServerConnectionStatistics statistics = new ServerConnectionStatistics();
+        connector.addBean(statistics);
+        statistics.start();
+
+        String request = "GET / HTTP/1.1\r\n" +
+            "Host: localhost\r\n" +
+            "User-Agent: StatisticsAgent/1.0\r\n" +
+            "\r\n";
+        LocalEndPoint endp = connector.executeRequest(request + request + request +
+            "GET / HTTP/1.1\r\n" +
+            "Host: localhost\r\n" +
+            "Connection: close\r\n" +
+            "\r\n");
+        endp.waitUntilClosed();
+
+        assertThat(statistics.getFieldCacheMisses(), is(2L));
+        assertThat(statistics.getFieldCacheHits(), is(5L));
+        assertThat(statistics.getFieldCacheCapacityMax(), is((long)Math.min(256, new HttpConfiguration().getHeaderCacheSize())));
+    }
+
     @Test
     public void testFragmentedChunk() throws Exception
     {
@@ -0,0 +1,199 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.http.tools.HttpTester;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Callback;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+public class HttpInputPublisherTest
+{
+    private Server server;
+    private ServerConnector connector;
+
+    @BeforeEach
+    public void startServer()
+    {
+        server = new Server();
+        connector = new ServerConnector(server);
+        connector.setIdleTimeout(10000);
+        server.addConnector(connector);
+    }
+
+    @AfterEach
+    public void stopServer() throws Exception
+    {
+        server.stop();
+        server.join();
+    }
+
+    @Test
+    public void testEcho() throws Exception
+    {
+        server.setHandler(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response)
+            {
+                baseRequest.setHandled(true);
+                AsyncContext async = request.startAsync();
+                HttpOutputSubscriber subscriber = new HttpOutputSubscriber(baseRequest.getResponse().getHttpOutput(),
+                    Callback.from(async::complete, x -> async.complete()));
+                new HttpInputPublisher(baseRequest.getHttpInput()).subscribe(subscriber);
+            }
+        });
+        server.start();
+
+        byte[] content = new byte[1024 * 1024];
+        for (int i = 0; i < content.length; i++)
+        {
+            content[i] = (byte)('A' + i % 26);
+        }
+
+        try (Socket socket = new Socket("localhost", connector.getLocalPort()))
+        {
+            socket.setSoTimeout(10000);
+            CompletableFuture<Void> sent = CompletableFuture.runAsync(() ->
+            {
+                try
+                {
+                    OutputStream out = socket.getOutputStream();
+                    out.write(("POST / HTTP/1.1\r\n" +
+                        "Host: localhost\r\n" +
+                        "Content-Length: " + content.length + "\r\n" +
+                        "Connection: close\r\n" +
+                        "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+                    for (int i = 0; i < content.length; i += 64 * 1024)
+                    {
+                        out.write(content, i, 64 * 1024);
+                        out.flush();
+                    }
+                }
+                catch (IOException x)
+                {
+                    throw new RuntimeException(x);
+                }
+            });
+
+            HttpTester.Response response = HttpTester.parseResponse(socket.getInputStream());
+            sent.get(5, TimeUnit.SECONDS);
+            assertThat(response.getStatus(), is(200));
+            assertArrayEquals(content, response.getContentBytes());
+        }
+    }
+
+    @Test
+    public void testDemandFromOtherThread() throws Exception
+    {
+        server.setHandler(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response)
+            {
+                baseRequest.setHandled(true);
+                AsyncContext async = request.startAsync();
+                new HttpInputPublisher(baseRequest.getHttpInput()).subscribe(new Flow.Subscriber<>()
+                {
+                    private final ByteArrayOutputStream _received = new ByteArrayOutputStream();
+                    private Flow.Subscription _subscription;
+
+                    @Override
+                    public void onSubscribe(Flow.Subscription subscription)
+                    {
+                        _subscription = subscription;
+                        subscription.request(1);
+                    }
+
+                    @Override
+                    public void onNext(ByteBuffer item)
+                    {
+                        _received.writeBytes(BufferUtil.toArray(item));
+                        CompletableFuture.runAsync(() -> _subscription.request(1));
+                    }
+
+                    @Override
+                    public void onError(Throwable failure)
+                    {
+                        response.setStatus(500);
+                        async.complete();
+                    }
+
+                    @Override
+                    public void onComplete()
+                    {
+                        try
+                        {
+                            response.getOutputStream().write(_received.toByteArray());
+                        }
+                        catch (IOException x)
+                        {
+                            response.setStatus(500);
+                        }
+                        async.complete();
+                    }
+                });
+            }
+        });
+        server.start();
+
+        try (Socket socket = new Socket("localhost", connector.getLocalPort()))
+        {
+            socket.setSoTimeout(10000);
+            OutputStream out = socket.getOutputStream();
+            out.write(("POST / HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Transfer-Encoding: chunked\r\n" +
+                "Connection: close\r\n" +
+                "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+            for (String chunk : new String[]{"Hello", " reactive", " world"})
+            {
+                out.write((Integer.toHexString(chunk.length()) + "\r\n" + chunk + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+                out.flush();
+                Thread.sleep(100);
+            }
+            out.write("0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+
+            HttpTester.Response response = HttpTester.parseResponse(socket.getInputStream());
+            assertThat(response.getStatus(), is(200));
+            assertThat(response.getContent(), is("Hello reactive world"));
+        }
+    }
+}
@@ -20,6 +20,8 @@ package org.eclipse.jetty.server;
 
 import java.io.EOFException;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeoutException;
@@ -215,6 +217,58 @@ public class HttpInputTest
         assertThat(_history.poll(), nullValue());
     }
 
+    @Test
+    public void testReadContent() throws Exception
+    {
+        _in.addContent(new TContent("AB"));
+        _in.addContent(new TContent("CD"));
+        _in.addContent(new TContent("EF"));
+        _in.eof();
+
+        List<HttpInput.Content> chunks = new ArrayList<>();
+        assertThat(_in.readContent(chunks), equalTo(6L));
+        assertThat(chunks.size(), equalTo(3));
+        assertThat(BufferUtil.toString(chunks.get(2).getByteBuffer()), equalTo("EF"));
+        assertThat(_in.getContentConsumed(), equalTo(6L));
+        assertThat(_in.isFinished(), equalTo(false));
+        assertThat(_history.poll(), nullValue());
+
+        chunks.forEach(HttpInput.Content::succeeded);
+        assertThat(_history.poll(), equalTo("Content succeeded AB"));
+        assertThat(_history.poll(), equalTo("Content succeeded CD"));
+        assertThat(_history.poll(), equalTo("Content succeeded EF"));
+        assertThat(_history.poll(), nullValue());
+
+        chunks.clear();
+        assertThat(_in.readContent(chunks), equalTo(-1L));
+        assertTrue(chunks.isEmpty());
+        assertThat(_in.isFinished(), equalTo(true));
+        assertThat(_history.poll(), nullValue());
+    }
+
+    @Test
+    public void testReadContentAfterRead() throws Exception
+    {
+        _in.addContent(new TContent("AB"));
+        _fillAndParseSimulate.offer("CD");
+
+        assertThat(_in.read(), equalTo((int)'A'));
+        List<HttpInput.Content> chunks = new ArrayList<>();
+        assertThat(_in.readContent(chunks), equalTo(1L));
+        assertThat(BufferUtil.toString(chunks.get(0).getByteBuffer()), equalTo("B"));
+        chunks.get(0).succeeded();
+        assertThat(_history.poll(), equalTo("Content succeeded AB"));
+
+        chunks.clear();
+        assertThat(_in.readContent(chunks), equalTo(2L));
+        assertThat(_history.poll(), equalTo("produceContent 1"));
+        assertThat(BufferUtil.toString(chunks.get(0).getByteBuffer()), equalTo("CD"));
+        chunks.get(0).succeeded();
+        assertThat(_history.poll(), equalTo("Content succeeded CD"));
+        assertThat(_in.getContentConsumed(), equalTo(4L));
+        assertThat(_history.poll(), nullValue());
+    }
+
     @Test
     public void testBlockingRead() throws Exception
     {
@@ -161,6 +161,19 @@ public class ProxyConnectionTest
         assertNull(response);
     }
 
+    @Test
+    public void testUnknown() throws Exception
+    {
+        String response = _connector.getResponse("PROXY UNKNOWN\r\n" +
+            "GET /path HTTP/1.1\n" +
+            "Host: server:80\n" +
+            "Connection: close\n" +
+            "\n");
+
+        assertThat(response, Matchers.containsString("HTTP/1.1 200"));
+        assertThat(response, Matchers.containsString("pathInfo=/path"));
+    }
+
     @Test
     public void testHTTP() throws Exception
     {
@@ -24,16 +24,26 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.net.Socket;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.eclipse.jetty.io.AbstractConnection;
+import org.eclipse.jetty.io.Connection;
+import org.eclipse.jetty.io.EndPoint;
 import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.TypeUtil;
+import org.eclipse.jetty.util.log.StacklessLogging;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ProxyProtocolTest
@@ -44,7 +54,9 @@ public class ProxyProtocolTest
     private void start(Handler handler) throws Exception
     {
         server = new Server();
-        connector = new ServerConnector(server, new ProxyConnectionFactory(), new HttpConnectionFactory());
+        HttpConnectionFactory http = new HttpConnectionFactory();
+        http.getHttpConfiguration().addCustomizer(new ProxyCustomizer());
+        connector = new ServerConnector(server, new ProxyConnectionFactory(), http);
         server.addConnector(connector);
         server.setHandler(handler);
         server.start();
@@ -193,4 +205,265 @@ public class ProxyProtocolTest
             }
         }
     }
+
+    @Test
+    public void testProxyProtocolV2TLVs() throws Exception
+    {
+        start(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException
+            {
+                baseRequest.setHandled(true);
+                response.setHeader("X-Remote", request.getRemoteAddr() + ":" + request.getRemotePort());
+                response.setHeader("X-Proxy", request.getAttribute(ProxyCustomizer.REMOTE_ADDRESS_ATTRIBUTE_NAME) + ":" + request.getAttribute(ProxyCustomizer.LOCAL_PORT_ATTRIBUTE_NAME));
+                response.setHeader("X-ALPN", (String)request.getAttribute(ProxyCustomizer.ALPN_ATTRIBUTE_NAME));
+                response.setHeader("X-Authority", (String)request.getAttribute(ProxyCustomizer.AUTHORITY_ATTRIBUTE_NAME));
+                response.setHeader("X-Unique-Id", TypeUtil.toHexString((byte[])request.getAttribute(ProxyCustomizer.UNIQUE_ID_ATTRIBUTE_NAME)));
+                response.setHeader("X-TLS", request.getAttribute(ProxyCustomizer.TLS_VERSION_ATTRIBUTE_NAME) + " " + request.getAttribute("javax.servlet.request.cipher_suite"));
+                response.setHeader("X-Secure", request.getScheme() + " " + request.isSecure());
+            }
+        });
+
+        ByteBuffer tlvs = ByteBuffer.allocate(256);
+        putTLV(tlvs, 0x01, "h2".getBytes(StandardCharsets.US_ASCII));
+        putTLV(tlvs, 0x02, "example.com".getBytes(StandardCharsets.US_ASCII));
+        putTLV(tlvs, 0x05, TypeUtil.fromHexString("DEADBEEF"));
+        ByteBuffer ssl = ByteBuffer.allocate(64);
+        // PP2_CLIENT_SSL, verified.
+        ssl.put((byte)0x01).putInt(0);
+        putTLV(ssl, 0x21, "TLSv1.3".getBytes(StandardCharsets.US_ASCII));
+        putTLV(ssl, 0x23, "TLS_AES_128_GCM_SHA256".getBytes(StandardCharsets.US_ASCII));
+        ssl.flip();
+        putTLV(tlvs, 0x20, BufferUtil.toArray(ssl));
+        tlvs.flip();
+
+        ByteBuffer header = ByteBuffer.allocate(512);
+        header.put(TypeUtil.fromHexString("0D0A0D0A000D0A515549540A"));
+        // V2, PROXY, AF_INET, STREAM.
+        header.put((byte)0x21).put((byte)0x11);
+        header.putShort((short)(12 + tlvs.remaining()));
+        header.put(TypeUtil.fromHexString("C0A80001" + "7f000001" + "3039" + "1F90"));
+        header.put(tlvs);
+        header.flip();
+
+        try (Socket socket = new Socket("localhost", connector.getLocalPort()))
+        {
+            String request =
+                "GET / HTTP/1.1\r\n" +
+                    "Host: localhost\r\n" +
+                    "Connection: close\r\n" +
+                    "\r\n";
+            // Write the PROXY header and the request together, so that
+            // the request bytes are read along with the PROXY header.
+            byte[] headerBytes = BufferUtil.toArray(header);
+            byte[] requestBytes = request.getBytes(StandardCharsets.UTF_8);
+            byte[] bytes = Arrays.copyOf(headerBytes, headerBytes.length + requestBytes.length);
+            System.arraycopy(requestBytes, 0, bytes, headerBytes.length, requestBytes.length);
+            OutputStream output = socket.getOutputStream();
+            output.write(bytes);
+            output.flush();
+
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            assertTrue(reader.readLine().startsWith("HTTP/1.1 200 "));
+            String line;
+            int headers = 0;
+            while ((line = reader.readLine()) != null && !line.isEmpty())
+            {
+                if (line.startsWith("X-"))
+                {
+                    ++headers;
+                    String name = line.substring(0, line.indexOf(':'));
+                    String value = line.substring(name.length() + 2);
+                    switch (name)
+                    {
+                        case "X-Remote":
+                            assertEquals("192.168.0.1:12345", value);
+                            break;
+                        case "X-Proxy":
+                            assertEquals("127.0.0.1:" + connector.getLocalPort(), value);
+                            break;
+                        case "X-ALPN":
+                            assertEquals("h2", value);
+                            break;
+                        case "X-Authority":
+                            assertEquals("example.com", value);
+                            break;
+                        case "X-Unique-Id":
+                            assertEquals("deadbeef", value.toLowerCase());
+                            break;
+                        case "X-TLS":
+                            assertEquals("TLSv1.3 TLS_AES_128_GCM_SHA256", value);
+                            break;
+                        case "X-Secure":
+                            assertEquals("https true", value);
+                            break;
+                        default:
+                            break;
+                    }
+                }
+            }
+            assertEquals(7, headers);
+        }
+    }
+
+    @Test
+    public void testProxyProtocolV1Fragmented() throws Exception
+    {
+        start(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException
+            {
+                baseRequest.setHandled(true);
+                response.setHeader("X-Remote", request.getRemoteAddr() + ":" + request.getRemotePort());
+            }
+        });
+
+        try (Socket socket = new Socket("localhost", connector.getLocalPort()))
+        {
+            OutputStream output = socket.getOutputStream();
+            output.write("PROXY TCP4 10.0.0.1 1".getBytes(StandardCharsets.US_ASCII));
+            output.flush();
+            Thread.sleep(100);
+            output.write("27.0.0.1 4321 8080\r".getBytes(StandardCharsets.US_ASCII));
+            output.flush();
+            Thread.sleep(100);
+            output.write(("\nGET / HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Connection: close\r\n" +
+                "\r\n").getBytes(StandardCharsets.US_ASCII));
+            output.flush();
+
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            assertTrue(reader.readLine().startsWith("HTTP/1.1 200 "));
+            String line;
+            String remote = null;
+            while ((line = reader.readLine()) != null && !line.isEmpty())
+            {
+                if (line.startsWith("X-Remote: "))
+                    remote = line.substring("X-Remote: ".length());
+            }
+            assertEquals("10.0.0.1:4321", remote);
+        }
+    }
+
+    @Test
+    public void testProxyProtocolV1BytesAfterHeader() throws Exception
+    {
+        server = new Server();
+        connector = new ServerConnector(server, new ProxyConnectionFactory("echo"), new EchoConnectionFactory());
+        server.addConnector(connector);
+        server.start();
+
+        try (Socket socket = new Socket("localhost", connector.getLocalPort()))
+        {
+            // The bytes read after the PROXY line are passed to the next connection.
+            OutputStream output = socket.getOutputStream();
+            output.write("PROXY TCP4 10.0.0.1 127.0.0.1 4321 8080\r\nhello\n".getBytes(StandardCharsets.US_ASCII));
+            output.flush();
+
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            assertEquals("hello", reader.readLine());
+        }
+    }
+
+    @Test
+    public void testProxyProtocolV2HeaderTooLong() throws Exception
+    {
+        start(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response)
+            {
+                baseRequest.setHandled(true);
+            }
+        });
+        ProxyConnectionFactory proxy = connector.getConnectionFactory(ProxyConnectionFactory.class);
+        proxy.setMaxProxyHeader(16);
+
+        try (StacklessLogging stackless = new StacklessLogging(ProxyConnectionFactory.class);
+             Socket socket = new Socket("localhost", connector.getLocalPort()))
+        {
+            ByteBuffer header = ByteBuffer.allocate(64);
+            header.put(TypeUtil.fromHexString("0D0A0D0A000D0A515549540A"));
+            // V2, PROXY, AF_INET, STREAM, with a 2 bytes NOOP TLV.
+            header.put((byte)0x21).put((byte)0x11);
+            header.putShort((short)17);
+            header.put(TypeUtil.fromHexString("C0A80001" + "7f000001" + "3039" + "1F90" + "040002" + "0000"));
+            header.flip();
+            OutputStream output = socket.getOutputStream();
+            output.write(BufferUtil.toArray(header));
+            output.flush();
+
+            assertEquals(-1, socket.getInputStream().read());
+        }
+    }
+
+    private static class EchoConnectionFactory extends AbstractConnectionFactory
+    {
+        private EchoConnectionFactory()
+        {
+            super("echo");
+        }
+
+        @Override
+        public Connection newConnection(Connector connector, EndPoint endPoint)
+        {
+            return configure(new EchoConnection(endPoint, connector.getExecutor()), connector, endPoint);
+        }
+    }
+
+    private static class EchoConnection extends AbstractConnection implements Connection.UpgradeTo
+    {
+        private final ByteBuffer _buffer = BufferUtil.allocate(1024);
+
+        private EchoConnection(EndPoint endPoint, Executor executor)
+        {
+            super(endPoint, executor);
+        }
+
+        @Override
+        public void onUpgradeTo(ByteBuffer prefilled)
+        {
+            BufferUtil.append(_buffer, prefilled);
+        }
+
+        @Override
+        public void onOpen()
+        {
+            super.onOpen();
+            if (_buffer.hasRemaining())
+                getEndPoint().write(Callback.from(this::fillInterested, x -> close()), _buffer);
+            else
+                fillInterested();
+        }
+
+        @Override
+        public void onFillable()
+        {
+            try
+            {
+                BufferUtil.clear(_buffer);
+                int filled = getEndPoint().fill(_buffer);
+                if (filled < 0)
+                    close();
+                else if (filled == 0)
+                    fillInterested();
+                else
+                    getEndPoint().write(Callback.from(this::fillInterested, x -> close()), _buffer);
+            }
+            catch (IOException x)
+            {
+                close();
+            }
+        }
+    }
+
+    private static void putTLV(ByteBuffer buffer, int type, byte[] value)
+    {
+        buffer.put((byte)type);
+        buffer.putShort((short)value.length);
+        buffer.put(value);
+    }
 }
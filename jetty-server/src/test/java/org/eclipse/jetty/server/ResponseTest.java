@@ -30,6 +30,7 @@ import java.net.URLEncoder;
 import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.Iterator;
@@ -51,6 +52,7 @@ import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpURI;
 import org.eclipse.jetty.http.HttpVersion;
 import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http.PreEncodedHttpFields;
 import org.eclipse.jetty.io.AbstractEndPoint;
 import org.eclipse.jetty.io.ByteArrayEndPoint;
 import org.eclipse.jetty.server.handler.AbstractHandler;
@@ -328,6 +330,33 @@ public class ResponseTest
         assertEquals("utf-8", response.getCharacterEncoding());
     }
 
+    @Test
+    public void testHeadersTemplate() throws Exception
+    {
+        PreEncodedHttpFields template = new PreEncodedHttpFields(
+            new HttpField(HttpHeader.CONTENT_TYPE, "text/html"),
+            new HttpField(HttpHeader.CACHE_CONTROL, "no-cache"),
+            new HttpField("X-Frame-Options", "DENY"));
+
+        Response response = getResponse();
+        response.setHeader("Cache-Control", "max-age=60");
+        response.setHeaders(template);
+        assertEquals("text/html", response.getContentType());
+        assertEquals(1, response.getHeaders("Content-Type").size());
+        assertEquals(Collections.singletonList("no-cache"), response.getHeaders("Cache-Control"));
+        assertEquals("DENY", response.getHeader("X-Frame-Options"));
+
+        // The character encoding changes the content type, so the template is added field by field.
+        response.recycle();
+        response.setCharacterEncoding("utf-8");
+        response.addHeader("Cache-Control", "private");
+        response.addHeaders(template);
+        assertEquals("text/html;charset=utf-8", response.getContentType());
+        assertEquals(Collections.singletonList("text/html;charset=utf-8"), response.getHeaders("Content-Type"));
+        assertEquals(Arrays.asList("private", "no-cache"), response.getHeaders("Cache-Control"));
+        assertEquals("DENY", response.getHeader("X-Frame-Options"));
+    }
+
     @Test
     public void testStrangeContentType() throws Exception
     {
@@ -27,6 +27,7 @@ import java.net.HttpURLConnection;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.StandardSocketOptions;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.channels.ServerSocketChannel;
@@ -46,6 +47,8 @@ import org.eclipse.jetty.util.IO;
 import org.eclipse.jetty.util.log.StacklessLogging;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.anyOf;
@@ -58,6 +61,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 public class ServerConnectorTest
 {
@@ -225,6 +229,40 @@ public class ServerConnectorTest
         }
     }
 
+    @ParameterizedTest
+    @ValueSource(ints = {0, 2})
+    public void testReusePort(int acceptors) throws Exception
+    {
+        try (ServerSocketChannel channel = ServerSocketChannel.open())
+        {
+            assumeTrue(channel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT));
+        }
+
+        Server server = new Server();
+        ServerConnector connector = new ServerConnector(server, acceptors, 2);
+        connector.setPort(0);
+        connector.setReusePort(true);
+        server.addConnector(connector);
+        server.setHandler(new ReuseInfoHandler());
+
+        try
+        {
+            server.start();
+            assertEquals(2, connector.getListenSockets());
+
+            URI uri = toServerURI(connector);
+            for (int i = 0; i < 20; i++)
+            {
+                assertThat(getResponse(uri), containsString("socket.getReuseAddress() = true"));
+            }
+        }
+        finally
+        {
+            server.stop();
+        }
+        assertEquals(0, connector.getListenSockets());
+    }
+
     @Test
     public void testAddFirstConnectionFactory() throws Exception
     {
@@ -25,14 +25,15 @@ import java.util.Collections;
 import java.util.EnumSet;
 import java.util.EventListener;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Stream;
 import javax.servlet.DispatcherType;
 import javax.servlet.Filter;
@@ -52,6 +53,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.eclipse.jetty.http.pathmap.MappedResource;
 import org.eclipse.jetty.http.pathmap.PathMappings;
 import org.eclipse.jetty.http.pathmap.PathSpec;
+import org.eclipse.jetty.http.pathmap.PathSpecGroup;
 import org.eclipse.jetty.http.pathmap.ServletPathSpec;
 import org.eclipse.jetty.security.IdentityService;
 import org.eclipse.jetty.security.SecurityHandler;
@@ -68,6 +70,7 @@ import org.eclipse.jetty.util.MultiMap;
 import org.eclipse.jetty.util.URIUtil;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.component.DumpableCollection;
 import org.eclipse.jetty.util.component.LifeCycle;
 import org.eclipse.jetty.util.log.Log;
@@ -101,6 +104,7 @@ public class ServletHandler extends ScopedHandler
     private int _matchAfterIndex = -1;  //index of 1st programmatic FilterMapping with isMatchAfter=true
     private boolean _filterChainsCached = true;
     private int _maxFilterChainsCacheSize = 512;
+    private boolean _precomputeFilterChains = false;
     private boolean _startWithUnavailable = false;
     private boolean _ensureDefaultServlet = true;
     private IdentityService _identityService;
@@ -118,12 +122,23 @@ public class ServletHandler extends ScopedHandler
     private ListenerHolder[] _listeners = new ListenerHolder[0];
     private boolean _initialized = false;
 
+    // The chains of the paths of exact servlet mappings and of the named dispatches.
     @SuppressWarnings("unchecked")
     protected final ConcurrentMap<String, FilterChain>[] _chainCache = new ConcurrentMap[FilterMapping.ALL];
 
+    /**
+     * @deprecated no longer used, the filter chains are not evicted in FIFO order
+     */
+    @Deprecated
     @SuppressWarnings("unchecked")
     protected final Queue<String>[] _chainLRU = new Queue[FilterMapping.ALL];
 
+    // The chains shared by the paths mapped to the same servlet and filters.
+    @SuppressWarnings("unchecked")
+    private final ConcurrentMap<ChainKey, CachedChain>[] _sharedChains = new ConcurrentMap[FilterMapping.ALL];
+    private final LongAdder _chainCacheHits = new LongAdder();
+    private final LongAdder _chainCacheMisses = new LongAdder();
+
     /**
      * Constructor.
      */
@@ -177,11 +192,11 @@ public class ServletHandler extends ScopedHandler
             _chainCache[FilterMapping.ERROR] = new ConcurrentHashMap<>();
             _chainCache[FilterMapping.ASYNC] = new ConcurrentHashMap<>();
 
-            _chainLRU[FilterMapping.REQUEST] = new ConcurrentLinkedQueue<>();
-            _chainLRU[FilterMapping.FORWARD] = new ConcurrentLinkedQueue<>();
-            _chainLRU[FilterMapping.INCLUDE] = new ConcurrentLinkedQueue<>();
-            _chainLRU[FilterMapping.ERROR] = new ConcurrentLinkedQueue<>();
-            _chainLRU[FilterMapping.ASYNC] = new ConcurrentLinkedQueue<>();
+            _sharedChains[FilterMapping.REQUEST] = new ConcurrentHashMap<>();
+            _sharedChains[FilterMapping.FORWARD] = new ConcurrentHashMap<>();
+            _sharedChains[FilterMapping.INCLUDE] = new ConcurrentHashMap<>();
+            _sharedChains[FilterMapping.ERROR] = new ConcurrentHashMap<>();
+            _sharedChains[FilterMapping.ASYNC] = new ConcurrentHashMap<>();
         }
 
         if (_contextHandler == null)
@@ -566,25 +581,143 @@ public class ServletHandler extends ScopedHandler
 
     protected FilterChain getFilterChain(Request baseRequest, String pathInContext, ServletHolder servletHolder)
     {
-        String key = pathInContext == null ? servletHolder.getName() : pathInContext;
         int dispatch = FilterMapping.dispatch(baseRequest.getDispatcherType());
 
-        if (_filterChainsCached && _chainCache != null)
+        if (_filterChainsCached && _chainCache[dispatch] != null)
         {
-            FilterChain chain = _chainCache[dispatch].get(key);
+            PathSpec pathSpec = baseRequest.getPathSpec();
+            boolean exact = pathInContext == null || pathSpec != null && pathSpec.getGroup() == PathSpecGroup.EXACT;
+            return getCachedFilterChain(dispatch, pathInContext, servletHolder, exact);
+        }
+
+        List<FilterHolder> filters = getFilters(dispatch, pathInContext, _filterPathMappings, null, servletHolder);
+        if (filters.isEmpty())
+            return null;
+        return new Chain(baseRequest, filters, servletHolder);
+    }
+
+    /**
+     * <p>Gets the filter chain of a path from the cache.</p>
+     * <p>The chains are shared by the paths mapped to the same servlet and filter mappings,
+     * which are computed only once per combination.
+     * The chains of the paths of exact servlet mappings and of the named dispatches,
+     * which are few, are also cached by path, to avoid matching the filter mappings.</p>
+     *
+     * @param dispatch the dispatch type
+     * @param pathInContext the path, or null for a named dispatch
+     * @param servletHolder the servlet
+     * @param exact whether the path is the path of an exact servlet mapping
+     * @return the cached filter chain, or null if no filter applies
+     */
+    private FilterChain getCachedFilterChain(int dispatch, String pathInContext, ServletHolder servletHolder, boolean exact)
+    {
+        String path = null;
+        ConcurrentMap<String, FilterChain> cache = null;
+        if (exact)
+        {
+            path = pathInContext == null ? servletHolder.getName() : pathInContext;
+            cache = _chainCache[dispatch];
+            FilterChain chain = cache.get(path);
             if (chain != null)
-                return chain;
+            {
+                _chainCacheHits.increment();
+                return ((CachedChain)chain)._filterHolder == null ? null : chain;
+            }
         }
 
+        CachedChain chain = getSharedFilterChain(dispatch, pathInContext, servletHolder);
+        // Chains without filters are cached too, to avoid computing them again.
+        if (cache != null)
+            cache.put(path, chain);
+        return chain._filterHolder == null ? null : chain;
+    }
+
+    private CachedChain getSharedFilterChain(int dispatch, String pathInContext, ServletHolder servletHolder)
+    {
+        long[] pathFilters = null;
+        List<FilterMapping> filterPathMappings = _filterPathMappings;
+        if (pathInContext != null && filterPathMappings != null)
+        {
+            for (int i = 0; i < filterPathMappings.size(); i++)
+            {
+                if (filterPathMappings.get(i).appliesTo(pathInContext, dispatch))
+                {
+                    if (pathFilters == null)
+                        pathFilters = new long[(filterPathMappings.size() + 63) >> 6];
+                    pathFilters[i >> 6] |= 1L << i;
+                }
+            }
+        }
+
+        ChainKey key = new ChainKey(servletHolder, pathFilters);
+        ConcurrentMap<ChainKey, CachedChain> sharedChains = _sharedChains[dispatch];
+        CachedChain chain = sharedChains.get(key);
+        if (chain != null)
+        {
+            _chainCacheHits.increment();
+            if (!chain._referenced)
+                chain._referenced = true;
+            return chain;
+        }
+
+        _chainCacheMisses.increment();
+        List<FilterHolder> filters = getFilters(dispatch, pathInContext, filterPathMappings, pathFilters, servletHolder);
+        chain = newCachedChain(filters, servletHolder);
+        if (_maxFilterChainsCacheSize > 0 && sharedChains.size() >= _maxFilterChainsCacheSize)
+            evictFilterChain(sharedChains);
+        CachedChain existing = sharedChains.putIfAbsent(key, chain);
+        return existing == null ? chain : existing;
+    }
+
+    /**
+     * <p>Evicts a chain that has not been used since it was last passed over,
+     * giving a second chance to the chains that have (CLOCK eviction).</p>
+     *
+     * @param sharedChains the chains to evict from
+     */
+    private static void evictFilterChain(ConcurrentMap<ChainKey, CachedChain> sharedChains)
+    {
+        for (int pass = 0; pass < 2; pass++)
+        {
+            for (Iterator<CachedChain> i = sharedChains.values().iterator(); i.hasNext(); )
+            {
+                CachedChain chain = i.next();
+                if (chain._referenced)
+                {
+                    chain._referenced = false;
+                }
+                else
+                {
+                    i.remove();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param dispatch the dispatch type
+     * @param pathInContext the path, or null for a named dispatch
+     * @param filterPathMappings the path filter mappings
+     * @param pathFilters the bitmap of the path filter mappings that apply, or null to match them
+     * @param servletHolder the servlet
+     * @return the filters that apply, in order
+     */
+    private List<FilterHolder> getFilters(int dispatch, String pathInContext, List<FilterMapping> filterPathMappings, long[] pathFilters, ServletHolder servletHolder)
+    {
         // Build list of filters (list of FilterHolder objects)
         List<FilterHolder> filters = new ArrayList<>();
 
         // Path filters
-        if (pathInContext != null && _filterPathMappings != null)
+        if (pathInContext != null && filterPathMappings != null)
         {
-            for (FilterMapping filterPathMapping : _filterPathMappings)
+            for (int i = 0; i < filterPathMappings.size(); i++)
             {
-                if (filterPathMapping.appliesTo(pathInContext, dispatch))
+                FilterMapping filterPathMapping = filterPathMappings.get(i);
+                boolean applies = pathFilters == null
+                    ? filterPathMapping.appliesTo(pathInContext, dispatch)
+                    : (pathFilters[i >> 6] & (1L << i)) != 0;
+                if (applies)
                     filters.add(filterPathMapping.getFilterHolder());
             }
         }
@@ -610,57 +743,73 @@ public class ServletHandler extends ScopedHandler
             }
         }
 
-        if (filters.isEmpty())
-            return null;
-
-        FilterChain chain = null;
-        if (_filterChainsCached)
-        {
-            if (!filters.isEmpty())
-                chain = newCachedChain(filters, servletHolder);
+        return filters;
+    }
 
-            final Map<String, FilterChain> cache = _chainCache[dispatch];
-            final Queue<String> lru = _chainLRU[dispatch];
+    /**
+     * <p>Computes and caches the {@code REQUEST} filter chains of the mapped servlets,
+     * for a path matching each of their mappings.</p>
+     */
+    protected void precomputeFilterChains()
+    {
+        if (!_filterChainsCached || _chainCache[FilterMapping.REQUEST] == null || _servletMappings == null)
+            return;
+        if (_filterMappings == null || _filterMappings.length == 0)
+            return;
 
-            // Do we have too many cached chains?
-            while (_maxFilterChainsCacheSize > 0 && cache.size() >= _maxFilterChainsCacheSize)
+        for (ServletMapping mapping : _servletMappings)
+        {
+            String[] pathSpecs = mapping.getPathSpecs();
+            if (pathSpecs == null)
+                continue;
+            for (String pathSpec : pathSpecs)
             {
-                // The LRU list is not atomic with the cache map, so be prepared to invalidate if
-                // a key is not found to delete.
-                // Delete by LRU (where U==created)
-                String k = lru.poll();
-                if (k == null)
-                {
-                    cache.clear();
-                    break;
-                }
-                cache.remove(k);
+                String path = getSamplePath(new ServletPathSpec(pathSpec));
+                if (path == null)
+                    continue;
+                MappedResource<ServletHolder> mapped = getMappedServlet(path);
+                if (mapped != null && mapped.getResource().getName().equals(mapping.getServletName()))
+                    getCachedFilterChain(FilterMapping.REQUEST, path, mapped.getResource(), mapped.getPathSpec().getGroup() == PathSpecGroup.EXACT);
             }
-
-            cache.put(key, chain);
-            lru.add(key);
         }
-        else if (!filters.isEmpty())
-            chain = new Chain(baseRequest, filters, servletHolder);
 
-        return chain;
+        if (LOG.isDebugEnabled())
+            LOG.debug("Precomputed {} filter chains for {}", _sharedChains[FilterMapping.REQUEST].size(), this);
     }
 
-    protected void invalidateChainsCache()
+    private static String getSamplePath(ServletPathSpec pathSpec)
     {
-        if (_chainLRU[FilterMapping.REQUEST] != null)
+        switch (pathSpec.getGroup())
         {
-            _chainLRU[FilterMapping.REQUEST].clear();
-            _chainLRU[FilterMapping.FORWARD].clear();
-            _chainLRU[FilterMapping.INCLUDE].clear();
-            _chainLRU[FilterMapping.ERROR].clear();
-            _chainLRU[FilterMapping.ASYNC].clear();
+            case ROOT:
+            case DEFAULT:
+                return "/";
+            case EXACT:
+                return pathSpec.getDeclaration();
+            case PREFIX_GLOB:
+                return pathSpec.getPrefix() + "/";
+            case SUFFIX_GLOB:
+                return "/." + pathSpec.getSuffix();
+            default:
+                return null;
+        }
+    }
 
+    protected void invalidateChainsCache()
+    {
+        if (_chainCache[FilterMapping.REQUEST] != null)
+        {
             _chainCache[FilterMapping.REQUEST].clear();
             _chainCache[FilterMapping.FORWARD].clear();
             _chainCache[FilterMapping.INCLUDE].clear();
             _chainCache[FilterMapping.ERROR].clear();
             _chainCache[FilterMapping.ASYNC].clear();
+
+            _sharedChains[FilterMapping.REQUEST].clear();
+            _sharedChains[FilterMapping.FORWARD].clear();
+            _sharedChains[FilterMapping.INCLUDE].clear();
+            _sharedChains[FilterMapping.ERROR].clear();
+            _sharedChains[FilterMapping.ASYNC].clear();
         }
     }
 
@@ -746,6 +895,9 @@ public class ServletHandler extends ScopedHandler
             });
 
         mx.ifExceptionThrow();
+
+        if (isPrecomputeFilterChains())
+            precomputeFilterChains();
     }
     
     /**
@@ -1394,14 +1546,7 @@ public class ServletHandler extends ScopedHandler
         }
 
         // flush filter chain cache
-        if (_chainCache != null)
-        {
-            for (int i = _chainCache.length; i-- > 0; )
-            {
-                if (_chainCache[i] != null)
-                    _chainCache[i].clear();
-            }
-        }
+        invalidateChainsCache();
 
         if (LOG.isDebugEnabled())
         {
@@ -1520,11 +1665,50 @@ public class ServletHandler extends ScopedHandler
         invalidateChainsCache();
     }
 
+    private static class ChainKey
+    {
+        private final ServletHolder _servletHolder;
+        private final long[] _pathFilters;
+        private final int _hashCode;
+
+        private ChainKey(ServletHolder servletHolder, long[] pathFilters)
+        {
+            _servletHolder = servletHolder;
+            _pathFilters = pathFilters;
+            _hashCode = 31 * System.identityHashCode(servletHolder) + Arrays.hashCode(pathFilters);
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof ChainKey))
+                return false;
+            ChainKey that = (ChainKey)obj;
+            return _servletHolder == that._servletHolder && Arrays.equals(_pathFilters, that._pathFilters);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return _hashCode;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x{%s,%s}", getClass().getSimpleName(), hashCode(), _servletHolder, Arrays.toString(_pathFilters));
+        }
+    }
+
     protected class CachedChain implements FilterChain
     {
         FilterHolder _filterHolder;
         CachedChain _next;
         ServletHolder _servletHolder;
+        // Whether the chain was used since it was last passed over for eviction.
+        private volatile boolean _referenced;
 
         /**
          * @param filters list of {@link FilterHolder} objects
@@ -1685,8 +1869,9 @@ public class ServletHandler extends ScopedHandler
 
     /**
      * Set the maximum filter chain cache size.
-     * Filter chains are cached if {@link #isFilterChainsCached()} is true. If the max cache size
-     * is greater than zero, then the cache is flushed whenever it grows to be this size.
+     * Filter chains are cached if {@link #isFilterChainsCached()} is true, keyed by servlet and
+     * by the set of filter mappings that apply. If the max cache size is greater than zero,
+     * then a chain not recently used is evicted whenever the cache grows to be this size.
      *
      * @param maxFilterChainsCacheSize the maximum number of entries in a filter chain cache.
      */
@@ -1695,6 +1880,65 @@ public class ServletHandler extends ScopedHandler
         _maxFilterChainsCacheSize = maxFilterChainsCacheSize;
     }
 
+    /**
+     * @return whether the filter chains of the mapped servlets are computed when initialized
+     */
+    public boolean isPrecomputeFilterChains()
+    {
+        return _precomputeFilterChains;
+    }
+
+    /**
+     * Set whether the {@code REQUEST} filter chains of the mapped servlets are computed and cached
+     * when the handler is initialized, rather than on the first request to each servlet.
+     * Only applies if {@link #isFilterChainsCached()} is true.
+     *
+     * @param precomputeFilterChains whether to precompute the filter chains
+     */
+    public void setPrecomputeFilterChains(boolean precomputeFilterChains)
+    {
+        _precomputeFilterChains = precomputeFilterChains;
+    }
+
+    @ManagedAttribute("The number of requests that found their filter chain in the cache")
+    public long getFilterChainsCacheHits()
+    {
+        return _chainCacheHits.sum();
+    }
+
+    @ManagedAttribute("The number of requests that did not find their filter chain in the cache")
+    public long getFilterChainsCacheMisses()
+    {
+        return _chainCacheMisses.sum();
+    }
+
+    @ManagedAttribute("The ratio of requests that found their filter chain in the cache")
+    public double getFilterChainsCacheHitRatio()
+    {
+        long hits = getFilterChainsCacheHits();
+        long total = hits + getFilterChainsCacheMisses();
+        return total == 0 ? 0.0D : (double)hits / total;
+    }
+
+    @ManagedAttribute("The number of distinct cached filter chains")
+    public int getFilterChainsCacheSize()
+    {
+        int size = 0;
+        for (Map<ChainKey, CachedChain> sharedChains : _sharedChains)
+        {
+            if (sharedChains != null)
+                size += sharedChains.size();
+        }
+        return size;
+    }
+
+    @ManagedOperation(value = "Resets the filter chains cache statistics", impact = "ACTION")
+    public void resetFilterChainsCacheStatistics()
+    {
+        _chainCacheHits.reset();
+        _chainCacheMisses.reset();
+    }
+
     void destroyServlet(Servlet servlet)
     {
         if (_contextHandler != null)
@@ -18,13 +18,29 @@
 
 package org.eclipse.jetty.servlet;
 
+import java.io.IOException;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.eclipse.jetty.http.pathmap.MappedResource;
+import org.eclipse.jetty.server.LocalConnector;
+import org.eclipse.jetty.server.Server;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -645,4 +661,84 @@ public class ServletHandlerTest
         assertTrue(fh3 == mappings[5].getFilterHolder()); //isMatchAfter = true;
         assertTrue(pf == mappings[6].getFilterHolder()); //isMatchAfter = true;
     }
+
+    @Test
+    public void testFilterChainsCache() throws Exception
+    {
+        Server server = new Server();
+        LocalConnector connector = new LocalConnector(server);
+        server.addConnector(connector);
+        ServletContextHandler context = new ServletContextHandler(server, "/");
+        ServletHandler handler = context.getServletHandler();
+        handler.setPrecomputeFilterChains(true);
+
+        List<String> filtered = new CopyOnWriteArrayList<>();
+        Filter filter = new Filter()
+        {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException
+            {
+                filtered.add(((HttpServletRequest)request).getRequestURI());
+                chain.doFilter(request, response);
+            }
+        };
+        context.addFilter(new FilterHolder(filter), "/api/*", EnumSet.of(DispatcherType.REQUEST));
+        HttpServlet servlet = new HttpServlet()
+        {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            {
+                response.setStatus(HttpServletResponse.SC_OK);
+            }
+        };
+        context.addServlet(new ServletHolder("orders", servlet), "/api/orders/*");
+        context.addServlet(new ServletHolder("users", servlet), "/api/users/*");
+        context.addServlet(new ServletHolder("items", servlet), "/api/items/*");
+        context.addServlet(new ServletHolder("other", servlet), "/other/*");
+        context.addServlet(new ServletHolder("status", servlet), "/api/status");
+
+        server.start();
+        try
+        {
+            // The chains of all the mapped servlets have been computed.
+            assertEquals(6, handler.getFilterChainsCacheSize());
+            // Only the paths of exact mappings are cached by path.
+            assertEquals(Set.of("/api/status"), handler._chainCache[FilterMapping.REQUEST].keySet());
+            handler.resetFilterChainsCacheStatistics();
+
+            // Paths mapped to the same servlet and filters share the same chain.
+            for (int i = 0; i < 3; i++)
+            {
+                assertThat(connector.getResponse("GET /api/orders/" + i + " HTTP/1.0\r\n\r\n"), containsString(" 200 "));
+            }
+            assertThat(connector.getResponse("GET /other/x HTTP/1.0\r\n\r\n"), containsString(" 200 "));
+            assertThat(connector.getResponse("GET /api/status HTTP/1.0\r\n\r\n"), containsString(" 200 "));
+            assertEquals(List.of("/api/orders/0", "/api/orders/1", "/api/orders/2", "/api/status"), filtered);
+            assertEquals(5, handler.getFilterChainsCacheHits());
+            assertEquals(0, handler.getFilterChainsCacheMisses());
+            assertEquals(1.0D, handler.getFilterChainsCacheHitRatio());
+            assertEquals(Set.of("/api/status"), handler._chainCache[FilterMapping.REQUEST].keySet());
+
+            // Evicts a chain that was not used since it was cached.
+            handler.setMaxFilterChainsCacheSize(3);
+            handler.invalidateChainsCache();
+            handler.resetFilterChainsCacheStatistics();
+            connector.getResponse("GET /api/orders/1 HTTP/1.0\r\n\r\n");
+            connector.getResponse("GET /api/users/1 HTTP/1.0\r\n\r\n");
+            connector.getResponse("GET /api/items/1 HTTP/1.0\r\n\r\n");
+            connector.getResponse("GET /api/orders/2 HTTP/1.0\r\n\r\n");
+            assertEquals(1, handler.getFilterChainsCacheHits());
+            connector.getResponse("GET /other/x HTTP/1.0\r\n\r\n");
+            assertEquals(3, handler.getFilterChainsCacheSize());
+            assertEquals(4, handler.getFilterChainsCacheMisses());
+            connector.getResponse("GET /api/orders/3 HTTP/1.0\r\n\r\n");
+            connector.getResponse("GET /other/y HTTP/1.0\r\n\r\n");
+            assertEquals(3, handler.getFilterChainsCacheHits());
+            assertEquals(4, handler.getFilterChainsCacheMisses());
+        }
+        finally
+        {
+            server.stop();
+        }
+    }
 }
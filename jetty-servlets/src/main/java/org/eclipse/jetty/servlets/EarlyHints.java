@@ -0,0 +1,120 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.servlets;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Locale;
+import javax.servlet.http.HttpServletRequest;
+
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.server.Request;
+
+/**
+ * <p>Sends {@code 103 Early Hints} interim responses with
+ * {@code Link: <path>; rel=preload} headers for the resources
+ * learned by {@link PushCacheFilter} and {@link PushSessionCacheFilter}.</p>
+ */
+class EarlyHints
+{
+    private EarlyHints()
+    {
+    }
+
+    /**
+     * @param request the request
+     * @return whether a 103 response can be sent for the given request
+     */
+    static boolean isSupported(HttpServletRequest request)
+    {
+        HttpVersion version = HttpVersion.fromString(request.getProtocol());
+        return version != null && version.getVersion() >= HttpVersion.HTTP_1_1.getVersion() && Request.getBaseRequest(request) != null;
+    }
+
+    /**
+     * @param request the request
+     * @param paths the paths of the resources to preload
+     * @throws IOException if the 103 response cannot be sent
+     */
+    static void send(HttpServletRequest request, Collection<String> paths) throws IOException
+    {
+        Request baseRequest = Request.getBaseRequest(request);
+        if (baseRequest == null || paths.isEmpty())
+            return;
+        HttpFields fields = new HttpFields();
+        for (String path : paths)
+        {
+            fields.add("Link", preloadLink(path));
+        }
+        baseRequest.getResponse().sendEarlyHints(fields);
+    }
+
+    /**
+     * @param path the path of the resource to preload
+     * @return the value of the {@code Link} header to preload the resource
+     */
+    static String preloadLink(String path)
+    {
+        StringBuilder link = new StringBuilder();
+        link.append('<').append(path).append(">; rel=preload");
+        String destination = destination(path);
+        if (destination != null)
+        {
+            link.append("; as=").append(destination);
+            // Fonts are always fetched in CORS mode.
+            if ("font".equals(destination))
+                link.append("; crossorigin");
+        }
+        return link.toString();
+    }
+
+    private static String destination(String path)
+    {
+        int query = path.indexOf('?');
+        if (query >= 0)
+            path = path.substring(0, query);
+        int dot = path.lastIndexOf('.');
+        if (dot < 0 || dot < path.lastIndexOf('/'))
+            return null;
+        switch (path.substring(dot + 1).toLowerCase(Locale.ENGLISH))
+        {
+            case "css":
+                return "style";
+            case "js":
+            case "mjs":
+                return "script";
+            case "png":
+            case "gif":
+            case "jpg":
+            case "jpeg":
+            case "svg":
+            case "webp":
+            case "ico":
+                return "image";
+            case "woff":
+            case "woff2":
+            case "ttf":
+            case "otf":
+                return "font";
+            default:
+                return null;
+        }
+    }
+}
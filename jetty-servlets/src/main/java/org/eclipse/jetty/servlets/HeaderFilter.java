@@ -21,6 +21,8 @@ package org.eclipse.jetty.servlets;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
 import javax.servlet.ServletException;
@@ -29,6 +31,10 @@ import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.PreEncodedHttpFields;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
 import org.eclipse.jetty.util.StringUtil;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
@@ -51,12 +57,18 @@ import org.eclipse.jetty.util.log.Logger;
  * setDate Expires: 31540000000,
  * addDate Date: 0
  * </pre>
+ * <p>
+ * When the filter runs directly on the Jetty response, the constant headers are
+ * pre-encoded once as a {@link PreEncodedHttpFields} template and added to each
+ * response in a single operation.
  *
  * @see IncludeExcludeBasedFilter
  */
 public class HeaderFilter extends IncludeExcludeBasedFilter
 {
     private List<ConfiguredHeader> _configuredHeaders = new ArrayList<>();
+    private PreEncodedHttpFields _template;
+    private Set<String> _templateSetNames;
     private static final Logger LOG = Log.getLogger(HeaderFilter.class);
 
     @Override
@@ -74,6 +86,8 @@ public class HeaderFilter extends IncludeExcludeBasedFilter
             }
         }
 
+        newTemplate();
+
         if (LOG.isDebugEnabled())
             LOG.debug(this.toString());
     }
@@ -86,6 +100,7 @@ public class HeaderFilter extends IncludeExcludeBasedFilter
 
         if (super.shouldFilter(httpRequest, httpResponse))
         {
+            Response baseResponse = _template == null ? null : getBaseResponse(httpRequest, httpResponse);
             for (ConfiguredHeader header : _configuredHeaders)
             {
                 if (header.isDate())
@@ -100,7 +115,7 @@ public class HeaderFilter extends IncludeExcludeBasedFilter
                         httpResponse.setDateHeader(header.getName(), headerValue);
                     }
                 }
-                else // constant header value
+                else if (baseResponse == null) // constant header value
                 {
                     if (header.isAdd())
                     {
@@ -112,11 +127,77 @@ public class HeaderFilter extends IncludeExcludeBasedFilter
                     }
                 }
             }
+
+            if (baseResponse != null)
+            {
+                for (String name : _templateSetNames)
+                {
+                    baseResponse.setHeader(name, null);
+                }
+                baseResponse.addHeaders(_template);
+            }
         }
 
         chain.doFilter(request, response);
     }
 
+    private Response getBaseResponse(HttpServletRequest request, HttpServletResponse response)
+    {
+        Request baseRequest = Request.getBaseRequest(request);
+        if (baseRequest == null || baseRequest.getResponse() != response)
+            return null;
+        return baseRequest.getResponse();
+    }
+
+    private void newTemplate()
+    {
+        // Apply the constant headers in order, so that the template
+        // holds the fields that they would leave on the response.
+        List<HttpField> fields = new ArrayList<>();
+        Set<String> setNames = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        Set<String> dateNames = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        for (ConfiguredHeader header : _configuredHeaders)
+        {
+            if (header.isDate())
+            {
+                dateNames.add(header.getName());
+                continue;
+            }
+            if (!header.isAdd())
+            {
+                fields.removeIf(field -> field.getName().equalsIgnoreCase(header.getName()));
+                setNames.add(header.getName());
+            }
+            fields.add(new HttpField(header.getName(), header.getValue()));
+        }
+
+        if (fields.isEmpty())
+            return;
+
+        // The relative order of date and constant headers with the same name matters.
+        for (HttpField field : fields)
+        {
+            if (dateNames.contains(field.getName()))
+                return;
+        }
+        for (String name : setNames)
+        {
+            if (dateNames.contains(name))
+                return;
+        }
+
+        try
+        {
+            _template = new PreEncodedHttpFields(fields.toArray(new HttpField[0]));
+            _templateSetNames = setNames;
+        }
+        catch (IllegalArgumentException x)
+        {
+            // For example Content-Length, which is set on the response one field at a time.
+            LOG.ignore(x);
+        }
+    }
+
     @Override
     public String toString()
     {
@@ -23,6 +23,7 @@ import java.util.ArrayDeque;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
@@ -71,6 +72,12 @@ import org.eclipse.jetty.util.log.Logger;
  * cache.</p>
  * <p>If the init param useQueryInKey is set, then the query string is used as
  * as part of the key to identify a resource</p>
+ * <p>If the init param earlyHints is set, then associated resources are not
+ * pushed; instead a {@code 103 Early Hints} interim response with a
+ * {@code Link: <path>; rel=preload} header for each associated resource
+ * is sent to HTTP/1.1 and HTTP/2 clients, so that they can fetch the
+ * resources they do not have in their cache while the primary resource
+ * is being served.</p>
  */
 @ManagedObject("Push cache based on the HTTP 'Referer' header")
 public class PushCacheFilter implements Filter
@@ -84,6 +91,7 @@ public class PushCacheFilter implements Filter
     private int _maxAssociations = 16;
     private long _renew = System.nanoTime();
     private boolean _useQueryInKey;
+    private boolean _earlyHints;
 
     @Override
     public void init(FilterConfig config) throws ServletException
@@ -109,11 +117,13 @@ public class PushCacheFilter implements Filter
 
         _useQueryInKey = Boolean.parseBoolean(config.getInitParameter("useQueryInKey"));
 
+        _earlyHints = Boolean.parseBoolean(config.getInitParameter("earlyHints"));
+
         // Expose for JMX.
         config.getServletContext().setAttribute(config.getFilterName(), this);
 
         if (LOG.isDebugEnabled())
-            LOG.debug("period={} max={} hosts={} ports={}", _associatePeriod, _maxAssociations, _hosts, _ports);
+            LOG.debug("period={} max={} hosts={} ports={} earlyHints={}", _associatePeriod, _maxAssociations, _hosts, _ports, _earlyHints);
     }
 
     @Override
@@ -121,10 +131,11 @@ public class PushCacheFilter implements Filter
     {
         HttpServletRequest request = (HttpServletRequest)req;
 
-        PushBuilder pushBuilder = request.newPushBuilder();
-        if (HttpVersion.fromString(request.getProtocol()).getVersion() < 20 ||
-            !HttpMethod.GET.is(request.getMethod()) ||
-            pushBuilder == null)
+        PushBuilder pushBuilder = null;
+        boolean earlyHints = _earlyHints && EarlyHints.isSupported(request);
+        if (!_earlyHints && HttpVersion.fromString(request.getProtocol()).getVersion() >= 20)
+            pushBuilder = request.newPushBuilder();
+        if (!HttpMethod.GET.is(request.getMethod()) || (pushBuilder == null && !earlyHints))
         {
             chain.doFilter(req, resp);
             return;
@@ -259,10 +270,11 @@ public class PushCacheFilter implements Filter
             }
         }
 
-        // Push associated resources.
+        // Push associated resources, or hint them.
         if (!conditional && !primaryResource._associated.isEmpty())
         {
-            // Breadth-first push of associated resources.
+            Set<String> hints = new LinkedHashSet<>();
+            // Breadth-first push, or hint, of associated resources.
             Queue<PrimaryResource> queue = new ArrayDeque<>();
             queue.offer(primaryResource);
             while (!queue.isEmpty())
@@ -271,14 +283,30 @@ public class PushCacheFilter implements Filter
                 for (String childPath : parent._associated)
                 {
                     PrimaryResource child = _cache.get(childPath);
-                    if (child != null)
-                        queue.offer(child);
+                    if (earlyHints)
+                    {
+                        // Resources are hinted only once, also avoiding cycles.
+                        if (hints.add(childPath) && child != null)
+                            queue.offer(child);
+                    }
+                    else
+                    {
+                        if (child != null)
+                            queue.offer(child);
 
-                    if (LOG.isDebugEnabled())
-                        LOG.debug("Pushing {} for {}", childPath, path);
-                    pushBuilder.path(childPath).push();
+                        if (LOG.isDebugEnabled())
+                            LOG.debug("Pushing {} for {}", childPath, path);
+                        pushBuilder.path(childPath).push();
+                    }
                 }
             }
+
+            if (earlyHints)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Early hints {} for {}", hints, path);
+                EarlyHints.send(request, hints);
+            }
         }
 
         chain.doFilter(request, resp);
@@ -290,6 +318,12 @@ public class PushCacheFilter implements Filter
         clearPushCache();
     }
 
+    @ManagedAttribute("Whether associated resources are sent as 103 Early Hints instead of being pushed")
+    public boolean isEarlyHints()
+    {
+        return _earlyHints;
+    }
+
     @ManagedAttribute("The push cache contents")
     public Map<String, String> getPushCache()
     {
@@ -20,7 +20,9 @@ package org.eclipse.jetty.servlets;
 
 import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.LinkedHashSet;
 import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
@@ -42,6 +44,14 @@ import org.eclipse.jetty.http.HttpURI;
 import org.eclipse.jetty.util.log.Log;
 import org.eclipse.jetty.util.log.Logger;
 
+/**
+ * <p>A filter that learns, per session, the secondary resources requested
+ * shortly after a primary resource, and pushes them with the primary resource.</p>
+ * <p>If the init param earlyHints is set, then associated resources are not
+ * pushed; instead a {@code 103 Early Hints} interim response with a
+ * {@code Link: <path>; rel=preload} header for each associated resource
+ * is sent to HTTP/1.1 and HTTP/2 clients.</p>
+ */
 public class PushSessionCacheFilter implements Filter
 {
     private static final String RESPONSE_ATTR = "PushSessionCacheFilter.response";
@@ -50,12 +60,14 @@ public class PushSessionCacheFilter implements Filter
     private static final Logger LOG = Log.getLogger(PushSessionCacheFilter.class);
     private final ConcurrentMap<String, Target> _cache = new ConcurrentHashMap<>();
     private long _associateDelay = 5000L;
+    private boolean _earlyHints;
 
     @Override
     public void init(FilterConfig config) throws ServletException
     {
         if (config.getInitParameter("associateDelay") != null)
             _associateDelay = Long.parseLong(config.getInitParameter("associateDelay"));
+        _earlyHints = Boolean.parseBoolean(config.getInitParameter("earlyHints"));
 
         // Add a listener that is used to collect information
         // about associated resource, etags and modified dates.
@@ -145,6 +157,31 @@ public class PushSessionCacheFilter implements Filter
         }
         timestamps.put(uri, System.nanoTime());
 
+        if (_earlyHints)
+        {
+            // Hint, rather than push, any associated resources.
+            if (!target._associated.isEmpty() && EarlyHints.isSupported(request))
+            {
+                Set<String> hints = new LinkedHashSet<>();
+                Queue<Target> queue = new ArrayDeque<>();
+                queue.offer(target);
+                while (!queue.isEmpty())
+                {
+                    Target parent = queue.poll();
+                    for (Target child : parent._associated.values())
+                    {
+                        if (child != target && hints.add(child._path))
+                            queue.offer(child);
+                    }
+                }
+                if (LOG.isDebugEnabled())
+                    LOG.debug("HINT {} <- {}", hints, uri);
+                EarlyHints.send(request, hints);
+            }
+            chain.doFilter(req, resp);
+            return;
+        }
+
         // Push any associated resources.
         PushBuilder builder = request.newPushBuilder();
         if (builder != null && !target._associated.isEmpty())
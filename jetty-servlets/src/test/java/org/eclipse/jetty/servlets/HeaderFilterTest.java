@@ -37,6 +37,7 @@ import org.junit.jupiter.api.Test;
 
 import static org.eclipse.jetty.http.tools.matchers.HttpFieldsMatchers.containsHeaderValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.in;
 import static org.hamcrest.Matchers.is;
 
@@ -128,6 +129,38 @@ public class HeaderFilterTest
         assertThat(response.toString(), HttpHeader.EXPIRES.asString(), is(in(response.getFieldNamesCollection())));
     }
 
+    @Test
+    public void testHeaderFilterTemplate() throws Exception
+    {
+        _tester.addServlet(CacheControlServlet.class, "/cache/*");
+        FilterHolder holder = new FilterHolder(HeaderFilter.class);
+        holder.setInitParameter("headerConfig", "add Cache-Control: no-store, set X-Frame-Options: SAMEORIGIN, add X-Frame-Options: ALLOW-FROM example.com," +
+            "add X-Content-Type-Options: nosniff, set X-Content-Type-Options: nosniff, setDate Expires: 100");
+        _tester.getContext().getServletHandler().addFilterWithMapping(holder, "/*", EnumSet.of(DispatcherType.REQUEST));
+
+        HttpTester.Request request = HttpTester.newRequest();
+        request.setMethod("GET");
+        request.setVersion("HTTP/1.1");
+        request.setHeader("Host", "localhost");
+        request.setURI("/context/cache/0");
+
+        HttpTester.Response response = HttpTester.parseResponse(_tester.getResponses(request.generate()));
+        assertThat(response.getValuesList("Cache-Control"), contains("no-store", "private"));
+        assertThat(response.getValuesList("X-Frame-Options"), contains("SAMEORIGIN", "ALLOW-FROM example.com"));
+        assertThat(response.getValuesList("X-Content-Type-Options"), contains("nosniff"));
+        assertThat(response.toString(), HttpHeader.EXPIRES.asString(), is(in(response.getFieldNamesCollection())));
+    }
+
+    public static class CacheControlServlet extends HttpServlet
+    {
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException
+        {
+            resp.addHeader("Cache-Control", "private");
+            resp.setStatus(HttpStatus.NO_CONTENT_204);
+        }
+    }
+
     public static class NullServlet extends HttpServlet
     {
         @Override
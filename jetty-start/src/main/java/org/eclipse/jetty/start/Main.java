@@ -72,8 +72,19 @@ public class Main
         try
         {
             Main main = new Main();
+            StartCache startCache = StartCache.of(args);
+            if (startCache != null)
+            {
+                StartCache.Resolution resolution = startCache.load();
+                if (resolution != null)
+                {
+                    main.start(resolution);
+                    return;
+                }
+            }
             StartArgs startArgs = main.processCommandLine(args);
             test = startArgs.isTestingModeEnabled();
+            main.startCache = startCache;
             main.start(startArgs);
         }
         catch (UsageException e)
@@ -110,6 +121,7 @@ public class Main
 
     private BaseHome baseHome;
     private StartArgs jsvcStartArgs;
+    private StartCache startCache;
 
     public Main() throws IOException
     {
@@ -188,9 +200,15 @@ public class Main
     }
 
     public void invokeMain(ClassLoader classloader, StartArgs args) throws IllegalAccessException, InvocationTargetException, NoSuchMethodException, ClassNotFoundException, IOException
+    {
+        CommandLineBuilder cmd = args.getMainArgs(false);
+        StartLog.debug("Command Line Args: %s", cmd.toString());
+        invokeMain(classloader, args.getMainClassname(), cmd.getArgs());
+    }
+
+    private void invokeMain(ClassLoader classloader, String mainclass, List<String> args) throws IllegalAccessException, InvocationTargetException, NoSuchMethodException
     {
         Class<?> invokedClass = null;
-        String mainclass = args.getMainClassname();
 
         try
         {
@@ -206,10 +224,7 @@ public class Main
 
         StartLog.debug("%s - %s", invokedClass, invokedClass.getPackage().getImplementationVersion());
 
-        CommandLineBuilder cmd = args.getMainArgs(false);
-        String[] argArray = cmd.getArgs().toArray(new String[0]);
-        StartLog.debug("Command Line Args: %s", cmd.toString());
-
+        String[] argArray = args.toArray(new String[0]);
         Class<?>[] methodParamTypes = {argArray.getClass()};
 
         Method main = invokedClass.getDeclaredMethod("main", methodParamTypes);
@@ -443,29 +458,18 @@ public class Main
             return;
         }
 
+        // Store the resolution for the next start
+        if (startCache != null)
+        {
+            startCache.store(baseHome, args);
+        }
+
         // execute Jetty in another JVM
         if (args.isExec())
         {
             CommandLineBuilder cmd = args.getMainArgs(true);
             cmd.debug();
-            ProcessBuilder pbuilder = new ProcessBuilder(cmd.getArgs());
-            StartLog.endStartLog();
-            final Process process = pbuilder.start();
-            Runtime.getRuntime().addShutdownHook(new Thread()
-            {
-                @Override
-                public void run()
-                {
-                    StartLog.debug("Destroying " + process);
-                    process.destroy();
-                }
-            });
-
-            copyInThread(process.getErrorStream(), System.err);
-            copyInThread(process.getInputStream(), System.out);
-            copyInThread(System.in, process.getOutputStream());
-            process.waitFor();
-            System.exit(0); // exit JVM when child process ends.
+            exec(cmd.getArgs());
             return;
         }
 
@@ -489,6 +493,63 @@ public class Main
         }
     }
 
+    /**
+     * Start Jetty from a cached resolution of the start configuration.
+     *
+     * @param resolution the cached resolution
+     * @throws IOException if unable to execute the forked JVM
+     * @throws InterruptedException if interrupted while waiting for the forked JVM
+     * @see StartCache
+     */
+    public void start(StartCache.Resolution resolution) throws IOException, InterruptedException
+    {
+        resolution.getSystemProperties().forEach(System::setProperty);
+
+        // execute Jetty in another JVM
+        if (resolution.isExec())
+        {
+            exec(resolution.getArgs());
+            return;
+        }
+
+        ClassLoader cl = resolution.getClasspath().getClassLoader();
+        Thread.currentThread().setContextClassLoader(cl);
+
+        // Invoke the Main Class
+        try
+        {
+            StartLog.debug("Command Line Args: %s", resolution.getArgs());
+            invokeMain(cl, resolution.getMainClassname(), resolution.getArgs());
+        }
+        catch (Throwable e)
+        {
+            e.printStackTrace();
+            usageExit(e, ERR_INVOKE_MAIN, false);
+        }
+    }
+
+    private void exec(List<String> cmd) throws IOException, InterruptedException
+    {
+        ProcessBuilder pbuilder = new ProcessBuilder(cmd);
+        StartLog.endStartLog();
+        final Process process = pbuilder.start();
+        Runtime.getRuntime().addShutdownHook(new Thread()
+        {
+            @Override
+            public void run()
+            {
+                StartLog.debug("Destroying " + process);
+                process.destroy();
+            }
+        });
+
+        copyInThread(process.getErrorStream(), System.err);
+        copyInThread(process.getInputStream(), System.out);
+        copyInThread(System.in, process.getOutputStream());
+        process.waitFor();
+        System.exit(0); // exit JVM when child process ends.
+    }
+
     /* implement Apache commons daemon (jsvc) lifecycle methods (init, start, stop, destroy) */
     public void start() throws Exception
     {
@@ -891,6 +891,26 @@ public class StartArgs
         return sources.get(module);
     }
 
+    public List<Path> getPropertyFiles()
+    {
+        return propertyFiles;
+    }
+
+    /**
+     * @return the system properties set by the start arguments, with their current values
+     */
+    public Map<String, String> getSystemProperties()
+    {
+        Map<String, String> properties = new LinkedHashMap<>();
+        for (String key : systemPropertySource.keySet())
+        {
+            String value = System.getProperty(key);
+            if (value != null)
+                properties.put(key, value);
+        }
+        return properties;
+    }
+
     public List<Path> getXmlFiles()
     {
         return xmls;
@@ -936,6 +956,16 @@ public class StartArgs
         return dryRun;
     }
 
+    public String getExecProperties()
+    {
+        return execProperties;
+    }
+
+    public void setExecProperties(String execProperties)
+    {
+        this.execProperties = execProperties;
+    }
+
     public boolean isExec()
     {
         return exec;
@@ -1059,6 +1089,12 @@ public class StartArgs
             return;
         }
 
+        if (StartCache.CACHE_OPTION.equals(arg) || StartCache.REFRESH_OPTION.equals(arg))
+        {
+            // valid, but handled in Main instead
+            return;
+        }
+
         if ("--testing-mode".equals(arg))
         {
             System.setProperty("org.eclipse.jetty.start.testing", "true");
@@ -0,0 +1,450 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.start;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.eclipse.jetty.start.config.CommandLineConfigSource;
+import org.eclipse.jetty.start.config.ConfigSource;
+import org.eclipse.jetty.start.config.DirConfigSource;
+
+/**
+ * <p>A cache of the resolved start configuration.</p>
+ * <p>Resolving the start configuration reads the {@code start.ini}, {@code start.d/*.ini} and
+ * {@code modules/*.mod} files of every configuration directory, resolves the module graph and
+ * expands the properties, libraries and XML files of the enabled modules.
+ * With the {@code --start-cache} command line option, the outcome of this resolution (the
+ * classpath, main class, arguments and system properties, or the command line of the forked
+ * JVM when using {@code --exec}) is stored in {@code ${jetty.base}/.start-cache/}, keyed by a
+ * hash of the command line and of the size and last modified time of the files it was
+ * resolved from. The next start with the same command line reuses it if none of these files
+ * changed, while {@code --start-cache-refresh} forces a new resolution.</p>
+ */
+public class StartCache
+{
+    public static final String CACHE_DIR = ".start-cache";
+    public static final String CACHE_OPTION = "--start-cache";
+    public static final String REFRESH_OPTION = "--start-cache-refresh";
+
+    private static final String VERSION = "1";
+    private static final String CACHE_FILE = "start.cache";
+    private static final String PROPERTIES_FILE = "start.properties";
+    private static final String[] TRACKED_PROPERTIES = {"java.home", "java.version", "java.io.tmpdir", "user.dir", "main.class"};
+
+    /**
+     * @param cmdLine the raw command line
+     * @return the cache of the given command line, or null if the command line does not enable it
+     */
+    public static StartCache of(String[] cmdLine)
+    {
+        boolean enabled = false;
+        boolean refresh = false;
+        for (String arg : cmdLine)
+        {
+            if (CACHE_OPTION.equals(arg))
+                enabled = true;
+            else if (REFRESH_OPTION.equals(arg))
+                enabled = refresh = true;
+        }
+        return enabled ? new StartCache(new CommandLineConfigSource(cmdLine), cmdLine, refresh) : null;
+    }
+
+    private final long created = System.nanoTime();
+    private final CommandLineConfigSource cmdLineSource;
+    private final Path cacheFile;
+    private final Path propertiesFile;
+    private final boolean refresh;
+    private final List<String> key = new ArrayList<>();
+    private boolean debug;
+    private String logFileName;
+
+    private StartCache(CommandLineConfigSource cmdLineSource, String[] cmdLine, boolean refresh)
+    {
+        this.cmdLineSource = cmdLineSource;
+        Path dir = cmdLineSource.getBasePath().resolve(CACHE_DIR);
+        this.cacheFile = dir.resolve(CACHE_FILE);
+        this.propertiesFile = dir.resolve(PROPERTIES_FILE);
+        this.refresh = refresh;
+        this.logFileName = cmdLineSource.getProperty("start-log-file");
+
+        // The system properties must be captured before the resolution modifies them
+        key.add(VERSION);
+        for (String arg : cmdLine)
+        {
+            if (!REFRESH_OPTION.equals(arg))
+                key.add("arg:" + arg);
+            if ("--debug".equals(arg))
+                debug = true;
+            else if (arg.startsWith("--start-log-file="))
+                logFileName = Props.getValue(arg);
+        }
+        Map<String, String> properties = new TreeMap<>();
+        for (String name : System.getProperties().stringPropertyNames())
+        {
+            if (name.startsWith("jetty."))
+                properties.put(name, System.getProperty(name));
+        }
+        for (String name : TRACKED_PROPERTIES)
+        {
+            properties.put(name, System.getProperty(name));
+        }
+        properties.forEach((name, value) -> key.add("property:" + name + "=" + value));
+    }
+
+    public Path getCacheFile()
+    {
+        return cacheFile;
+    }
+
+    public boolean isRefresh()
+    {
+        return refresh;
+    }
+
+    /**
+     * @return the cached resolution, or null if there is none or it is stale
+     */
+    public Resolution load()
+    {
+        if (refresh)
+        {
+            StartLog.info("Refreshing start cache %s", cacheFile);
+            return null;
+        }
+        if (!Files.isRegularFile(cacheFile))
+        {
+            StartLog.debug("No start cache %s", cacheFile);
+            return null;
+        }
+
+        try
+        {
+            long begin = System.nanoTime();
+            Resolution resolution = new Resolution();
+            String version = null;
+            String hash = null;
+            long resolveNanos = 0;
+            List<Path> inputs = new ArrayList<>();
+            try (BufferedReader reader = Files.newBufferedReader(cacheFile, StandardCharsets.UTF_8))
+            {
+                String line;
+                while ((line = reader.readLine()) != null)
+                {
+                    int eq = line.indexOf('=');
+                    if (line.startsWith("#") || eq < 0)
+                        continue;
+                    String name = line.substring(0, eq);
+                    String value = line.substring(eq + 1);
+                    switch (name)
+                    {
+                        case "version":
+                            version = value;
+                            break;
+                        case "hash":
+                            hash = value;
+                            break;
+                        case "resolve":
+                            resolveNanos = Long.parseLong(value);
+                            break;
+                        case "input":
+                            inputs.add(FS.toPath(value));
+                            break;
+                        case "output":
+                            if (!Files.exists(FS.toPath(value)))
+                                return stale("missing " + value);
+                            break;
+                        case "exec":
+                            resolution.exec = Boolean.parseBoolean(value);
+                            break;
+                        case "main":
+                            resolution.mainClassname = value;
+                            break;
+                        case "classpath":
+                            resolution.classpath.addComponent(new File(value));
+                            break;
+                        case "arg":
+                            resolution.args.add(value);
+                            break;
+                        case "sysprop":
+                            String[] assign = value.split("=", 2);
+                            resolution.systemProperties.put(assign[0], assign.length == 1 ? "" : assign[1]);
+                            break;
+                        default:
+                            break;
+                    }
+                }
+            }
+
+            if (!VERSION.equals(version))
+                return stale("version " + version);
+            if (!hash(inputs).equals(hash))
+                return stale("command line or configuration changed");
+
+            // Start logging as BaseHome would have done
+            if (debug)
+                StartLog.enableDebug();
+            if (logFileName != null)
+                StartLog.getInstance().initLogFile(cmdLineSource.getBasePath().resolve(logFileName).toAbsolutePath());
+
+            long loadNanos = System.nanoTime() - begin;
+            StartLog.info("Using start cache %s, loaded in %,d ms, saved %,d ms",
+                cacheFile, TimeUnit.NANOSECONDS.toMillis(loadNanos), TimeUnit.NANOSECONDS.toMillis(resolveNanos - loadNanos));
+            return resolution;
+        }
+        catch (IOException | RuntimeException e)
+        {
+            StartLog.warn("Unable to load start cache %s: %s", cacheFile, e);
+            StartLog.debug(e);
+            return null;
+        }
+    }
+
+    private Resolution stale(String reason)
+    {
+        StartLog.info("Start cache %s is stale: %s", cacheFile, reason);
+        return null;
+    }
+
+    /**
+     * <p>Stores the resolution of the given start arguments.</p>
+     * <p>Unless the {@code --exec-properties} option is used, the properties passed to
+     * the server are stored in {@code ${jetty.base}/.start-cache/start.properties},
+     * so this method must be called before the command line is generated.</p>
+     *
+     * @param baseHome the base and home of the resolution
+     * @param args the resolved start arguments
+     */
+    public void store(BaseHome baseHome, StartArgs args)
+    {
+        try
+        {
+            Files.createDirectories(cacheFile.getParent());
+            if (args.getExecProperties() == null)
+                args.setExecProperties(propertiesFile.toString());
+
+            List<String> lines = new ArrayList<>();
+            CommandLineBuilder cmd = args.getMainArgs(args.isExec());
+            lines.add("exec=" + args.isExec());
+            lines.add("main=" + args.getMainClassname());
+            for (File element : args.getClasspath())
+            {
+                lines.add("classpath=" + element.getAbsolutePath());
+            }
+            for (String arg : cmd.getArgs())
+            {
+                lines.add("arg=" + arg);
+            }
+            for (Map.Entry<String, String> property : args.getSystemProperties().entrySet())
+            {
+                lines.add("sysprop=" + property.getKey() + "=" + property.getValue());
+            }
+            // The properties file is written again on every start, so only its existence is checked
+            lines.add("output=" + FS.toPath(args.getExecProperties()).toAbsolutePath());
+
+            for (String line : lines)
+            {
+                if (line.indexOf('\n') >= 0 || line.indexOf('\r') >= 0)
+                {
+                    StartLog.warn("Unable to store start cache %s: multiline value %s", cacheFile, line);
+                    return;
+                }
+            }
+
+            List<Path> inputs = getInputs(baseHome, args);
+            long resolveNanos = System.nanoTime() - created;
+
+            Path temp = Files.createTempFile(cacheFile.getParent(), CACHE_FILE, ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8))
+            {
+                writer.write("# Generated by start.jar, delete or use " + REFRESH_OPTION + " to refresh");
+                writer.newLine();
+                writer.write("version=" + VERSION);
+                writer.newLine();
+                writer.write("hash=" + hash(inputs));
+                writer.newLine();
+                writer.write("resolve=" + resolveNanos);
+                writer.newLine();
+                for (Path input : inputs)
+                {
+                    writer.write("input=" + input);
+                    writer.newLine();
+                }
+                for (String line : lines)
+                {
+                    writer.write(line);
+                    writer.newLine();
+                }
+            }
+            Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+            StartLog.info("Resolved start configuration in %,d ms, stored in %s", TimeUnit.NANOSECONDS.toMillis(resolveNanos), cacheFile);
+        }
+        catch (IOException e)
+        {
+            StartLog.warn("Unable to store start cache %s: %s", cacheFile, e);
+            StartLog.debug(e);
+        }
+    }
+
+    private List<Path> getInputs(BaseHome baseHome, StartArgs args) throws IOException
+    {
+        Set<Path> inputs = new LinkedHashSet<>();
+        for (ConfigSource source : baseHome.getConfigSources())
+        {
+            if (source instanceof DirConfigSource)
+            {
+                Path dir = ((DirConfigSource)source).getDir();
+                inputs.add(dir.resolve("start.ini"));
+                addTree(inputs, dir.resolve("start.d"));
+                addTree(inputs, dir.resolve("modules"));
+            }
+        }
+        for (File element : args.getClasspath())
+        {
+            // The directories detect added or removed libraries
+            inputs.add(element.toPath().getParent());
+            inputs.add(element.toPath());
+        }
+        inputs.addAll(args.getXmlFiles());
+        inputs.addAll(args.getPropertyFiles());
+
+        List<Path> absolute = new ArrayList<>(inputs.size());
+        for (Path input : inputs)
+        {
+            if (input != null)
+                absolute.add(input.toAbsolutePath());
+        }
+        return absolute;
+    }
+
+    private static void addTree(Set<Path> inputs, Path dir) throws IOException
+    {
+        inputs.add(dir);
+        if (Files.isDirectory(dir))
+        {
+            try (Stream<Path> paths = Files.walk(dir))
+            {
+                paths.forEach(inputs::add);
+            }
+        }
+    }
+
+    private String hash(List<Path> inputs) throws IOException
+    {
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String k : key)
+            {
+                update(digest, k);
+            }
+            for (Path input : inputs)
+            {
+                update(digest, input.toString());
+                if (Files.exists(input))
+                {
+                    BasicFileAttributes attributes = Files.readAttributes(input, BasicFileAttributes.class);
+                    update(digest, attributes.size() + "@" + attributes.lastModifiedTime());
+                }
+                else
+                {
+                    update(digest, "-");
+                }
+            }
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest())
+            {
+                hex.append(String.format("%02x", b & 0xFF));
+            }
+            return hex.toString();
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IOException(e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value)
+    {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte)'\n');
+    }
+
+    /**
+     * The cached outcome of the resolution of the start configuration.
+     */
+    public static class Resolution
+    {
+        private final Classpath classpath = new Classpath();
+        private final List<String> args = new ArrayList<>();
+        private final Map<String, String> systemProperties = new LinkedHashMap<>();
+        private boolean exec;
+        private String mainClassname;
+
+        /**
+         * @return true if the arguments are the command line of a forked JVM
+         */
+        public boolean isExec()
+        {
+            return exec;
+        }
+
+        public String getMainClassname()
+        {
+            return mainClassname;
+        }
+
+        public Classpath getClasspath()
+        {
+            return classpath;
+        }
+
+        /**
+         * @return the arguments of the main class, or the command line of the forked JVM
+         */
+        public List<String> getArgs()
+        {
+            return Collections.unmodifiableList(args);
+        }
+
+        public Map<String, String> getSystemProperties()
+        {
+            return Collections.unmodifiableMap(systemProperties);
+        }
+    }
+}
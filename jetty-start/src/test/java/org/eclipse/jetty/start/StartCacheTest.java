@@ -0,0 +1,138 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.start;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.jupiter.WorkDir;
+import org.eclipse.jetty.toolchain.test.jupiter.WorkDirExtension;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(WorkDirExtension.class)
+public class StartCacheTest
+{
+    public WorkDir testdir;
+    private Path home;
+    private Path base;
+
+    @BeforeEach
+    public void setUp() throws Exception
+    {
+        System.setProperty("jetty.home", "");
+        System.setProperty("jetty.base", "");
+
+        home = testdir.getPathFile("home");
+        FS.ensureEmpty(home);
+        TestEnv.copyTestDir("dist-home", home);
+
+        base = testdir.getPathFile("base");
+        FS.ensureEmpty(base);
+        TestEnv.makeFile(base, "start.ini", "jetty.http.host=127.0.0.1");
+    }
+
+    private String[] cmdLine(String... extra)
+    {
+        List<String> cmdLine = new ArrayList<>();
+        cmdLine.add("jetty.home=" + home);
+        cmdLine.add("jetty.base=" + base);
+        for (String arg : extra)
+        {
+            cmdLine.add(arg);
+        }
+        return cmdLine.toArray(new String[0]);
+    }
+
+    private StartArgs resolveAndStore(String... cmdLine) throws Exception
+    {
+        StartCache cache = StartCache.of(cmdLine);
+        assertNotNull(cache);
+        Main main = new Main();
+        StartArgs args = main.processCommandLine(cmdLine);
+        cache.store(main.getBaseHome(), args);
+        return args;
+    }
+
+    @Test
+    public void testDisabled()
+    {
+        assertNull(StartCache.of(cmdLine()));
+    }
+
+    @Test
+    public void testStoreAndLoad() throws Exception
+    {
+        String[] cmdLine = cmdLine(StartCache.CACHE_OPTION);
+        assertNull(StartCache.of(cmdLine).load());
+
+        StartArgs args = resolveAndStore(cmdLine);
+        assertTrue(Files.exists(base.resolve(StartCache.CACHE_DIR)));
+
+        StartCache.Resolution resolution = StartCache.of(cmdLine).load();
+        assertNotNull(resolution);
+        assertFalse(resolution.isExec());
+        assertEquals(args.getMainClassname(), resolution.getMainClassname());
+        assertEquals(args.getClasspath().getElements(), resolution.getClasspath().getElements());
+        assertEquals(args.getMainArgs(false).getArgs(), resolution.getArgs());
+        for (Path xml : args.getXmlFiles())
+        {
+            assertThat(resolution.getArgs(), hasItem(xml.toAbsolutePath().toString()));
+        }
+
+        // A different command line does not use the cache
+        assertNull(StartCache.of(cmdLine(StartCache.CACHE_OPTION, "jetty.http.port=9999")).load());
+
+        // A refresh does not use the cache
+        assertNull(StartCache.of(cmdLine(StartCache.REFRESH_OPTION)).load());
+    }
+
+    @Test
+    public void testStaleWhenConfigurationChanges() throws Exception
+    {
+        String[] cmdLine = cmdLine(StartCache.CACHE_OPTION);
+        resolveAndStore(cmdLine);
+        assertNotNull(StartCache.of(cmdLine).load());
+
+        // Changing start.ini invalidates the cache
+        Files.write(base.resolve("start.ini"), "\njetty.http.port=9999\n".getBytes(), StandardOpenOption.APPEND);
+        assertNull(StartCache.of(cmdLine).load());
+
+        StartArgs args = resolveAndStore(cmdLine);
+        assertEquals("9999", args.getProperties().getString("jetty.http.port"));
+        assertNotNull(StartCache.of(cmdLine).load());
+
+        // Adding a start.d file invalidates the cache
+        TestEnv.makeFile(base, "start.d/extra.ini", "jetty.http.idleTimeout=1000");
+        assertNull(StartCache.of(cmdLine).load());
+    }
+}
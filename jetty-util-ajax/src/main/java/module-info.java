@@ -20,5 +20,6 @@ module org.eclipse.jetty.util.ajax
 {
     exports org.eclipse.jetty.util.ajax;
 
+    requires transitive org.eclipse.jetty.io;
     requires org.eclipse.jetty.util;
 }
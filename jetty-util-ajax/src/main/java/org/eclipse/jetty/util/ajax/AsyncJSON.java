@@ -0,0 +1,539 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.ajax;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jetty.util.TypeUtil;
+import org.eclipse.jetty.util.Utf8StringBuilder;
+
+/**
+ * <p>A non-blocking JSON parser that parses UTF-8 JSON content
+ * incrementally, as it arrives in chunks of bytes.</p>
+ * <p>Unlike {@link JSON#fromJSON(String)}, the content does not need to be
+ * converted to a {@code String} first: chunks of bytes, for example those
+ * read from a servlet {@code ReadListener}, are passed to {@link #parse(ByteBuffer)}
+ * as they arrive, and the state of the parse is kept between calls.
+ * When all the content has been passed, {@link #complete()} returns the
+ * parsed object, with the same representation as {@link JSON}: {@code Map}
+ * (or the object converted by the {@link JSON} convertors) for JSON objects,
+ * {@code Object[]} for JSON arrays, {@code Long} or {@code Double} for numbers.</p>
+ * <p>The parser is reusable after {@link #complete()}, or after a parse failure,
+ * and is not thread-safe.</p>
+ * <pre>
+ * AsyncJSON parser = new AsyncJSON();
+ * // For each chunk of content.
+ * parser.parse(chunk);
+ * // When there is no more content.
+ * Map&lt;String, Object&gt; result = parser.complete();
+ * </pre>
+ */
+public class AsyncJSON
+{
+    private enum State
+    {
+        VALUE, ARRAY_FIRST, ARRAY_NEXT, OBJECT_FIRST, OBJECT_FIELD, OBJECT_COLON, OBJECT_NEXT,
+        STRING, STRING_ESCAPE, STRING_UNICODE, NUMBER, LITERAL, DONE
+    }
+
+    private final Deque<Object> _stack = new ArrayDeque<>();
+    private final Deque<String> _names = new ArrayDeque<>();
+    private final Utf8StringBuilder _string = new Utf8StringBuilder();
+    private final StringBuilder _decimal = new StringBuilder();
+    private final JSON _json;
+    private State _state = State.VALUE;
+    private boolean _stringIsName;
+    private int _unicode;
+    private int _unicodeDigits;
+    private long _number;
+    private boolean _negative;
+    private boolean _digits;
+    private boolean _isDecimal;
+    private String _literal;
+    private int _literalIndex;
+    private Object _result;
+
+    public AsyncJSON()
+    {
+        this(new JSON());
+    }
+
+    /**
+     * @param json the JSON used to create the maps and arrays, and to convert the objects
+     */
+    public AsyncJSON(JSON json)
+    {
+        _json = json;
+    }
+
+    /**
+     * @param bytes the bytes to parse
+     * @return whether a whole JSON value has been parsed
+     * @see #parse(ByteBuffer)
+     */
+    public boolean parse(byte[] bytes)
+    {
+        return parse(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * @param bytes the bytes to parse
+     * @param offset the offset of the bytes to parse
+     * @param length the number of bytes to parse
+     * @return whether a whole JSON value has been parsed
+     * @see #parse(ByteBuffer)
+     */
+    public boolean parse(byte[] bytes, int offset, int length)
+    {
+        return parse(ByteBuffer.wrap(bytes, offset, length));
+    }
+
+    /**
+     * <p>Parses the given chunk of UTF-8 JSON content, consuming all of it.</p>
+     * <p>A top-level number may only be known to be complete when
+     * {@link #complete()} is called.</p>
+     *
+     * @param buffer the chunk of content to parse
+     * @return whether a whole JSON value has been parsed
+     * @throws IllegalStateException if the content is not valid JSON
+     */
+    public boolean parse(ByteBuffer buffer)
+    {
+        try
+        {
+            while (buffer.hasRemaining())
+            {
+                switch (_state)
+                {
+                    case STRING:
+                    case STRING_ESCAPE:
+                    case STRING_UNICODE:
+                        if (parseString(buffer))
+                            onString();
+                        break;
+
+                    case NUMBER:
+                        if (parseNumber(buffer))
+                            onValue(number());
+                        break;
+
+                    case LITERAL:
+                        parseLiteral(buffer);
+                        break;
+
+                    default:
+                        parseToken(buffer);
+                        break;
+                }
+            }
+            return _state == State.DONE;
+        }
+        catch (Throwable x)
+        {
+            reset();
+            throw x;
+        }
+    }
+
+    /**
+     * <p>Signals that there is no more content to parse.</p>
+     *
+     * @param <R> the type the result is cast to
+     * @return the parsed object
+     * @throws IllegalStateException if the content parsed is not a whole JSON value
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R complete()
+    {
+        try
+        {
+            if (_state == State.NUMBER && _digits)
+                onValue(number());
+            if (_state != State.DONE)
+                throw new IllegalStateException("Incomplete JSON content");
+            return (R)_result;
+        }
+        finally
+        {
+            reset();
+        }
+    }
+
+    private void reset()
+    {
+        _stack.clear();
+        _names.clear();
+        _string.reset();
+        _state = State.VALUE;
+        _result = null;
+    }
+
+    private void parseToken(ByteBuffer buffer)
+    {
+        byte b = buffer.get(buffer.position());
+        if (b == ' ' || b == '\n' || b == '\r' || b == '\t')
+        {
+            buffer.get();
+            return;
+        }
+
+        switch (_state)
+        {
+            case ARRAY_FIRST:
+                if (b == ']')
+                {
+                    buffer.get();
+                    endArray();
+                    return;
+                }
+                parseValue(buffer, b);
+                return;
+
+            case VALUE:
+                parseValue(buffer, b);
+                return;
+
+            case ARRAY_NEXT:
+                buffer.get();
+                if (b == ',')
+                    _state = State.VALUE;
+                else if (b == ']')
+                    endArray();
+                else
+                    throw unexpected(b, "',' or ']'");
+                return;
+
+            case OBJECT_FIRST:
+            case OBJECT_FIELD:
+                buffer.get();
+                if (b == '"')
+                    startString(true);
+                else if (b == '}' && _state == State.OBJECT_FIRST)
+                    endObject();
+                else
+                    throw unexpected(b, "field name");
+                return;
+
+            case OBJECT_COLON:
+                buffer.get();
+                if (b != ':')
+                    throw unexpected(b, "':'");
+                _state = State.VALUE;
+                return;
+
+            case OBJECT_NEXT:
+                buffer.get();
+                if (b == ',')
+                    _state = State.OBJECT_FIELD;
+                else if (b == '}')
+                    endObject();
+                else
+                    throw unexpected(b, "',' or '}'");
+                return;
+
+            case DONE:
+                throw unexpected(b, "end of content");
+
+            default:
+                throw new IllegalStateException(_state.toString());
+        }
+    }
+
+    private void parseValue(ByteBuffer buffer, byte b)
+    {
+        switch (b)
+        {
+            case '{':
+                buffer.get();
+                _stack.push(_json.newMap());
+                _state = State.OBJECT_FIRST;
+                break;
+            case '[':
+                buffer.get();
+                _stack.push(new ArrayList<>());
+                _state = State.ARRAY_FIRST;
+                break;
+            case '"':
+                buffer.get();
+                startString(false);
+                break;
+            case 't':
+                startLiteral("true");
+                break;
+            case 'f':
+                startLiteral("false");
+                break;
+            case 'n':
+                startLiteral("null");
+                break;
+            default:
+                if (b == '-' || (b >= '0' && b <= '9'))
+                {
+                    _number = 0;
+                    _negative = false;
+                    _digits = false;
+                    _isDecimal = false;
+                    _state = State.NUMBER;
+                    break;
+                }
+                throw unexpected(b, "JSON value");
+        }
+    }
+
+    private void startString(boolean name)
+    {
+        _stringIsName = name;
+        _string.reset();
+        _state = State.STRING;
+    }
+
+    private boolean parseString(ByteBuffer buffer)
+    {
+        // Fast path for a string entirely in the buffer, without escapes or non ASCII bytes
+        if (_state == State.STRING && _string.length() == 0)
+        {
+            int start = buffer.position();
+            int limit = buffer.limit();
+            for (int i = start; i < limit; ++i)
+            {
+                byte b = buffer.get(i);
+                if (b == '"')
+                {
+                    String string;
+                    if (buffer.hasArray())
+                    {
+                        string = new String(buffer.array(), buffer.arrayOffset() + start, i - start, StandardCharsets.ISO_8859_1);
+                    }
+                    else
+                    {
+                        byte[] bytes = new byte[i - start];
+                        buffer.get(bytes);
+                        string = new String(bytes, StandardCharsets.ISO_8859_1);
+                    }
+                    buffer.position(i + 1);
+                    _string.append(string);
+                    return true;
+                }
+                if (b == '\\' || b < 0)
+                    break;
+            }
+        }
+
+        while (buffer.hasRemaining())
+        {
+            byte b = buffer.get();
+            switch (_state)
+            {
+                case STRING:
+                    if (b == '"')
+                        return true;
+                    if (b == '\\')
+                        _state = State.STRING_ESCAPE;
+                    else
+                        _string.append(b);
+                    break;
+
+                case STRING_ESCAPE:
+                    _state = State.STRING;
+                    switch (b)
+                    {
+                        case 'b':
+                            _string.append('\b');
+                            break;
+                        case 'f':
+                            _string.append('\f');
+                            break;
+                        case 'n':
+                            _string.append('\n');
+                            break;
+                        case 'r':
+                            _string.append('\r');
+                            break;
+                        case 't':
+                            _string.append('\t');
+                            break;
+                        case 'u':
+                            _unicode = 0;
+                            _unicodeDigits = 0;
+                            _state = State.STRING_UNICODE;
+                            break;
+                        default:
+                            _string.append(b);
+                            break;
+                    }
+                    break;
+
+                case STRING_UNICODE:
+                    _unicode = (_unicode << 4) + TypeUtil.convertHexDigit(b);
+                    if (++_unicodeDigits == 4)
+                    {
+                        _string.append((char)_unicode);
+                        _state = State.STRING;
+                    }
+                    break;
+
+                default:
+                    throw new IllegalStateException(_state.toString());
+            }
+        }
+        return false;
+    }
+
+    private void onString()
+    {
+        String string = _string.toString();
+        _string.reset();
+        if (_stringIsName)
+        {
+            _names.push(string);
+            _state = State.OBJECT_COLON;
+        }
+        else
+        {
+            onValue(string);
+        }
+    }
+
+    private boolean parseNumber(ByteBuffer buffer)
+    {
+        while (buffer.hasRemaining())
+        {
+            byte b = buffer.get(buffer.position());
+            if (_isDecimal)
+            {
+                if ((b >= '0' && b <= '9') || b == '-' || b == '+' || b == '.' || b == 'e' || b == 'E')
+                    _decimal.append((char)b);
+                else
+                    return true;
+            }
+            else if (b >= '0' && b <= '9')
+            {
+                _number = _number * 10 + (b - '0');
+                _digits = true;
+            }
+            else if (b == '-' && !_digits && !_negative)
+            {
+                _negative = true;
+            }
+            else if ((b == '.' || b == 'e' || b == 'E') && _digits)
+            {
+                _isDecimal = true;
+                _decimal.setLength(0);
+                if (_negative)
+                    _decimal.append('-');
+                _decimal.append(_number).append((char)b);
+            }
+            else if (_digits)
+            {
+                return true;
+            }
+            else
+            {
+                throw unexpected(b, "digit");
+            }
+            buffer.get();
+        }
+        return false;
+    }
+
+    private Number number()
+    {
+        if (_isDecimal)
+            return Double.parseDouble(_decimal.toString());
+        return _negative ? -_number : _number;
+    }
+
+    private void startLiteral(String literal)
+    {
+        _literal = literal;
+        _literalIndex = 0;
+        _state = State.LITERAL;
+    }
+
+    private void parseLiteral(ByteBuffer buffer)
+    {
+        while (buffer.hasRemaining())
+        {
+            byte b = buffer.get();
+            if (b != _literal.charAt(_literalIndex++))
+                throw unexpected(b, "'" + _literal + "'");
+            if (_literalIndex == _literal.length())
+            {
+                switch (_literal)
+                {
+                    case "true":
+                        onValue(Boolean.TRUE);
+                        break;
+                    case "false":
+                        onValue(Boolean.FALSE);
+                        break;
+                    default:
+                        onValue(null);
+                        break;
+                }
+                return;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void endObject()
+    {
+        Map<String, Object> map = (Map<String, Object>)_stack.pop();
+        onValue(_json.convertObject(map));
+    }
+
+    private void endArray()
+    {
+        List<?> list = (List<?>)_stack.pop();
+        onValue(list.toArray(_json.newArray(list.size())));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void onValue(Object value)
+    {
+        Object container = _stack.peek();
+        if (container == null)
+        {
+            _result = value;
+            _state = State.DONE;
+        }
+        else if (container instanceof Map)
+        {
+            ((Map<String, Object>)container).put(_names.pop(), value);
+            _state = State.OBJECT_NEXT;
+        }
+        else
+        {
+            ((List<Object>)container).add(value);
+            _state = State.ARRAY_NEXT;
+        }
+    }
+
+    private IllegalStateException unexpected(byte b, String expected)
+    {
+        return new IllegalStateException(String.format("Unexpected '%c' (0x%02x) while expecting %s", (char)(b & 0xFF), b & 0xFF, expected));
+    }
+}
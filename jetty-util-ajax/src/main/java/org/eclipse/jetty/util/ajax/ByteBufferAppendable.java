@@ -0,0 +1,202 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.ajax;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.util.BufferUtil;
+
+/**
+ * <p>An {@link Appendable} that encodes the characters appended to it
+ * as UTF-8 bytes, directly into {@link ByteBuffer}s acquired from a
+ * {@link ByteBufferPool}.</p>
+ * <p>This avoids building an intermediate {@code String} and then encoding
+ * it to a {@code byte[]} when the characters are destined to be written out,
+ * for example when generating JSON with {@link JSON#append(Appendable, Object)}.</p>
+ * <p>The buffers obtained from {@link #takeByteBuffers()} must be released
+ * to the pool by the caller once they have been written.</p>
+ */
+public class ByteBufferAppendable implements Appendable
+{
+    private final List<ByteBuffer> _buffers = new ArrayList<>();
+    private final ByteBufferPool _pool;
+    private final int _bufferSize;
+    private final boolean _direct;
+    private ByteBuffer _buffer;
+    private char _highSurrogate;
+
+    /**
+     * @param pool the pool to acquire the buffers from
+     * @param bufferSize the size of the buffers to acquire
+     * @param direct whether to acquire direct buffers
+     */
+    public ByteBufferAppendable(ByteBufferPool pool, int bufferSize, boolean direct)
+    {
+        _pool = pool;
+        _bufferSize = Math.max(bufferSize, 4);
+        _direct = direct;
+    }
+
+    @Override
+    public ByteBufferAppendable append(CharSequence csq)
+    {
+        if (csq == null)
+            csq = "null";
+        return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public ByteBufferAppendable append(CharSequence csq, int start, int end)
+    {
+        if (csq == null)
+            csq = "null";
+        int i = start;
+        while (i < end)
+        {
+            // Fast path for ASCII characters that fit in the current buffer.
+            if (_highSurrogate == 0 && _buffer != null)
+            {
+                ByteBuffer buffer = _buffer;
+                int limit = Math.min(end, i + buffer.remaining());
+                while (i < limit)
+                {
+                    char c = csq.charAt(i);
+                    if (c >= 0x80)
+                        break;
+                    buffer.put((byte)c);
+                    ++i;
+                }
+                if (i == end)
+                    break;
+            }
+            append(csq.charAt(i++));
+        }
+        return this;
+    }
+
+    @Override
+    public ByteBufferAppendable append(char c)
+    {
+        if (_highSurrogate != 0)
+        {
+            char high = _highSurrogate;
+            _highSurrogate = 0;
+            if (Character.isLowSurrogate(c))
+            {
+                int codePoint = Character.toCodePoint(high, c);
+                ByteBuffer buffer = ensure(4);
+                buffer.put((byte)(0xF0 | (codePoint >> 18)));
+                buffer.put((byte)(0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte)(0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte)(0x80 | (codePoint & 0x3F)));
+                return this;
+            }
+            // Unpaired high surrogate.
+            ensure(1).put((byte)'?');
+        }
+
+        if (c < 0x80)
+        {
+            ensure(1).put((byte)c);
+        }
+        else if (c < 0x800)
+        {
+            ByteBuffer buffer = ensure(2);
+            buffer.put((byte)(0xC0 | (c >> 6)));
+            buffer.put((byte)(0x80 | (c & 0x3F)));
+        }
+        else if (Character.isHighSurrogate(c))
+        {
+            _highSurrogate = c;
+        }
+        else if (Character.isLowSurrogate(c))
+        {
+            // Unpaired low surrogate.
+            ensure(1).put((byte)'?');
+        }
+        else
+        {
+            ByteBuffer buffer = ensure(3);
+            buffer.put((byte)(0xE0 | (c >> 12)));
+            buffer.put((byte)(0x80 | ((c >> 6) & 0x3F)));
+            buffer.put((byte)(0x80 | (c & 0x3F)));
+        }
+        return this;
+    }
+
+    private ByteBuffer ensure(int bytes)
+    {
+        ByteBuffer buffer = _buffer;
+        if (buffer == null || buffer.remaining() < bytes)
+        {
+            if (buffer != null)
+                _buffers.add(buffer);
+            buffer = _pool.acquire(_bufferSize, _direct);
+            BufferUtil.clearToFill(buffer);
+            _buffer = buffer;
+        }
+        return buffer;
+    }
+
+    /**
+     * <p>Returns the buffers containing the UTF-8 bytes appended so far,
+     * in flush mode, and resets this appendable so that it can be reused.</p>
+     *
+     * @return the buffers containing the UTF-8 bytes, to be released to the pool by the caller
+     */
+    public List<ByteBuffer> takeByteBuffers()
+    {
+        if (_highSurrogate != 0)
+        {
+            _highSurrogate = 0;
+            ensure(1).put((byte)'?');
+        }
+        if (_buffer != null)
+        {
+            _buffers.add(_buffer);
+            _buffer = null;
+        }
+        List<ByteBuffer> result = new ArrayList<>(_buffers.size());
+        for (ByteBuffer buffer : _buffers)
+        {
+            BufferUtil.flipToFlush(buffer, 0);
+            result.add(buffer);
+        }
+        _buffers.clear();
+        return result;
+    }
+
+    /**
+     * <p>Releases to the pool the buffers that have not been taken.</p>
+     */
+    public void release()
+    {
+        if (_buffer != null)
+        {
+            _buffers.add(_buffer);
+            _buffer = null;
+        }
+        _buffers.forEach(_pool::release);
+        _buffers.clear();
+        _highSurrogate = 0;
+    }
+}
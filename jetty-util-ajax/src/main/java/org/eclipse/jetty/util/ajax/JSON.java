@@ -22,6 +22,7 @@ import java.io.Externalizable;
 import java.io.IOException;
 import java.io.Reader;
 import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -30,6 +31,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.util.Loader;
 import org.eclipse.jetty.util.TypeUtil;
 import org.eclipse.jetty.util.log.Log;
@@ -211,6 +213,32 @@ public class JSON
         return buffer.toString();
     }
 
+    /**
+     * <p>Converts any object to JSON, encoded as UTF-8 bytes directly into
+     * buffers acquired from the given pool.</p>
+     * <p>The returned buffers must be released to the pool once they have been consumed.</p>
+     *
+     * @param object the object to convert
+     * @param pool the pool to acquire the buffers from
+     * @param direct whether to acquire direct buffers
+     * @return the buffers containing the UTF-8 bytes of the JSON representation of the object, in flush mode
+     * @see ByteBufferAppendable
+     */
+    public List<ByteBuffer> toJSON(Object object, ByteBufferPool pool, boolean direct)
+    {
+        ByteBufferAppendable buffer = new ByteBufferAppendable(pool, getStringBufferSize(), direct);
+        try
+        {
+            append(buffer, object);
+            return buffer.takeByteBuffers();
+        }
+        catch (Throwable x)
+        {
+            buffer.release();
+            throw x;
+        }
+    }
+
     /**
      * <p>Appends the given object as JSON to string buffer.</p>
      * <p>This method tests the given object type and calls other
@@ -888,6 +916,18 @@ public class JSON
                 next = seekTo("\"}", source);
         }
 
+        return convertObject(map);
+    }
+
+    /**
+     * <p>Converts a parsed JSON object into the object of its {@code x-class}
+     * convertor or of its {@code class}, if any.</p>
+     *
+     * @param map the parsed JSON object
+     * @return the converted object, or the given map
+     */
+    protected Object convertObject(Map<String, Object> map)
+    {
         String xclassname = (String)map.get("x-class");
         if (xclassname != null)
         {
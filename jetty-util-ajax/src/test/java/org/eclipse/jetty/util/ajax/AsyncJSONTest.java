@@ -0,0 +1,186 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.ajax;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.MappedByteBufferPool;
+import org.eclipse.jetty.util.BufferUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AsyncJSONTest
+{
+    // @checkstyle-disable-check : AvoidEscapedUnicodeCharactersCheck
+
+    private static final String CONTENT = "{" +
+        "\"onehundred\":100," +
+        "\"small\":-0.2," +
+        "\"name\":\"fred\"," +
+        "\"empty\":{}," +
+        "\"map\":{\"a\":-1.0e2}," +
+        "\"array\":[\"a\",-1.0e2,[],null,true,false]," +
+        "\"w0\":{\"class\":\"org.eclipse.jetty.util.ajax.JSONTest$Woggle\",\"name\":\"woggle0\",\"nested\":{\"class\":\"org.eclipse.jetty.util.ajax.JSONTest$Woggle\",\"name\":\"woggle1\",\"nested\":null,\"number\":101},\"number\":100}," +
+        "\"NaN\":null," +
+        "\"long\":5000000000," +
+        "\"escaped\":\"a\\\"b\\\\c\\/d\\te\\u00e9\\u4e2d\\ud83d\\ude00\"," +
+        "\"unicode\":\"été 中文 😀\"" +
+        "}";
+
+    @Test
+    public void testParseWhole()
+    {
+        JSON json = new JSON();
+        AsyncJSON parser = new AsyncJSON();
+        assertTrue(parser.parse(CONTENT.getBytes(StandardCharsets.UTF_8)));
+        Map<String, Object> result = parser.complete();
+        assertEquals(json.toJSON(json.fromJSON(CONTENT)), json.toJSON(result));
+    }
+
+    @Test
+    public void testParseSplitAtEveryIndex()
+    {
+        JSON json = new JSON();
+        String expected = json.toJSON(json.fromJSON(CONTENT));
+        byte[] bytes = CONTENT.getBytes(StandardCharsets.UTF_8);
+        AsyncJSON parser = new AsyncJSON();
+        for (int i = 0; i <= bytes.length; ++i)
+        {
+            for (int j = i; j <= bytes.length; ++j)
+            {
+                parser.parse(bytes, 0, i);
+                parser.parse(ByteBuffer.wrap(bytes, i, j - i).slice());
+                assertTrue(parser.parse(ByteBuffer.allocateDirect(bytes.length - j).put(bytes, j, bytes.length - j).flip()));
+                Map<String, Object> result = parser.complete();
+                assertEquals(expected, json.toJSON(result), "split at " + i + "," + j);
+            }
+        }
+    }
+
+    @Test
+    public void testParseTopLevelValues()
+    {
+        AsyncJSON parser = new AsyncJSON();
+
+        parser.parse("123".getBytes(StandardCharsets.UTF_8));
+        assertEquals(123L, (Long)parser.complete());
+
+        parser.parse(" -1.5e3 ".getBytes(StandardCharsets.UTF_8));
+        assertEquals(-1500D, (Double)parser.complete());
+
+        parser.parse("\"text\"".getBytes(StandardCharsets.UTF_8));
+        assertEquals("text", parser.complete());
+
+        parser.parse("null".getBytes(StandardCharsets.UTF_8));
+        assertNull(parser.complete());
+
+        parser.parse("[1, true, \"x\"]".getBytes(StandardCharsets.UTF_8));
+        assertArrayEquals(new Object[]{1L, true, "x"}, parser.complete());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "{", "{\"a\"", "{\"a\":}", "[1,]", "[1 2]", "tru", "trux", "{} {}", "-", "\"abc"})
+    public void testParseInvalid(String content)
+    {
+        AsyncJSON parser = new AsyncJSON();
+        assertThrows(IllegalStateException.class, () ->
+        {
+            parser.parse(content.getBytes(StandardCharsets.UTF_8));
+            parser.complete();
+        });
+        // The parser is reusable after a failure.
+        parser.parse("{\"a\":1}".getBytes(StandardCharsets.UTF_8));
+        Map<String, Object> result = parser.complete();
+        assertEquals(1L, result.get("a"));
+    }
+
+    @Test
+    public void testParseWithConvertor()
+    {
+        JSON json = new JSON();
+        json.addConvertor(Foo.class, new JSONPojoConvertor(Foo.class));
+        AsyncJSON parser = new AsyncJSON(json);
+        String content = "{\"class\":\"org.eclipse.jetty.util.ajax.Foo\",\"name\":\"foo\",\"int1\":10}";
+        parser.parse(content.getBytes(StandardCharsets.UTF_8));
+        Foo foo = parser.complete();
+        assertEquals("foo", foo.getName());
+        assertEquals(10, foo.getInt1());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    public void testGenerate(boolean direct)
+    {
+        Map<String, Object> map = new HashMap<>();
+        map.put("ascii", "hello");
+        map.put("unicode", "été 中文 😀");
+        map.put("array", new Object[]{1, 2.5, null, true});
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 1000; ++i)
+        {
+            large.append("é😀").append(i);
+        }
+        map.put("large", large.toString());
+
+        ByteBufferPool pool = new MappedByteBufferPool();
+        JSON json = new JSON();
+        json.setStringBufferSize(64);
+        List<ByteBuffer> buffers = json.toJSON(map, pool, direct);
+        assertTrue(buffers.size() > 1);
+
+        ByteBuffer all = BufferUtil.allocate(buffers.stream().mapToInt(ByteBuffer::remaining).sum());
+        buffers.forEach(buffer ->
+        {
+            assertEquals(direct, buffer.isDirect());
+            BufferUtil.append(all, buffer);
+            pool.release(buffer);
+        });
+        assertEquals(json.toJSON(map), BufferUtil.toUTF8String(all));
+
+        AsyncJSON parser = new AsyncJSON(json);
+        parser.parse(all);
+        Map<String, Object> result = parser.complete();
+        assertEquals(map.get("unicode"), result.get("unicode"));
+        assertEquals(map.get("large"), result.get("large"));
+    }
+
+    @Test
+    public void testByteBufferAppendableSurrogates()
+    {
+        ByteBufferPool pool = new MappedByteBufferPool();
+        ByteBufferAppendable appendable = new ByteBufferAppendable(pool, 4, false);
+        appendable.append('a').append('\ud83d').append("\ude00b").append("é中", 0, 2).append('\ude00');
+        List<ByteBuffer> buffers = appendable.takeByteBuffers();
+        ByteBuffer all = BufferUtil.allocate(64);
+        buffers.forEach(buffer -> BufferUtil.append(all, buffer));
+        assertEquals("a😀bé中?", BufferUtil.toUTF8String(all));
+    }
+}
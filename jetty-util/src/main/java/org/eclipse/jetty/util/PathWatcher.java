@@ -972,6 +972,15 @@ public class PathWatcher extends AbstractLifeCycle implements Runnable
         return (isStarted() || (!isStarted() && isNotifyExistingOnStart()));
     }
 
+    /**
+     * @return true if the started watcher uses a native WatchService,
+     * false if the WatchService polls the file system
+     */
+    public boolean isNativeWatchService()
+    {
+        return nativeWatchService;
+    }
+
     /**
      * Get an iterator over the listeners.
      *
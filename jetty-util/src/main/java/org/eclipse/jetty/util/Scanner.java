@@ -40,6 +40,8 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
 
 import org.eclipse.jetty.util.component.AbstractLifeCycle;
@@ -79,6 +81,14 @@ public class Scanner extends AbstractLifeCycle
     private Timer _timer;
     private TimerTask _task;
     private int _scanDepth = DEFAULT_SCAN_DEPTH;
+    private boolean _watching;
+    private long _watchQuietTime = 1000;
+    private PathWatcher _pathWatcher;
+    private TimerTask _followUp;
+    private final AtomicLong _watchEvents = new AtomicLong();
+    private long _scanNanos;
+    private long _lastScanNanos;
+    private int _lastScanSize;
 
     public enum Notification
     {
@@ -463,6 +473,89 @@ public class Scanner extends AbstractLifeCycle
         return _filter;
     }
 
+    /**
+     * @return true if scans are driven by file system events rather than by the scan interval
+     * @see #setWatching(boolean)
+     */
+    public boolean isWatching()
+    {
+        return _watching;
+    }
+
+    /**
+     * <p>Sets whether scans are driven by file system events.</p>
+     * <p>When watching, a {@link PathWatcher} watches the scanned directories to the scan depth,
+     * and the directories are only scanned once events have been quiet for the
+     * {@link #setWatchQuietTime(long) quiet time}, rather than at every scan interval.
+     * A changed file is reported by the scan that follows, as for polling.</p>
+     * <p>If the file system does not provide native watch events, the scanner falls back
+     * to scanning at the scan interval.</p>
+     *
+     * @param watching true to scan on file system events, false to scan at the scan interval
+     */
+    public void setWatching(boolean watching)
+    {
+        if (isRunning())
+            throw new IllegalStateException("Running");
+        _watching = watching;
+    }
+
+    /**
+     * @return the time in milliseconds that watch events must be quiet before a scan
+     */
+    public long getWatchQuietTime()
+    {
+        return _watchQuietTime;
+    }
+
+    /**
+     * @param quietTime the time in milliseconds that watch events must be quiet before a scan
+     */
+    public void setWatchQuietTime(long quietTime)
+    {
+        _watchQuietTime = quietTime;
+    }
+
+    /**
+     * @return the number of scans performed
+     */
+    public synchronized int getScanCount()
+    {
+        return _scanCount;
+    }
+
+    /**
+     * @return the total time in nanoseconds spent scanning
+     */
+    public synchronized long getScanNanos()
+    {
+        return _scanNanos;
+    }
+
+    /**
+     * @return the time in nanoseconds spent by the last scan
+     */
+    public synchronized long getLastScanNanos()
+    {
+        return _lastScanNanos;
+    }
+
+    /**
+     * @return the number of files and directories found by the last scan
+     */
+    public synchronized int getLastScanSize()
+    {
+        return _lastScanSize;
+    }
+
+    /**
+     * @return the number of file system events received while watching
+     */
+    public long getWatchEventCount()
+    {
+        return _watchEvents.get();
+    }
+
     /**
      * Whether or not an initial scan will report all files as being
      * added.
@@ -533,6 +626,10 @@ public class Scanner extends AbstractLifeCycle
             LOG.debug("Scanner start: rprtExists={}, depth={}, rprtDirs={}, interval={}, filter={}, scannables={}", 
                 _reportExisting, _scanDepth, _reportDirs, _scanInterval, _filter, _scannables);
 
+        // watch before the initial scan, so that no change is missed
+        if (_watching)
+            startWatching();
+
         if (_reportExisting)
         {
             // if files exist at startup, report them
@@ -548,6 +645,75 @@ public class Scanner extends AbstractLifeCycle
         schedule();
     }
 
+    /**
+     * Start a {@link PathWatcher} on the scannables, falling back to scanning
+     * at the scan interval if the watch events are not native.
+     */
+    private void startWatching()
+    {
+        PathWatcher watcher = new PathWatcher();
+        watcher.setNotifyExistingOnStart(false);
+        watcher.setUpdateQuietTime(_watchQuietTime, TimeUnit.MILLISECONDS);
+        for (Path p : _scannables.keySet())
+        {
+            if (Files.isDirectory(p))
+            {
+                PathWatcher.Config config = new PathWatcher.Config(p);
+                config.setRecurseDepth(_scanDepth >= MAX_SCAN_DEPTH ? PathWatcher.Config.UNLIMITED_DEPTH : _scanDepth);
+                watcher.watch(config);
+            }
+            else
+            {
+                watcher.watch(p);
+            }
+        }
+        watcher.addListener((PathWatcher.EventListListener)events ->
+        {
+            _watchEvents.addAndGet(events.size());
+            if (LOG.isDebugEnabled())
+                LOG.debug("watched {}", events);
+            scan();
+        });
+
+        try
+        {
+            watcher.start();
+            if (watcher.isNativeWatchService())
+            {
+                _pathWatcher = watcher;
+                return;
+            }
+            LOG.info("No native watch events for {}, scanning at interval {}", _scannables.keySet(), _scanInterval);
+            watcher.stop();
+        }
+        catch (Exception e)
+        {
+            LOG.warn("Cannot watch " + _scannables.keySet() + ", scanning at interval " + _scanInterval, e);
+            try
+            {
+                watcher.stop();
+            }
+            catch (Exception x)
+            {
+                LOG.ignore(x);
+            }
+        }
+    }
+
+    /**
+     * Scan again after the quiet time, so that files changed by a watched
+     * scan are reported once they are stable.
+     */
+    private void scheduleFollowUp()
+    {
+        if (_followUp != null)
+            _followUp.cancel();
+        if (_timer == null)
+            _timer = newTimer();
+        _followUp = newTimerTask();
+        _timer.schedule(_followUp, _watchQuietTime);
+    }
+
     public TimerTask newTimerTask()
     {
         return new TimerTask()
@@ -567,7 +733,7 @@ public class Scanner extends AbstractLifeCycle
 
     public void schedule()
     {
-        if (_running)
+        if (_running && _pathWatcher == null)
         {
             if (_timer != null)
                 _timer.cancel();
@@ -597,6 +763,19 @@ public class Scanner extends AbstractLifeCycle
                 _task.cancel();
             _task = null;
             _timer = null;
+            _followUp = null;
+            if (_pathWatcher != null)
+            {
+                try
+                {
+                    _pathWatcher.stop();
+                }
+                catch (Exception e)
+                {
+                    LOG.ignore(e);
+                }
+                _pathWatcher = null;
+            }
         }
     }
     
@@ -637,12 +816,19 @@ public class Scanner extends AbstractLifeCycle
     public synchronized void scan()
     {
         reportScanStart(++_scanCount);
+        long start = System.nanoTime();
         scanFiles();
+        _lastScanNanos = System.nanoTime() - start;
+        _scanNanos += _lastScanNanos;
+        _lastScanSize = _currentScan.size();
         reportDifferences(_currentScan, _prevScan);
         _prevScan.clear();
         _prevScan.putAll(_currentScan);
         reportScanEnd(_scanCount);
 
+        if (_running && _pathWatcher != null && !_notifications.isEmpty())
+            scheduleFollowUp();
+
         for (Listener l : _listeners)
         {
             try
@@ -457,9 +457,15 @@ public class URIUtil
     {
         try
         {
-            Utf8StringBuilder builder = null;
+            // Fast path for the common case of a path without encodings or parameters
             int end = offset + length;
-            for (int i = offset; i < end; i++)
+            int first = indexOf(path, '%', offset, end);
+            first = indexOf(path, ';', offset, first);
+            if (first == end)
+                return (offset == 0 && length == path.length()) ? path : path.substring(offset, end);
+
+            Utf8StringBuilder builder = null;
+            for (int i = first; i < end; i++)
             {
                 char c = path.charAt(i);
                 switch (c)
@@ -540,6 +546,15 @@ public class URIUtil
 
     }
 
+    /**
+     * @return the index of the character in the given range of the string, or the end of the range
+     */
+    private static int indexOf(String s, char c, int from, int end)
+    {
+        int i = s.indexOf(c, from);
+        return (i < 0 || i > end) ? end : i;
+    }
+
     /* Decode a URI path and strip parameters of ISO-8859-1 path
      */
     private static String decodeISO88591Path(String path, int offset, int length)
@@ -784,6 +799,10 @@ public class URIUtil
         if (path == null || path.isEmpty())
             return path;
 
+        // Fast path for the common case of an already canonical path
+        if (path.charAt(0) != '.' && !path.contains("/."))
+            return path;
+
         boolean slash = true;
         int end = path.length();
         int i = 0;
@@ -22,8 +22,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -298,6 +301,9 @@ public class UrlEncoded extends MultiMap<String> implements Cloneable
 
     /**
      * Decoded parameters to Map.
+     * <p>Keys and values without {@code %} or {@code +} encodings are
+     * returned as substrings of the query, without being copied through
+     * an {@link Utf8StringBuilder}.</p>
      *
      * @param query the string containing the encoded parameters
      * @param offset the offset within raw to decode from
@@ -306,107 +312,131 @@ public class UrlEncoded extends MultiMap<String> implements Cloneable
      */
     public static void decodeUtf8To(String query, int offset, int length, MultiMap<String> map)
     {
-        Utf8StringBuilder buffer = new Utf8StringBuilder();
+        Utf8StringBuilder buffer = null;
         synchronized (map)
         {
             String key = null;
-            String value = null;
+            String value;
 
             int end = offset + length;
+            int mark = offset;
+            boolean encoded = false;
             for (int i = offset; i < end; i++)
             {
                 char c = query.charAt(i);
                 switch (c)
                 {
                     case '&':
-                        value = buffer.toReplacedString();
-                        buffer.reset();
+                        if (encoded && buffer == null)
+                            buffer = new Utf8StringBuilder();
+                        value = decodeUtf8(query, mark, i, encoded, buffer);
                         if (key != null)
                         {
                             map.add(key, value);
                         }
-                        else if (value != null && value.length() > 0)
+                        else if (value.length() > 0)
                         {
                             map.add(value, "");
                         }
                         key = null;
-                        value = null;
+                        mark = i + 1;
+                        encoded = false;
                         break;
 
                     case '=':
                         if (key != null)
-                        {
-                            buffer.append(c);
                             break;
-                        }
-                        key = buffer.toReplacedString();
-                        buffer.reset();
+                        if (encoded && buffer == null)
+                            buffer = new Utf8StringBuilder();
+                        key = decodeUtf8(query, mark, i, encoded, buffer);
+                        mark = i + 1;
+                        encoded = false;
                         break;
 
                     case '+':
-                        buffer.append((byte)' ');
+                        encoded = true;
                         break;
 
                     case '%':
-                        if (i + 2 < end)
-                        {
-                            char hi = query.charAt(++i);
-                            char lo = query.charAt(++i);
-                            buffer.append(decodeHexByte(hi, lo));
-                        }
-                        else
-                        {
+                        if (i + 2 >= end)
                             throw new Utf8Appendable.NotUtf8Exception("Incomplete % encoding");
-                        }
+                        encoded = true;
+                        i += 2;
                         break;
 
                     default:
-                        buffer.append(c);
                         break;
                 }
             }
 
+            if (encoded && buffer == null)
+                buffer = new Utf8StringBuilder();
             if (key != null)
             {
-                value = buffer.toReplacedString();
-                buffer.reset();
-                map.add(key, value);
+                map.add(key, decodeUtf8(query, mark, end, encoded, buffer));
             }
-            else if (buffer.length() > 0)
+            else if (mark < end)
+            {
+                value = decodeUtf8(query, mark, end, encoded, buffer);
+                if (value.length() > 0)
+                    map.add(value, "");
+            }
+        }
+    }
+
+    private static String decodeUtf8(String query, int start, int end, boolean encoded, Utf8StringBuilder buffer)
+    {
+        if (!encoded)
+            return start == end ? "" : query.substring(start, end);
+
+        buffer.reset();
+        for (int i = start; i < end; i++)
+        {
+            char c = query.charAt(i);
+            switch (c)
             {
-                map.add(buffer.toReplacedString(), "");
+                case '+':
+                    buffer.append((byte)' ');
+                    break;
+                case '%':
+                    buffer.append(decodeHexByte(query.charAt(++i), query.charAt(++i)));
+                    break;
+                default:
+                    buffer.append(c);
+                    break;
             }
         }
+        return buffer.toReplacedString();
     }
 
     /**
-     * Decoded parameters to MultiMap, using ISO8859-1 encodings.
+     * <p>Decodes UTF-8 parameters from the remaining bytes of a buffer, which is consumed.</p>
+     * <p>The buffer is scanned a word at a time for the delimiters, encodings and non ASCII
+     * bytes, so that ASCII keys and values without encodings are converted to strings
+     * directly from the buffer bytes.</p>
      *
-     * @param in InputSteam to read
-     * @param map MultiMap to add parameters to
-     * @param maxLength maximum length of form to read or -1 for no limit
-     * @param maxKeys maximum number of keys to read or -1 for no limit
-     * @throws IOException if unable to decode the InputStream as ISO8859-1
+     * @param buffer the buffer containing the encoded parameters
+     * @param map the {@link MultiMap} to populate
+     * @param maxKeys the maximum number of keys to read or -1 for no limit
      */
-    public static void decode88591To(InputStream in, MultiMap<String> map, int maxLength, int maxKeys)
-        throws IOException
+    public static void decodeUtf8To(ByteBuffer buffer, MultiMap<String> map, int maxKeys)
     {
         synchronized (map)
         {
-            StringBuilder buffer = new StringBuilder();
+            Utf8Decoder decoder = new Utf8Decoder(buffer);
             String key = null;
-            String value = null;
-
-            int b;
+            String value;
 
-            int totalLength = 0;
-            while ((b = in.read()) >= 0)
+            int end = buffer.limit();
+            int mark = buffer.position();
+            boolean encoded = false;
+            int i = mark;
+            while ((i = decoder.next(i)) < end)
             {
-                switch ((char)b)
+                switch (buffer.get(i))
                 {
                     case '&':
-                        value = buffer.length() == 0 ? "" : buffer.toString();
-                        buffer.setLength(0);
+                        value = decoder.decode(mark, i, encoded);
                         if (key != null)
                         {
                             map.add(key, value);
@@ -416,66 +446,169 @@ public class UrlEncoded extends MultiMap<String> implements Cloneable
                             map.add(value, "");
                         }
                         key = null;
-                        value = null;
+                        mark = i + 1;
+                        encoded = false;
                         checkMaxKeys(map, maxKeys);
                         break;
 
                     case '=':
-                        if (key != null)
+                        if (key == null)
                         {
-                            buffer.append((char)b);
-                            break;
+                            key = decoder.decode(mark, i, encoded);
+                            mark = i + 1;
+                            encoded = false;
                         }
-                        key = buffer.toString();
-                        buffer.setLength(0);
-                        break;
-
-                    case '+':
-                        buffer.append(' ');
                         break;
 
                     case '%':
-                        int code0 = in.read();
-                        int code1 = in.read();
-                        buffer.append(decodeHexChar(code0, code1));
+                        if (i + 2 >= end)
+                            throw new Utf8Appendable.NotUtf8Exception("Incomplete % encoding");
+                        encoded = true;
+                        i += 2;
                         break;
 
                     default:
-                        buffer.append((char)b);
+                        // '+' or non ASCII
+                        encoded = true;
                         break;
                 }
-                checkMaxLength(++totalLength, maxLength);
+                i++;
             }
 
             if (key != null)
             {
-                value = buffer.length() == 0 ? "" : buffer.toString();
-                buffer.setLength(0);
-                map.add(key, value);
+                map.add(key, decoder.decode(mark, end, encoded));
             }
-            else if (buffer.length() > 0)
+            else if (mark < end)
             {
-                map.add(buffer.toString(), "");
+                value = decoder.decode(mark, end, encoded);
+                if (value.length() > 0)
+                    map.add(value, "");
             }
+            buffer.position(end);
             checkMaxKeys(map, maxKeys);
         }
     }
 
     /**
-     * Decoded parameters to Map.
+     * Decodes the keys and values of a buffer of UTF-8 form parameters,
+     * reusing the same storage for all the keys and values of the form.
+     */
+    private static class Utf8Decoder
+    {
+        private static final long ONES = 0x0101010101010101L;
+        private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+        private static final long HIGH_BITS = 0x8080808080808080L;
+        private static final long AMPERSAND = '&' * ONES;
+        private static final long EQUALS = '=' * ONES;
+        private static final long PERCENT = '%' * ONES;
+        private static final long PLUS = '+' * ONES;
+
+        private final ByteBuffer buffer;
+        private final boolean bigEndian;
+        private Utf8StringBuilder builder;
+        private byte[] bytes;
+
+        private Utf8Decoder(ByteBuffer buffer)
+        {
+            this.buffer = buffer;
+            this.bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+        }
+
+        /**
+         * @param from the index to scan from
+         * @return the index of the next delimiter, encoding or non ASCII byte, or the buffer limit
+         */
+        private int next(int from)
+        {
+            int end = buffer.limit();
+            int i = from;
+            while (i + 8 <= end)
+            {
+                long word = buffer.getLong(i);
+                long found = zeros(word ^ AMPERSAND) | zeros(word ^ EQUALS) | zeros(word ^ PERCENT) | zeros(word ^ PLUS) | (word & HIGH_BITS);
+                if (found != 0)
+                    return i + ((bigEndian ? Long.numberOfLeadingZeros(found) : Long.numberOfTrailingZeros(found)) >>> 3);
+                i += 8;
+            }
+            while (i < end)
+            {
+                byte b = buffer.get(i);
+                if (b == '&' || b == '=' || b == '%' || b == '+' || b < 0)
+                    return i;
+                i++;
+            }
+            return end;
+        }
+
+        /**
+         * @param word 8 bytes
+         * @return a word with the high bit set in each of the zero bytes of the given word
+         */
+        private static long zeros(long word)
+        {
+            return ~(((word & LOW_BITS) + LOW_BITS) | word | LOW_BITS);
+        }
+
+        private String decode(int start, int end, boolean encoded)
+        {
+            int length = end - start;
+            if (length == 0)
+                return "";
+
+            if (!encoded)
+            {
+                // ASCII only, so ISO-8859-1 decoding is equivalent to, but cheaper than, UTF-8
+                if (buffer.hasArray())
+                    return new String(buffer.array(), buffer.arrayOffset() + start, length, StandardCharsets.ISO_8859_1);
+                if (bytes == null || bytes.length < length)
+                    bytes = new byte[Math.max(length, 64)];
+                for (int i = 0; i < length; i++)
+                {
+                    bytes[i] = buffer.get(start + i);
+                }
+                return new String(bytes, 0, length, StandardCharsets.ISO_8859_1);
+            }
+
+            if (builder == null)
+                builder = new Utf8StringBuilder(length);
+            else
+                builder.reset();
+            for (int i = start; i < end; i++)
+            {
+                byte b = buffer.get(i);
+                switch (b)
+                {
+                    case '+':
+                        builder.append((byte)' ');
+                        break;
+                    case '%':
+                        builder.append(decodeHexByte((char)(buffer.get(++i) & 0xFF), (char)(buffer.get(++i) & 0xFF)));
+                        break;
+                    default:
+                        builder.append(b);
+                        break;
+                }
+            }
+            return builder.toReplacedString();
+        }
+    }
+
+    /**
+     * Decoded parameters to MultiMap, using ISO8859-1 encodings.
      *
      * @param in InputSteam to read
      * @param map MultiMap to add parameters to
-     * @param maxLength maximum form length to decode or -1 for no limit
-     * @param maxKeys the maximum number of keys to read or -1 for no limit
-     * @throws IOException if unable to decode the input stream
+     * @param maxLength maximum length of form to read or -1 for no limit
+     * @param maxKeys maximum number of keys to read or -1 for no limit
+     * @throws IOException if unable to decode the InputStream as ISO8859-1
      */
-    public static void decodeUtf8To(InputStream in, MultiMap<String> map, int maxLength, int maxKeys)
+    public static void decode88591To(InputStream in, MultiMap<String> map, int maxLength, int maxKeys)
         throws IOException
     {
         synchronized (map)
         {
-            Utf8StringBuilder buffer = new Utf8StringBuilder();
+            StringBuilder buffer = new StringBuilder();
             String key = null;
             String value = null;
 
@@ -487,13 +620,13 @@ public class UrlEncoded extends MultiMap<String> implements Cloneable
                 switch ((char)b)
                 {
                     case '&':
-                        value = buffer.toReplacedString();
-                        buffer.reset();
+                        value = buffer.length() == 0 ? "" : buffer.toString();
+                        buffer.setLength(0);
                         if (key != null)
                         {
                             map.add(key, value);
                         }
-                        else if (value != null && value.length() > 0)
+                        else if (value.length() > 0)
                         {
                             map.add(value, "");
                         }
@@ -505,25 +638,25 @@ public class UrlEncoded extends MultiMap<String> implements Cloneable
                     case '=':
                         if (key != null)
                         {
-                            buffer.append((byte)b);
+                            buffer.append((char)b);
                             break;
                         }
-                        key = buffer.toReplacedString();
-                        buffer.reset();
+                        key = buffer.toString();
+                        buffer.setLength(0);
                         break;
 
                     case '+':
-                        buffer.append((byte)' ');
+                        buffer.append(' ');
                         break;
 
                     case '%':
-                        char code0 = (char)in.read();
-                        char code1 = (char)in.read();
-                        buffer.append(decodeHexByte(code0, code1));
+                        int code0 = in.read();
+                        int code1 = in.read();
+                        buffer.append(decodeHexChar(code0, code1));
                         break;
 
                     default:
-                        buffer.append((byte)b);
+                        buffer.append((char)b);
                         break;
                 }
                 checkMaxLength(++totalLength, maxLength);
@@ -531,18 +664,47 @@ public class UrlEncoded extends MultiMap<String> implements Cloneable
 
             if (key != null)
             {
-                value = buffer.toReplacedString();
-                buffer.reset();
+                value = buffer.length() == 0 ? "" : buffer.toString();
+                buffer.setLength(0);
                 map.add(key, value);
             }
             else if (buffer.length() > 0)
             {
-                map.add(buffer.toReplacedString(), "");
+                map.add(buffer.toString(), "");
             }
             checkMaxKeys(map, maxKeys);
         }
     }
 
+    /**
+     * Decoded parameters to Map.
+     *
+     * @param in InputSteam to read
+     * @param map MultiMap to add parameters to
+     * @param maxLength maximum form length to decode or -1 for no limit
+     * @param maxKeys the maximum number of keys to read or -1 for no limit
+     * @throws IOException if unable to decode the input stream
+     */
+    public static void decodeUtf8To(InputStream in, MultiMap<String> map, int maxLength, int maxKeys)
+        throws IOException
+    {
+        // Read the form in bulk rather than byte by byte, then decode it from the buffer
+        byte[] content = new byte[512];
+        int totalLength = 0;
+        int len;
+        while (true)
+        {
+            if (totalLength == content.length)
+                content = Arrays.copyOf(content, content.length * 2);
+            len = in.read(content, totalLength, content.length - totalLength);
+            if (len < 0)
+                break;
+            totalLength += len;
+            checkMaxLength(totalLength, maxLength);
+        }
+        decodeUtf8To(ByteBuffer.wrap(content, 0, totalLength), map, maxKeys);
+    }
+
     public static void decodeUtf16To(InputStream in, MultiMap<String> map, int maxLength, int maxKeys) throws IOException
     {
         InputStreamReader input = new InputStreamReader(in, StandardCharsets.UTF_16);
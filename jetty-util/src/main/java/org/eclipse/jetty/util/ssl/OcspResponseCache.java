@@ -0,0 +1,854 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.ssl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.cert.CertPath;
+import java.security.cert.CertPathValidator;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.PKIXBuilderParameters;
+import java.security.cert.PKIXRevocationChecker;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.net.ssl.ExtendedSSLSession;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.X509ExtendedTrustManager;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.util.statistic.SampleStatistic;
+
+/**
+ * <p>A cache of DER encoded OCSP responses (RFC 6960) for peer certificates.</p>
+ * <p>Responses are fetched from the OCSP responder configured with {@link #setResponderURL(String)}
+ * or, if none is configured, from the responder advertised in the certificate's Authority
+ * Information Access extension. Each response is cached until its {@code nextUpdate} time
+ * (or for {@link #getDefaultTimeToLive()} if the responder did not provide one).</p>
+ * <p>Peer certificates are validated by the trust manager returned by
+ * {@link #newTrustManager(X509ExtendedTrustManager, PKIXBuilderParameters)}, which passes the
+ * responses stapled by the peer or held by this cache to the JDK {@link PKIXRevocationChecker},
+ * so that the responder is contacted once per response lifetime rather than on every handshake.
+ * On a miss the response is fetched once, by the handshake that needs it, and concurrent
+ * handshakes for the same certificate wait for that fetch.</p>
+ * <p>The cache does not verify the responses itself: the checker verifies the responder
+ * signature and the certificate status of every response it is given, and falls back to
+ * the CRLs of the validation parameters if the OCSP check fails. Responses stapled by peers
+ * are cached only once the checker has accepted them.</p>
+ */
+@ManagedObject("OCSP response cache")
+public class OcspResponseCache extends AbstractLifeCycle
+{
+    private static final Logger LOG = Log.getLogger(OcspResponseCache.class);
+    private static final byte[] SHA1_ALGORITHM = {0x30, 0x09, 0x06, 0x05, 0x2B, 0x0E, 0x03, 0x02, 0x1A, 0x05, 0x00};
+    private static final byte[] OCSP_ACCESS_METHOD = {0x2B, 0x06, 0x01, 0x05, 0x05, 0x07, 0x30, 0x01};
+    private static final String AUTHORITY_INFO_ACCESS_OID = "1.3.6.1.5.5.7.1.1";
+    private static final DateTimeFormatter GENERALIZED_TIME = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    private final ConcurrentMap<Key, Entry> _entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Key, CompletableFuture<byte[]>> _fetches = new ConcurrentHashMap<>();
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final LongAdder _fetchFailures = new LongAdder();
+    private final LongAdder _stapled = new LongAdder();
+    private final SampleStatistic _fetchLatency = new SampleStatistic();
+    private String _responderURL;
+    private long _defaultTimeToLive = TimeUnit.HOURS.toMillis(1);
+    private int _timeout = 5000;
+    private int _maxEntries = 1024;
+    private boolean _softFail;
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        super.doStop();
+        _entries.clear();
+    }
+
+    /**
+     * @return the OCSP responder URL that overrides the one found in certificates, or null
+     */
+    @ManagedAttribute("The OCSP responder URL that overrides the one found in certificates")
+    public String getResponderURL()
+    {
+        return _responderURL;
+    }
+
+    /**
+     * @param responderURL the OCSP responder URL that overrides the one found in certificates, or null
+     */
+    public void setResponderURL(String responderURL)
+    {
+        _responderURL = responderURL;
+    }
+
+    /**
+     * @return the time to live in milliseconds of responses that do not specify a {@code nextUpdate} time
+     */
+    @ManagedAttribute("The time to live in ms of responses without nextUpdate time")
+    public long getDefaultTimeToLive()
+    {
+        return _defaultTimeToLive;
+    }
+
+    /**
+     * @param defaultTimeToLive the time to live in milliseconds of responses that do not specify a {@code nextUpdate} time
+     */
+    public void setDefaultTimeToLive(long defaultTimeToLive)
+    {
+        _defaultTimeToLive = defaultTimeToLive;
+    }
+
+    /**
+     * @return the timeout in milliseconds to connect to the responder, and to read its response
+     */
+    @ManagedAttribute("The responder connect and read timeout in ms")
+    public int getTimeout()
+    {
+        return _timeout;
+    }
+
+    /**
+     * @param timeout the timeout in milliseconds to connect to the responder, and to read its response
+     */
+    public void setTimeout(int timeout)
+    {
+        _timeout = timeout;
+    }
+
+    /**
+     * @return the max number of responses held by the cache
+     */
+    @ManagedAttribute("The max number of responses held by the cache")
+    public int getMaxEntries()
+    {
+        return _maxEntries;
+    }
+
+    /**
+     * @param maxEntries the max number of responses held by the cache
+     */
+    public void setMaxEntries(int maxEntries)
+    {
+        _maxEntries = maxEntries;
+    }
+
+    /**
+     * @return whether peer certificates are accepted when their status cannot be determined
+     * @see PKIXRevocationChecker.Option#SOFT_FAIL
+     */
+    @ManagedAttribute("Whether peer certificates are accepted when their status cannot be determined")
+    public boolean isSoftFail()
+    {
+        return _softFail;
+    }
+
+    /**
+     * @param softFail whether peer certificates are accepted when their status cannot be determined
+     */
+    public void setSoftFail(boolean softFail)
+    {
+        _softFail = softFail;
+    }
+
+    @ManagedAttribute("The number of cached responses")
+    public int getSize()
+    {
+        return _entries.size();
+    }
+
+    @ManagedAttribute("The number of lookups served from the cache")
+    public long getHits()
+    {
+        return _hits.sum();
+    }
+
+    @ManagedAttribute("The number of lookups not served from the cache")
+    public long getMisses()
+    {
+        return _misses.sum();
+    }
+
+    @ManagedAttribute("The number of responses stapled by peers")
+    public long getStapledResponses()
+    {
+        return _stapled.sum();
+    }
+
+    @ManagedAttribute("The number of fetches from the responder")
+    public long getFetches()
+    {
+        return _fetchLatency.getCount() + getFetchFailures();
+    }
+
+    @ManagedAttribute("The number of failed fetches from the responder")
+    public long getFetchFailures()
+    {
+        return _fetchFailures.sum();
+    }
+
+    @ManagedAttribute("The mean latency in ms of successful fetches")
+    public double getFetchLatencyMean()
+    {
+        return _fetchLatency.getMean();
+    }
+
+    @ManagedAttribute("The max latency in ms of successful fetches")
+    public long getFetchLatencyMax()
+    {
+        return _fetchLatency.getMax();
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void resetStatistics()
+    {
+        _hits.reset();
+        _misses.reset();
+        _fetchFailures.reset();
+        _stapled.reset();
+        _fetchLatency.reset();
+    }
+
+    /**
+     * <p>Returns the OCSP response for the given certificate.</p>
+     * <p>If the response is missing or expired, it is fetched from the responder
+     * and cached; concurrent callers for the same certificate share a single fetch.</p>
+     *
+     * @param certificate the certificate
+     * @param issuer the issuer of the certificate
+     * @return the DER encoded OCSP response, or null if the issuer is not known
+     * @throws IOException if the response cannot be fetched
+     */
+    public byte[] getResponse(X509Certificate certificate, X509Certificate issuer) throws IOException
+    {
+        Key key = new Key(certificate, issuer);
+        Entry entry = _entries.get(key);
+        if (entry != null && System.currentTimeMillis() < entry._expires)
+        {
+            _hits.increment();
+            return entry._response;
+        }
+
+        _misses.increment();
+        // The OCSP CertID cannot be computed without the issuer.
+        if (issuer == null)
+            return null;
+
+        CompletableFuture<byte[]> fetch = new CompletableFuture<>();
+        CompletableFuture<byte[]> pending = _fetches.putIfAbsent(key, fetch);
+        if (pending != null)
+            return join(pending);
+        try
+        {
+            byte[] response = load(key);
+            fetch.complete(response);
+            return response;
+        }
+        catch (Throwable x)
+        {
+            fetch.completeExceptionally(x);
+            throw x;
+        }
+        finally
+        {
+            _fetches.remove(key, fetch);
+        }
+    }
+
+    /**
+     * <p>Caches an OCSP response obtained from elsewhere, typically stapled by a peer.</p>
+     * <p>The response must have already been verified, for example by a
+     * {@link PKIXRevocationChecker}, as this cache does not verify its signature.</p>
+     *
+     * @param certificate the certificate
+     * @param issuer the issuer of the certificate
+     * @param response the verified DER encoded OCSP response
+     * @return whether the response was not expired and has been cached
+     */
+    public boolean putResponse(X509Certificate certificate, X509Certificate issuer, byte[] response)
+    {
+        try
+        {
+            long now = System.currentTimeMillis();
+            long expires = expiresAt(response, now);
+            if (expires <= now)
+                return false;
+            cache(new Key(certificate, issuer), response, expires, now);
+            return true;
+        }
+        catch (IOException x)
+        {
+            LOG.debug("Invalid OCSP response for {}", certificate.getSubjectX500Principal(), x);
+            return false;
+        }
+    }
+
+    /**
+     * <p>Returns a trust manager that checks the revocation status of peer certificates
+     * using OCSP responses stapled by the peer or held by this cache.</p>
+     *
+     * @param trustManager the trust manager that validates certificate paths, with revocation checking disabled
+     * @param parameters the parameters used to check the revocation status of certificate paths
+     * @return a trust manager that checks the revocation status of peer certificates
+     */
+    public X509ExtendedTrustManager newTrustManager(X509ExtendedTrustManager trustManager, PKIXBuilderParameters parameters)
+    {
+        return new OcspTrustManager(trustManager, parameters);
+    }
+
+    private byte[] join(CompletableFuture<byte[]> fetch) throws IOException
+    {
+        try
+        {
+            return fetch.get();
+        }
+        catch (InterruptedException x)
+        {
+            throw (IOException)new InterruptedIOException().initCause(x);
+        }
+        catch (ExecutionException x)
+        {
+            throw new IOException(x.getCause());
+        }
+    }
+
+    private byte[] load(Key key) throws IOException
+    {
+        long start = System.nanoTime();
+        try
+        {
+            byte[] response = fetch(key._certificate, key._issuer);
+            long now = System.currentTimeMillis();
+            long expires = expiresAt(response, now);
+            _fetchLatency.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            if (expires > now)
+                cache(key, response, expires, now);
+            if (LOG.isDebugEnabled())
+                LOG.debug("Fetched OCSP response for {} expiring in {} ms", key._certificate.getSubjectX500Principal(), expires - now);
+            return response;
+        }
+        catch (IOException | RuntimeException x)
+        {
+            _fetchFailures.increment();
+            throw x instanceof IOException ? (IOException)x : new IOException(x);
+        }
+    }
+
+    private void cache(Key key, byte[] response, long expires, long now)
+    {
+        if (!_entries.containsKey(key))
+            evict(now);
+        _entries.put(key, new Entry(response, expires));
+    }
+
+    /**
+     * <p>Makes room for a new entry: expired responses are removed first and,
+     * if the cache is still full, the responses that expire soonest.</p>
+     */
+    private void evict(long now)
+    {
+        if (_entries.size() < getMaxEntries())
+            return;
+        _entries.values().removeIf(entry -> entry._expires <= now);
+        int excess = _entries.size() - getMaxEntries() + 1;
+        if (excess <= 0)
+            return;
+        List<Map.Entry<Key, Entry>> entries = new ArrayList<>(_entries.entrySet());
+        entries.sort((e1, e2) -> Long.compare(e1.getValue()._expires, e2.getValue()._expires));
+        for (int i = 0; i < excess && i < entries.size(); ++i)
+        {
+            _entries.remove(entries.get(i).getKey(), entries.get(i).getValue());
+        }
+    }
+
+    /**
+     * <p>Fetches the OCSP response for the given certificate from the responder.</p>
+     *
+     * @param certificate the certificate
+     * @param issuer the issuer of the certificate
+     * @return the DER encoded OCSP response
+     * @throws IOException if the response cannot be fetched
+     */
+    protected byte[] fetch(X509Certificate certificate, X509Certificate issuer) throws IOException
+    {
+        String responder = getResponderURL();
+        if (responder == null)
+            responder = getResponderURL(certificate);
+        if (responder == null)
+            throw new IOException("No OCSP responder for " + certificate.getSubjectX500Principal());
+
+        byte[] request = newRequest(certificate, issuer);
+        HttpURLConnection connection = (HttpURLConnection)URI.create(responder).toURL().openConnection();
+        try
+        {
+            connection.setConnectTimeout(getTimeout());
+            connection.setReadTimeout(getTimeout());
+            connection.setUseCaches(false);
+            connection.setDoOutput(true);
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Content-Type", "application/ocsp-request");
+            connection.setRequestProperty("Accept", "application/ocsp-response");
+            connection.setFixedLengthStreamingMode(request.length);
+            try (OutputStream output = connection.getOutputStream())
+            {
+                output.write(request);
+            }
+            int status = connection.getResponseCode();
+            if (status != HttpURLConnection.HTTP_OK)
+                throw new IOException("OCSP responder " + responder + " replied " + status);
+            try (InputStream input = connection.getInputStream())
+            {
+                return input.readAllBytes();
+            }
+        }
+        finally
+        {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * @param certificate the certificate
+     * @return the URL of the OCSP responder found in the Authority Information Access extension, or null
+     */
+    static String getResponderURL(X509Certificate certificate)
+    {
+        byte[] extension = certificate.getExtensionValue(AUTHORITY_INFO_ACCESS_OID);
+        if (extension == null)
+            return null;
+        DerReader accessDescriptions = new DerReader(new DerReader(extension).next(0x04)).read(0x30);
+        while (accessDescriptions.hasMore())
+        {
+            DerReader accessDescription = accessDescriptions.read(0x30);
+            byte[] method = accessDescription.next(0x06);
+            if (Arrays.equals(method, OCSP_ACCESS_METHOD) && accessDescription.tag() == 0x86)
+                return new String(accessDescription.next(0x86), StandardCharsets.US_ASCII);
+        }
+        return null;
+    }
+
+    /**
+     * @param certificate the certificate
+     * @param issuer the issuer of the certificate
+     * @return a DER encoded OCSP request for the given certificate
+     */
+    static byte[] newRequest(X509Certificate certificate, X509Certificate issuer)
+    {
+        try
+        {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            byte[] issuerNameHash = sha1.digest(issuer.getSubjectX500Principal().getEncoded());
+            DerReader publicKeyInfo = new DerReader(issuer.getPublicKey().getEncoded()).read(0x30);
+            publicKeyInfo.next(0x30);
+            byte[] publicKey = publicKeyInfo.next(0x03);
+            // Skip the BIT STRING unused bits byte.
+            sha1.update(publicKey, 1, publicKey.length - 1);
+            byte[] issuerKeyHash = sha1.digest();
+
+            byte[] certId = der(0x30,
+                SHA1_ALGORITHM,
+                der(0x04, issuerNameHash),
+                der(0x04, issuerKeyHash),
+                der(0x02, certificate.getSerialNumber().toByteArray()));
+            return der(0x30, der(0x30, der(0x30, der(0x30, certId))));
+        }
+        catch (Exception x)
+        {
+            throw new IllegalArgumentException(x);
+        }
+    }
+
+    /**
+     * @param response the DER encoded OCSP response
+     * @param now the current time
+     * @return the {@code nextUpdate} time of the given response
+     * @throws IOException if the response is not a successful basic OCSP response
+     */
+    long expiresAt(byte[] response, long now) throws IOException
+    {
+        try
+        {
+            DerReader ocspResponse = new DerReader(response).read(0x30);
+            byte[] status = ocspResponse.next(0x0A);
+            if (status.length != 1 || status[0] != 0)
+                throw new IOException("OCSP response status " + (status.length == 0 ? -1 : status[0]));
+            DerReader responseBytes = ocspResponse.read(0xA0).read(0x30);
+            responseBytes.next(0x06);
+            // ResponseData: optional version, responderID, producedAt, first SingleResponse.
+            DerReader responseData = new DerReader(responseBytes.next(0x04)).read(0x30).read(0x30);
+            if (responseData.tag() == 0xA0)
+                responseData.next(0xA0);
+            responseData.next(responseData.tag());
+            responseData.next(0x18);
+            // SingleResponse: certID, certStatus, thisUpdate, optional nextUpdate.
+            DerReader singleResponse = responseData.read(0x30).read(0x30);
+            singleResponse.next(0x30);
+            singleResponse.next(singleResponse.tag());
+            singleResponse.next(0x18);
+            if (singleResponse.hasMore() && singleResponse.tag() == 0xA0)
+            {
+                // Fractional seconds, if any, are ignored.
+                byte[] nextUpdate = new DerReader(singleResponse.next(0xA0)).next(0x18);
+                String value = new String(nextUpdate, 0, 14, StandardCharsets.US_ASCII);
+                return LocalDateTime.parse(value, GENERALIZED_TIME).toInstant(ZoneOffset.UTC).toEpochMilli();
+            }
+            return now + getDefaultTimeToLive();
+        }
+        catch (RuntimeException x)
+        {
+            throw new IOException("Invalid OCSP response", x);
+        }
+    }
+
+    static byte[] der(int tag, byte[]... contents)
+    {
+        int length = 0;
+        for (byte[] content : contents)
+        {
+            length += content.length;
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream(length + 6);
+        output.write(tag);
+        if (length < 0x80)
+        {
+            output.write(length);
+        }
+        else
+        {
+            int bytes = length > 0xFFFF ? 3 : length > 0xFF ? 2 : 1;
+            output.write(0x80 | bytes);
+            for (int i = bytes - 1; i >= 0; --i)
+            {
+                output.write(length >>> (8 * i));
+            }
+        }
+        for (byte[] content : contents)
+        {
+            output.write(content, 0, content.length);
+        }
+        return output.toByteArray();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[size=%d,hits=%d,misses=%d,failures=%d]", getClass().getSimpleName(), hashCode(), getSize(), getHits(), getMisses(), getFetchFailures());
+    }
+
+    /**
+     * <p>Responses are specific to the issuer, since the OCSP CertID
+     * is made of the issuer name and key hashes and of the serial number.</p>
+     */
+    private static class Key
+    {
+        private final X509Certificate _certificate;
+        private final X509Certificate _issuer;
+
+        private Key(X509Certificate certificate, X509Certificate issuer)
+        {
+            _certificate = certificate;
+            _issuer = issuer;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Key))
+                return false;
+            Key that = (Key)obj;
+            return _certificate.equals(that._certificate) && Objects.equals(_issuer, that._issuer);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * _certificate.hashCode() + Objects.hashCode(_issuer);
+        }
+    }
+
+    private static class Entry
+    {
+        private final byte[] _response;
+        private final long _expires;
+
+        private Entry(byte[] response, long expires)
+        {
+            _response = response;
+            _expires = expires;
+        }
+    }
+
+    /**
+     * <p>A minimal reader of the DER encoded ASN.1 elements of OCSP responses and certificates.</p>
+     */
+    private static class DerReader
+    {
+        private final byte[] _bytes;
+        private final int _end;
+        private int _position;
+
+        private DerReader(byte[] bytes)
+        {
+            this(bytes, 0, bytes.length);
+        }
+
+        private DerReader(byte[] bytes, int offset, int end)
+        {
+            _bytes = bytes;
+            _position = offset;
+            _end = end;
+        }
+
+        private boolean hasMore()
+        {
+            return _position < _end;
+        }
+
+        private int tag()
+        {
+            if (!hasMore())
+                throw new IllegalArgumentException("Truncated DER structure");
+            return _bytes[_position] & 0xFF;
+        }
+
+        /**
+         * @return a reader over the content of the next element, which must have the given tag
+         */
+        private DerReader read(int tag)
+        {
+            int start = header(tag);
+            return new DerReader(_bytes, start, _position);
+        }
+
+        /**
+         * @return the content of the next element, which must have the given tag
+         */
+        private byte[] next(int tag)
+        {
+            int start = header(tag);
+            return Arrays.copyOfRange(_bytes, start, _position);
+        }
+
+        /**
+         * <p>Parses the tag and length of the next element, moving past the element.</p>
+         *
+         * @return the start position of the element content
+         */
+        private int header(int tag)
+        {
+            if (tag() != tag)
+                throw new IllegalArgumentException(String.format("Expected DER tag 0x%02X, found 0x%02X", tag, tag()));
+            int position = _position + 1;
+            int length = position < _end ? _bytes[position++] & 0xFF : -1;
+            if (length > 0x7F)
+            {
+                int bytes = length & 0x7F;
+                if (bytes > 3 || position + bytes > _end)
+                    throw new IllegalArgumentException("Invalid DER length");
+                length = 0;
+                for (int i = 0; i < bytes; ++i)
+                {
+                    length = (length << 8) | (_bytes[position++] & 0xFF);
+                }
+            }
+            if (length < 0 || position + length > _end)
+                throw new IllegalArgumentException("Truncated DER structure");
+            _position = position + length;
+            return position;
+        }
+    }
+
+    private class OcspTrustManager extends SslContextFactory.X509ExtendedTrustManagerWrapper
+    {
+        private final PKIXBuilderParameters _parameters;
+
+        private OcspTrustManager(X509ExtendedTrustManager trustManager, PKIXBuilderParameters parameters)
+        {
+            super(trustManager);
+            _parameters = parameters;
+        }
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType) throws CertificateException
+        {
+            super.checkClientTrusted(chain, authType);
+            checkRevocation(chain, null);
+        }
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType, Socket socket) throws CertificateException
+        {
+            super.checkClientTrusted(chain, authType, socket);
+            checkRevocation(chain, socket instanceof SSLSocket ? ((SSLSocket)socket).getHandshakeSession() : null);
+        }
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType, SSLEngine engine) throws CertificateException
+        {
+            super.checkClientTrusted(chain, authType, engine);
+            checkRevocation(chain, engine == null ? null : engine.getHandshakeSession());
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType) throws CertificateException
+        {
+            super.checkServerTrusted(chain, authType);
+            checkRevocation(chain, null);
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType, Socket socket) throws CertificateException
+        {
+            super.checkServerTrusted(chain, authType, socket);
+            checkRevocation(chain, socket instanceof SSLSocket ? ((SSLSocket)socket).getHandshakeSession() : null);
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType, SSLEngine engine) throws CertificateException
+        {
+            super.checkServerTrusted(chain, authType, engine);
+            checkRevocation(chain, engine == null ? null : engine.getHandshakeSession());
+        }
+
+        private void checkRevocation(X509Certificate[] chain, SSLSession session) throws CertificateException
+        {
+            if (chain == null || chain.length == 0)
+                return;
+
+            List<byte[]> stapled = session instanceof ExtendedSSLSession ? ((ExtendedSSLSession)session).getStatusResponses() : List.of();
+            Map<X509Certificate, byte[]> responses = new HashMap<>();
+            List<X509Certificate> path = new ArrayList<>(chain.length);
+            List<X509Certificate> issuers = new ArrayList<>(chain.length);
+            for (int i = 0; i < chain.length; ++i)
+            {
+                X509Certificate certificate = chain[i];
+                // Self-signed certificates are trust anchors and are not part of the path.
+                if (certificate.getSubjectX500Principal().equals(certificate.getIssuerX500Principal()))
+                    break;
+                path.add(certificate);
+                X509Certificate issuer = i + 1 < chain.length ? chain[i + 1] : findTrustAnchor(certificate);
+                issuers.add(issuer);
+                byte[] response = i < stapled.size() ? stapled.get(i) : null;
+                if (response != null && response.length > 0)
+                {
+                    _stapled.increment();
+                }
+                else
+                {
+                    try
+                    {
+                        response = getResponse(certificate, issuer);
+                    }
+                    catch (IOException x)
+                    {
+                        // The checker then contacts the responder itself, or falls back to the CRLs.
+                        LOG.debug("Could not fetch OCSP response for {}", certificate.getSubjectX500Principal(), x);
+                    }
+                }
+                if (response != null)
+                    responses.put(certificate, response);
+            }
+            if (path.isEmpty())
+                return;
+
+            try
+            {
+                CertPathValidator validator = CertPathValidator.getInstance("PKIX");
+                PKIXRevocationChecker checker = (PKIXRevocationChecker)validator.getRevocationChecker();
+                checker.setOcspResponses(responses);
+                String responderURL = getResponderURL();
+                if (responderURL != null)
+                    checker.setOcspResponder(URI.create(responderURL));
+                // No NO_FALLBACK option: the CRLs are checked if the OCSP check fails.
+                if (isSoftFail())
+                    checker.setOptions(EnumSet.of(PKIXRevocationChecker.Option.SOFT_FAIL));
+
+                PKIXBuilderParameters parameters = (PKIXBuilderParameters)_parameters.clone();
+                parameters.setRevocationEnabled(true);
+                parameters.addCertPathChecker(checker);
+                CertPath certPath = CertificateFactory.getInstance("X.509").generateCertPath(path);
+                validator.validate(certPath, parameters);
+
+                // The stapled responses have now been verified, so they can be cached,
+                // unless the checker soft failed because of one of them.
+                if (checker.getSoftFailExceptions().isEmpty())
+                {
+                    for (int i = 0; i < path.size() && i < stapled.size(); ++i)
+                    {
+                        byte[] response = stapled.get(i);
+                        if (response != null && response.length > 0 && issuers.get(i) != null)
+                            putResponse(path.get(i), issuers.get(i), response);
+                    }
+                }
+            }
+            catch (CertificateException x)
+            {
+                throw x;
+            }
+            catch (Exception x)
+            {
+                throw new CertificateException("OCSP revocation check failed", x);
+            }
+        }
+
+        private X509Certificate findTrustAnchor(X509Certificate certificate)
+        {
+            for (TrustAnchor anchor : _parameters.getTrustAnchors())
+            {
+                X509Certificate trusted = anchor.getTrustedCert();
+                if (trusted != null && trusted.getSubjectX500Principal().equals(certificate.getIssuerX500Principal()))
+                    return trusted;
+            }
+            return null;
+        }
+    }
+}
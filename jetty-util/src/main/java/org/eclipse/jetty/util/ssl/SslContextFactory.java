@@ -170,6 +170,7 @@ public abstract class SslContextFactory extends AbstractLifeCycle implements Dum
     private boolean _enableCRLDP = false;
     private boolean _enableOCSP = false;
     private String _ocspResponderURL;
+    private OcspResponseCache _ocspResponseCache;
     private KeyStore _setKeyStore;
     private KeyStore _setTrustStore;
     private boolean _sessionCachingEnabled = true;
@@ -212,6 +213,8 @@ public abstract class SslContextFactory extends AbstractLifeCycle implements Dum
     protected void doStart() throws Exception
     {
         super.doStart();
+        if (_ocspResponseCache != null)
+            _ocspResponseCache.start();
         synchronized (this)
         {
             load();
@@ -440,6 +443,8 @@ public abstract class SslContextFactory extends AbstractLifeCycle implements Dum
         {
             unload();
         }
+        if (_ocspResponseCache != null)
+            _ocspResponseCache.stop();
         super.doStop();
     }
 
@@ -1158,11 +1163,28 @@ public abstract class SslContextFactory extends AbstractLifeCycle implements Dum
             if (isValidatePeerCerts() && "PKIX".equalsIgnoreCase(getTrustManagerFactoryAlgorithm()))
             {
                 PKIXBuilderParameters pbParams = newPKIXBuilderParameters(trustStore, crls);
+                OcspResponseCache ocspCache = isEnableOCSP() ? getOcspResponseCache() : null;
+                PKIXBuilderParameters ocspParams = null;
+                if (ocspCache != null)
+                {
+                    // Revocation checking, OCSP with fallback to the CRLs, is performed by the cache trust manager.
+                    ocspParams = (PKIXBuilderParameters)pbParams.clone();
+                    pbParams.setRevocationEnabled(false);
+                }
 
                 TrustManagerFactory trustManagerFactory = getTrustManagerFactoryInstance();
                 trustManagerFactory.init(new CertPathTrustManagerParameters(pbParams));
 
                 managers = trustManagerFactory.getTrustManagers();
+
+                if (ocspCache != null)
+                {
+                    for (int idx = 0; idx < managers.length; idx++)
+                    {
+                        if (managers[idx] instanceof X509ExtendedTrustManager)
+                            managers[idx] = ocspCache.newTrustManager((X509ExtendedTrustManager)managers[idx], ocspParams);
+                    }
+                }
             }
             else
             {
@@ -1388,6 +1410,30 @@ public abstract class SslContextFactory extends AbstractLifeCycle implements Dum
         _ocspResponderURL = ocspResponderURL;
     }
 
+    /**
+     * @return the cache of OCSP responses, or null if OCSP responses are not cached
+     */
+    @ManagedAttribute("The OCSP response cache")
+    public OcspResponseCache getOcspResponseCache()
+    {
+        return _ocspResponseCache;
+    }
+
+    /**
+     * <p>Sets the cache of OCSP responses.</p>
+     * <p>When set, peer certificates are {@link #setValidatePeerCerts(boolean) validated}
+     * and OCSP is {@link #setEnableOCSP(boolean) enabled}, their revocation status is checked
+     * with OCSP responses stapled by the peer or held by the cache, rather than by contacting
+     * the OCSP responder on every handshake. CRLs are still checked if the OCSP check fails.</p>
+     * <p>The cache lifecycle is bound to this SslContextFactory lifecycle.</p>
+     *
+     * @param ocspResponseCache the cache of OCSP responses
+     */
+    public void setOcspResponseCache(OcspResponseCache ocspResponseCache)
+    {
+        _ocspResponseCache = ocspResponseCache;
+    }
+
     /**
      * Set the key store.
      *
@@ -2066,6 +2112,7 @@ public abstract class SslContextFactory extends AbstractLifeCycle implements Dum
         private boolean _wantClientAuth;
         private boolean _sniRequired;
         private SniX509ExtendedKeyManager.SniSelector _sniSelector;
+        private boolean _enableOCSPStapling;
 
         public Server()
         {
@@ -2137,6 +2184,44 @@ public abstract class SslContextFactory extends AbstractLifeCycle implements Dum
             _sniRequired = sniRequired;
         }
 
+        /**
+         * @return whether OCSP responses for the server certificates are stapled to the TLS handshake
+         */
+        @ManagedAttribute("Whether OCSP responses are stapled to the TLS handshake")
+        public boolean isEnableOCSPStapling()
+        {
+            return _enableOCSPStapling;
+        }
+
+        /**
+         * <p>Enables the stapling of OCSP responses for the server certificates to the TLS handshake
+         * (the {@code status_request} TLS extension).</p>
+         * <p>Stapling is performed by the JSSE provider, whose configuration is JVM wide
+         * and is therefore not modified by this component: the operator must enable it
+         * with the system property {@code jdk.tls.server.enableStatusRequestExtension=true}
+         * and may configure it with the {@code jdk.tls.stapling.responderURI} and
+         * {@code jdk.tls.stapling.cacheLifetime} system properties, typically on the
+         * command line, since the provider reads them only once.</p>
+         * <p>The JSSE provider also fetches and caches these responses itself: the
+         * {@link #getOcspResponseCache() OCSP response cache} is only used to check
+         * the revocation status of client certificates.</p>
+         *
+         * @param enableOCSPStapling whether to staple OCSP responses to the TLS handshake
+         */
+        public void setEnableOCSPStapling(boolean enableOCSPStapling)
+        {
+            _enableOCSPStapling = enableOCSPStapling;
+        }
+
+        @Override
+        protected void doStart() throws Exception
+        {
+            if (isEnableOCSPStapling() && !Boolean.getBoolean("jdk.tls.server.enableStatusRequestExtension"))
+                LOG.warn("OCSP stapling requires the system property jdk.tls.server.enableStatusRequestExtension=true for {}", this);
+
+            super.doStart();
+        }
+
         @Override
         protected KeyManager[] getKeyManagers(KeyStore keyStore) throws Exception
         {
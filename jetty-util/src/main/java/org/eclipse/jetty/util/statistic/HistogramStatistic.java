@@ -0,0 +1,218 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.statistic;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+
+/**
+ * <p>Statistics on the distribution of a sampled value.</p>
+ * <p>Samples are counted in log-linear buckets, in the style of HdrHistogram:
+ * each power of two range is split in {@value #SUB_BUCKETS} linear sub-buckets,
+ * so that values are recorded with a relative error of at most 1/{@value #SUB_BUCKETS}.
+ * Values up to 2<sup>{@value #MAX_EXPONENT}</sup> are supported, larger values
+ * are counted in the last bucket.</p>
+ * <p>Recording a sample is lock-free and does not allocate.</p>
+ */
+@ManagedObject("Distribution of a sampled value")
+public class HistogramStatistic
+{
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+    private static final int BUCKETS = index(MAX_VALUE) + 1;
+
+    private final String _name;
+    private final AtomicLongArray _counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder _count = new LongAdder();
+    private final LongAdder _total = new LongAdder();
+    private final LongAccumulator _max = new LongAccumulator(Math::max, 0L);
+
+    public HistogramStatistic()
+    {
+        this(null);
+    }
+
+    /**
+     * @param name the name of the sampled value
+     */
+    public HistogramStatistic(String name)
+    {
+        _name = name;
+    }
+
+    /**
+     * @return the name of the sampled value
+     */
+    public String getName()
+    {
+        return _name;
+    }
+
+    private static int index(long value)
+    {
+        if (value < 2 * SUB_BUCKETS)
+            return (int)value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int)(value >>> shift) - SUB_BUCKETS;
+    }
+
+    private static long highestValue(int index)
+    {
+        if (index < 2 * SUB_BUCKETS)
+            return index;
+        int shift = index / SUB_BUCKETS - 1;
+        long lowest = (long)(index % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * Resets the statistics.
+     */
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void reset()
+    {
+        for (int i = 0; i < BUCKETS; ++i)
+        {
+            _counts.set(i, 0);
+        }
+        _count.reset();
+        _total.reset();
+        _max.reset();
+    }
+
+    /**
+     * Records a sample value.
+     *
+     * @param sample the value to record, negative values are recorded as zero.
+     */
+    public void record(long sample)
+    {
+        if (sample < 0)
+            sample = 0;
+        _counts.incrementAndGet(index(Math.min(sample, MAX_VALUE)));
+        _count.increment();
+        _total.add(sample);
+        _max.accumulate(sample);
+    }
+
+    /**
+     * @return the number of samples recorded
+     */
+    @ManagedAttribute("The number of samples")
+    public long getCount()
+    {
+        return _count.sum();
+    }
+
+    /**
+     * @return the sum of all the recorded samples
+     */
+    @ManagedAttribute("The sum of the samples")
+    public long getTotal()
+    {
+        return _total.sum();
+    }
+
+    /**
+     * @return the max value of the recorded samples
+     */
+    @ManagedAttribute("The max sample")
+    public long getMax()
+    {
+        return _max.get();
+    }
+
+    /**
+     * @return the average value of the samples recorded, or zero if there are no samples
+     */
+    @ManagedAttribute("The mean of the samples")
+    public double getMean()
+    {
+        long count = getCount();
+        return count > 0 ? (double)getTotal() / count : 0.0D;
+    }
+
+    /**
+     * <p>Returns the value at the given percentile of the recorded samples,
+     * that is the value such that the given percentage of samples are
+     * less than or equal to it, within the precision of this histogram.</p>
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the value at the given percentile, or zero if there are no samples
+     */
+    public long getValueAtPercentile(double percentile)
+    {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; ++i)
+        {
+            counts[i] = _counts.get(i);
+            count += counts[i];
+        }
+        if (count == 0)
+            return 0;
+
+        long target = Math.max(1, (long)Math.ceil(count * Math.min(100.0D, Math.max(0.0D, percentile)) / 100.0D));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKETS; ++i)
+        {
+            cumulative += counts[i];
+            if (cumulative >= target)
+                return Math.min(highestValue(i), getMax());
+        }
+        return getMax();
+    }
+
+    @ManagedAttribute("The 50th percentile of the samples")
+    public long getP50()
+    {
+        return getValueAtPercentile(50);
+    }
+
+    @ManagedAttribute("The 90th percentile of the samples")
+    public long getP90()
+    {
+        return getValueAtPercentile(90);
+    }
+
+    @ManagedAttribute("The 99th percentile of the samples")
+    public long getP99()
+    {
+        return getValueAtPercentile(99);
+    }
+
+    @ManagedAttribute("The 99.9th percentile of the samples")
+    public long getP999()
+    {
+        return getValueAtPercentile(99.9);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{name=%s,count=%d,mean=%.1f,p50=%d,p99=%d,max=%d}", getClass().getSimpleName(), hashCode(), getName(), getCount(), getMean(), getP50(), getP99(), getMax());
+    }
+}
@@ -122,6 +122,68 @@ public class ScannerTest
         }
     }
 
+    @Test
+    public void testWatching() throws Exception
+    {
+        File directory = new File(_directory, "watched");
+        FS.ensureEmpty(directory);
+        BlockingQueue<Event> queue = new LinkedBlockingQueue<>();
+
+        Scanner scanner = new Scanner();
+        scanner.addScanDir(directory);
+        scanner.setScanInterval(0);
+        scanner.setReportDirs(false);
+        scanner.setWatching(true);
+        scanner.setWatchQuietTime(100);
+        scanner.addListener(new Scanner.DiscreteListener()
+        {
+            @Override
+            public void fileRemoved(String filename)
+            {
+                queue.add(new Event(filename, Notification.REMOVED));
+            }
+
+            @Override
+            public void fileChanged(String filename)
+            {
+                queue.add(new Event(filename, Notification.CHANGED));
+            }
+
+            @Override
+            public void fileAdded(String filename)
+            {
+                queue.add(new Event(filename, Notification.ADDED));
+            }
+        });
+        scanner.start();
+        try
+        {
+            int scans = scanner.getScanCount();
+
+            // A new file is reported without an explicit scan or scan interval
+            File file = new File(directory, "watched.txt");
+            touch("watched/watched.txt");
+            Event event = queue.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event);
+            assertEquals(file.getAbsolutePath(), event._filename);
+            assertEquals(Notification.ADDED, event._notification);
+            assertThat(scanner.getScanCount(), Matchers.greaterThan(scans));
+            assertThat(scanner.getWatchEventCount(), Matchers.greaterThan(0L));
+            assertThat(scanner.getScanNanos(), Matchers.greaterThan(0L));
+            assertEquals(1, scanner.getLastScanSize());
+
+            delete("watched/watched.txt");
+            event = queue.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event);
+            assertEquals(file.getAbsolutePath(), event._filename);
+            assertEquals(Notification.REMOVED, event._notification);
+        }
+        finally
+        {
+            scanner.stop();
+        }
+    }
+
     @Test
     public void testDepth() throws Exception
     {
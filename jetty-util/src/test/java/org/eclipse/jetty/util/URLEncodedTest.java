@@ -19,6 +19,8 @@
 package org.eclipse.jetty.util;
 
 import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -33,6 +35,7 @@ import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.DynamicTest.dynamicTest;
 
@@ -255,4 +258,48 @@ public class URLEncodedTest
         String expected = "test\u00e4";
         assertThat(urlEncoded.getString("text"), is(expected));
     }
+
+    @Test
+    public void testUtf8Buffer()
+    {
+        String[] forms = {
+            "",
+            "a",
+            "name=value",
+            "a=1&b=2&a=3&empty=&novalue&&=x",
+            "longer_parameter_name=longer_parameter_value&equals=a=b=c",
+            "space=hello+world&encoded=%E2%82%AC+%41%42%43&raw=caf\u00e9&\u00e9l\u00e8ve=%C3%A9",
+            "q=the+quick+brown+fox+jumps+over+the+lazy+dog&sort=desc&page=12&filter%5Bstatus%5D=active"
+        };
+
+        for (String form : forms)
+        {
+            MultiMap<String> expected = new MultiMap<>();
+            UrlEncoded.decodeUtf8To(form, expected);
+
+            byte[] bytes = form.getBytes(StandardCharsets.UTF_8);
+            for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN})
+            {
+                ByteBuffer heap = ByteBuffer.wrap(bytes).order(order);
+                MultiMap<String> fromHeap = new MultiMap<>();
+                UrlEncoded.decodeUtf8To(heap, fromHeap, -1);
+                assertEquals(expected, fromHeap, form);
+                assertEquals(0, heap.remaining());
+
+                ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 2).order(order);
+                direct.put((byte)'x').put(bytes).flip();
+                direct.position(1);
+                MultiMap<String> fromDirect = new MultiMap<>();
+                UrlEncoded.decodeUtf8To(direct, fromDirect, -1);
+                assertEquals(expected, fromDirect, form);
+            }
+        }
+    }
+
+    @Test
+    public void testUtf8BufferMaxKeys()
+    {
+        ByteBuffer buffer = ByteBuffer.wrap("a=1&b=2&c=3".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IllegalStateException.class, () -> UrlEncoded.decodeUtf8To(buffer, new MultiMap<>(), 2));
+    }
 }
@@ -0,0 +1,381 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.ssl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.security.Security;
+import java.security.cert.X509Certificate;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import javax.net.ssl.TrustManager;
+
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OcspResponseCacheTest
+{
+    private static final DateTimeFormatter GENERALIZED_TIME = DateTimeFormatter.ofPattern("yyyyMMddHHmmss'Z'", Locale.ENGLISH).withZone(ZoneOffset.UTC);
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int status = 200;
+    private volatile long nextUpdate;
+    private ServerSocket responder;
+    private X509Certificate certificate;
+    private OcspResponseCache cache;
+
+    @BeforeEach
+    public void prepare() throws Exception
+    {
+        KeyStore keyStore = KeyStore.getInstance("JKS");
+        try (InputStream input = MavenTestingUtils.getTestResourcePathFile("keystore").toUri().toURL().openStream())
+        {
+            keyStore.load(input, "storepwd".toCharArray());
+        }
+        certificate = (X509Certificate)keyStore.getCertificate("mykey");
+
+        responder = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread thread = new Thread(this::respond, "ocsp-responder");
+        thread.setDaemon(true);
+        thread.start();
+
+        cache = new OcspResponseCache();
+        cache.setResponderURL(responderURL());
+    }
+
+    private String responderURL()
+    {
+        return "http://localhost:" + responder.getLocalPort() + "/ocsp";
+    }
+
+    @AfterEach
+    public void dispose() throws Exception
+    {
+        cache.stop();
+        responder.close();
+    }
+
+    private void respond()
+    {
+        while (!responder.isClosed())
+        {
+            try (Socket socket = responder.accept())
+            {
+                InputStream input = socket.getInputStream();
+                String headers = readHeaders(input);
+                int length = 0;
+                for (String line : headers.split("\r\n"))
+                {
+                    if (line.toLowerCase(Locale.ENGLISH).startsWith("content-length:"))
+                        length = Integer.parseInt(line.substring(15).trim());
+                }
+                input.readNBytes(length);
+                requests.incrementAndGet();
+
+                byte[] body = status == 200 ? newResponse(nextUpdate) : new byte[0];
+                OutputStream output = socket.getOutputStream();
+                output.write(("HTTP/1.1 " + status + " OK\r\n" +
+                    "Content-Type: application/ocsp-response\r\n" +
+                    "Content-Length: " + body.length + "\r\n" +
+                    "Connection: close\r\n" +
+                    "\r\n").getBytes(StandardCharsets.US_ASCII));
+                output.write(body);
+                output.flush();
+            }
+            catch (IOException x)
+            {
+                // Responder closed.
+            }
+        }
+    }
+
+    private static String readHeaders(InputStream input) throws IOException
+    {
+        StringBuilder builder = new StringBuilder();
+        while (!builder.toString().endsWith("\r\n\r\n"))
+        {
+            int b = input.read();
+            if (b < 0)
+                throw new IOException("EOF");
+            builder.append((char)b);
+        }
+        return builder.toString();
+    }
+
+    private static byte[] generalizedTime(long time)
+    {
+        return OcspResponseCache.der(0x18, GENERALIZED_TIME.format(Instant.ofEpochMilli(time)).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @return an unsigned, structurally valid OCSP response with the given nextUpdate time, or none if negative
+     */
+    private static byte[] newResponse(long nextUpdate)
+    {
+        long now = System.currentTimeMillis();
+        byte[] certId = OcspResponseCache.der(0x30, new byte[]{0x30, 0x00});
+        byte[] singleResponse = nextUpdate < 0
+            ? OcspResponseCache.der(0x30, certId, new byte[]{(byte)0x80, 0x00}, generalizedTime(now))
+            : OcspResponseCache.der(0x30, certId, new byte[]{(byte)0x80, 0x00}, generalizedTime(now), OcspResponseCache.der(0xA0, generalizedTime(nextUpdate)));
+        byte[] responseData = OcspResponseCache.der(0x30,
+            OcspResponseCache.der(0xA2, OcspResponseCache.der(0x04, new byte[20])),
+            generalizedTime(now),
+            OcspResponseCache.der(0x30, singleResponse));
+        byte[] basicResponse = OcspResponseCache.der(0x30, responseData, new byte[]{0x30, 0x00}, new byte[]{0x03, 0x01, 0x00});
+        byte[] basicResponseType = {0x06, 0x09, 0x2B, 0x06, 0x01, 0x05, 0x05, 0x07, 0x30, 0x01, 0x01};
+        byte[] responseBytes = OcspResponseCache.der(0x30, basicResponseType, OcspResponseCache.der(0x04, basicResponse));
+        return OcspResponseCache.der(0x30, new byte[]{0x0A, 0x01, 0x00}, OcspResponseCache.der(0xA0, responseBytes));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline)
+        {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    @Test
+    public void testResponseIsCachedUntilNextUpdate() throws Exception
+    {
+        nextUpdate = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1);
+        cache.start();
+
+        byte[] response = cache.getResponse(certificate, certificate);
+        assertNotNull(response);
+        assertArrayEquals(response, cache.getResponse(certificate, certificate));
+
+        assertEquals(1, requests.get());
+        assertEquals(1, cache.getFetches());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertEquals(0, cache.getFetchFailures());
+        assertThat(cache.getFetchLatencyMax(), greaterThanOrEqualTo(0L));
+    }
+
+    @Test
+    public void testExpiredResponseIsFetchedAgain() throws Exception
+    {
+        nextUpdate = System.currentTimeMillis() - 1000;
+        cache.start();
+
+        assertNotNull(cache.getResponse(certificate, certificate));
+        assertNotNull(cache.getResponse(certificate, certificate));
+
+        assertEquals(2, requests.get());
+        assertEquals(0, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testDefaultTimeToLive() throws Exception
+    {
+        nextUpdate = -1;
+        cache.setDefaultTimeToLive(TimeUnit.MINUTES.toMillis(1));
+        cache.start();
+
+        assertNotNull(cache.getResponse(certificate, certificate));
+        assertNotNull(cache.getResponse(certificate, certificate));
+
+        assertEquals(1, requests.get());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testFetchFailure() throws Exception
+    {
+        status = 500;
+        cache.start();
+
+        assertThrows(IOException.class, () -> cache.getResponse(certificate, certificate));
+
+        assertEquals(1, requests.get());
+        assertEquals(1, cache.getFetches());
+        assertEquals(1, cache.getFetchFailures());
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testConcurrentMissesShareFetch() throws Exception
+    {
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        cache = new OcspResponseCache()
+        {
+            @Override
+            protected byte[] fetch(X509Certificate certificate, X509Certificate issuer) throws IOException
+            {
+                fetching.countDown();
+                try
+                {
+                    release.await();
+                }
+                catch (InterruptedException x)
+                {
+                    throw new InterruptedIOException();
+                }
+                return super.fetch(certificate, issuer);
+            }
+        };
+        cache.setResponderURL(responderURL());
+        nextUpdate = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1);
+        cache.start();
+
+        CompletableFuture<byte[]> first = CompletableFuture.supplyAsync(() -> getResponse(certificate));
+        assertTrue(fetching.await(5, TimeUnit.SECONDS));
+        AtomicReference<Thread> waiter = new AtomicReference<>();
+        CompletableFuture<byte[]> second = CompletableFuture.supplyAsync(() ->
+        {
+            waiter.set(Thread.currentThread());
+            return getResponse(certificate);
+        });
+        // The second lookup waits for the fetch of the first one.
+        await(() -> waiter.get() != null && waiter.get().getState() == Thread.State.WAITING);
+        release.countDown();
+
+        assertArrayEquals(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, requests.get());
+        assertEquals(1, cache.getFetches());
+        assertEquals(2, cache.getMisses());
+    }
+
+    private byte[] getResponse(X509Certificate certificate)
+    {
+        try
+        {
+            return cache.getResponse(certificate, certificate);
+        }
+        catch (IOException x)
+        {
+            throw new UncheckedIOException(x);
+        }
+    }
+
+    @Test
+    public void testPutResponse() throws Exception
+    {
+        cache.start();
+
+        assertTrue(cache.putResponse(certificate, certificate, newResponse(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1))));
+        assertNotNull(cache.getResponse(certificate, certificate));
+        // Responses are specific to the issuer.
+        assertNull(cache.getResponse(certificate, null));
+        assertEquals(0, requests.get());
+
+        assertFalse(cache.putResponse(certificate, certificate, newResponse(System.currentTimeMillis() - 1000)));
+        assertFalse(cache.putResponse(certificate, certificate, new byte[]{0x30, 0x03, 0x0A, 0x01, 0x01}));
+    }
+
+    @Test
+    public void testEvictSoonestExpiring() throws Exception
+    {
+        KeyStore keyStore = KeyStore.getInstance("JKS");
+        try (InputStream input = MavenTestingUtils.getTestResourcePathFile("keystore_sni.p12").toUri().toURL().openStream())
+        {
+            keyStore.load(input, "storepwd".toCharArray());
+        }
+        X509Certificate jetty = (X509Certificate)keyStore.getCertificate("jetty");
+        X509Certificate other = (X509Certificate)keyStore.getCertificate("other");
+        X509Certificate wild = (X509Certificate)keyStore.getCertificate("wild");
+
+        nextUpdate = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1);
+        cache.setMaxEntries(3);
+        cache.start();
+
+        long now = System.currentTimeMillis();
+        assertTrue(cache.putResponse(certificate, certificate, newResponse(now + TimeUnit.MINUTES.toMillis(90))));
+        assertTrue(cache.putResponse(jetty, certificate, newResponse(now + TimeUnit.HOURS.toMillis(2))));
+        assertTrue(cache.putResponse(other, certificate, newResponse(now + TimeUnit.HOURS.toMillis(1))));
+        assertTrue(cache.putResponse(wild, certificate, newResponse(now + TimeUnit.HOURS.toMillis(3))));
+
+        // The soonest expiring response is evicted.
+        assertEquals(3, cache.getSize());
+        assertNotNull(cache.getResponse(certificate, certificate));
+        assertNotNull(cache.getResponse(jetty, certificate));
+        assertNotNull(cache.getResponse(wild, certificate));
+        assertEquals(3, cache.getHits());
+        assertEquals(0, requests.get());
+        assertNotNull(cache.getResponse(other, certificate));
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void testSslContextFactoryWrapsTrustManagers() throws Exception
+    {
+        SslContextFactory.Client sslContextFactory = new SslContextFactory.Client();
+        KeyStore trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        trustStore.load(null, null);
+        trustStore.setCertificateEntry("mykey", certificate);
+        sslContextFactory.setTrustStore(trustStore);
+        sslContextFactory.setValidatePeerCerts(true);
+        sslContextFactory.setOcspResponseCache(cache);
+        String ocspEnable = Security.getProperty("ocsp.enable");
+        sslContextFactory.start();
+        try
+        {
+            assertTrue(cache.isRunning());
+            // The cache is only used when OCSP is enabled.
+            TrustManager[] trustManagers = sslContextFactory.getTrustManagers(sslContextFactory.getTrustStore(), null);
+            assertThat(trustManagers[0], not(instanceOf(SslContextFactory.X509ExtendedTrustManagerWrapper.class)));
+
+            sslContextFactory.setEnableOCSP(true);
+            trustManagers = sslContextFactory.getTrustManagers(sslContextFactory.getTrustStore(), null);
+            assertThat(trustManagers[0], instanceOf(SslContextFactory.X509ExtendedTrustManagerWrapper.class));
+        }
+        finally
+        {
+            Security.setProperty("ocsp.enable", ocspEnable == null ? "false" : ocspEnable);
+            sslContextFactory.stop();
+        }
+        assertFalse(cache.isRunning());
+    }
+}
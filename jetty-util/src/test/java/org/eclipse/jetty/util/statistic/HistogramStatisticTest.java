@@ -0,0 +1,103 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.statistic;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class HistogramStatisticTest
+{
+    @Test
+    public void testEmpty()
+    {
+        HistogramStatistic histogram = new HistogramStatistic("empty");
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getP50());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0.0D, histogram.getMean());
+    }
+
+    @Test
+    public void testSmallValuesAreExact()
+    {
+        HistogramStatistic histogram = new HistogramStatistic();
+        for (int i = 1; i <= 10; ++i)
+        {
+            histogram.record(i);
+        }
+        assertEquals(10, histogram.getCount());
+        assertEquals(55, histogram.getTotal());
+        assertEquals(5.5D, histogram.getMean());
+        assertEquals(5, histogram.getP50());
+        assertEquals(9, histogram.getValueAtPercentile(90));
+        assertEquals(10, histogram.getValueAtPercentile(100));
+        assertEquals(10, histogram.getMax());
+    }
+
+    @Test
+    public void testPercentilesWithinPrecision()
+    {
+        HistogramStatistic histogram = new HistogramStatistic();
+        for (int i = 1; i <= 100_000; ++i)
+        {
+            histogram.record(i);
+        }
+        assertPercentile(histogram, 50, 50_000);
+        assertPercentile(histogram, 90, 90_000);
+        assertPercentile(histogram, 99, 99_000);
+        assertPercentile(histogram, 99.9, 99_900);
+        assertEquals(100_000, histogram.getMax());
+    }
+
+    @Test
+    public void testOutOfRangeValues()
+    {
+        HistogramStatistic histogram = new HistogramStatistic();
+        histogram.record(-10);
+        histogram.record(Long.MAX_VALUE / 2);
+        assertEquals(2, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(Long.MAX_VALUE / 2, histogram.getMax());
+        assertThat(histogram.getValueAtPercentile(100), greaterThanOrEqualTo(1L << 39));
+    }
+
+    @Test
+    public void testReset()
+    {
+        HistogramStatistic histogram = new HistogramStatistic();
+        histogram.record(1000);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getP99());
+        histogram.record(7);
+        assertEquals(7, histogram.getP99());
+    }
+
+    private static void assertPercentile(HistogramStatistic histogram, double percentile, long expected)
+    {
+        long value = histogram.getValueAtPercentile(percentile);
+        // Buckets have a relative width of 1/16.
+        assertThat(value, greaterThanOrEqualTo(expected));
+        assertThat(value, lessThanOrEqualTo(expected + expected / 16));
+    }
+}
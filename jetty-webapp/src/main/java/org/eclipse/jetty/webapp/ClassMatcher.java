@@ -35,6 +35,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
@@ -71,6 +73,7 @@ import org.eclipse.jetty.util.resource.Resource;
 public class ClassMatcher extends AbstractSet<String>
 {
     private static final Logger LOG = Log.getLogger(ClassMatcher.class);
+    private static final int MAX_CACHED_RESOURCE_MATCHES = 16 * 1024;
 
     public static class Entry
     {
@@ -494,6 +497,10 @@ public class ClassMatcher extends AbstractSet<String>
     Map<String, Entry> _entries = new HashMap<>();
     IncludeExcludeSet<Entry, String> _patterns = new IncludeExcludeSet<>(ByPackageOrName.class);
     IncludeExcludeSet<Entry, URI> _locations = new IncludeExcludeSet<>(ByLocationOrModule.class);
+    private final Map<String, Boolean> _resourceMatches = new ConcurrentHashMap<>();
+    private final LongAdder _matchLookups = new LongAdder();
+    private final LongAdder _matchCacheMisses = new LongAdder();
+    private volatile ClassValue<Boolean> _classMatches = newClassMatches();
 
     public ClassMatcher()
     {
@@ -576,6 +583,7 @@ public class ClassMatcher extends AbstractSet<String>
         if (_entries.containsKey(entry.getPattern()))
             return false;
         _entries.put(entry.getPattern(), entry);
+        clearMatchCache();
 
         if (entry instanceof LocationEntry || entry instanceof ModuleEntry)
         {
@@ -640,6 +648,42 @@ public class ClassMatcher extends AbstractSet<String>
         _entries.clear();
         _patterns.clear();
         _locations.clear();
+        clearMatchCache();
+    }
+
+    private ClassValue<Boolean> newClassMatches()
+    {
+        return new ClassValue<>()
+        {
+            @Override
+            protected Boolean computeValue(Class<?> clazz)
+            {
+                _matchCacheMisses.increment();
+                return matchClass(clazz);
+            }
+        };
+    }
+
+    private void clearMatchCache()
+    {
+        _classMatches = newClassMatches();
+        _resourceMatches.clear();
+    }
+
+    /**
+     * @return the number of matches of classes and resources answered from the cache of previous matches
+     */
+    public long getMatchCacheHits()
+    {
+        return _matchLookups.longValue() - _matchCacheMisses.longValue();
+    }
+
+    /**
+     * @return the number of matches of classes and resources that were not in the cache of previous matches
+     */
+    public long getMatchCacheMisses()
+    {
+        return _matchCacheMisses.longValue();
     }
 
     @Override
@@ -710,12 +754,19 @@ public class ClassMatcher extends AbstractSet<String>
     }
 
     /**
-     * Match the class name against the pattern
+     * Match the class name against the pattern.
+     * The result is cached until the patterns are modified.
      *
      * @param clazz A class to try to match
      * @return true if class matches the pattern
      */
     public boolean match(Class<?> clazz)
+    {
+        _matchLookups.increment();
+        return _classMatches.get(clazz);
+    }
+
+    private boolean matchClass(Class<?> clazz)
     {
         try
         {
@@ -728,7 +779,29 @@ public class ClassMatcher extends AbstractSet<String>
         return false;
     }
 
+    /**
+     * Match a resource against the pattern.
+     * The result is cached until the patterns are modified.
+     *
+     * @param name the name of the resource or class
+     * @param url the URL of the resource
+     * @return true if the resource matches the pattern
+     */
     public boolean match(String name, URL url)
+    {
+        _matchLookups.increment();
+        String key = name + '|' + url;
+        Boolean match = _resourceMatches.get(key);
+        if (match != null)
+            return match;
+        _matchCacheMisses.increment();
+        match = matchResource(name, url);
+        if (_resourceMatches.size() < MAX_CACHED_RESOURCE_MATCHES)
+            _resourceMatches.put(key, match);
+        return match;
+    }
+
+    private boolean matchResource(String name, URL url)
     {
         // Strip class suffix for name matching
         if (name.endsWith(".class"))
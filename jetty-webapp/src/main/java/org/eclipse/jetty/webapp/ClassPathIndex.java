@@ -0,0 +1,422 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.webapp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.ZipFile;
+
+import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.URIUtil;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+
+/**
+ * <p>An index of the packages contained in each jar of a classpath, used by
+ * {@link WebAppClassLoader} to look up classes and resources directly in the
+ * jars that may contain them, rather than probing every jar in turn.</p>
+ * <p>Packages are the directories of the entries, for example {@code com/acme/}
+ * for {@code com/acme/Foo.class}, or the empty string for the root directory.
+ * Directories of the classpath are not indexed, as their content may change,
+ * and are always probed; they are usually few, for example {@code WEB-INF/classes}.</p>
+ * <p>An index can be written to a file and read back, as long as the classpath
+ * and the size and last modified time of its jars did not change.</p>
+ */
+public class ClassPathIndex implements Closeable
+{
+    private static final Logger LOG = Log.getLogger(ClassPathIndex.class);
+    private static final int FORMAT_VERSION = 1;
+
+    private final List<Location> _locations;
+    private final Map<String, Location[]> _packages;
+    private final Location[] _directories;
+
+    private ClassPathIndex(List<Location> locations, Map<String, BitSet> packages)
+    {
+        _locations = locations;
+        _directories = candidates(new BitSet());
+        _packages = new HashMap<>(packages.size() * 4 / 3 + 1);
+        packages.forEach((name, jars) -> _packages.put(name, candidates(jars)));
+    }
+
+    private Location[] candidates(BitSet jars)
+    {
+        List<Location> candidates = new ArrayList<>();
+        for (int i = 0; i < _locations.size(); ++i)
+        {
+            Location location = _locations.get(i);
+            if (location._directory || jars.get(i))
+                candidates.add(location);
+        }
+        return candidates.toArray(new Location[0]);
+    }
+
+    /**
+     * @param urls the classpath, which must only contain {@code file:} URLs of jars or directories
+     * @return the index of the given classpath, or null if the classpath cannot be indexed
+     */
+    public static ClassPathIndex build(URL[] urls)
+    {
+        List<Location> locations = new ArrayList<>(urls.length);
+        Map<String, BitSet> packages = new HashMap<>();
+        for (int i = 0; i < urls.length; ++i)
+        {
+            Location location = Location.of(i, urls[i]);
+            if (location == null)
+                return null;
+            locations.add(location);
+            if (location._directory)
+                continue;
+            try (JarFile jar = new JarFile(location._file))
+            {
+                Enumeration<JarEntry> entries = jar.entries();
+                while (entries.hasMoreElements())
+                {
+                    String name = entries.nextElement().getName();
+                    // Versioned entries of multi-release jars are in the same package as the base entries.
+                    if (name.startsWith("META-INF/versions/"))
+                    {
+                        int version = name.indexOf('/', 18);
+                        if (version > 0)
+                            name = name.substring(version + 1);
+                    }
+                    String pkg = packageOf(name);
+                    packages.computeIfAbsent(pkg, p -> new BitSet()).set(i);
+                    // Directory entries are also resources, in the parent package.
+                    if (name.endsWith("/"))
+                        packages.computeIfAbsent(packageOf(name.substring(0, name.length() - 1)), p -> new BitSet()).set(i);
+                }
+            }
+            catch (IOException x)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Cannot index " + location._url, x);
+                return null;
+            }
+        }
+        return new ClassPathIndex(locations, packages);
+    }
+
+    /**
+     * @param file the file to read
+     * @param urls the current classpath
+     * @return the index read from the given file, or null if the file does not exist
+     * or was written for a different classpath, or if the jars of the classpath changed
+     */
+    public static ClassPathIndex read(Path file, URL[] urls)
+    {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file))))
+        {
+            if (input.readInt() != FORMAT_VERSION)
+                return null;
+            int count = input.readInt();
+            if (count != urls.length)
+                return null;
+            List<Location> locations = new ArrayList<>(count);
+            for (int i = 0; i < count; ++i)
+            {
+                String url = input.readUTF();
+                long size = input.readLong();
+                long lastModified = input.readLong();
+                Location location = Location.of(i, urls[i]);
+                if (location == null || !location._url.toExternalForm().equals(url) || location.size() != size || location.lastModified() != lastModified)
+                    return null;
+                locations.add(location);
+            }
+            int packages = input.readInt();
+            Map<String, BitSet> index = new HashMap<>(packages * 4 / 3 + 1);
+            for (int i = 0; i < packages; ++i)
+            {
+                String name = input.readUTF();
+                index.put(name, BitSet.valueOf(readBytes(input)));
+            }
+            return new ClassPathIndex(locations, index);
+        }
+        catch (NoSuchFileException x)
+        {
+            return null;
+        }
+        catch (IOException x)
+        {
+            LOG.warn("Cannot read classpath index {}: {}", file, x.toString());
+            return null;
+        }
+    }
+
+    private static byte[] readBytes(DataInputStream input) throws IOException
+    {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * @param file the file to write this index to
+     * @throws IOException if the index cannot be written
+     */
+    public void write(Path file) throws IOException
+    {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp))))
+        {
+            output.writeInt(FORMAT_VERSION);
+            output.writeInt(_locations.size());
+            for (Location location : _locations)
+            {
+                output.writeUTF(location._url.toExternalForm());
+                output.writeLong(location.size());
+                output.writeLong(location.lastModified());
+            }
+            output.writeInt(_packages.size());
+            for (Map.Entry<String, Location[]> entry : _packages.entrySet())
+            {
+                BitSet jars = new BitSet();
+                for (Location location : entry.getValue())
+                {
+                    if (!location._directory)
+                        jars.set(location._position);
+                }
+                output.writeUTF(entry.getKey());
+                byte[] bytes = jars.toByteArray();
+                output.writeInt(bytes.length);
+                output.write(bytes);
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * @param urls a classpath
+     * @return whether this index was built for the given classpath
+     */
+    public boolean isIndexOf(URL[] urls)
+    {
+        if (urls.length != _locations.size())
+            return false;
+        for (int i = 0; i < urls.length; ++i)
+        {
+            if (!_locations.get(i)._url.toExternalForm().equals(urls[i].toExternalForm()))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of entries of the classpath
+     */
+    public int getLocationCount()
+    {
+        return _locations.size();
+    }
+
+    /**
+     * @return the number of packages found in the jars of the classpath
+     */
+    public int getPackageCount()
+    {
+        return _packages.size();
+    }
+
+    /**
+     * @param name the name of a resource, for example {@code com/acme/Foo.class}
+     * @return the locations of the classpath that may contain the resource, in classpath order
+     */
+    Location[] getCandidates(String name)
+    {
+        return _packages.getOrDefault(packageOf(name), _directories);
+    }
+
+    private static String packageOf(String name)
+    {
+        return name.substring(0, name.lastIndexOf('/') + 1);
+    }
+
+    @Override
+    public void close()
+    {
+        for (Location location : _locations)
+        {
+            location.close();
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{locations=%d,packages=%d}", getClass().getSimpleName(), hashCode(), _locations.size(), _packages.size());
+    }
+
+    /**
+     * A jar or directory of the classpath.
+     */
+    static class Location
+    {
+        private final int _position;
+        private final URL _url;
+        private final File _file;
+        private final boolean _directory;
+        private final String _base;
+        private volatile JarFile _jar;
+
+        private Location(int position, URL url, File file, boolean directory)
+        {
+            _position = position;
+            _url = url;
+            _file = file;
+            _directory = directory;
+            _base = directory ? null : "jar:" + url.toExternalForm() + "!/";
+        }
+
+        private static Location of(int position, URL url)
+        {
+            try
+            {
+                if (!"file".equalsIgnoreCase(url.getProtocol()))
+                    return null;
+                File file = new File(url.toURI());
+                if (file.isDirectory())
+                    return url.toExternalForm().endsWith("/") ? new Location(position, url, file, true) : null;
+                if (file.isFile())
+                    return new Location(position, url, file, false);
+                return null;
+            }
+            catch (Exception x)
+            {
+                LOG.ignore(x);
+                return null;
+            }
+        }
+
+        /**
+         * @return the position of this jar or directory in the classpath
+         */
+        int getPosition()
+        {
+            return _position;
+        }
+
+        /**
+         * @return the URL of this jar or directory in the classpath
+         */
+        URL getURL()
+        {
+            return _url;
+        }
+
+        boolean isDirectory()
+        {
+            return _directory;
+        }
+
+        private long size()
+        {
+            return _directory ? 0 : _file.length();
+        }
+
+        private long lastModified()
+        {
+            return _directory ? 0 : _file.lastModified();
+        }
+
+        /**
+         * @return the jar file, opened like {@link java.net.URLClassLoader} does, with multi-release support
+         * @throws IOException if the jar cannot be opened
+         */
+        JarFile getJarFile() throws IOException
+        {
+            JarFile jar = _jar;
+            if (jar == null)
+            {
+                synchronized (this)
+                {
+                    jar = _jar;
+                    if (jar == null)
+                    {
+                        jar = new JarFile(_file, true, ZipFile.OPEN_READ, JarFile.runtimeVersion());
+                        _jar = jar;
+                    }
+                }
+            }
+            return jar;
+        }
+
+        /**
+         * @param name the name of the resource
+         * @return the file of the resource in this directory
+         */
+        File getFile(String name)
+        {
+            return new File(_file, name.replace('/', File.separatorChar));
+        }
+
+        /**
+         * @param name the name of the resource
+         * @return the URL of the resource, as {@link java.net.URLClassLoader} would return it,
+         * or null if this location does not contain it
+         * @throws IOException if the jar cannot be opened
+         */
+        URL getResource(String name) throws IOException
+        {
+            if (_directory)
+            {
+                URL url = new URL(_url, URIUtil.encodePath(name));
+                // Do not allow escaping the directory with "..".
+                if (!url.getFile().startsWith(_url.getFile()))
+                    return null;
+                return getFile(name).exists() ? url : null;
+            }
+
+            JarEntry entry = getJarFile().getJarEntry(name);
+            if (entry == null)
+                return null;
+            return new URL(_base + URIUtil.encodePath(entry.getRealName()));
+        }
+
+        private void close()
+        {
+            JarFile jar = _jar;
+            _jar = null;
+            IO.close(jar);
+        }
+
+        @Override
+        public String toString()
+        {
+            return _url.toString();
+        }
+    }
+}
@@ -70,6 +70,11 @@ public abstract class Descriptor
         return _root;
     }
 
+    public String getDTD()
+    {
+        return _dtd;
+    }
+
     @Override
     public String toString()
     {
@@ -24,6 +24,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.servlet.ServletContext;
 
 import org.eclipse.jetty.util.log.Log;
@@ -53,7 +54,7 @@ public class MetaData
     protected final List<FragmentDescriptor> _webFragmentRoots = new ArrayList<FragmentDescriptor>();
     protected final Map<String, FragmentDescriptor> _webFragmentNameMap = new HashMap<String, FragmentDescriptor>();
     protected final Map<Resource, FragmentDescriptor> _webFragmentResourceMap = new HashMap<Resource, FragmentDescriptor>();
-    protected final Map<Resource, List<DiscoveredAnnotation>> _annotations = new HashMap<Resource, List<DiscoveredAnnotation>>();
+    protected final Map<Resource, List<DiscoveredAnnotation>> _annotations = new ConcurrentHashMap<Resource, List<DiscoveredAnnotation>>();
     protected final List<Resource> _webInfClasses = new ArrayList<Resource>();
     protected final List<Resource> _webInfJars = new ArrayList<Resource>();
     protected final List<Resource> _orderedContainerResources = new ArrayList<Resource>();
@@ -188,7 +189,17 @@ public class MetaData
     public void setWebXml(Resource webXml)
         throws Exception
     {
-        _webXmlRoot = new WebDescriptor(webXml);
+        setWebXml(new WebDescriptor(webXml));
+    }
+
+    /**
+     * @param webXml the descriptor of the web.xml, which may already be parsed
+     * @throws Exception if the descriptor cannot be parsed
+     */
+    public void setWebXml(WebDescriptor webXml)
+        throws Exception
+    {
+        _webXmlRoot = webXml;
         _webXmlRoot.setValidating(isValidateXml());
         _webXmlRoot.parse();
         _metaDataComplete = _webXmlRoot.getMetaDataComplete() == MetaDataComplete.True;
@@ -317,12 +328,13 @@ public class MetaData
      * Add an annotation that has been discovered on a class, method or field within a resource
      * eg a jar or dir.
      *
-     * This method is synchronized as it is anticipated that it may be called by many threads
-     * during the annotation scanning phase.
+     * This method is thread safe as it is anticipated that it may be called by many threads
+     * during the annotation scanning phase. Only the list of annotations of the resource
+     * is locked, so threads scanning different jars do not contend.
      *
      * @param annotation the discovered annotation
      */
-    public synchronized void addDiscoveredAnnotation(DiscoveredAnnotation annotation)
+    public void addDiscoveredAnnotation(DiscoveredAnnotation annotation)
     {
         if (annotation == null)
             return;
@@ -333,13 +345,7 @@ public class MetaData
         if (resource == null || !_webInfJars.contains(resource))
             resource = EmptyResource.INSTANCE;
 
-        List<DiscoveredAnnotation> list = _annotations.get(resource);
-        if (list == null)
-        {
-            list = new ArrayList<DiscoveredAnnotation>();
-            _annotations.put(resource, list);
-        }
-        list.add(annotation);
+        _annotations.computeIfAbsent(resource, r -> Collections.synchronizedList(new ArrayList<>())).add(annotation);
     }
 
     public void addDescriptorProcessor(DescriptorProcessor p)
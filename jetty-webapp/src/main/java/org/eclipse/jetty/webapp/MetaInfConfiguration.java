@@ -18,6 +18,8 @@
 
 package org.eclipse.jetty.webapp;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.net.JarURLConnection;
@@ -414,11 +416,25 @@ public class MetaInfConfiguration extends AbstractConfiguration
             }
         }
 
+        //Load the META-INF information of unchanged jars from the persistent cache
+        ScanCache scanCache = ScanCache.getScanCache(context);
+        if (scanCache != null)
+        {
+            if (metaInfResourceCache == null)
+                metaInfResourceCache = new ConcurrentHashMap<>();
+            if (metaInfFragmentCache == null)
+                metaInfFragmentCache = new ConcurrentHashMap<>();
+            if (metaInfTldCache == null)
+                metaInfTldCache = new ConcurrentHashMap<>();
+        }
+
         //Scan jars for META-INF information
         if (jars != null)
         {
             for (Resource r : jars)
             {
+                if (scanCache != null)
+                    loadFromScanCache(scanCache, r, metaInfResourceCache, metaInfFragmentCache, metaInfTldCache);
                 if (scanTypes.contains(METAINF_RESOURCES))
                     scanForResources(context, r, metaInfResourceCache);
                 if (scanTypes.contains(METAINF_FRAGMENTS))
@@ -429,6 +445,50 @@ public class MetaInfConfiguration extends AbstractConfiguration
         }
     }
 
+    /**
+     * Fill the caches of the META-INF information for the given jar from the
+     * persistent {@link ScanCache}, reading the jar entries only once if the
+     * jar is not in the persistent cache.
+     *
+     * @param scanCache the persistent cache
+     * @param jar the jar to look up
+     * @param resourceCache the resource cache
+     * @param fragmentCache the fragment cache
+     * @param tldCache the tld cache
+     * @throws Exception if unable to scan the jar
+     */
+    protected void loadFromScanCache(ScanCache scanCache, Resource jar, ConcurrentHashMap<Resource, Resource> resourceCache,
+                                     ConcurrentHashMap<Resource, Resource> fragmentCache, ConcurrentHashMap<Resource, Collection<URL>> tldCache)
+        throws Exception
+    {
+        if (jar.isDirectory() || (resourceCache.containsKey(jar) && fragmentCache.containsKey(jar) && tldCache.containsKey(jar)))
+            return;
+
+        String key = scanCache.getKey(jar, "metainf");
+        if (key == null)
+            return;
+
+        MetaInfEntries entries = scanCache.load(key, MetaInfEntries::read);
+        if (entries == null)
+        {
+            long start = System.nanoTime();
+            entries = MetaInfEntries.scan(jar.getFile());
+            scanCache.onScanned(jar, "metainf", System.nanoTime() - start);
+            scanCache.store(key, entries::write);
+        }
+
+        URI uri = jar.getURI();
+        resourceCache.putIfAbsent(jar, entries._resources ? Resource.newResource(uriJarPrefix(uri, "!/META-INF/resources")) : EmptyResource.INSTANCE);
+        fragmentCache.putIfAbsent(jar, entries._fragment ? Resource.newResource(uriJarPrefix(uri, "!/META-INF/web-fragment.xml")) : EmptyResource.INSTANCE);
+        Collection<URL> tlds = new HashSet<>();
+        String jarUri = uriJarPrefix(uri, "!/");
+        for (String tld : entries._tlds)
+        {
+            tlds.add(new URL(jarUri + tld));
+        }
+        tldCache.putIfAbsent(jar, tlds);
+    }
+
     /**
      * Scan for META-INF/resources dir in the given jar.
      *
@@ -889,4 +949,60 @@ public class MetaInfConfiguration extends AbstractConfiguration
             return "jar:" + uriString + suffix;
         }
     }
+
+    /**
+     * The META-INF entries of a jar that are stored in the {@link ScanCache}.
+     */
+    private static class MetaInfEntries
+    {
+        private boolean _resources;
+        private boolean _fragment;
+        private final List<String> _tlds = new ArrayList<>();
+
+        private static MetaInfEntries scan(File file) throws IOException
+        {
+            MetaInfEntries entries = new MetaInfEntries();
+            try (JarFile jarFile = new JarFile(file))
+            {
+                Enumeration<JarEntry> jarEntries = jarFile.entries();
+                while (jarEntries.hasMoreElements())
+                {
+                    String name = jarEntries.nextElement().getName();
+                    if (!name.startsWith("META-INF"))
+                        continue;
+                    if (name.startsWith("META-INF/resources/"))
+                        entries._resources = true;
+                    if (name.equals("META-INF/web-fragment.xml"))
+                        entries._fragment = true;
+                    if (name.endsWith(".tld"))
+                        entries._tlds.add(name);
+                }
+            }
+            return entries;
+        }
+
+        private static MetaInfEntries read(DataInputStream input) throws IOException
+        {
+            MetaInfEntries entries = new MetaInfEntries();
+            entries._resources = input.readBoolean();
+            entries._fragment = input.readBoolean();
+            int tlds = input.readInt();
+            for (int i = 0; i < tlds; ++i)
+            {
+                entries._tlds.add(input.readUTF());
+            }
+            return entries;
+        }
+
+        private void write(DataOutputStream output) throws IOException
+        {
+            output.writeBoolean(_resources);
+            output.writeBoolean(_fragment);
+            output.writeInt(_tlds.size());
+            for (String tld : _tlds)
+            {
+                output.writeUTF(tld);
+            }
+        }
+    }
 }
@@ -0,0 +1,351 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.webapp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.eclipse.jetty.util.TypeUtil;
+import org.eclipse.jetty.util.log.Log;
+import org.eclipse.jetty.util.log.Logger;
+import org.eclipse.jetty.util.resource.Resource;
+
+/**
+ * <p>A persistent cache of the results of scanning jars and class directories,
+ * so that unchanged jars are not scanned again when a webapp is redeployed
+ * or the server is restarted.</p>
+ * <p>Entries are files in the cache directory, named after the type of scan
+ * and a hash of what was scanned: the content of a jar file, or the relative path,
+ * size and last modified time of every file of a directory.
+ * A modified jar or directory therefore produces a new entry, and stale entries
+ * are simply never read again; they can be deleted at any time.</p>
+ * <p>Entries are written to a temporary file and atomically moved into place,
+ * so concurrent deployments, in the same or in different JVMs, never read a
+ * partial entry.</p>
+ * <p>The cache is enabled by setting the {@link #SCAN_CACHE} context attribute,
+ * server attribute or system property to the cache directory.</p>
+ */
+public class ScanCache
+{
+    private static final Logger LOG = Log.getLogger(ScanCache.class);
+    public static final String SCAN_CACHE = "org.eclipse.jetty.webapp.scanCache";
+    private static final int FORMAT_VERSION = 1;
+    private static final Map<Path, ScanCache> __caches = new ConcurrentHashMap<>();
+
+    /**
+     * Reads a cache entry.
+     *
+     * @param <T> the type of the entry
+     */
+    @FunctionalInterface
+    public interface Reader<T>
+    {
+        T read(DataInputStream input) throws IOException;
+    }
+
+    /**
+     * Writes a cache entry.
+     */
+    @FunctionalInterface
+    public interface Writer
+    {
+        void write(DataOutputStream output) throws IOException;
+    }
+
+    /**
+     * @param context the context being deployed
+     * @return the scan cache configured for the context, or null if none is configured
+     */
+    public static ScanCache getScanCache(WebAppContext context)
+    {
+        Object value = context.getAttribute(SCAN_CACHE);
+        if (value == null && context.getServer() != null)
+            value = context.getServer().getAttribute(SCAN_CACHE);
+        if (value == null)
+            value = System.getProperty(SCAN_CACHE);
+        if (value == null)
+            return null;
+        if (value instanceof ScanCache)
+            return (ScanCache)value;
+
+        Path directory;
+        if (value instanceof Path)
+            directory = (Path)value;
+        else if (value instanceof File)
+            directory = ((File)value).toPath();
+        else
+            directory = Paths.get(value.toString());
+        return __caches.computeIfAbsent(directory.toAbsolutePath().normalize(), ScanCache::new);
+    }
+
+    private final Map<Path, FileHash> _fileHashes = new ConcurrentHashMap<>();
+    private final Map<String, Long> _scanTimes = new ConcurrentHashMap<>();
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final Path _directory;
+
+    public ScanCache(Path directory)
+    {
+        _directory = directory;
+    }
+
+    /**
+     * @return the directory where the entries are stored
+     */
+    public Path getDirectory()
+    {
+        return _directory;
+    }
+
+    /**
+     * @return the number of entries found in the cache
+     */
+    public long getHits()
+    {
+        return _hits.longValue();
+    }
+
+    /**
+     * @return the number of entries not found in the cache
+     */
+    public long getMisses()
+    {
+        return _misses.longValue();
+    }
+
+    /**
+     * @return the time in milliseconds spent scanning each jar or directory not found in the cache
+     */
+    public Map<String, Long> getScanTimes()
+    {
+        return Collections.unmodifiableMap(_scanTimes);
+    }
+
+    /**
+     * <p>Computes the key of the entry for the given jar or directory.</p>
+     *
+     * @param resource the jar or directory
+     * @param type the type of scan, which must be a valid file name
+     * @return the key, or null if the resource cannot be cached
+     * @throws IOException if the resource cannot be read
+     */
+    public String getKey(Resource resource, String type) throws IOException
+    {
+        File file = resource.getFile();
+        if (file == null || !file.exists())
+            return null;
+
+        Path path = file.toPath();
+        String hash = Files.isDirectory(path) ? hashDirectory(path) : hashFile(path);
+        return type + "-" + hash;
+    }
+
+    /**
+     * @param key the key of the entry
+     * @param reader the reader of the entry
+     * @param <T> the type of the entry
+     * @return the entry, or null if the entry is not in the cache or cannot be read
+     */
+    public <T> T load(String key, Reader<T> reader)
+    {
+        Path entry = _directory.resolve(key);
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(entry))))
+        {
+            if (input.readInt() != FORMAT_VERSION)
+                throw new IOException("Unsupported format");
+            T result = reader.read(input);
+            _hits.increment();
+            if (LOG.isDebugEnabled())
+                LOG.debug("Cache hit {}", entry);
+            return result;
+        }
+        catch (NoSuchFileException x)
+        {
+            _misses.increment();
+            if (LOG.isDebugEnabled())
+                LOG.debug("Cache miss {}", entry);
+            return null;
+        }
+        catch (IOException x)
+        {
+            _misses.increment();
+            LOG.warn("Ignoring unreadable scan cache entry {}: {}", entry, x.toString());
+            return null;
+        }
+    }
+
+    /**
+     * @param key the key of the entry
+     * @param writer the writer of the entry
+     */
+    public void store(String key, Writer writer)
+    {
+        Path temp = null;
+        try
+        {
+            Files.createDirectories(_directory);
+            temp = Files.createTempFile(_directory, key, ".tmp");
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp))))
+            {
+                output.writeInt(FORMAT_VERSION);
+                writer.write(output);
+            }
+            Path entry = _directory.resolve(key);
+            try
+            {
+                Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            catch (AtomicMoveNotSupportedException x)
+            {
+                Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING);
+            }
+            temp = null;
+            if (LOG.isDebugEnabled())
+                LOG.debug("Cache stored {}", entry);
+        }
+        catch (IOException x)
+        {
+            LOG.warn("Unable to store scan cache entry " + key, x);
+        }
+        finally
+        {
+            if (temp != null)
+            {
+                try
+                {
+                    Files.deleteIfExists(temp);
+                }
+                catch (IOException x)
+                {
+                    LOG.ignore(x);
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>Records the time spent scanning a jar or directory that was not in the cache.</p>
+     *
+     * @param resource the jar or directory
+     * @param type the type of scan
+     * @param nanos the time spent scanning
+     */
+    public void onScanned(Resource resource, String type, long nanos)
+    {
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        _scanTimes.merge(type + " " + resource, millis, Long::sum);
+        if (LOG.isDebugEnabled())
+            LOG.debug("Scanned {} {} in {}ms", type, resource, millis);
+    }
+
+    private String hashFile(Path path) throws IOException
+    {
+        long size = Files.size(path);
+        long lastModified = Files.getLastModifiedTime(path).toMillis();
+        FileHash fileHash = _fileHashes.get(path);
+        if (fileHash != null && fileHash._size == size && fileHash._lastModified == lastModified)
+            return fileHash._hash;
+
+        MessageDigest digest = newMessageDigest();
+        byte[] buffer = new byte[8192];
+        try (InputStream input = Files.newInputStream(path))
+        {
+            int read;
+            while ((read = input.read(buffer)) >= 0)
+            {
+                digest.update(buffer, 0, read);
+            }
+        }
+        String hash = TypeUtil.toHexString(digest.digest());
+        _fileHashes.put(path, new FileHash(size, lastModified, hash));
+        return hash;
+    }
+
+    private String hashDirectory(Path directory) throws IOException
+    {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> stream = Files.walk(directory))
+        {
+            stream.filter(Files::isRegularFile).forEach(files::add);
+        }
+        Collections.sort(files);
+
+        MessageDigest digest = newMessageDigest();
+        for (Path file : files)
+        {
+            String entry = directory.relativize(file) + ":" + Files.size(file) + ":" + Files.getLastModifiedTime(file).toMillis() + "\n";
+            digest.update(entry.getBytes(StandardCharsets.UTF_8));
+        }
+        return TypeUtil.toHexString(digest.digest());
+    }
+
+    private static MessageDigest newMessageDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException x)
+        {
+            throw new IllegalStateException(x);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[dir=%s,hits=%d,misses=%d]", getClass().getSimpleName(), hashCode(), _directory, getHits(), getMisses());
+    }
+
+    private static class FileHash
+    {
+        private final long _size;
+        private final long _lastModified;
+        private final String _hash;
+
+        private FileHash(long size, long lastModified, String hash)
+        {
+            _size = size;
+            _lastModified = lastModified;
+            _hash = hash;
+        }
+    }
+}
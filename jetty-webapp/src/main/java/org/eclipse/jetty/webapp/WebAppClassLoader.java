@@ -25,6 +25,9 @@ import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.IllegalClassFormatException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.CodeSigner;
 import java.security.CodeSource;
 import java.security.PermissionCollection;
 import java.security.PrivilegedExceptionAction;
@@ -38,6 +41,10 @@ import java.util.Locale;
 import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
 
 import org.eclipse.jetty.util.ClassVisibilityChecker;
 import org.eclipse.jetty.util.IO;
@@ -76,11 +83,24 @@ public class WebAppClassLoader extends URLClassLoader implements ClassVisibility
     private static final Logger LOG = Log.getLogger(WebAppClassLoader.class);
     private static final ThreadLocal<Boolean> __loadServerClasses = new ThreadLocal<>();
 
+    /**
+     * The name of the context attribute, server attribute or system property that
+     * enables the {@link ClassPathIndex} of the classloader of a webapp.
+     */
+    public static final String CLASSPATH_INDEX = "org.eclipse.jetty.webapp.classPathIndex";
+
     private final Context _context;
     private final ClassLoader _parent;
     private final Set<String> _extensions = new HashSet<String>();
     private String _name = String.valueOf(hashCode());
     private final List<ClassFileTransformer> _transformers = new CopyOnWriteArrayList<>();
+    private final LongAdder _indexedLookups = new LongAdder();
+    private final LongAdder _avoidedProbes = new LongAdder();
+    private boolean _indexed;
+    private Path _classPathIndexFile;
+    private volatile ClassPathIndex _index;
+    private volatile boolean _indexUnavailable;
+    private volatile boolean _closed;
 
     /**
      * The Context in which the classloader operates.
@@ -217,6 +237,137 @@ public class WebAppClassLoader extends URLClassLoader implements ClassVisibility
         return _context;
     }
 
+    /**
+     * @return whether classes and resources are looked up with a {@link ClassPathIndex}
+     */
+    public boolean isIndexed()
+    {
+        return _indexed;
+    }
+
+    /**
+     * <p>Enables the lookup of classes and resources with a {@link ClassPathIndex},
+     * so that only the jars that contain the package of a class or resource are probed,
+     * rather than every jar in classpath order.</p>
+     * <p>The index is built on the first lookup, and rebuilt if the classpath is modified.</p>
+     *
+     * @param indexed whether classes and resources are looked up with a {@link ClassPathIndex}
+     */
+    public void setIndexed(boolean indexed)
+    {
+        _indexed = indexed;
+        invalidateClassPathIndex();
+    }
+
+    /**
+     * @return the file the {@link ClassPathIndex} is read from, or null
+     */
+    public Path getClassPathIndexFile()
+    {
+        return _classPathIndexFile;
+    }
+
+    /**
+     * @param file the file the {@link ClassPathIndex} is read from, if it
+     * was written for the current classpath, rather than being built
+     * @see #writeClassPathIndex(Path)
+     */
+    public void setClassPathIndexFile(Path file)
+    {
+        _classPathIndexFile = file;
+        invalidateClassPathIndex();
+    }
+
+    /**
+     * @param file the file to write the {@link ClassPathIndex} of the current classpath to
+     * @return whether the index was written, false if the classpath cannot be indexed
+     * @throws IOException if the index cannot be written
+     */
+    public boolean writeClassPathIndex(Path file) throws IOException
+    {
+        ClassPathIndex index = _index;
+        if (index != null)
+        {
+            index.write(file);
+            return true;
+        }
+        try (ClassPathIndex built = ClassPathIndex.build(getURLs()))
+        {
+            if (built == null)
+                return false;
+            built.write(file);
+            return true;
+        }
+    }
+
+    /**
+     * @return the number of class and resource lookups performed with the {@link ClassPathIndex}
+     */
+    public long getIndexedLookups()
+    {
+        return _indexedLookups.longValue();
+    }
+
+    /**
+     * @return the number of jars and directories that the {@link ClassPathIndex}
+     * avoided to probe, compared to probing the classpath in order
+     */
+    public long getAvoidedProbes()
+    {
+        return _avoidedProbes.longValue();
+    }
+
+    /**
+     * @return the index of the current classpath, or null if indexing is disabled
+     * or the classpath cannot be indexed
+     */
+    protected ClassPathIndex getClassPathIndex()
+    {
+        if (!_indexed || _closed || _indexUnavailable)
+            return null;
+        ClassPathIndex index = _index;
+        if (index != null)
+            return index;
+        synchronized (this)
+        {
+            index = _index;
+            if (index == null && !_indexUnavailable)
+            {
+                URL[] urls = getURLs();
+                if (_classPathIndexFile != null)
+                    index = ClassPathIndex.read(_classPathIndexFile, urls);
+                if (index == null)
+                    index = ClassPathIndex.build(urls);
+                if (index == null)
+                    _indexUnavailable = true;
+                _index = index;
+                if (LOG.isDebugEnabled())
+                    LOG.debug("{} indexed {}", this, index);
+            }
+            return index;
+        }
+    }
+
+    private void invalidateClassPathIndex()
+    {
+        synchronized (this)
+        {
+            ClassPathIndex index = _index;
+            _index = null;
+            _indexUnavailable = false;
+            if (index != null)
+                index.close();
+        }
+    }
+
+    @Override
+    protected void addURL(URL url)
+    {
+        super.addURL(url);
+        if (_indexed)
+            invalidateClassPathIndex();
+    }
+
     /**
      * @param resource Comma or semicolon separated path of filenames or URLs
      * pointing to directories or jar files. Directories should end
@@ -356,6 +507,55 @@ public class WebAppClassLoader extends URLClassLoader implements ClassVisibility
         return pc;
     }
 
+    @Override
+    public URL findResource(String name)
+    {
+        ClassPathIndex index = getClassPathIndex();
+        if (index == null)
+            return super.findResource(name);
+
+        _indexedLookups.increment();
+        ClassPathIndex.Location[] candidates = index.getCandidates(name);
+        for (int i = 0; i < candidates.length; ++i)
+        {
+            try
+            {
+                URL url = candidates[i].getResource(name);
+                if (url != null)
+                {
+                    _avoidedProbes.add(candidates[i].getPosition() - i);
+                    return url;
+                }
+            }
+            catch (IOException x)
+            {
+                LOG.ignore(x);
+            }
+        }
+        _avoidedProbes.add(index.getLocationCount() - candidates.length);
+        return null;
+    }
+
+    @Override
+    public Enumeration<URL> findResources(String name) throws IOException
+    {
+        ClassPathIndex index = getClassPathIndex();
+        if (index == null)
+            return super.findResources(name);
+
+        _indexedLookups.increment();
+        ClassPathIndex.Location[] candidates = index.getCandidates(name);
+        List<URL> urls = new ArrayList<>();
+        for (ClassPathIndex.Location candidate : candidates)
+        {
+            URL url = candidate.getResource(name);
+            if (url != null)
+                urls.add(url);
+        }
+        _avoidedProbes.add(index.getLocationCount() - candidates.length);
+        return Collections.enumeration(urls);
+    }
+
     @Override
     public Enumeration<URL> getResources(String name) throws IOException
     {
@@ -611,6 +811,10 @@ public class WebAppClassLoader extends URLClassLoader implements ClassVisibility
     @Override
     protected Class<?> findClass(final String name) throws ClassNotFoundException
     {
+        ClassPathIndex index = getClassPathIndex();
+        if (index != null)
+            return findIndexedClass(index, name);
+
         if (_transformers.isEmpty())
         {
             return super.findClass(name);
@@ -625,6 +829,10 @@ public class WebAppClassLoader extends URLClassLoader implements ClassVisibility
 
     protected Class<?> foundClass(final String name, URL url) throws ClassNotFoundException
     {
+        ClassPathIndex index = getClassPathIndex();
+        if (index != null)
+            return findIndexedClass(index, name);
+
         if (_transformers.isEmpty())
             return super.findClass(name);
 
@@ -670,9 +878,100 @@ public class WebAppClassLoader extends URLClassLoader implements ClassVisibility
         }
     }
 
+    private Class<?> findIndexedClass(ClassPathIndex index, String name) throws ClassNotFoundException
+    {
+        _indexedLookups.increment();
+        String path = TypeUtil.toClassReference(name);
+        ClassPathIndex.Location[] candidates = index.getCandidates(path);
+        for (int i = 0; i < candidates.length; ++i)
+        {
+            ClassPathIndex.Location location = candidates[i];
+            try
+            {
+                byte[] bytes;
+                CodeSigner[] signers = null;
+                Manifest manifest = null;
+                if (location.isDirectory())
+                {
+                    File file = location.getFile(path);
+                    if (!file.isFile())
+                        continue;
+                    bytes = Files.readAllBytes(file.toPath());
+                }
+                else
+                {
+                    JarFile jar = location.getJarFile();
+                    JarEntry entry = jar.getJarEntry(path);
+                    if (entry == null)
+                        continue;
+                    try (InputStream input = jar.getInputStream(entry))
+                    {
+                        bytes = IO.readBytes(input);
+                    }
+                    // The signers are only known once the entry has been read.
+                    signers = entry.getCodeSigners();
+                    manifest = jar.getManifest();
+                }
+                _avoidedProbes.add(location.getPosition() - i);
+                if (LOG.isDebugEnabled())
+                    LOG.debug("indexed findClass({}) location={} cl={}", name, location, this);
+                return defineIndexedClass(name, location.getURL(), bytes, signers, manifest);
+            }
+            catch (IOException x)
+            {
+                throw new ClassNotFoundException(name, x);
+            }
+        }
+        _avoidedProbes.add(index.getLocationCount() - candidates.length);
+        throw new ClassNotFoundException(name);
+    }
+
+    private Class<?> defineIndexedClass(String name, URL location, byte[] bytes, CodeSigner[] signers, Manifest manifest) throws ClassNotFoundException
+    {
+        int dot = name.lastIndexOf('.');
+        if (dot > 0)
+        {
+            String packageName = name.substring(0, dot);
+            if (getDefinedPackage(packageName) == null)
+            {
+                try
+                {
+                    if (manifest == null)
+                        definePackage(packageName, null, null, null, null, null, null, null);
+                    else
+                        definePackage(packageName, manifest, location);
+                }
+                catch (IllegalArgumentException x)
+                {
+                    // Defined concurrently by another thread.
+                    if (getDefinedPackage(packageName) == null)
+                        throw x;
+                }
+            }
+        }
+
+        try
+        {
+            for (ClassFileTransformer transformer : _transformers)
+            {
+                byte[] tmp = transformer.transform(this, name, null, null, bytes);
+                if (tmp != null)
+                    bytes = tmp;
+            }
+        }
+        catch (IllegalClassFormatException e)
+        {
+            throw new ClassNotFoundException(name, e);
+        }
+
+        return defineClass(name, bytes, 0, bytes.length, new CodeSource(location, signers));
+    }
+
     @Override
     public void close() throws IOException
     {
+        _closed = true;
+        invalidateClassPathIndex();
         super.close();
     }
 
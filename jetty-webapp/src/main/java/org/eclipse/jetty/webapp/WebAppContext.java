@@ -498,6 +498,7 @@ public class WebAppContext extends ServletContextHandler implements WebAppClassL
         if (getClassLoader() == null)
         {
             WebAppClassLoader classLoader = new WebAppClassLoader(this);
+            classLoader.setIndexed(isClassPathIndexed());
             setClassLoader(classLoader);
             _ownClassLoader = true;
         }
@@ -517,6 +518,21 @@ public class WebAppContext extends ServletContextHandler implements WebAppClassL
         _configurations.preConfigure(this);
     }
 
+    /**
+     * @return whether the {@link WebAppClassLoader} created for this context uses a {@link ClassPathIndex},
+     * as configured by the {@link WebAppClassLoader#CLASSPATH_INDEX} context attribute, server attribute or
+     * system property
+     */
+    private boolean isClassPathIndexed()
+    {
+        Object o = getAttribute(WebAppClassLoader.CLASSPATH_INDEX);
+        if (o == null && getServer() != null)
+            o = getServer().getAttribute(WebAppClassLoader.CLASSPATH_INDEX);
+        if (o == null)
+            o = System.getProperty(WebAppClassLoader.CLASSPATH_INDEX);
+        return o != null && Boolean.parseBoolean(o.toString());
+    }
+
     public boolean configure() throws Exception
     {
         return _configurations.configure(this);
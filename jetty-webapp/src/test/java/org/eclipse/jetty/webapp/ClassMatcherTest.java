@@ -19,6 +19,7 @@
 package org.eclipse.jetty.webapp;
 
 import java.net.URI;
+import java.net.URL;
 import java.util.Arrays;
 import java.util.function.Supplier;
 
@@ -329,6 +330,29 @@ public class ClassMatcherTest
         }
     }
 
+    @Test
+    public void testMatchCache() throws Exception
+    {
+        ClassMatcher pattern = new ClassMatcher("org.eclipse.jetty.webapp.");
+        assertTrue(pattern.match(ClassMatcher.class));
+        assertTrue(pattern.match(ClassMatcher.class));
+        URL url = ClassMatcherTest.class.getResource("ClassMatcherTest.class");
+        assertTrue(pattern.match("org/eclipse/jetty/webapp/ClassMatcherTest.class", url));
+        assertTrue(pattern.match("org/eclipse/jetty/webapp/ClassMatcherTest.class", url));
+        assertThat(pattern.getMatchCacheMisses(), Matchers.is(2L));
+        assertThat(pattern.getMatchCacheHits(), Matchers.is(2L));
+
+        // Modifying the patterns invalidates the cache.
+        pattern.add("-org.eclipse.jetty.webapp.");
+        assertFalse(pattern.match(ClassMatcher.class));
+        pattern.remove("-org.eclipse.jetty.webapp.");
+        assertTrue(pattern.match(ClassMatcher.class));
+        pattern.add("-org.eclipse.jetty.webapp.ClassMatcherTest");
+        assertFalse(pattern.match("org/eclipse/jetty/webapp/ClassMatcherTest.class", url));
+        pattern.clear();
+        assertTrue(pattern.match(ClassMatcher.class));
+    }
+
     @Test
     public void testJvmModule()
     {
@@ -0,0 +1,182 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.webapp;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+import org.eclipse.jetty.toolchain.test.jupiter.WorkDir;
+import org.eclipse.jetty.toolchain.test.jupiter.WorkDirExtension;
+import org.eclipse.jetty.util.resource.Resource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasKey;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+@ExtendWith(WorkDirExtension.class)
+public class ScanCacheTest
+{
+    public WorkDir workDir;
+
+    @Test
+    public void testKeyChangesWithContent() throws Exception
+    {
+        Path root = workDir.getEmptyPathDir();
+        ScanCache scanCache = new ScanCache(root.resolve("cache"));
+
+        Path jar = root.resolve("test.jar");
+        Files.write(jar, "one".getBytes(StandardCharsets.UTF_8));
+        Resource resource = Resource.newResource(jar);
+        String key = scanCache.getKey(resource, "test");
+        assertNotNull(key);
+        assertEquals(key, scanCache.getKey(resource, "test"));
+        assertNotEquals(key, scanCache.getKey(resource, "other"));
+
+        // Same content with a different timestamp has the same key.
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() - 10000));
+        assertEquals(key, scanCache.getKey(resource, "test"));
+
+        Files.write(jar, "two".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() + 10000));
+        assertNotEquals(key, scanCache.getKey(resource, "test"));
+    }
+
+    @Test
+    public void testDirectoryKeyChangesWithFiles() throws Exception
+    {
+        Path root = workDir.getEmptyPathDir();
+        ScanCache scanCache = new ScanCache(root.resolve("cache"));
+
+        Path classes = root.resolve("classes");
+        Files.createDirectories(classes.resolve("org/acme"));
+        Path file = classes.resolve("org/acme/Foo.class");
+        Files.write(file, new byte[10]);
+        Resource resource = Resource.newResource(classes);
+        String key = scanCache.getKey(resource, "test");
+        assertEquals(key, scanCache.getKey(resource, "test"));
+
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 10000));
+        String modified = scanCache.getKey(resource, "test");
+        assertNotEquals(key, modified);
+
+        Files.write(classes.resolve("org/acme/Bar.class"), new byte[10]);
+        assertNotEquals(modified, scanCache.getKey(resource, "test"));
+    }
+
+    @Test
+    public void testStoreAndLoad() throws Exception
+    {
+        Path root = workDir.getEmptyPathDir();
+        ScanCache scanCache = new ScanCache(root.resolve("cache"));
+
+        assertNull(scanCache.load("entry", input -> input.readUTF()));
+        assertEquals(1, scanCache.getMisses());
+
+        scanCache.store("entry", output -> output.writeUTF("value"));
+        assertEquals("value", scanCache.load("entry", input -> input.readUTF()));
+        assertEquals(1, scanCache.getHits());
+
+        // No temporary files are left behind.
+        try (Stream<Path> files = Files.list(scanCache.getDirectory()))
+        {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void testScanCacheFromContextAttribute() throws Exception
+    {
+        Path root = workDir.getEmptyPathDir();
+        WebAppContext context = new WebAppContext();
+        assertNull(ScanCache.getScanCache(context));
+
+        context.setAttribute(ScanCache.SCAN_CACHE, root.toString());
+        ScanCache scanCache = ScanCache.getScanCache(context);
+        assertNotNull(scanCache);
+        assertSame(scanCache, ScanCache.getScanCache(context));
+    }
+
+    @Test
+    public void testMetaInfFromScanCache() throws Exception
+    {
+        Path root = workDir.getEmptyPathDir();
+        Path jar = root.resolve("lib.jar");
+        try (JarOutputStream output = new JarOutputStream(Files.newOutputStream(jar)))
+        {
+            addEntry(output, "META-INF/resources/index.html");
+            addEntry(output, "META-INF/web-fragment.xml");
+            addEntry(output, "META-INF/tags/acme.tld");
+            addEntry(output, "org/acme/Foo.class");
+        }
+        Resource resource = Resource.newResource(jar);
+
+        WebAppContext first = newContext(root);
+        new MetaInfConfiguration().scanJars(first, Collections.singletonList(resource), false);
+        WebAppContext second = newContext(root);
+        new MetaInfConfiguration().scanJars(second, Collections.singletonList(resource), false);
+
+        ScanCache scanCache = ScanCache.getScanCache(second);
+        assertEquals(1, scanCache.getHits());
+        assertEquals(1, scanCache.getMisses());
+        assertThat(scanCache.getScanTimes(), hasKey("metainf " + resource));
+
+        for (WebAppContext context : new WebAppContext[]{first, second})
+        {
+            Set<Resource> resources = (Set<Resource>)context.getAttribute(MetaInfConfiguration.METAINF_RESOURCES);
+            assertEquals(1, resources.size());
+            assertEquals("jar:" + resource.getURI() + "!/META-INF/resources", resources.iterator().next().toString());
+            Map<Resource, Resource> fragments = (Map<Resource, Resource>)context.getAttribute(MetaInfConfiguration.METAINF_FRAGMENTS);
+            assertThat(fragments, hasKey(resource));
+            Collection<URL> tlds = (Collection<URL>)context.getAttribute(MetaInfConfiguration.METAINF_TLDS);
+            assertEquals(1, tlds.size());
+            assertEquals("jar:" + resource.getURI() + "!/META-INF/tags/acme.tld", tlds.iterator().next().toString());
+        }
+    }
+
+    private WebAppContext newContext(Path root)
+    {
+        WebAppContext context = new WebAppContext();
+        context.setAttribute(ScanCache.SCAN_CACHE, root.resolve("cache"));
+        return context;
+    }
+
+    private void addEntry(JarOutputStream output, String name) throws IOException
+    {
+        output.putNextEntry(new JarEntry(name));
+        output.write(name.getBytes(StandardCharsets.UTF_8));
+        output.closeEntry();
+    }
+}
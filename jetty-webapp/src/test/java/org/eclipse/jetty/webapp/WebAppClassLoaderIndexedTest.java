@@ -0,0 +1,94 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.webapp;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the {@link WebAppClassLoaderTest} tests with a {@link ClassPathIndex}.
+ */
+public class WebAppClassLoaderIndexedTest extends WebAppClassLoaderTest
+{
+    @BeforeEach
+    public void index()
+    {
+        _loader.setIndexed(true);
+    }
+
+    @Test
+    public void testProbesAvoided() throws Exception
+    {
+        assertThat(_loader.getClassPathIndex(), notNullValue());
+
+        // A class that is not in any jar is only probed in the WEB-INF/classes directory.
+        assertThat(_loader.findResource("com/example/Missing.class"), nullValue());
+        int locations = _loader.getURLs().length;
+        assertEquals(locations - 1, _loader.getAvoidedProbes());
+
+        // A class in the last jar of the classpath only probes that jar and the directories.
+        assertThat(_loader.findResource("org/acme/exttwo/Main.class"), notNullValue());
+        assertThat(_loader.getAvoidedProbes(), greaterThan((long)locations - 1));
+        assertEquals(2, _loader.getIndexedLookups());
+    }
+
+    @Test
+    public void testClassPathModified() throws Exception
+    {
+        ClassPathIndex index = _loader.getClassPathIndex();
+        assertThat(index, notNullValue());
+        _loader.addClassPath(MavenTestingUtils.getTestResourceDir("ext/sub").getAbsolutePath() + "/");
+        ClassPathIndex modified = _loader.getClassPathIndex();
+        assertThat(modified == index, is(false));
+        assertTrue(modified.isIndexOf(_loader.getURLs()));
+    }
+
+    @Test
+    public void testClassPathIndexFile() throws Exception
+    {
+        Path file = MavenTestingUtils.getTargetTestingPath(WebAppClassLoaderIndexedTest.class.getSimpleName()).resolve("classpath.idx");
+        Files.createDirectories(file.getParent());
+        Files.deleteIfExists(file);
+        assertTrue(_loader.writeClassPathIndex(file));
+
+        ClassPathIndex index = ClassPathIndex.read(file, _loader.getURLs());
+        assertThat(index, notNullValue());
+        assertEquals(_loader.getClassPathIndex().getPackageCount(), index.getPackageCount());
+        index.close();
+
+        // An index for a different classpath is not used.
+        _loader.addClassPath(MavenTestingUtils.getTestResourceDir("ext/sub").getAbsolutePath() + "/");
+        assertThat(ClassPathIndex.read(file, _loader.getURLs()), nullValue());
+
+        _loader.setClassPathIndexFile(file);
+        assertCanLoadClass("org.acme.webapp.ClassInJarA");
+    }
+}
@@ -50,6 +50,8 @@ import java.util.Properties;
 import java.util.Queue;
 import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 import org.eclipse.jetty.util.ArrayUtil;
 import org.eclipse.jetty.util.LazyList;
@@ -97,6 +99,8 @@ public class XmlConfiguration
     };
     private static final Iterable<ConfigurationProcessorFactory> __factoryLoader = ServiceLoader.load(ConfigurationProcessorFactory.class);
     private static final XmlParser __parser = initParser();
+    private static final Map<String, Parsed> __parsed = new ConcurrentHashMap<>();
+    private static volatile boolean __defaultUseParseCache = Boolean.getBoolean("org.eclipse.jetty.xml.XmlConfiguration.parseCache");
 
     private static XmlParser initParser()
     {
@@ -201,17 +205,63 @@ public class XmlConfiguration
      */
     public XmlConfiguration(Resource resource) throws SAXException, IOException
     {
+        Parsed parsed = __defaultUseParseCache ? getParsed(resource) : null;
+        if (parsed != null)
+        {
+            _location = resource;
+            setConfig(parsed._root);
+            _dtd = parsed._dtd;
+            return;
+        }
+
         synchronized (__parser)
         {
             _location = resource;
+            long lastModified = resource.lastModified();
+            long length = resource.length();
+            XmlParser.Node root;
             try (InputStream inputStream = resource.getInputStream())
             {
-                setConfig(__parser.parse(inputStream));
+                root = __parser.parse(inputStream);
             }
+            setConfig(root);
             _dtd = __parser.getDTD();
+            if (__defaultUseParseCache && lastModified > 0)
+                __parsed.put(resource.toString(), new Parsed(root, _dtd, lastModified, length));
         }
     }
 
+    /**
+     * <p>Sets whether parsed configurations are cached, so that configurations
+     * created again for an unmodified resource are applied without parsing XML.</p>
+     * <p>Cached configurations are reused while the last modified time and length
+     * of their resource do not change.</p>
+     *
+     * @param useParseCache true to cache parsed configurations, false otherwise.
+     */
+    public static void setDefaultUseParseCache(boolean useParseCache)
+    {
+        __defaultUseParseCache = useParseCache;
+        if (!useParseCache)
+            __parsed.clear();
+    }
+
+    public static boolean getDefaultUseParseCache()
+    {
+        return __defaultUseParseCache;
+    }
+
+    private static Parsed getParsed(Resource resource)
+    {
+        Parsed parsed = __parsed.get(resource.toString());
+        if (parsed == null)
+            return null;
+        if (parsed._lastModified == resource.lastModified() && parsed._length == resource.length())
+            return parsed;
+        __parsed.remove(resource.toString(), parsed);
+        return null;
+    }
+
     @Override
     public String toString()
     {
@@ -316,6 +366,172 @@ public class XmlConfiguration
     {
     }
 
+    /**
+     * <p>A parsed configuration, which is not modified when applied,
+     * so that it can be shared by the configurations of its resource.</p>
+     */
+    private static class Parsed
+    {
+        private final XmlParser.Node _root;
+        private final String _dtd;
+        private final long _lastModified;
+        private final long _length;
+
+        private Parsed(XmlParser.Node root, String dtd, long lastModified, long length)
+        {
+            _root = root;
+            _dtd = dtd;
+            _lastModified = lastModified;
+            _length = length;
+        }
+    }
+
+    /**
+     * <p>The public members of a class, as looked up by configurations.</p>
+     * <p>The lookups are cached, so that applying configurations does not copy and
+     * search all the public methods of a class for every element.
+     * Calls are also cached by the classes of their arguments: the method that accepted
+     * arguments of the same classes is invoked directly, since the candidates before it
+     * in a full search have already rejected those arguments.
+     * Argument classes from other class loaders are not cached, so that the classes
+     * of configured objects do not retain them.</p>
+     */
+    private static class Members
+    {
+        private static final Object NO_METHOD = new Object();
+        private static final ClassValue<Members> __members = new ClassValue<>()
+        {
+            @Override
+            protected Members computeValue(Class<?> type)
+            {
+                return new Members(type);
+            }
+        };
+
+        private final Map<String, Method[]> _methods = new ConcurrentHashMap<>();
+        private final Map<List<Object>, Object> _lookups = new ConcurrentHashMap<>();
+        private final Map<List<Object>, Method> _calls = new ConcurrentHashMap<>();
+        private final Class<?> _class;
+        private volatile Constructor<?>[] _constructors;
+
+        private Members(Class<?> type)
+        {
+            _class = type;
+        }
+
+        private static Members of(Class<?> type)
+        {
+            return __members.get(type);
+        }
+
+        /**
+         * @param name the method name
+         * @return the public methods with the given name, in the order of {@link Class#getMethods()}
+         */
+        private Method[] getMethods(String name)
+        {
+            Method[] methods = _methods.get(name);
+            if (methods == null)
+            {
+                methods = Arrays.stream(_class.getMethods())
+                    .filter(method -> method.getName().equals(name))
+                    .toArray(Method[]::new);
+                _methods.put(name, methods);
+            }
+            return methods;
+        }
+
+        /**
+         * @param name the method name
+         * @param types the parameter types
+         * @return the method as returned by {@link Class#getMethod(String, Class[])}
+         * @throws NoSuchMethodException if there is no such method
+         */
+        private Method getMethod(String name, Class<?>... types) throws NoSuchMethodException
+        {
+            if (!isCacheable(types))
+                return _class.getMethod(name, types);
+
+            List<Object> key = new ArrayList<>(types.length + 1);
+            key.add(name);
+            key.addAll(Arrays.asList(types));
+            Object method = _lookups.get(key);
+            if (method == null)
+            {
+                try
+                {
+                    method = _class.getMethod(name, types);
+                }
+                catch (NoSuchMethodException x)
+                {
+                    method = NO_METHOD;
+                }
+                _lookups.put(key, method);
+            }
+            if (method == NO_METHOD)
+                throw new NoSuchMethodException(_class.getName() + "." + name + Arrays.stream(types)
+                    .map(type -> type == null ? "null" : type.getName())
+                    .collect(Collectors.joining(",", "(", ")")));
+            return (Method)method;
+        }
+
+        /**
+         * @return the public constructors, as returned by {@link Class#getConstructors()}
+         */
+        private Constructor<?>[] getConstructors()
+        {
+            Constructor<?>[] constructors = _constructors;
+            if (constructors == null)
+                _constructors = constructors = _class.getConstructors();
+            return constructors;
+        }
+
+        /**
+         * @param name the method name
+         * @param varArgs whether the method was called with variable arguments
+         * @param args the arguments of the call
+         * @return the key of the call, or null if the call cannot be cached
+         */
+        private List<Object> callKey(String name, boolean varArgs, Object[] args)
+        {
+            List<Object> key = new ArrayList<>(args.length + 2);
+            key.add(name);
+            key.add(varArgs);
+            for (Object arg : args)
+            {
+                Class<?> type = arg == null ? null : arg.getClass();
+                if (!isCacheable(type))
+                    return null;
+                key.add(type);
+            }
+            return key;
+        }
+
+        private Method getCall(List<Object> key)
+        {
+            return key == null ? null : _calls.get(key);
+        }
+
+        private void putCall(List<Object> key, Method method)
+        {
+            if (key != null)
+                _calls.put(key, method);
+        }
+
+        private boolean isCacheable(Class<?>... types)
+        {
+            for (Class<?> type : types)
+            {
+                if (type == null)
+                    continue;
+                ClassLoader loader = type.getClassLoader();
+                if (loader != null && loader != _class.getClassLoader())
+                    return false;
+            }
+            return true;
+        }
+    }
+
     private static class JettyXmlConfiguration implements ConfigurationProcessor
     {
         XmlParser.Node _root;
@@ -549,7 +765,7 @@ public class XmlConfiguration
                 // Try for trivial match
                 try
                 {
-                    Method set = oClass.getMethod(name, vClass);
+                    Method set = Members.of(oClass).getMethod(name, vClass);
                     invokeMethod(set, obj, arg);
                     return;
                 }
@@ -564,7 +780,7 @@ public class XmlConfiguration
                 {
                     Field type = vClass[0].getField("TYPE");
                     vClass[0] = (Class<?>)type.get(null);
-                    Method set = oClass.getMethod(name, vClass);
+                    Method set = Members.of(oClass).getMethod(name, vClass);
                     invokeMethod(set, obj, arg);
                     return;
                 }
@@ -612,7 +828,7 @@ public class XmlConfiguration
                 }
 
                 // Search for a match by trying all the set methods
-                Method[] sets = oClass.getMethods();
+                Method[] sets = Members.of(oClass).getMethods(name);
                 Method set = null;
                 for (Method setter : sets)
                 {
@@ -822,7 +1038,7 @@ public class XmlConfiguration
                 else
                 {
                     // Try calling a getXxx method.
-                    Method method = oClass.getMethod("get" + name.substring(0, 1).toUpperCase(Locale.ENGLISH) + name.substring(1));
+                    Method method = Members.of(oClass).getMethod("get" + name.substring(0, 1).toUpperCase(Locale.ENGLISH) + name.substring(1));
                     obj = invokeMethod(method, obj);
                 }
                 if (id != null)
@@ -903,11 +1119,27 @@ public class XmlConfiguration
             if (StringUtil.isBlank(methodName))
                 throw new IllegalArgumentException("Method name cannot be blank");
 
+            Members members = Members.of(oClass);
+            Method[] methods = members.getMethods(methodName);
+
+            // Try the method that accepted arguments of the same classes
+            List<Object> key = members.callKey(methodName, false, arg);
+            Method resolved = members.getCall(key);
+            if (resolved != null && Modifier.isStatic(resolved.getModifiers()) == (obj == null))
+            {
+                try
+                {
+                    return invokeMethod(resolved, obj, arg);
+                }
+                catch (IllegalAccessException | IllegalArgumentException e)
+                {
+                    LOG.ignore(e);
+                }
+            }
+
             // Lets just try all methods for now
-            for (Method method : oClass.getMethods())
+            for (Method method : methods)
             {
-                if (!method.getName().equals(methodName))
-                    continue;
                 if (method.getParameterCount() != arg.length)
                     continue;
                 if (Modifier.isStatic(method.getModifiers()) != (obj == null))
@@ -917,7 +1149,9 @@ public class XmlConfiguration
 
                 try
                 {
-                    return invokeMethod(method, obj, arg);
+                    Object result = invokeMethod(method, obj, arg);
+                    members.putCall(key, method);
+                    return result;
                 }
                 catch (IllegalAccessException | IllegalArgumentException e)
                 {
@@ -927,10 +1161,23 @@ public class XmlConfiguration
 
             // Lets look for a method with varargs arguments
             Object[] argsWithVarargs = null;
-            for (Method method : oClass.getMethods())
+            key = members.callKey(methodName, true, arg);
+            resolved = members.getCall(key);
+            if (resolved != null && Modifier.isStatic(resolved.getModifiers()) == (obj == null))
+            {
+                argsWithVarargs = ArrayUtil.addToArray(arg, new Object[0], Object.class);
+                try
+                {
+                    return invokeMethod(resolved, obj, argsWithVarargs);
+                }
+                catch (IllegalAccessException | IllegalArgumentException e)
+                {
+                    LOG.ignore(e);
+                }
+            }
+
+            for (Method method : methods)
             {
-                if (!method.getName().equals(methodName))
-                    continue;
                 if (method.getParameterCount() != arg.length + 1)
                     continue;
                 if (!method.getParameterTypes()[arg.length].isArray())
@@ -944,7 +1191,9 @@ public class XmlConfiguration
                     argsWithVarargs = ArrayUtil.addToArray(arg, new Object[0], Object.class);
                 try
                 {
-                    return invokeMethod(method, obj, argsWithVarargs);
+                    Object result = invokeMethod(method, obj, argsWithVarargs);
+                    members.putCall(key, method);
+                    return result;
                 }
                 catch (IllegalAccessException | IllegalArgumentException e)
                 {
@@ -1013,7 +1262,7 @@ public class XmlConfiguration
             Objects.requireNonNull(klass, "Class cannot be null");
             Objects.requireNonNull(namedArgMap, "Named Argument Map cannot be null");
 
-            for (Constructor<?> constructor : klass.getConstructors())
+            for (Constructor<?> constructor : Members.of(klass).getConstructors())
             {
                 if (arguments == null)
                 {
@@ -1694,7 +1943,7 @@ public class XmlConfiguration
                     for (String a : StringUtil.csvSplit(null, attr, 0, attr.length()))
                     {
                         // create a fake node
-                        XmlParser.Node n = new XmlParser.Node(null, elementName, null);
+                        XmlParser.Node n = new XmlParser.Node(null, elementName, (XmlParser.Attribute[])null);
                         n.add(a);
                         values.add(n);
                     }
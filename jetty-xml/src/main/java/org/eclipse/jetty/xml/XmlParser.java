@@ -320,7 +320,7 @@ public class XmlParser
 
     private class Handler extends DefaultHandler
     {
-        Node _top = new Node(null, null, null);
+        Node _top = new Node(null, null, (Attributes)null);
         SAXParseException _error;
         private Node _context = _top;
         private NoopHandler _noop;
@@ -468,7 +468,7 @@ public class XmlParser
         private String _name;
         private String _value;
 
-        Attribute(String n, String v)
+        public Attribute(String n, String v)
         {
             _name = n;
             _value = v;
@@ -497,6 +497,22 @@ public class XmlParser
         private boolean _lastString = false;
         private String _path;
 
+        /**
+         * Creates a node that is not the result of parsing, for example
+         * when reading a tree of nodes previously saved in another format.
+         * The node must be added to its parent.
+         *
+         * @param parent the parent node, or null for a root node
+         * @param tag the tag of the element
+         * @param attrs the attributes of the element, or null
+         */
+        public Node(Node parent, String tag, Attribute[] attrs)
+        {
+            _parent = parent;
+            _tag = tag;
+            _attrs = attrs;
+        }
+
         Node(Node parent, String tag, Attributes attrs)
         {
             _parent = parent;
@@ -248,6 +248,60 @@ public class XmlConfigurationTest
         }
     }
 
+    @Test
+    public void testCallResolvedByArgumentClasses() throws Exception
+    {
+        // The same call shapes are resolved again from the cache, and must select the same overloads.
+        for (int i = 0; i < 2; ++i)
+        {
+            XmlConfiguration configuration = asXmlConfiguration("<Configure class=\"org.eclipse.jetty.xml.TestConfiguration\">" +
+                "<Call name=\"call\"><Arg>" + INT_ARRAY_XML + "</Arg></Call>" +
+                "<Call name=\"call\"><Arg>" + STRING_ARRAY_XML + "</Arg></Call>" +
+                "<Call name=\"call\"/>" +
+                "</Configure>");
+            TestConfiguration tc = new TestConfiguration();
+            configuration.configure(tc);
+            assertThat(tc.ia, is(new int[]{1, 2}));
+            assertThat(tc.oa, is(new Object[]{"String1", "String2"}));
+            assertEquals("Yes", tc.get("Called"));
+        }
+
+        XmlConfiguration configuration = asXmlConfiguration("<Configure class=\"org.eclipse.jetty.xml.TestConfiguration\">" +
+            "<Call name=\"call\"><Arg>" + STRING_ARRAY_XML + "</Arg><Arg>extra</Arg></Call>" +
+            "</Configure>");
+        IllegalStateException x = assertThrows(IllegalStateException.class, () -> configuration.configure(new TestConfiguration()));
+        assertThat(x.getMessage(), startsWith("No Method"));
+    }
+
+    @Test
+    public void testParseCache() throws Exception
+    {
+        Path testFile = workDir.getEmptyPathDir().resolve("cached.xml");
+        Files.write(testFile, "<Configure class=\"org.eclipse.jetty.xml.TestConfiguration\"><Set name=\"TestString\">one</Set></Configure>".getBytes(UTF_8));
+
+        assertFalse(XmlConfiguration.getDefaultUseParseCache());
+        XmlConfiguration.setDefaultUseParseCache(true);
+        try
+        {
+            for (int i = 0; i < 2; ++i)
+            {
+                TestConfiguration tc = new TestConfiguration();
+                new XmlConfiguration(new PathResource(testFile)).configure(tc);
+                assertEquals("one", tc.testString);
+            }
+
+            // A modified resource is parsed again.
+            Files.write(testFile, "<Configure class=\"org.eclipse.jetty.xml.TestConfiguration\"><Set name=\"TestString\">three</Set></Configure>".getBytes(UTF_8));
+            TestConfiguration tc = new TestConfiguration();
+            new XmlConfiguration(new PathResource(testFile)).configure(tc);
+            assertEquals("three", tc.testString);
+        }
+        finally
+        {
+            XmlConfiguration.setDefaultUseParseCache(false);
+        }
+    }
+
     public XmlConfiguration asXmlConfiguration(String rawXml) throws IOException, SAXException
     {
         Path testFile = workDir.getEmptyPathDir().resolve("raw.xml");
@@ -0,0 +1,184 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.annotations.jmh;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.eclipse.jetty.annotations.AnnotationParser;
+import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.resource.Resource;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Measures the time to scan a synthetic webapp made of a single large jar
+ * or a single large {@code WEB-INF/classes} directory, with thousands of
+ * classes, with the {@link AnnotationParser} running in a pool of the given
+ * parallelism. A parallelism of 1 is the sequential scan.</p>
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+public class AnnotationScanBenchmark
+{
+    @Param({"JAR", "DIR"})
+    String layout;
+
+    @Param({"5000"})
+    int classes;
+
+    @Param({"1", "4", "0"})
+    int parallelism;
+
+    Path root;
+    Resource resource;
+    ForkJoinPool pool;
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        root = Files.createTempDirectory("annotation-scan-");
+        File classesDir = new File(root.toFile(), "classes");
+        for (int i = 0; i < classes; ++i)
+        {
+            File file = new File(classesDir, className(i) + ".class");
+            Files.createDirectories(file.getParentFile().toPath());
+            Files.write(file.toPath(), generateClass(i));
+        }
+
+        if ("JAR".equals(layout))
+        {
+            File jar = new File(root.toFile(), "synthetic.jar");
+            try (JarOutputStream output = new JarOutputStream(new FileOutputStream(jar)))
+            {
+                for (int i = 0; i < classes; ++i)
+                {
+                    output.putNextEntry(new JarEntry(className(i) + ".class"));
+                    output.write(generateClass(i));
+                    output.closeEntry();
+                }
+            }
+            resource = Resource.newResource(jar);
+        }
+        else
+        {
+            resource = Resource.newResource(classesDir);
+        }
+
+        pool = new ForkJoinPool(parallelism == 0 ? Runtime.getRuntime().availableProcessors() : parallelism);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        pool.shutdown();
+        IO.delete(root.toFile());
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.AverageTime})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int testScan() throws Exception
+    {
+        Set<String> found = ConcurrentHashMap.newKeySet();
+        AnnotationParser parser = new AnnotationParser();
+        AnnotationParser.Handler handler = new AnnotationParser.AbstractHandler()
+        {
+            @Override
+            public void handle(AnnotationParser.ClassInfo info, String annotationName)
+            {
+                found.add(info.getClassName());
+            }
+        };
+        pool.submit(() ->
+        {
+            parser.parse(Collections.singleton(handler), resource);
+            return null;
+        }).get();
+        if (found.size() != classes)
+            throw new IllegalStateException("Found " + found.size() + " annotated classes, expected " + classes);
+        return found.size();
+    }
+
+    private static String className(int i)
+    {
+        return String.format("com/acme/p%02d/Synthetic%05d", i % 64, i);
+    }
+
+    private static byte[] generateClass(int i)
+    {
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, className(i), null, "java/lang/Object", new String[]{"java/io/Serializable"});
+        AnnotationVisitor annotation = writer.visitAnnotation("Ljavax/servlet/annotation/WebServlet;", true);
+        annotation.visit("name", "servlet" + i);
+        annotation.visitEnd();
+        for (int f = 0; f < 8; ++f)
+        {
+            writer.visitField(Opcodes.ACC_PRIVATE, "field" + f, "Ljava/lang/String;", null, null).visitEnd();
+        }
+        for (int m = 0; m < 16; ++m)
+        {
+            MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC, "method" + m, "()Ljava/lang/String;", null, null);
+            method.visitCode();
+            method.visitLdcInsn("value" + m);
+            method.visitInsn(Opcodes.ARETURN);
+            method.visitMaxs(1, 1);
+            method.visitEnd();
+        }
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(AnnotationScanBenchmark.class.getSimpleName())
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,130 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.client.jmh;
+
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.util.statistic.HistogramStatistic;
+import org.eclipse.jetty.util.statistic.SampleStatistic;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Measures the overhead of {@link org.eclipse.jetty.client.DestinationMetrics}
+ * on requests to a local server, and the cost of recording a histogram sample.</p>
+ */
+@State(Scope.Benchmark)
+@Threads(4)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class DestinationMetricsBenchmark
+{
+    @Param({"false", "true"})
+    boolean metrics;
+
+    Server server;
+    ServerConnector connector;
+    HttpClient client;
+    final HistogramStatistic histogram = new HistogramStatistic();
+    final SampleStatistic sample = new SampleStatistic();
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        server = new Server();
+        connector = new ServerConnector(server);
+        server.addConnector(connector);
+        server.setHandler(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request jettyRequest, HttpServletRequest request, HttpServletResponse response)
+            {
+                jettyRequest.setHandled(true);
+            }
+        });
+        server.start();
+
+        client = new HttpClient();
+        client.setDestinationMetricsEnabled(metrics);
+        client.start();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception
+    {
+        client.stop();
+        server.stop();
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public ContentResponse testRequest() throws Exception
+    {
+        return client.newRequest("localhost", connector.getLocalPort())
+            .timeout(5, TimeUnit.SECONDS)
+            .send();
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public void testHistogramRecord()
+    {
+        histogram.record(System.nanoTime() & 0xFFFFF);
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public void testSampleRecord()
+    {
+        sample.record(System.nanoTime() & 0xFFFFF);
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(DestinationMetricsBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,144 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpGenerator;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http.PreEncodedHttpFields;
+import org.eclipse.jetty.http2.hpack.HpackEncoder;
+import org.eclipse.jetty.util.BufferUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Measures the encoding of the response headers of a typical endpoint, that adds
+ * the same content, cache and security headers to every response, either one field
+ * at a time or with a {@link PreEncodedHttpFields} template, for HTTP/1.1 and for
+ * HTTP/2 with an HPACK encoder that lives as long as its connection.</p>
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class HeaderTemplateBenchmark
+{
+    private static final String[][] HEADERS = {
+        {"Content-Type", "application/json"},
+        {"Cache-Control", "no-cache, no-store, must-revalidate"},
+        {"Vary", "Accept-Encoding, Origin"},
+        {"Access-Control-Allow-Origin", "https://www.example.com"},
+        {"Access-Control-Allow-Credentials", "true"},
+        {"Strict-Transport-Security", "max-age=31536000; includeSubDomains"},
+        {"X-Frame-Options", "DENY"},
+        {"X-Content-Type-Options", "nosniff"},
+        {"Referrer-Policy", "strict-origin-when-cross-origin"},
+        {"Content-Security-Policy", "default-src 'self'; img-src 'self' data:; frame-ancestors 'none'"}
+    };
+    private static final PreEncodedHttpFields TEMPLATE;
+
+    static
+    {
+        HttpField[] fields = new HttpField[HEADERS.length];
+        for (int i = 0; i < HEADERS.length; i++)
+        {
+            fields[i] = new HttpField(HEADERS[i][0], HEADERS[i][1]);
+        }
+        TEMPLATE = new PreEncodedHttpFields(fields);
+    }
+
+    @Param({"HTTP/1.1", "HTTP/2.0"})
+    String version;
+
+    @Param({"fields", "template"})
+    String mode;
+
+    private final HttpFields fields = new HttpFields();
+    private final ByteBuffer buffer = BufferUtil.allocate(4096);
+    private final ByteBuffer content = BufferUtil.toBuffer("{\"ok\":true}");
+    private HttpGenerator generator;
+    private HpackEncoder encoder;
+
+    @Setup
+    public void setUp()
+    {
+        generator = new HttpGenerator();
+        encoder = new HpackEncoder();
+    }
+
+    @Benchmark
+    public int encode() throws Exception
+    {
+        fields.clear();
+        if ("template".equals(mode))
+        {
+            fields.add(TEMPLATE);
+        }
+        else
+        {
+            for (String[] header : HEADERS)
+            {
+                fields.add(header[0], header[1]);
+            }
+        }
+
+        if (HttpVersion.HTTP_2.asString().equals(version))
+        {
+            BufferUtil.clearToFill(buffer);
+            encoder.encode(buffer, new MetaData.Response(HttpVersion.HTTP_2, 200, fields));
+            return buffer.position();
+        }
+        else
+        {
+            BufferUtil.clear(buffer);
+            generator.reset();
+            content.position(0);
+            MetaData.Response response = new MetaData.Response(HttpVersion.HTTP_1_1, 200, null, fields, content.remaining());
+            generator.generateResponse(response, false, buffer, null, content, true);
+            return buffer.remaining();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(HeaderTemplateBenchmark.class.getSimpleName())
+            .warmupIterations(5)
+            .measurementIterations(5)
+            .forks(1)
+            .threads(1)
+            .addProfiler("gc")
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,175 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http.jmh;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpParser;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.SharedHttpFieldCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Measures the parsing of the requests of a whole connection, from a new parser,
+ * with and without a {@link SharedHttpFieldCache} learnt from previous connections.</p>
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class HttpFieldCacheBenchmark
+{
+    private static final String REQUEST =
+        "GET /index.html HTTP/1.1\r\n" +
+            "Host: www.example.com\r\n" +
+            "Connection: keep-alive\r\n" +
+            "User-Agent: Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/80.0.3987.149 Safari/537.36\r\n" +
+            "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,image/avif,image/webp,*/*;q=0.8\r\n" +
+            "Accept-Encoding: gzip, deflate, br\r\n" +
+            "Accept-Language: en-US,en;q=0.9,fr;q=0.8\r\n" +
+            "Cookie: JSESSIONID=node01abcdefghijkl0123456789.node0\r\n" +
+            "\r\n";
+
+    @Param({"1", "8"})
+    int requestsPerConnection;
+
+    @Param({"true", "false"})
+    boolean shared;
+
+    private ByteBuffer buffer;
+    private Handler handler;
+    private SharedHttpFieldCache sharedFieldCache;
+
+    @Setup
+    public void setUp()
+    {
+        buffer = ByteBuffer.wrap(REQUEST.getBytes(StandardCharsets.ISO_8859_1));
+        handler = new Handler();
+        if (shared)
+        {
+            sharedFieldCache = new SharedHttpFieldCache(2048);
+            handler.blackhole = new Blackhole("Today's password is swordfish. I understand instantiating Blackholes directly is dangerous.");
+            for (int i = 0; i < 2; i++)
+            {
+                parse(newHttpParser(), 1);
+            }
+            sharedFieldCache.rebuild();
+        }
+    }
+
+    private HttpParser newHttpParser()
+    {
+        HttpParser parser = new HttpParser(handler);
+        parser.setSharedFieldCache(sharedFieldCache);
+        return parser;
+    }
+
+    private void parse(HttpParser parser, int requests)
+    {
+        for (int i = 0; i < requests; i++)
+        {
+            buffer.position(0);
+            parser.reset();
+            while (buffer.hasRemaining() && !parser.isComplete())
+            {
+                parser.parseNext(buffer);
+            }
+        }
+    }
+
+    @Benchmark
+    public void connection(Blackhole blackhole)
+    {
+        handler.blackhole = blackhole;
+        parse(newHttpParser(), requestsPerConnection);
+    }
+
+    private static class Handler implements HttpParser.RequestHandler
+    {
+        private Blackhole blackhole;
+
+        @Override
+        public void startRequest(String method, String uri, HttpVersion version)
+        {
+            blackhole.consume(uri);
+        }
+
+        @Override
+        public void parsedHeader(HttpField field)
+        {
+            blackhole.consume(field);
+        }
+
+        @Override
+        public boolean headerComplete()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean content(ByteBuffer item)
+        {
+            return false;
+        }
+
+        @Override
+        public boolean contentComplete()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean messageComplete()
+        {
+            return true;
+        }
+
+        @Override
+        public void earlyEOF()
+        {
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(HttpFieldCacheBenchmark.class.getSimpleName())
+            .warmupIterations(5)
+            .measurementIterations(5)
+            .forks(1)
+            .threads(1)
+            .addProfiler("gc")
+            .build();
+
+        new Runner(opt).run();
+    }
+}
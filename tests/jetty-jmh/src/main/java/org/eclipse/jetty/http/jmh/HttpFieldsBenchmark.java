@@ -0,0 +1,175 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Measures the header lookups that the server performs on a typical request,
+ * through the index of known headers and through a scan of the field names,
+ * and the building of a response from a pre-built set of headers.</p>
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class HttpFieldsBenchmark
+{
+    private static final HttpField[] REQUEST = {
+        new HttpField(HttpHeader.HOST, "www.example.com"),
+        new HttpField(HttpHeader.CONNECTION, "keep-alive"),
+        new HttpField(HttpHeader.CACHE_CONTROL, "max-age=0"),
+        new HttpField("Upgrade-Insecure-Requests", "1"),
+        new HttpField(HttpHeader.USER_AGENT, "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/80.0.3987.149 Safari/537.36"),
+        new HttpField(HttpHeader.ACCEPT, "text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,*/*;q=0.8"),
+        new HttpField("Sec-Fetch-Site", "none"),
+        new HttpField("Sec-Fetch-Mode", "navigate"),
+        new HttpField("Sec-Fetch-User", "?1"),
+        new HttpField("Sec-Fetch-Dest", "document"),
+        new HttpField(HttpHeader.ACCEPT_ENCODING, "gzip, deflate, br"),
+        new HttpField(HttpHeader.ACCEPT_LANGUAGE, "en-US,en;q=0.9"),
+        new HttpField(HttpHeader.COOKIE, "JSESSIONID=node01abcdefghijkl0123456789.node0; _ga=GA1.2.123456789.1234567890"),
+        new HttpField(HttpHeader.IF_NONE_MATCH, "W/\"1234-5678\""),
+        new HttpField(HttpHeader.IF_MODIFIED_SINCE, "Tue, 14 Apr 2020 10:00:00 GMT"),
+        new HttpField(HttpHeader.REFERER, "https://www.example.com/index.html"),
+        new HttpField(HttpHeader.X_FORWARDED_FOR, "10.0.0.1"),
+        new HttpField(HttpHeader.X_FORWARDED_PROTO, "https"),
+        new HttpField("X-Request-Id", "f058ebd6-02f7-4d3f-942e-904344e8cde5"),
+        new HttpField("X-Custom-0", "value0"),
+        new HttpField("X-Custom-1", "value1"),
+        new HttpField("X-Custom-2", "value2"),
+        new HttpField("X-Custom-3", "value3"),
+        new HttpField("X-Custom-4", "value4"),
+        new HttpField("X-Custom-5", "value5"),
+        new HttpField("X-Custom-6", "value6"),
+        new HttpField("X-Custom-7", "value7"),
+        new HttpField("X-Custom-8", "value8"),
+        new HttpField("X-Custom-9", "value9"),
+        new HttpField("X-Custom-10", "value10"),
+        new HttpField("X-Custom-11", "value11"),
+        new HttpField("X-Custom-12", "value12"),
+        new HttpField("X-Custom-13", "value13"),
+        new HttpField("X-Custom-14", "value14"),
+        new HttpField("X-Custom-15", "value15"),
+        new HttpField("X-Custom-16", "value16"),
+        new HttpField("X-Custom-17", "value17"),
+        new HttpField("X-Custom-18", "value18"),
+        new HttpField("X-Custom-19", "value19"),
+        new HttpField("X-Custom-20", "value20")
+    };
+
+    // The headers looked up while handling a request, most of them absent.
+    private static final HttpHeader[] LOOKUPS = {
+        HttpHeader.HOST, HttpHeader.CONNECTION, HttpHeader.EXPECT, HttpHeader.CONTENT_LENGTH,
+        HttpHeader.TRANSFER_ENCODING, HttpHeader.CONTENT_TYPE, HttpHeader.CONTENT_ENCODING,
+        HttpHeader.FORWARDED, HttpHeader.X_FORWARDED_HOST, HttpHeader.X_FORWARDED_FOR,
+        HttpHeader.X_FORWARDED_PROTO, HttpHeader.X_FORWARDED_PORT, HttpHeader.COOKIE,
+        HttpHeader.ACCEPT_ENCODING, HttpHeader.IF_MODIFIED_SINCE, HttpHeader.IF_NONE_MATCH,
+        HttpHeader.IF_MATCH, HttpHeader.IF_UNMODIFIED_SINCE, HttpHeader.RANGE, HttpHeader.AUTHORIZATION
+    };
+
+    @Param({"15", "40"})
+    private int size;
+
+    private HttpFields request;
+    private HttpFields responseTemplate;
+
+    @Setup
+    public void setUp()
+    {
+        request = new HttpFields();
+        for (int i = 0; i < size; ++i)
+        {
+            request.add(REQUEST[i]);
+        }
+
+        HttpFields template = new HttpFields();
+        template.put(HttpHeader.SERVER, "Jetty(10.0.0)");
+        template.put(HttpHeader.CACHE_CONTROL, "no-cache, no-store");
+        template.put("X-Content-Type-Options", "nosniff");
+        template.put("X-Frame-Options", "DENY");
+        template.put(HttpHeader.STRICT_TRANSPORT_SECURITY, "max-age=31536000");
+        responseTemplate = template.asImmutable();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void testLookupByHeader(Blackhole blackhole)
+    {
+        for (HttpHeader header : LOOKUPS)
+        {
+            blackhole.consume(request.get(header));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void testLookupByName(Blackhole blackhole)
+    {
+        for (HttpHeader header : LOOKUPS)
+        {
+            blackhole.consume(request.get(header.asString()));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object testBuildResponse()
+    {
+        HttpFields response = new HttpFields();
+        response.addAll(responseTemplate);
+        response.put(HttpHeader.CONTENT_TYPE, "text/html;charset=utf-8");
+        response.putLongField(HttpHeader.CONTENT_LENGTH, 1024);
+        response.put(HttpHeader.CACHE_CONTROL, "max-age=60");
+        response.put(HttpHeader.DATE, "Tue, 14 Apr 2020 10:00:00 GMT");
+        return response;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(HttpFieldsBenchmark.class.getSimpleName())
+            .addProfiler("gc")
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,173 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http.jmh;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpParser;
+import org.eclipse.jetty.http.HttpVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Measures the parsing of requests on a persistent connection, with the field
+ * names and values scanned in bulk or one byte at a time.</p>
+ * <p>The browser request has mostly well known fields, that the parser caches;
+ * the API request has mostly fields with unknown names or changing values.</p>
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class HttpParserBenchmark
+{
+    private static final String BROWSER =
+        "GET /index.html HTTP/1.1\r\n" +
+            "Host: www.example.com\r\n" +
+            "Connection: keep-alive\r\n" +
+            "Cache-Control: max-age=0\r\n" +
+            "Upgrade-Insecure-Requests: 1\r\n" +
+            "User-Agent: Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/80.0.3987.149 Safari/537.36\r\n" +
+            "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,image/apng,*/*;q=0.8\r\n" +
+            "Sec-Fetch-Site: same-origin\r\n" +
+            "Sec-Fetch-Mode: navigate\r\n" +
+            "Sec-Fetch-Dest: document\r\n" +
+            "Referer: https://www.example.com/\r\n" +
+            "Accept-Encoding: gzip, deflate, br\r\n" +
+            "Accept-Language: en-US,en;q=0.9\r\n" +
+            "Cookie: JSESSIONID=node01abcdefghijkl0123456789.node0; _ga=GA1.2.123456789.1234567890\r\n" +
+            "\r\n";
+    private static final String API =
+        "POST /api/v1/orders/12345/items HTTP/1.1\r\n" +
+            "Host: api.example.com\r\n" +
+            "Content-Type: application/json\r\n" +
+            "Content-Length: 0\r\n" +
+            "X-Request-Id: 7d6f1c2e-93b4-4c55-8a8e-3f0b7e9d1a42\r\n" +
+            "X-Correlation-Id: 1f2e3d4c-5b6a-7980-a1b2-c3d4e5f60718\r\n" +
+            "Traceparent: 00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01\r\n" +
+            "X-Forwarded-For: 203.0.113.195, 70.41.3.18, 150.172.238.178\r\n" +
+            "X-Forwarded-Proto: https\r\n" +
+            "X-Api-Client: example-mobile-app/4.12.0 (Android 10; Pixel 3 Build/QQ3A.200605.001)\r\n" +
+            "If-None-Match: \"33a64df551425fcc55e4d42a148795d9f25f89d4\"\r\n" +
+            "\r\n";
+
+    @Param({"browser", "api"})
+    String request;
+
+    @Param({"true", "false"})
+    boolean wordScanning;
+
+    private ByteBuffer buffer;
+    private HttpParser parser;
+    private Handler handler;
+
+    @Setup
+    public void setUp()
+    {
+        byte[] bytes = ("browser".equals(request) ? BROWSER : API).getBytes(StandardCharsets.ISO_8859_1);
+        buffer = ByteBuffer.wrap(bytes);
+        handler = new Handler();
+        parser = new HttpParser(handler);
+        parser.setWordScanning(wordScanning);
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole)
+    {
+        handler.blackhole = blackhole;
+        buffer.position(0);
+        parser.reset();
+        while (buffer.hasRemaining() && !parser.isComplete())
+        {
+            parser.parseNext(buffer);
+        }
+    }
+
+    private static class Handler implements HttpParser.RequestHandler
+    {
+        private Blackhole blackhole;
+
+        @Override
+        public void startRequest(String method, String uri, HttpVersion version)
+        {
+            blackhole.consume(uri);
+        }
+
+        @Override
+        public void parsedHeader(HttpField field)
+        {
+            blackhole.consume(field);
+        }
+
+        @Override
+        public boolean headerComplete()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean content(ByteBuffer item)
+        {
+            return false;
+        }
+
+        @Override
+        public boolean contentComplete()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean messageComplete()
+        {
+            return true;
+        }
+
+        @Override
+        public void earlyEOF()
+        {
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(HttpParserBenchmark.class.getSimpleName())
+            .warmupIterations(5)
+            .measurementIterations(5)
+            .forks(1)
+            .threads(1)
+            .addProfiler("gc")
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,128 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.quickstart.jmh;
+
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.quickstart.QuickStartBinaryDescriptor;
+import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.resource.Resource;
+import org.eclipse.jetty.webapp.WebDescriptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Compares the time to obtain the descriptor of a large quickstart-web.xml
+ * by parsing the xml and by reading its {@link QuickStartBinaryDescriptor binary form}.</p>
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class QuickStartBinaryBenchmark
+{
+    @Param({"100", "2000"})
+    int servlets;
+
+    Path dir;
+    Resource xml;
+    Path binary;
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        dir = Files.createTempDirectory("quickstart-jmh");
+        Path file = dir.resolve("quickstart-web.xml");
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8))
+        {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            writer.write("<web-app xmlns=\"http://xmlns.jcp.org/xml/ns/javaee\" version=\"3.1\" metadata-complete=\"true\">\n");
+            for (int i = 0; i < servlets; ++i)
+            {
+                writer.write("  <context-param><param-name>org.eclipse.jetty.originAttribute</param-name><param-value>origin</param-value></context-param>\n");
+                writer.write("  <filter><filter-name>filter" + i + "</filter-name><filter-class>org.example.Filter" + i + "</filter-class>" +
+                    "<async-supported>true</async-supported></filter>\n");
+                writer.write("  <filter-mapping><filter-name>filter" + i + "</filter-name><url-pattern>/filter/" + i + "/*</url-pattern>" +
+                    "<dispatcher>REQUEST</dispatcher></filter-mapping>\n");
+                writer.write("  <servlet origin=\"@WebServlet(org.example.Servlet" + i + ")\"><servlet-name>servlet" + i + "</servlet-name>" +
+                    "<servlet-class>org.example.Servlet" + i + "</servlet-class>" +
+                    "<init-param><param-name>index</param-name><param-value>" + i + "</param-value></init-param>" +
+                    "<load-on-startup>-1</load-on-startup><async-supported>false</async-supported></servlet>\n");
+                writer.write("  <servlet-mapping><servlet-name>servlet" + i + "</servlet-name><url-pattern>/servlet/" + i + "</url-pattern></servlet-mapping>\n");
+            }
+            writer.write("</web-app>\n");
+        }
+        xml = Resource.newResource(file);
+        binary = QuickStartBinaryDescriptor.getBinaryFile(xml);
+        QuickStartBinaryDescriptor.write(xml, binary);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        IO.delete(dir.toFile());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public WebDescriptor testParseXml() throws Exception
+    {
+        WebDescriptor descriptor = new WebDescriptor(xml);
+        descriptor.setValidating(false);
+        descriptor.parse();
+        return descriptor;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public WebDescriptor testReadBinary() throws Exception
+    {
+        WebDescriptor descriptor = QuickStartBinaryDescriptor.read(binary, xml);
+        descriptor.parse();
+        return descriptor;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(QuickStartBinaryBenchmark.class.getSimpleName())
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
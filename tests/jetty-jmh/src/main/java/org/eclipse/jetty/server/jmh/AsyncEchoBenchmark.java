@@ -0,0 +1,128 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server.jmh;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.HttpInputPublisher;
+import org.eclipse.jetty.server.HttpOutputSubscriber;
+import org.eclipse.jetty.server.LocalConnector;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Callback;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Measures the throughput of an async echo, where every chunk of request content
+ * and every completed write is an IO callback that moves the
+ * {@link org.eclipse.jetty.server.HttpChannelState} between WAITING, WOKEN and HANDLING.</p>
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class AsyncEchoBenchmark
+{
+    @Param({"1024", "65536"})
+    int size;
+
+    private Server server;
+    private LocalConnector connector;
+    private ByteBuffer request;
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        server = new Server();
+        connector = new LocalConnector(server);
+        server.addConnector(connector);
+        server.setHandler(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response)
+            {
+                baseRequest.setHandled(true);
+                response.setContentLength(request.getContentLength());
+                AsyncContext async = request.startAsync();
+                HttpOutputSubscriber subscriber = new HttpOutputSubscriber(baseRequest.getResponse().getHttpOutput(),
+                    Callback.from(async::complete, x -> async.complete()));
+                new HttpInputPublisher(baseRequest.getHttpInput()).subscribe(subscriber);
+            }
+        });
+        server.start();
+
+        byte[] head = ("POST /echo HTTP/1.1\r\n" +
+            "Host: localhost\r\n" +
+            "Content-Length: " + size + "\r\n" +
+            "\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        request = ByteBuffer.allocate(head.length + size);
+        request.put(head);
+        while (request.hasRemaining())
+        {
+            request.put((byte)('A' + request.position() % 26));
+        }
+        request.flip();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception
+    {
+        server.stop();
+    }
+
+    @Benchmark
+    public ByteBuffer echo() throws Exception
+    {
+        ByteBuffer response = connector.getResponse(request.slice(), 5, TimeUnit.SECONDS);
+        if (BufferUtil.isEmpty(response))
+            throw new IllegalStateException("no response");
+        return response;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(AsyncEchoBenchmark.class.getSimpleName())
+            .warmupIterations(5)
+            .measurementIterations(5)
+            .forks(1)
+            .threads(1)
+            .addProfiler("gc")
+            .build();
+
+        new Runner(opt).run();
+    }
+}
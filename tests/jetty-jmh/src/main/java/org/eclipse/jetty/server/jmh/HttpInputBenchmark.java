@@ -0,0 +1,128 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server.jmh;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.server.HttpChannel;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpInput;
+import org.eclipse.jetty.server.LocalConnector;
+import org.eclipse.jetty.server.Server;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Measures consuming queued request content chunks, as an HTTP/2 upload queues them,
+ * either copied with {@link HttpInput#read(byte[], int, int)} or taken, without copying,
+ * with {@link HttpInput#readContent(java.util.Collection)}.</p>
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class HttpInputBenchmark
+{
+    @Param({"1", "16"})
+    int chunks;
+
+    @Param({"16384"})
+    int chunkSize;
+
+    private HttpInput input;
+    private ByteBuffer[] buffers;
+    private byte[] array;
+    private final List<HttpInput.Content> contents = new ArrayList<>();
+
+    @Setup
+    public void setUp()
+    {
+        HttpChannel channel = new HttpChannel(new LocalConnector(new Server()), new HttpConfiguration(), null, null);
+        input = channel.getRequest().getHttpInput();
+        buffers = new ByteBuffer[chunks];
+        for (int i = 0; i < chunks; i++)
+        {
+            buffers[i] = ByteBuffer.allocate(chunkSize);
+        }
+        array = new byte[chunkSize];
+    }
+
+    private void addContent()
+    {
+        for (ByteBuffer buffer : buffers)
+        {
+            buffer.clear();
+            input.addContent(new HttpInput.Content(buffer));
+        }
+    }
+
+    @Benchmark
+    public void read(Blackhole blackhole) throws IOException
+    {
+        addContent();
+        for (int i = chunks * chunkSize; i > 0; )
+        {
+            int read = input.read(array, 0, array.length);
+            blackhole.consume(array);
+            i -= read;
+        }
+    }
+
+    @Benchmark
+    public void readContent(Blackhole blackhole) throws IOException
+    {
+        addContent();
+        contents.clear();
+        input.readContent(contents);
+        for (HttpInput.Content content : contents)
+        {
+            ByteBuffer buffer = content.getByteBuffer();
+            blackhole.consume(buffer);
+            buffer.position(buffer.limit());
+            content.succeeded();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(HttpInputBenchmark.class.getSimpleName())
+            .warmupIterations(5)
+            .measurementIterations(5)
+            .forks(1)
+            .threads(1)
+            .addProfiler("gc")
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,154 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server.jmh;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.LocalConnector;
+import org.eclipse.jetty.server.ProxyConnectionFactory;
+import org.eclipse.jetty.server.ProxyCustomizer;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.TypeUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Measures the rate of connections that carry a PROXY protocol header
+ * followed by a single request, compared to connections without it.</p>
+ */
+@State(Scope.Benchmark)
+@Threads(4)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class ProxyProtocolBenchmark
+{
+    private static final String REQUEST =
+        "GET / HTTP/1.1\r\n" +
+            "Host: localhost\r\n" +
+            "Connection: close\r\n" +
+            "\r\n";
+
+    @Param({"NONE", "V1", "V2", "V2_TLV"})
+    String proxy;
+
+    Server server;
+    LocalConnector connector;
+    ByteBuffer connection;
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        server = new Server();
+        HttpConnectionFactory http = new HttpConnectionFactory();
+        http.getHttpConfiguration().addCustomizer(new ProxyCustomizer());
+        if ("NONE".equals(proxy))
+            connector = new LocalConnector(server, http);
+        else
+            connector = new LocalConnector(server, null, null, null, 1, new ProxyConnectionFactory(), http);
+        server.addConnector(connector);
+        server.setHandler(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request jettyRequest, HttpServletRequest request, HttpServletResponse response)
+            {
+                jettyRequest.setHandled(true);
+            }
+        });
+        server.start();
+
+        ByteBuffer buffer = BufferUtil.allocate(1024);
+        BufferUtil.flipToFill(buffer);
+        switch (proxy)
+        {
+            case "NONE":
+                break;
+            case "V1":
+                buffer.put("PROXY TCP4 192.168.0.1 127.0.0.1 12345 8080\r\n".getBytes(StandardCharsets.US_ASCII));
+                break;
+            case "V2":
+                buffer.put(TypeUtil.fromHexString("0D0A0D0A000D0A515549540A" + "21" + "11" + "000C" +
+                    "C0A80001" + "7F000001" + "3039" + "1F90"));
+                break;
+            case "V2_TLV":
+                // ALPN "h2" and PP2_TYPE_SSL with PP2_SUBTYPE_SSL_VERSION "TLSv1.3".
+                buffer.put(TypeUtil.fromHexString("0D0A0D0A000D0A515549540A" + "21" + "11" + "0023" +
+                    "C0A80001" + "7F000001" + "3039" + "1F90" +
+                    "0100026832" +
+                    "20000F" + "01" + "00000000" + "210007544C5376312E33"));
+                break;
+            default:
+                throw new IllegalStateException("Unknown proxy Parameter");
+        }
+        buffer.put(REQUEST.getBytes(StandardCharsets.US_ASCII));
+        BufferUtil.flipToFlush(buffer, 0);
+        connection = buffer;
+
+        if (!BufferUtil.toString(testConnection(), StandardCharsets.ISO_8859_1).startsWith("HTTP/1.1 200 "))
+            throw new IllegalStateException("Bad response for " + proxy);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception
+    {
+        server.stop();
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public ByteBuffer testConnection()
+    {
+        LocalConnector.LocalEndPoint endPoint = connector.connect();
+        endPoint.addInput(connection.slice());
+        endPoint.waitUntilClosed();
+        return endPoint.takeOutput();
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(ProxyProtocolBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,156 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server.jmh;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.util.IO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Measures the connection accept rate and the small request throughput of a
+ * {@link ServerConnector}, with a single listen socket or with a SO_REUSEPORT
+ * listen socket per selector.</p>
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class ServerConnectorBenchmark
+{
+    private static final byte[] REQUEST = ("GET / HTTP/1.1\r\n" +
+        "Host: localhost\r\n" +
+        "\r\n").getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] CLOSE_REQUEST = ("GET / HTTP/1.1\r\n" +
+        "Host: localhost\r\n" +
+        "Connection: close\r\n" +
+        "\r\n").getBytes(StandardCharsets.ISO_8859_1);
+
+    @Param({"false", "true"})
+    boolean reusePort;
+
+    private Server server;
+    private ServerConnector connector;
+    private Socket socket;
+    private int responseLength;
+    private final byte[] response = new byte[1024];
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        server = new Server();
+        HttpConfiguration config = new HttpConfiguration();
+        config.setSendDateHeader(false);
+        config.setSendServerVersion(false);
+        connector = new ServerConnector(server, 0, 2, new HttpConnectionFactory(config));
+        connector.setReusePort(reusePort);
+        server.addConnector(connector);
+        server.setHandler(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException
+            {
+                baseRequest.setHandled(true);
+                response.setContentLength(2);
+                response.getOutputStream().write(new byte[]{'O', 'K'});
+            }
+        });
+        server.start();
+
+        // The response has a fixed length, as there is no Date header.
+        socket = new Socket("localhost", connector.getLocalPort());
+        socket.setTcpNoDelay(true);
+        socket.getOutputStream().write(REQUEST);
+        responseLength = socket.getInputStream().read(response);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception
+    {
+        socket.close();
+        server.stop();
+    }
+
+    private void readResponse(InputStream input) throws IOException
+    {
+        int length = 0;
+        while (length < responseLength)
+        {
+            int read = input.read(response, length, responseLength - length);
+            if (read < 0)
+                throw new IOException("EOF");
+            length += read;
+        }
+    }
+
+    @Benchmark
+    public void accept() throws IOException
+    {
+        try (Socket client = new Socket("localhost", connector.getLocalPort()))
+        {
+            OutputStream output = client.getOutputStream();
+            output.write(CLOSE_REQUEST);
+            IO.copy(client.getInputStream(), IO.getNullStream());
+        }
+    }
+
+    @Benchmark
+    public void request() throws IOException
+    {
+        socket.getOutputStream().write(REQUEST);
+        readResponse(socket.getInputStream());
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(ServerConnectorBenchmark.class.getSimpleName())
+            .warmupIterations(5)
+            .measurementIterations(5)
+            .forks(1)
+            .threads(1)
+            .addProfiler("gc")
+            .build();
+
+        new Runner(opt).run();
+    }
+}
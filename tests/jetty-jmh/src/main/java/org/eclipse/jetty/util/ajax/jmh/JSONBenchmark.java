@@ -0,0 +1,162 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.ajax.jmh;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.MappedByteBufferPool;
+import org.eclipse.jetty.util.ajax.AsyncJSON;
+import org.eclipse.jetty.util.ajax.JSON;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Compares parsing a UTF-8 JSON body by first converting it to a
+ * {@code String} with parsing it incrementally from the chunks of
+ * bytes as they would be read from the network, and compares generating
+ * JSON to a {@code String} then encoding it with generating UTF-8 bytes
+ * directly into pooled buffers.</p>
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class JSONBenchmark
+{
+    private static final int CHUNK_SIZE = 4096;
+
+    private final JSON json = new JSON();
+    private final AsyncJSON parser = new AsyncJSON(json);
+    private final ByteBufferPool pool = new MappedByteBufferPool();
+    private List<ByteBuffer> chunks;
+    private Map<String, Object> object;
+
+    @Setup
+    public void setUp()
+    {
+        List<Object> messages = new ArrayList<>();
+        for (int i = 0; i < 100; ++i)
+        {
+            Map<String, Object> data = new HashMap<>();
+            data.put("id", i);
+            data.put("user", "user-" + i);
+            data.put("text", "Hello, world! Ça va? 你好 " + i);
+            data.put("price", i * 1.25D);
+            data.put("read", i % 2 == 0);
+            data.put("tags", new Object[]{"a", "b", "c"});
+            Map<String, Object> message = new HashMap<>();
+            message.put("channel", "/chat/room" + (i % 10));
+            message.put("clientId", "31b4a8c7d9e2f0" + i);
+            message.put("data", data);
+            messages.add(message);
+        }
+        object = new HashMap<>();
+        object.put("messages", messages.toArray());
+
+        byte[] bytes = json.toJSON(object).getBytes(StandardCharsets.UTF_8);
+        chunks = new ArrayList<>();
+        for (int offset = 0; offset < bytes.length; offset += CHUNK_SIZE)
+        {
+            int length = Math.min(CHUNK_SIZE, bytes.length - offset);
+            ByteBuffer chunk = ByteBuffer.allocate(length);
+            chunk.put(bytes, offset, length).flip();
+            chunks.add(chunk);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object testParseString()
+    {
+        // Aggregate the chunks, as done today before calling JSON.
+        int length = chunks.stream().mapToInt(ByteBuffer::remaining).sum();
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        for (ByteBuffer chunk : chunks)
+        {
+            int remaining = chunk.remaining();
+            chunk.duplicate().get(bytes, offset, remaining);
+            offset += remaining;
+        }
+        return json.fromJSON(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object testParseAsync()
+    {
+        for (ByteBuffer chunk : chunks)
+        {
+            parser.parse(chunk.duplicate());
+        }
+        return parser.complete();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object testGenerateString()
+    {
+        return json.toJSON(object).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void testGenerateByteBuffers(Blackhole blackhole)
+    {
+        List<ByteBuffer> buffers = json.toJSON(object, pool, false);
+        for (ByteBuffer buffer : buffers)
+        {
+            blackhole.consume(buffer);
+            pool.release(buffer);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(JSONBenchmark.class.getSimpleName())
+            .addProfiler("gc")
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
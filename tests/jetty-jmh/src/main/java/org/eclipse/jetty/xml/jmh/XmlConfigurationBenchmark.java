@@ -0,0 +1,140 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.xml.jmh;
+
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.resource.Resource;
+import org.eclipse.jetty.xml.XmlConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Measures applying XML configurations similar to those of the modules
+ * of a jetty-home, with and without the cache of parsed configurations.</p>
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class XmlConfigurationBenchmark
+{
+    private static final String MODULE =
+        "  <New id=\"httpConfig%1$d\" class=\"org.eclipse.jetty.server.HttpConfiguration\">\n" +
+        "    <Set name=\"secureScheme\">https</Set>\n" +
+        "    <Set name=\"securePort\"><Property name=\"jetty.httpConfig.securePort\" default=\"8443\"/></Set>\n" +
+        "    <Set name=\"outputBufferSize\">32768</Set>\n" +
+        "    <Set name=\"requestHeaderSize\">8192</Set>\n" +
+        "    <Set name=\"sendServerVersion\">true</Set>\n" +
+        "    <Set name=\"sendDateHeader\">false</Set>\n" +
+        "    <Call name=\"addCustomizer\"><Arg><New class=\"org.eclipse.jetty.server.ForwardedRequestCustomizer\"/></Arg></Call>\n" +
+        "  </New>\n" +
+        "  <Call name=\"addConnector\">\n" +
+        "    <Arg>\n" +
+        "      <New class=\"org.eclipse.jetty.server.ServerConnector\">\n" +
+        "        <Arg name=\"server\"><Ref refid=\"Server\"/></Arg>\n" +
+        "        <Arg name=\"acceptors\" type=\"int\">1</Arg>\n" +
+        "        <Arg name=\"selectors\" type=\"int\">1</Arg>\n" +
+        "        <Arg name=\"factories\">\n" +
+        "          <Array type=\"org.eclipse.jetty.server.ConnectionFactory\">\n" +
+        "            <Item><New class=\"org.eclipse.jetty.server.HttpConnectionFactory\"><Arg name=\"config\"><Ref refid=\"httpConfig%1$d\"/></Arg></New></Item>\n" +
+        "          </Array>\n" +
+        "        </Arg>\n" +
+        "        <Set name=\"host\">localhost</Set>\n" +
+        "        <Set name=\"port\">%1$d</Set>\n" +
+        "        <Set name=\"idleTimeout\">30000</Set>\n" +
+        "        <Set name=\"acceptQueueSize\">0</Set>\n" +
+        "      </New>\n" +
+        "    </Arg>\n" +
+        "  </Call>\n" +
+        "  <Call name=\"setAttribute\"><Arg>module%1$d</Arg><Arg type=\"int\">%1$d</Arg></Call>\n" +
+        "  <Set name=\"stopAtShutdown\">true</Set>\n" +
+        "  <Set name=\"stopTimeout\">5000</Set>\n";
+
+    @Param({"false", "true"})
+    boolean parseCache;
+
+    @Param({"20"})
+    int modules;
+
+    Path dir;
+    Resource xml;
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        XmlConfiguration.setDefaultUseParseCache(parseCache);
+        dir = Files.createTempDirectory("xml-jmh");
+        Path file = dir.resolve("jetty.xml");
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8))
+        {
+            writer.write("<?xml version=\"1.0\"?>\n");
+            writer.write("<!DOCTYPE Configure PUBLIC \"-//Jetty//Configure//EN\" \"https://www.eclipse.org/jetty/configure_10_0.dtd\">\n");
+            writer.write("<Configure id=\"Server\" class=\"org.eclipse.jetty.server.Server\">\n");
+            for (int i = 0; i < modules; ++i)
+            {
+                writer.write(String.format(MODULE, i));
+            }
+            writer.write("</Configure>\n");
+        }
+        xml = Resource.newResource(file);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        XmlConfiguration.setDefaultUseParseCache(false);
+        IO.delete(dir.toFile());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object testConfigure() throws Exception
+    {
+        return new XmlConfiguration(xml).configure();
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(XmlConfigurationBenchmark.class.getSimpleName())
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}